@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
+import org.eclipse.cdt.core.model.ILanguage;
+import org.eclipse.cdt.core.parser.FileContent;
+import org.eclipse.cdt.core.parser.NullLogService;
+import org.eclipse.cdt.core.parser.ScannerInfo;
+import org.eclipse.cdt.core.parser.tests.scanner.FileCodeReaderFactory;
+
+/**
+ * Measures the memory retained by the asts of a set of C++ source files and the time spent for
+ * garbage collection while creating them. The asts are created with the options used by the
+ * indexer, the file location of every name is requested once. To compare with the memory used
+ * when the nodes cache their locations, run the test a second time with -Dcache.locations=true.
+ * Usage: ASTMemoryUsageTest [-I include-directory]... source-file...
+ */
+public class ASTMemoryUsageTest {
+	private static final int RUNS= 3;
+
+	public static void main(String[] args) {
+		try {
+			List<String> includes= new ArrayList<String>();
+			List<String> files= new ArrayList<String>();
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-I") && i + 1 < args.length) {
+					includes.add(args[++i]);
+				} else if (args[i].startsWith("-I")) {
+					includes.add(args[i].substring(2));
+				} else {
+					files.add(args[i]);
+				}
+			}
+			new ASTMemoryUsageTest().runTest(files, includes.toArray(new String[includes.size()]));
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+
+	private void runTest(List<String> files, String[] includes) throws Exception {
+		final ScannerInfo scannerInfo= new ScannerInfo(null, includes);
+		int options= ILanguage.OPTION_IS_SOURCE_UNIT | ILanguage.OPTION_NO_IMAGE_LOCATIONS
+				| ILanguage.OPTION_SKIP_TRIVIAL_EXPRESSIONS_IN_AGGREGATE_INITIALIZERS;
+		if (!Boolean.getBoolean("cache.locations")) {
+			options |= ILanguage.OPTION_NO_CACHED_LOCATIONS;
+		}
+		for (int i = 0; i < RUNS; i++) {
+			List<IASTTranslationUnit> asts= new ArrayList<IASTTranslationUnit>();
+			final int[] names= {0};
+			long before= usedMemory();
+			long gcTime= -gcTime();
+			long start= System.nanoTime();
+			for (String file : files) {
+				IASTTranslationUnit tu= GPPLanguage.getDefault().getASTTranslationUnit(
+						FileContent.createForExternalFileLocation(file), scannerInfo,
+						FileCodeReaderFactory.getInstance(), null, options, new NullLogService());
+				tu.accept(new ASTVisitor(true) {
+					@Override
+					public int visit(IASTName name) {
+						name.getFileLocation();
+						names[0]++;
+						return PROCESS_CONTINUE;
+					}
+				});
+				asts.add(tu);
+			}
+			long time= System.nanoTime() - start;
+			gcTime += gcTime();
+			long retained= usedMemory() - before;
+			System.out.println("Run " + (i + 1) + ": " + names[0] + " names, " + time / 1000000 + " ms, gc "
+					+ gcTime + " ms, " + retained / asts.size() / 1024 + " KB per ast");
+			asts.clear();
+		}
+	}
+
+	private static long usedMemory() throws InterruptedException {
+		final Runtime runtime= Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long gcTime() {
+		long result= 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			result += Math.max(0, bean.getCollectionTime());
+		}
+		return result;
+	}
+}
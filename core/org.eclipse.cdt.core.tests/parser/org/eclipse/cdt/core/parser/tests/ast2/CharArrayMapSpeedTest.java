@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cdt.core.parser.util.CharArrayMap;
+import org.eclipse.cdt.core.parser.util.CharArrayObjectMap;
+
+/**
+ * Compares the speed of the maps with char array keys with a {@link HashMap} using strings.
+ * The identifiers of the given files are used as keys, the identifiers are looked up in the order
+ * of their occurrence, as slices of the file content and as separate arrays. Without files,
+ * synthetic identifiers are used.
+ * Usage: CharArrayMapSpeedTest [source-file]...
+ */
+public class CharArrayMapSpeedTest {
+	private static final int RUNS= 10;
+	private static final int LOOKUPS_PER_RUN= 5000000;
+
+	public static void main(String[] args) {
+		try {
+			new CharArrayMapSpeedTest().runTest(args);
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+
+	private char[] fContent;
+	private int[] fStarts;
+	private int[] fLengths;
+	private char[][] fIdentifiers;
+
+	private void runTest(String[] files) throws IOException {
+		StringBuilder buf= new StringBuilder();
+		if (files.length == 0) {
+			for (int i = 0; i < 20000; i++) {
+				buf.append("identifier_").append(i % 3000).append(" (");
+			}
+		}
+		for (String file : files) {
+			Reader reader= new FileReader(new File(file));
+			try {
+				char[] chunk= new char[8192];
+				int n;
+				while ((n= reader.read(chunk)) >= 0) {
+					buf.append(chunk, 0, n);
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		fContent= buf.toString().toCharArray();
+		collectIdentifiers();
+		System.out.println(fIdentifiers.length + " identifiers");
+
+		for (int i = 0; i < RUNS; i++) {
+			System.out.println("Run " + (i + 1) + ": CharArrayMap " + measureCharArrayMap()
+					+ ", CharArrayObjectMap " + measureCharArrayObjectMap()
+					+ ", HashMap " + measureHashMap());
+		}
+	}
+
+	private void collectIdentifiers() {
+		List<int[]> slices= new ArrayList<int[]>();
+		int start= -1;
+		for (int i = 0; i <= fContent.length; i++) {
+			char c= i < fContent.length ? fContent[i] : ' ';
+			boolean part= Character.isJavaIdentifierPart(c) && c != '$';
+			if (start < 0) {
+				if (part && !Character.isDigit(c))
+					start= i;
+			} else if (!part) {
+				slices.add(new int[] {start, i - start});
+				start= -1;
+			}
+		}
+		final int count= slices.size();
+		fStarts= new int[count];
+		fLengths= new int[count];
+		fIdentifiers= new char[count][];
+		for (int i = 0; i < count; i++) {
+			int[] slice= slices.get(i);
+			fStarts[i]= slice[0];
+			fLengths[i]= slice[1];
+			fIdentifiers[i]= new String(fContent, slice[0], slice[1]).toCharArray();
+		}
+	}
+
+	/**
+	 * Returns the time for populating the map and for the lookups of arrays and slices. Every
+	 * other identifier is put into the map, such that about half of the lookups fail.
+	 */
+	private String measureCharArrayMap() {
+		final int count= fIdentifiers.length;
+		long time= System.nanoTime();
+		CharArrayMap<Object> map= new CharArrayMap<Object>();
+		for (int i = 0; i < count; i += 2) {
+			map.put(fIdentifiers[i], fIdentifiers[i]);
+		}
+		final long putTime= System.nanoTime() - time;
+
+		int hits= 0;
+		time= System.nanoTime();
+		for (int i = 0, j = 0; i < LOOKUPS_PER_RUN; i++, j= j + 1 < count ? j + 1 : 0) {
+			if (map.get(fIdentifiers[j]) != null)
+				hits++;
+		}
+		final long getTime= System.nanoTime() - time;
+
+		time= System.nanoTime();
+		for (int i = 0, j = 0; i < LOOKUPS_PER_RUN; i++, j= j + 1 < count ? j + 1 : 0) {
+			if (map.get(fContent, fStarts[j], fLengths[j]) != null)
+				hits--;
+		}
+		return format(putTime, getTime, System.nanoTime() - time, hits);
+	}
+
+	private String measureCharArrayObjectMap() {
+		final int count= fIdentifiers.length;
+		long time= System.nanoTime();
+		CharArrayObjectMap<Object> map= new CharArrayObjectMap<Object>(2);
+		for (int i = 0; i < count; i += 2) {
+			map.put(fIdentifiers[i], fIdentifiers[i]);
+		}
+		final long putTime= System.nanoTime() - time;
+
+		int hits= 0;
+		time= System.nanoTime();
+		for (int i = 0, j = 0; i < LOOKUPS_PER_RUN; i++, j= j + 1 < count ? j + 1 : 0) {
+			if (map.get(fIdentifiers[j]) != null)
+				hits++;
+		}
+		final long getTime= System.nanoTime() - time;
+
+		time= System.nanoTime();
+		for (int i = 0, j = 0; i < LOOKUPS_PER_RUN; i++, j= j + 1 < count ? j + 1 : 0) {
+			if (map.get(fContent, fStarts[j], fLengths[j]) != null)
+				hits--;
+		}
+		return format(putTime, getTime, System.nanoTime() - time, hits);
+	}
+
+	private String measureHashMap() {
+		final int count= fIdentifiers.length;
+		long time= System.nanoTime();
+		Map<String, Object> map= new HashMap<String, Object>();
+		for (int i = 0; i < count; i += 2) {
+			map.put(new String(fIdentifiers[i]), fIdentifiers[i]);
+		}
+		final long putTime= System.nanoTime() - time;
+
+		int hits= 0;
+		time= System.nanoTime();
+		for (int i = 0, j = 0; i < LOOKUPS_PER_RUN; i++, j= j + 1 < count ? j + 1 : 0) {
+			if (map.get(new String(fIdentifiers[j])) != null)
+				hits++;
+		}
+		final long getTime= System.nanoTime() - time;
+
+		time= System.nanoTime();
+		for (int i = 0, j = 0; i < LOOKUPS_PER_RUN; i++, j= j + 1 < count ? j + 1 : 0) {
+			if (map.get(new String(fContent, fStarts[j], fLengths[j])) != null)
+				hits--;
+		}
+		return format(putTime, getTime, System.nanoTime() - time, hits);
+	}
+
+	private static String format(long putTime, long getTime, long sliceTime, int hits) {
+		if (hits != 0)
+			throw new IllegalStateException();
+		return "put " + putTime / 1000 + " us, get " + getTime / 1000000 + " ms, get slice "
+				+ sliceTime / 1000000 + " ms";
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,11 +10,18 @@
  *******************************************************************************/
 package org.eclipse.cdt.core.parser.tests.ast2;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 
 import junit.framework.TestCase;
 
@@ -280,6 +287,110 @@ public class CharArrayMapTest extends TestCase {
 	}
 	
 	
+	public void testRemoveAndGrow() {
+		// Keys with many common prefixes, used as slices of a single buffer.
+		StringBuilder buf = new StringBuilder();
+		List<int[]> slices = new ArrayList<int[]>();
+		for (int i = 0; i < 2000; i++) {
+			String key = "k" + (i % 7) + "_" + i;
+			slices.add(new int[] {buf.length(), key.length()});
+			buf.append(key).append(' ');
+		}
+		char[] chars = buf.toString().toCharArray();
+
+		CharArrayMap<Integer> map = new CharArrayMap<Integer>(2);
+		CharArrayMap<Integer> orderedMap = CharArrayMap.createOrderedMap();
+		CharArrayObjectMap<Integer> objectMap = new CharArrayObjectMap<Integer>(2);
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		Random random = new Random(42);
+		for (int round = 0; round < 10000; round++) {
+			int[] slice = slices.get(random.nextInt(slices.size()));
+			String key = new String(chars, slice[0], slice[1]);
+			if (random.nextInt(3) == 0) {
+				Integer value = expected.remove(key);
+				assertEquals(value, map.remove(chars, slice[0], slice[1]));
+				assertEquals(value, orderedMap.remove(chars, slice[0], slice[1]));
+				assertEquals(value, objectMap.remove(chars, slice[0], slice[1]));
+			} else {
+				expected.put(key, round);
+				map.put(chars, slice[0], slice[1], round);
+				orderedMap.put(chars, slice[0], slice[1], round);
+				objectMap.put(chars, slice[0], slice[1], round);
+			}
+			assertEquals(expected.size(), map.size());
+			assertEquals(expected.size(), orderedMap.size());
+			assertEquals(expected.size(), objectMap.size());
+		}
+		for (int[] slice : slices) {
+			String key = new String(chars, slice[0], slice[1]);
+			assertEquals(expected.get(key), map.get(key.toCharArray()));
+			assertEquals(expected.get(key), map.get(chars, slice[0], slice[1]));
+			assertEquals(expected.get(key), objectMap.get(key.toCharArray()));
+			assertEquals(expected.containsKey(key), map.containsKey(chars, slice[0], slice[1]));
+		}
+		Set<String> keys = new HashSet<String>();
+		for (char[] key : map.keys()) {
+			keys.add(String.valueOf(key));
+		}
+		assertEquals(expected.keySet(), keys);
+
+		// The ordered map iterates in the order of the keys.
+		Map<String, Integer> sorted = new TreeMap<String, Integer>(expected);
+		List<String> orderedKeys = new ArrayList<String>();
+		for (char[] key : orderedMap.keys()) {
+			orderedKeys.add(String.valueOf(key));
+		}
+		assertEquals(new ArrayList<String>(sorted.keySet()), orderedKeys);
+		assertEquals(new ArrayList<Integer>(sorted.values()), new ArrayList<Integer>(orderedMap.values()));
+
+		// The keys of a sorted map are found after rehashing.
+		objectMap.sort(new Comparator<Object>() {
+			@Override
+			public int compare(Object o1, Object o2) {
+				return String.valueOf((char[]) o1).compareTo(String.valueOf((char[]) o2));
+			}
+		});
+		for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), objectMap.get(entry.getKey().toCharArray()));
+		}
+	}
+
+	public void testViews() {
+		for (CharArrayMap<Integer> map : Arrays.asList(new CharArrayMap<Integer>(),
+				CharArrayMap.<Integer>createOrderedMap())) {
+			Collection<Integer> values = map.values();
+			assertTrue(values.isEmpty());
+			for (int i = 0; i < 10; i++) {
+				map.put(("key" + i).toCharArray(), i);
+			}
+			// The values are a view of the map.
+			assertEquals(10, values.size());
+			assertTrue(values.contains(7));
+
+			// Remove the odd values via the iterator.
+			for (Iterator<Integer> it = values.iterator(); it.hasNext();) {
+				if (it.next() % 2 == 1) {
+					it.remove();
+				}
+			}
+			assertEquals(5, map.size());
+			assertEquals(new HashSet<Integer>(Arrays.asList(0, 2, 4, 6, 8)), new HashSet<Integer>(values));
+			for (int i = 0; i < 10; i++) {
+				assertEquals(i % 2 == 0, map.containsKey(("key" + i).toCharArray()));
+			}
+
+			// The keys are copies.
+			for (char[] key : map.keys()) {
+				key[0] = 'x';
+			}
+			assertTrue(map.containsKey("key0".toCharArray()));
+			assertFalse(map.containsKey("xey0".toCharArray()));
+
+			values.clear();
+			assertTrue(map.isEmpty());
+		}
+	}
+
 	public void testProperFail() {
 		char[] hello = "hello".toCharArray();
 		CharArrayMap<Integer> map = new CharArrayMap<Integer>();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2010 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -673,5 +673,24 @@ public class DOMLocationTests extends AST2TestBase {
 		
 		assertEquals("test", templateIdName.getRawSignature()); //$NON-NLS-1$
 	}
-	
+
+	public void testFileAndNodeLocationsAreCached() throws Exception {
+		IASTTranslationUnit tu = parse("int a; int b;", ParserLanguage.CPP);
+		IASTSimpleDeclaration[] decls = new IASTSimpleDeclaration[2];
+		decls[0] = (IASTSimpleDeclaration) tu.getDeclarations()[0];
+		decls[1] = (IASTSimpleDeclaration) tu.getDeclarations()[1];
+
+		// Request the two kinds of locations in either order.
+		IASTNodeLocation[] nodeLocations = decls[0].getNodeLocations();
+		IASTFileLocation fileLocation = decls[0].getFileLocation();
+		assertSame(nodeLocations, decls[0].getNodeLocations());
+		assertSame(fileLocation, decls[0].getFileLocation());
+
+		fileLocation = decls[1].getFileLocation();
+		nodeLocations = decls[1].getNodeLocations();
+		assertSame(fileLocation, decls[1].getFileLocation());
+		assertSame(nodeLocations, decls[1].getNodeLocations());
+		assertEquals(7, fileLocation.getNodeOffset());
+		assertEquals(6, fileLocation.getNodeLength());
+	}
 }
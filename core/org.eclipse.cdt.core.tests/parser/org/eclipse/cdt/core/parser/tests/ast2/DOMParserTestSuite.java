@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2009 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -57,6 +57,9 @@ public class DOMParserTestSuite extends TestCase {
 		suite.addTest(ASTInactiveCodeTests.suite());
 		suite.addTest(AccessControlTests.suite());
 		suite.addTest(VariableReadWriteFlagsTest.suite());
+		suite.addTest(FunctionBodyReparserTests.suite());
+		suite.addTest(SemanticsCacheTests.suite());
+		suite.addTest(ParallelNameResolverTests.suite());
 		return suite;
 	}
 }
@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.dom.ast.ASTGenericVisitor;
+import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.ILabel;
+import org.eclipse.cdt.core.dom.ast.IVariable;
+import org.eclipse.cdt.core.dom.ast.gnu.c.GCCLanguage;
+import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
+import org.eclipse.cdt.core.dom.parser.AbstractCLikeLanguage;
+import org.eclipse.cdt.core.model.ILanguage;
+import org.eclipse.cdt.core.parser.FileContent;
+import org.eclipse.cdt.core.parser.IncludeFileContentProvider;
+import org.eclipse.cdt.core.parser.ParserLanguage;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInternalBinding;
+
+/**
+ * Tests for updating an AST by parsing the modified body of a function, only. Each AST that is
+ * updated incrementally is compared with the AST obtained by parsing the modified code from
+ * scratch.
+ */
+public class FunctionBodyReparserTests extends AST2TestBase {
+
+	public static TestSuite suite() {
+		return suite(FunctionBodyReparserTests.class);
+	}
+
+	public FunctionBodyReparserTests() {
+		super();
+	}
+
+	public FunctionBodyReparserTests(String name) {
+		super(name);
+	}
+
+	private IASTTranslationUnit parse(AbstractCLikeLanguage language, String code) throws Exception {
+		return language.getASTTranslationUnit(FileContent.create(TEST_CODE, code.toCharArray()),
+				createScannerInfo(true), IncludeFileContentProvider.getSavedFilesProvider(), null,
+				ILanguage.OPTION_IS_SOURCE_UNIT | ILanguage.OPTION_PARSE_INACTIVE_CODE, NULL_LOG);
+	}
+
+	private IASTTranslationUnit reparse(AbstractCLikeLanguage language, IASTTranslationUnit base,
+			String code) throws Exception {
+		return language.getIncrementalASTTranslationUnit(base,
+				FileContent.create(TEST_CODE, code.toCharArray()), createScannerInfo(true),
+				IncludeFileContentProvider.getSavedFilesProvider(), null,
+				ILanguage.OPTION_IS_SOURCE_UNIT | ILanguage.OPTION_PARSE_INACTIVE_CODE, NULL_LOG);
+	}
+
+	private AbstractCLikeLanguage getLanguage(ParserLanguage lang) {
+		return lang == ParserLanguage.CPP ? GPPLanguage.getDefault() : GCCLanguage.getDefault();
+	}
+
+	/**
+	 * Describes all nodes of the AST together with their locations and the bindings
+	 * of the names, including the types of variables.
+	 */
+	private String describe(final IASTTranslationUnit tu) {
+		final StringBuilder buf= new StringBuilder();
+		ASTGenericVisitor visitor= new ASTGenericVisitor(true) {
+			{
+				includeInactiveNodes= true;
+				shouldVisitImplicitNames= true;
+			}
+
+			@Override
+			protected int genericVisit(IASTNode node) {
+				buf.append(node.getClass().getSimpleName());
+				IASTFileLocation loc= node.getFileLocation();
+				if (loc != null) {
+					buf.append(' ').append(loc.getNodeOffset()).append('/').append(loc.getNodeLength());
+					buf.append(" lines ").append(loc.getStartingLineNumber()).append('-');
+					buf.append(loc.getEndingLineNumber());
+				}
+				if (node instanceof IASTName) {
+					IBinding binding= ((IASTName) node).resolveBinding();
+					buf.append(' ').append(node);
+					if (binding != null) {
+						buf.append(' ').append(binding.getClass().getSimpleName());
+						if (binding instanceof IVariable) {
+							buf.append(' ').append(ASTTypeUtil.getType(((IVariable) binding).getType()));
+						}
+						if (binding instanceof ILabel) {
+							// Labels are not found by getDeclarationsInAST(), describe the defining name.
+							IASTNode def= binding instanceof ICPPInternalBinding ?
+									((ICPPInternalBinding) binding).getDefinition() :
+									((ILabel) binding).getLabelStatement();
+							if (def != null) {
+								buf.append(" label ").append(def.getFileLocation().getNodeOffset());
+							}
+						}
+						for (IASTName decl : tu.getDeclarationsInAST(binding)) {
+							buf.append(' ').append(decl.getFileLocation().getNodeOffset());
+						}
+					}
+				}
+				buf.append('\n');
+				return PROCESS_CONTINUE;
+			}
+		};
+		tu.accept(visitor);
+		return buf.toString();
+	}
+
+	private void checkReparse(ParserLanguage lang, boolean expectIncremental) throws Exception {
+		CharSequence[] contents= getContents(2);
+		final String code= contents[0].toString();
+		final String newCode= contents[1].toString();
+		AbstractCLikeLanguage language= getLanguage(lang);
+
+		IASTTranslationUnit base= parse(language, code);
+		// Resolve the bindings, as it is done for an AST that is shown in an editor.
+		final String baseDescription= describe(base);
+		IASTTranslationUnit ast= reparse(language, base, newCode);
+		if (!expectIncremental) {
+			assertNull(ast);
+			assertEquals(baseDescription, describe(base));
+			assertEquals(describe(parse(language, code)), describe(base));
+			return;
+		}
+		assertSame(base, ast);
+		assertTrue(ast.isFrozen());
+		assertEquals(describe(parse(language, newCode)), describe(ast));
+	}
+
+	//	int x;
+	//	void f() {
+	//		x= 1;
+	//	}
+	//	int g() { return x; }
+
+	//	int x;
+	//	void f() {
+	//		int y= x;
+	//		x= y + 1;
+	//	}
+	//	int g() { return x; }
+	public void testModifiedBody_C() throws Exception {
+		checkReparse(ParserLanguage.C, true);
+	}
+
+	//	struct A {
+	//		int m() { return fm; }
+	//		int fm;
+	//	};
+	//	int x;
+	//	void f() {
+	//		x= 1;
+	//	}
+	//	int g() { A a; return x + a.m(); }
+
+	//	struct A {
+	//		int m() { return fm; }
+	//		int fm;
+	//	};
+	//	int x;
+	//	void f() {
+	//		A a;
+	//		x= a.m();
+	//		A * b;
+	//	}
+	//	int g() { A a; return x + a.m(); }
+	public void testModifiedBody_CPP() throws Exception {
+		checkReparse(ParserLanguage.CPP, true);
+	}
+
+	//	struct A {
+	//		int m() { return fm; }
+	//		int fm;
+	//	};
+	//	int g() { A a; return a.m(); }
+
+	//	struct A {
+	//		int m() { return fm + 1; }
+	//		int fm;
+	//	};
+	//	int g() { A a; return a.m(); }
+	public void testModifiedMethodBody() throws Exception {
+		checkReparse(ParserLanguage.CPP, true);
+	}
+
+	//	#define ONE 1
+	//	int x;
+	//	void f() {
+	//		x= ONE;
+	//	}
+	//	#define TWO 2
+	//	int g() { return x + TWO; }
+
+	//	#define ONE 1
+	//	int x;
+	//	void f() {
+	//		x= ONE + ONE;
+	//	}
+	//	#define TWO 2
+	//	int g() { return x + TWO; }
+	public void testMacroExpansionInBody() throws Exception {
+		checkReparse(ParserLanguage.CPP, true);
+	}
+
+	//	namespace ns {
+	//		template<typename T> T f(T t) {
+	//			return t;
+	//		}
+	//		int g() { return f(1); }
+	//	}
+	//	int h() { return ns::g() + ns::f(2); }
+
+	//	namespace ns {
+	//		template<typename T> T f(T t) {
+	//			T r= t;
+	//
+	//			return r;
+	//		}
+	//		int g() { return f(1); }
+	//	}
+	//	int h() { return ns::g() + ns::f(2); }
+	public void testTemplateInNamespace() throws Exception {
+		checkReparse(ParserLanguage.CPP, true);
+	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//		i++;
+	//	end:
+	//		return;
+	//	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//	again:
+	//		if (i++ < 3)
+	//			goto again;
+	//	end:
+	//		return;
+	//	}
+	public void testAddedLabel_C() throws Exception {
+		checkReparse(ParserLanguage.C, true);
+	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//		i++;
+	//	end:
+	//		return;
+	//	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto done;
+	//		i++;
+	//	done:
+	//		return;
+	//	}
+	public void testRenamedLabel_C() throws Exception {
+		checkReparse(ParserLanguage.C, true);
+	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//		i++;
+	//	end:
+	//		return;
+	//	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//		i++;
+	//		return;
+	//	}
+	public void testDeletedLabel_C() throws Exception {
+		checkReparse(ParserLanguage.C, true);
+	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//		i++;
+	//	end:
+	//		return;
+	//	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//	again:
+	//		if (i++ < 3)
+	//			goto again;
+	//	end:
+	//		return;
+	//	}
+	public void testAddedLabel_CPP() throws Exception {
+		checkReparse(ParserLanguage.CPP, true);
+	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//		i++;
+	//	end:
+	//		return;
+	//	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto done;
+	//		i++;
+	//	done:
+	//		return;
+	//	}
+	public void testRenamedLabel_CPP() throws Exception {
+		checkReparse(ParserLanguage.CPP, true);
+	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//		i++;
+	//	end:
+	//		return;
+	//	}
+
+	//	void f(int i) {
+	//		if (i)
+	//			goto end;
+	//		i++;
+	//		return;
+	//	}
+	public void testDeletedLabel_CPP() throws Exception {
+		checkReparse(ParserLanguage.CPP, true);
+	}
+
+	//	int x;
+	//	void f() {
+	//		x= 1;
+	//	}
+
+	//	int x, y;
+	//	void f() {
+	//		x= 1;
+	//	}
+	public void testModificationOutsideOfBody() throws Exception {
+		checkReparse(ParserLanguage.CPP, false);
+	}
+
+	//	int x;
+	//	void f() {
+	//		x= 1;
+	//	}
+
+	//	int x;
+	//	void f() {
+	//	#define ONE 1
+	//		x= ONE;
+	//	}
+	public void testDirectiveInBody() throws Exception {
+		checkReparse(ParserLanguage.CPP, false);
+	}
+
+	//	int x;
+	//	void f() {
+	//		x= 1;
+	//	}
+	//	void g() {
+	//	}
+
+	//	int x;
+	//	void f() {
+	//		x= 1;
+	//
+	//	void g() {
+	//	}
+	public void testUnbalancedBraces() throws Exception {
+		checkReparse(ParserLanguage.CPP, false);
+	}
+
+	//	constexpr int size() {
+	//		return 2;
+	//	}
+	//	int a[size()];
+
+	//	constexpr int size() {
+	//		return 3;
+	//	}
+	//	int a[size()];
+	public void testConstexprFunctionBody() throws Exception {
+		checkReparse(ParserLanguage.CPP, false);
+	}
+
+	//	struct S {
+	//		constexpr S(int v) : fv(v) {}
+	//		int fv;
+	//	};
+	//	constexpr S s(2);
+	//	int a[s.fv];
+
+	//	struct S {
+	//		constexpr S(int v) : fv(v) { }
+	//		int fv;
+	//	};
+	//	constexpr S s(2);
+	//	int a[s.fv];
+	public void testConstexprConstructorBody() throws Exception {
+		checkReparse(ParserLanguage.CPP, false);
+	}
+
+	//	void f() {
+	//		struct L {
+	//			constexpr int m() { return 1; }
+	//		};
+	//	}
+
+	//	void f() {
+	//		struct L {
+	//			constexpr int m() { return 2; }
+	//		};
+	//	}
+	public void testConstexprFunctionInBody() throws Exception {
+		checkReparse(ParserLanguage.CPP, false);
+	}
+
+	//	void f() {
+	//	}
+	//	int x= __LINE__;
+
+	//	void f() {
+	//
+	//	}
+	//	int x= __LINE__;
+	public void testLineMacroAfterBody() throws Exception {
+		checkReparse(ParserLanguage.CPP, false);
+	}
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IProblemBinding;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.core.parser.ParserLanguage;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.ParallelNameResolver;
+
+/**
+ * Tests for resolving the names of function bodies concurrently. The bindings obtained are
+ * compared with the ones of the same code, resolved on a single thread.
+ */
+public class ParallelNameResolverTests extends AST2TestBase {
+	private static final int FUNCTIONS= 40;
+	private static final int THREADS= 4;
+
+	public static TestSuite suite() {
+		return suite(ParallelNameResolverTests.class);
+	}
+
+	public ParallelNameResolverTests() {
+		super();
+	}
+
+	public ParallelNameResolverTests(String name) {
+		super(name);
+	}
+
+	/**
+	 * Describes the bindings of all names, including the implicit ones.
+	 */
+	private String describe(IASTTranslationUnit tu) {
+		final StringBuilder buf= new StringBuilder();
+		tu.accept(new ASTVisitor() {
+			{
+				shouldVisitNames= true;
+				shouldVisitImplicitNames= true;
+			}
+
+			@Override
+			public int visit(IASTName name) {
+				IBinding binding= name.resolveBinding();
+				IASTFileLocation location= name.getFileLocation();
+				buf.append(location != null ? location.getNodeOffset() : -1).append(' ').append(name);
+				if (binding != null) {
+					buf.append(' ').append(binding.getClass().getSimpleName()).append(' ').append(binding);
+				}
+				buf.append('\n');
+				return PROCESS_CONTINUE;
+			}
+		});
+		return buf.toString();
+	}
+
+	private String createCode(String declarations, String body) {
+		StringBuilder buf= new StringBuilder(declarations);
+		for (int i = 0; i < FUNCTIONS; i++) {
+			buf.append(body.replace("$", String.valueOf(i)));
+		}
+		return buf.toString();
+	}
+
+	private IASTTranslationUnit checkParallelResolution(String code) throws Exception {
+		IASTTranslationUnit tu= parse(code, ParserLanguage.CPP, true, false);
+		assertTrue(ParallelNameResolver.resolveNames(tu, THREADS).isEmpty());
+		assertEquals(describe(parse(code, ParserLanguage.CPP, true, false)), describe(tu));
+		return tu;
+	}
+
+	//	namespace ns {
+	//		template<typename T> struct A {
+	//			T t;
+	//			T get() const { return t; }
+	//			A<T*> ptr() const;
+	//		};
+	//		struct B : A<int> {
+	//			int b;
+	//		};
+	//		int f(int);
+	//		double f(double);
+	//		template<typename T> T g(T t) { return t; }
+	//	}
+	//	using namespace ns;
+
+	//	int fn$(B b, A<char> a) {
+	//		A<short> s;
+	//		A<long> l;
+	//		return f(b.get()) + f(s.t) + g(a.get()) + g(l.ptr().t == 0) + b.b;
+	//	}
+	public void testFunctionBodies() throws Exception {
+		CharSequence[] contents= getContents(2);
+		IASTTranslationUnit tu= checkParallelResolution(createCode(contents[0].toString(), contents[1].toString()));
+
+		// The instances created concurrently are shared by all function bodies.
+		final Map<String, IBinding> instances= new HashMap<String, IBinding>();
+		final Map<IBinding, Object> problems= new IdentityHashMap<IBinding, Object>();
+		tu.accept(new ASTVisitor() {
+			{
+				shouldVisitNames= true;
+			}
+
+			@Override
+			public int visit(IASTName name) {
+				IBinding binding= name.resolveBinding();
+				if (binding instanceof IProblemBinding) {
+					problems.put(binding, name);
+				} else if (binding instanceof ICPPTemplateInstance) {
+					IBinding other= instances.put(binding.toString(), binding);
+					assertTrue(other == null || other == binding);
+				}
+				return PROCESS_CONTINUE;
+			}
+		});
+		assertTrue(problems.isEmpty());
+		assertTrue(instances.containsKey("A <short int>"));
+	}
+
+	//	struct S {
+	//		int m(int p) const { return p; }
+	//	};
+	//	int h(int);
+
+	//	int fn$(int x) {
+	//		struct L {
+	//			int m() { return $; }
+	//		} l;
+	//		auto lambda= [&](int y) { return x + y + l.m(); };
+	//		S s;
+	//		return lambda(s.m(x)) + h(x);
+	//	}
+	public void testLocalClassesAndLambdas() throws Exception {
+		CharSequence[] contents= getContents(2);
+		checkParallelResolution(createCode(contents[0].toString(), contents[1].toString()));
+	}
+
+	//	int g(int);
+	//	extern int v;
+
+	//	int fn$(int x) {
+	//		int g(int);
+	//		extern int v;
+	//		return g(x) + v;
+	//	}
+	public void testLocalRedeclarations() throws Exception {
+		CharSequence[] contents= getContents(2);
+		checkParallelResolution(createCode(contents[0].toString(), contents[1].toString()));
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
+import org.eclipse.cdt.core.model.ILanguage;
+import org.eclipse.cdt.core.parser.FileContent;
+import org.eclipse.cdt.core.parser.NullLogService;
+import org.eclipse.cdt.core.parser.ScannerInfo;
+import org.eclipse.cdt.core.parser.tests.scanner.FileCodeReaderFactory;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticsCache;
+
+/**
+ * Measures the time needed for resolving all names of a set of C++ source files, together with
+ * the hits and misses of the semantics cache. To compare with the time needed without the cache,
+ * run the test a second time with -DCDT_BYPASS_SEMANTICS_CACHE=true.
+ * Usage: SemanticsCacheSpeedTest [-I include-directory]... source-file...
+ */
+public class SemanticsCacheSpeedTest {
+	private static final int RUNS= 5;
+
+	public static void main(String[] args) {
+		try {
+			List<String> includes= new ArrayList<String>();
+			List<String> files= new ArrayList<String>();
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-I") && i + 1 < args.length) {
+					includes.add(args[++i]);
+				} else if (args[i].startsWith("-I")) {
+					includes.add(args[i].substring(2));
+				} else {
+					files.add(args[i]);
+				}
+			}
+			new SemanticsCacheSpeedTest().runTest(files, includes.toArray(new String[includes.size()]));
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+
+	private void runTest(List<String> files, String[] includes) throws Exception {
+		final ScannerInfo scannerInfo= new ScannerInfo(null, includes);
+		SemanticsCache.sTraceStatistics= true;
+		for (int i = 0; i < RUNS; i++) {
+			SemanticsCache.resetStatistics();
+			long parseTime= 0;
+			long resolveTime= 0;
+			final int[] names= {0};
+			for (String file : files) {
+				long start= System.nanoTime();
+				IASTTranslationUnit tu= GPPLanguage.getDefault().getASTTranslationUnit(
+						FileContent.createForExternalFileLocation(file), scannerInfo,
+						FileCodeReaderFactory.getInstance(), null,
+						ILanguage.OPTION_IS_SOURCE_UNIT, new NullLogService());
+				long parsed= System.nanoTime();
+				tu.accept(new ASTVisitor(true) {
+					@Override
+					public int visit(IASTName name) {
+						name.resolveBinding();
+						names[0]++;
+						return PROCESS_CONTINUE;
+					}
+				});
+				resolveTime += System.nanoTime() - parsed;
+				parseTime += parsed - start;
+			}
+			System.out.println("Run " + (i + 1) + ": " + names[0] + " names, parse " + parseTime / 1000000
+					+ " ms, resolve " + resolveTime / 1000000 + " ms");
+		}
+		System.out.println(SemanticsCache.getStatistics());
+	}
+}
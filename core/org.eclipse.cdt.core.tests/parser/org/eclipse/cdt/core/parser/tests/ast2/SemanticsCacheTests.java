@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.dom.ast.IField;
+import org.eclipse.cdt.core.dom.ast.IFunction;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPMethod;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticsCache;
+
+/**
+ * Tests for the cache of conversion sequences and base class lookups that is used for
+ * translation units after their ambiguities have been resolved.
+ */
+public class SemanticsCacheTests extends AST2TestBase {
+	private boolean fTraceStatistics;
+
+	public static TestSuite suite() {
+		return suite(SemanticsCacheTests.class);
+	}
+
+	public SemanticsCacheTests() {
+		super();
+	}
+
+	public SemanticsCacheTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fTraceStatistics= SemanticsCache.sTraceStatistics;
+		SemanticsCache.sTraceStatistics= true;
+		SemanticsCache.resetStatistics();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		SemanticsCache.sTraceStatistics= fTraceStatistics;
+		SemanticsCache.resetStatistics();
+		super.tearDown();
+	}
+
+	private BindingAssertionHelper getAssertionHelper() throws Exception {
+		return new BindingAssertionHelper(getAboveComment(), true);
+	}
+
+	//	struct A {};
+	//	struct B : A {};
+	//	int f(A& a);
+	//	int f(int i);
+	//	int f(double d);
+	//	void test(B b, short s, float x) {
+	//		int r1= f(b), r2= f(s), r3= f(x);
+	//		int r4= f(b), r5= f(s), r6= f(x);
+	//	}
+	public void testOverloadResolution() throws Exception {
+		BindingAssertionHelper bh= getAssertionHelper();
+		IFunction fa= bh.assertNonProblem("f(A&", 1);
+		IFunction fi= bh.assertNonProblem("f(int", 1);
+		IFunction fd= bh.assertNonProblem("f(double", 1);
+		assertSame(fa, bh.assertNonProblem("r1= f(b)", "f"));
+		assertSame(fi, bh.assertNonProblem("r2= f(s)", "f"));
+		assertSame(fd, bh.assertNonProblem("r3= f(x)", "f"));
+		assertSame(fa, bh.assertNonProblem("r4= f(b)", "f"));
+		assertSame(fi, bh.assertNonProblem("r5= f(s)", "f"));
+		assertSame(fd, bh.assertNonProblem("r6= f(x)", "f"));
+		assertTrue(SemanticsCache.getConversionHits() > 0);
+	}
+
+	//	void g(int* p);
+	//	void g(...);
+	//	void test() {
+	//		g(0), g(1), g(0);
+	//	}
+	public void testNullPointerConstant() throws Exception {
+		BindingAssertionHelper bh= getAssertionHelper();
+		IFunction gp= bh.assertNonProblem("g(int*", 1);
+		IFunction ge= bh.assertNonProblem("g(...", 1);
+		assertSame(gp, bh.assertNonProblem("g(0), g(1)", 1));
+		assertSame(ge, bh.assertNonProblem("g(1)", 1));
+		assertSame(gp, bh.assertNonProblem("g(0);", 1));
+	}
+
+	//	struct A {
+	//		int fa;
+	//		void ma();
+	//	};
+	//	struct B : A {};
+	//	struct C : B {
+	//		int fa;
+	//	};
+	//	void test(B b1, B b2, C c) {
+	//		b1.fa; b1.ma();
+	//		b2.fa; b2.ma();
+	//		c.fa; c.ma();
+	//	}
+	public void testBaseClassLookup() throws Exception {
+		BindingAssertionHelper bh= getAssertionHelper();
+		IField fa= bh.assertNonProblem("fa;\n\t\tvoid", 2);
+		ICPPMethod ma= bh.assertNonProblem("ma();\n\t};", 2);
+		IField cfa= bh.assertNonProblem("fa;\n\t};\n\tvoid", 2);
+		assertSame(fa, bh.assertNonProblem("b1.fa", "fa"));
+		assertSame(ma, bh.assertNonProblem("b1.ma", "ma"));
+		assertSame(fa, bh.assertNonProblem("b2.fa", "fa"));
+		assertSame(ma, bh.assertNonProblem("b2.ma", "ma"));
+		assertSame(cfa, bh.assertNonProblem("c.fa", "fa"));
+		assertSame(ma, bh.assertNonProblem("c.ma", "ma"));
+		assertTrue(SemanticsCache.getLookupHits() > 0);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2010, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,7 +22,9 @@ import junit.framework.TestSuite;
 import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
 import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.FileCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.LazyCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.MappedFileCharArray;
 
 public class FileCharArrayTests extends BaseTestCase {
 	
@@ -77,13 +79,76 @@ public class FileCharArrayTests extends BaseTestCase {
 		checkContent(charArray, LazyCharArray.CHUNK_SIZE, charSize);
 		assertEquals(charSize, charArray.getLength());
 		
-		((LazyCharArray) charArray).testClearData();
+		// Aligned files consist of ASCII characters, only.
+		assertEquals(aligned, charArray instanceof MappedFileCharArray);
+		if (charArray instanceof LazyCharArray) {
+			((LazyCharArray) charArray).testClearData();
+		}
 		
 		checkContent(charArray, LazyCharArray.CHUNK_SIZE, charSize);
 		assertEquals(charSize, charArray.getLength());	
 
 	}
 
+	private AbstractCharArray create(String charSet, long timestamp) throws IOException {
+		final FileInputStream inputStream = new FileInputStream(fFile);
+		try {
+			return FileCharArray.create(fFile.getPath(), charSet, inputStream, timestamp, true);
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	public void testSharedContent() throws IOException {
+		createFile(true, LazyCharArray.CHUNK_SIZE);
+		// Contents are shared only while they are made available, e.g. by an indexer task.
+		AbstractCharArray charArray= create("utf-8", 1);
+		assertNotSame(charArray, create("utf-8", 1));
+
+		FileCharArray.SharedContents sharedContents= new FileCharArray.SharedContents();
+		FileCharArray.SharedContents previous= FileCharArray.setSharedContents(sharedContents);
+		try {
+			charArray= create("utf-8", 1);
+			assertSame(charArray, create("utf-8", 1));
+			// Modified file
+			assertNotSame(charArray, create("utf-8", 2));
+			// Content shall not be shared
+			assertNotSame(create("utf-8", 0), create("utf-8", 0));
+
+			sharedContents.clear();
+			assertNotSame(charArray, create("utf-8", 1));
+		} finally {
+			FileCharArray.setSharedContents(previous);
+		}
+		assertNotSame(create("utf-8", 1), create("utf-8", 1));
+	}
+
+	public void testContentsHashOfAsciiFile() throws IOException {
+		createFile(true, LazyCharArray.CHUNK_SIZE + 5);
+		AbstractCharArray charArray= create("utf-8", 0);
+		assertTrue(charArray instanceof MappedFileCharArray);
+		char[] chars= new char[charArray.getLength()];
+		charArray.arraycopy(0, chars, 0, chars.length);
+		assertEquals(new CharArray(chars).getContentsHash(), charArray.getContentsHash());
+	}
+
+	public void testByteOrderMark() throws IOException {
+		fFile= File.createTempFile("data", ".txt");
+		OutputStream out= new FileOutputStream(fFile);
+		try {
+			out.write(new byte[] {(byte) 0xef, (byte) 0xbb, (byte) 0xbf, 'a', 'b'});
+		} finally {
+			out.close();
+		}
+		AbstractCharArray charArray= create("utf-8", 0);
+		assertTrue(charArray instanceof MappedFileCharArray);
+		assertEquals(2, charArray.getLength());
+		assertEquals('a', charArray.get(0));
+		assertEquals('b', charArray.get(1));
+
+		assertFalse(create("iso-8859-1", 0) instanceof MappedFileCharArray);
+	}
+
 	public void checkContent(AbstractCharArray charArray, int from, int to) {
 		for (int i = from; i < to; i++) {
 			assertEquals(i % 127, charArray.get(i));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,7 +19,7 @@ import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
 public class FileCodeReaderFactory extends InternalFileContentProvider {
     private static FileCodeReaderFactory instance;
 
-    private FileCodeReaderFactory() {}
+    FileCodeReaderFactory() {}
     
     @Override
 	public InternalFileContent getContentForInclusion(String path,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2009 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,12 +20,14 @@ import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.parser.ExtendedScannerInfo;
 import org.eclipse.cdt.core.parser.FileContent;
 import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.core.parser.IncludeFileContentProvider;
 import org.eclipse.cdt.core.parser.IToken;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.ParserMode;
 import org.eclipse.cdt.core.parser.ScannerInfo;
 import org.eclipse.cdt.core.testplugin.CProjectHelper;
 import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
 import org.eclipse.cdt.internal.core.pdom.indexer.PDOMNullIndexer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -40,6 +42,7 @@ public class InclusionTests extends PreprocessorTestsBase {
 	}
 
 	private ICProject fProject;
+	private IncludeResolutionCache.Statistics fStatistics= new IncludeResolutionCache.Statistics();
 
 	public InclusionTests() {
 		super();
@@ -57,6 +60,16 @@ public class InclusionTests extends PreprocessorTestsBase {
 		}
 		super.tearDown();
 	}
+
+	@Override
+	protected IncludeFileContentProvider getFileContentProvider() {
+		return new FileCodeReaderFactory() {
+			@Override
+			public IncludeResolutionCache.Statistics getIncludeResolutionStatistics() {
+				return fStatistics;
+			}
+		};
+	}
 	
 	public final static int SIZEOF_TRUTHTABLE = 10;
 
@@ -228,6 +241,86 @@ public class InclusionTests extends PreprocessorTestsBase {
     	validateEOF();
 	}
     
+    public void testIncludeResolutionCache() throws Exception {
+    	IFolder one= importFolder("one");
+    	IFolder two= importFolder("two");
+    	IFolder three= importFolder("three");
+    	importFile("three/foo.h", "int three;\n");
+    	IFile base= importFile("base.cpp", "#include <foo.h>\n#include <missing.h>\n");
+    	String[] path= {
+    			one.getLocation().toOSString(), 
+    			two.getLocation().toOSString(), 
+    			three.getLocation().toOSString()
+    	};
+    	IScannerInfo scannerInfo= new ExtendedScannerInfo(Collections.EMPTY_MAP, path, new String[]{}, null);
+    	FileContent reader= FileContent.create(base);
+    	IncludeResolutionCache.getInstance().clear();
+
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, scannerInfo);
+    	validateToken(IToken.t_int);
+    	validateIdentifier("three");
+    	validateToken(IToken.tSEMI);
+    	validateEOF();
+    	assertEquals(0, fStatistics.getHits());
+    	assertEquals(6, fStatistics.getProbes());
+
+    	// The second time the directories before the resolution are not probed.
+    	fStatistics= new IncludeResolutionCache.Statistics();
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, scannerInfo);
+    	validateToken(IToken.t_int);
+    	validateIdentifier("three");
+    	validateToken(IToken.tSEMI);
+    	validateEOF();
+    	assertEquals(2, fStatistics.getHits());
+    	assertEquals(1, fStatistics.getProbes());
+    	assertEquals(5, fStatistics.getProbesSaved());
+
+    	// Adding a file invalidates the cache.
+    	importFile("two/foo.h", "int two;\n");
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, scannerInfo);
+    	validateToken(IToken.t_int);
+    	validateIdentifier("two");
+    	validateToken(IToken.tSEMI);
+    	validateEOF();
+    }
+
+    public void testIncludeResolutionCacheSubdirectory() throws Exception {
+    	IFolder one= importFolder("one");
+    	IFolder two= importFolder("two");
+    	IFolder three= importFolder("three");
+    	importFolder("two/sub");
+    	importFolder("three/sub");
+    	importFile("three/sub/foo.h", "int three;\n");
+    	IFile base= importFile("base.cpp", "#include <sub/foo.h>\n");
+    	String[] path= {
+    			one.getLocation().toOSString(),
+    			two.getLocation().toOSString(),
+    			three.getLocation().toOSString()
+    	};
+    	IScannerInfo scannerInfo= new ExtendedScannerInfo(Collections.EMPTY_MAP, path, new String[]{}, null);
+    	FileContent reader= FileContent.create(base);
+    	IncludeResolutionCache.getInstance().clear();
+
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, scannerInfo);
+    	validateToken(IToken.t_int);
+    	validateIdentifier("three");
+    	validateToken(IToken.tSEMI);
+    	validateEOF();
+
+    	// Adding a file to a subdirectory does not change the timestamps of the directories
+    	// on the search path, still the resolution must be discarded.
+    	long timestamp= two.getLocation().toFile().lastModified();
+    	importFile("two/sub/foo.h", "int two;\n");
+    	assertEquals(timestamp, two.getLocation().toFile().lastModified());
+    	fStatistics= new IncludeResolutionCache.Statistics();
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, scannerInfo);
+    	validateToken(IToken.t_int);
+    	validateIdentifier("two");
+    	validateToken(IToken.tSEMI);
+    	validateEOF();
+    	assertEquals(0, fStatistics.getHits());
+    }
+
     public void testBug91086() throws Exception {
         IFile inclusion = importFile( "file.h", "#define FOUND 666\n" ); //$NON-NLS-1$ //$NON-NLS-2$
         StringBuffer buffer = new StringBuffer( "#include \"" ); //$NON-NLS-1$
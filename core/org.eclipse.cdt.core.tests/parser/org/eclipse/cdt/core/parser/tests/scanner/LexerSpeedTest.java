@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.scanner;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.internal.core.parser.scanner.ILexerLog;
+import org.eclipse.cdt.internal.core.parser.scanner.Lexer;
+import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
+
+/**
+ * Compares the time and the memory needed for lexing all tokens of a set of headers with the time
+ * and memory needed to skip to the directives of the same headers, as it is done for inactive code.
+ * Usage: LexerSpeedTest [directory], the default directory is /usr/include/c++.
+ */
+public class LexerSpeedTest {
+	private static final int RUNS= 10;
+
+	public static void main(String[] args) {
+		try {
+			File dir= new File(args.length > 0 ? args[0] : "/usr/include/c++");
+			List<char[]> inputs= new ArrayList<char[]>();
+			readFiles(dir, inputs);
+			System.out.println(inputs.size() + " files");
+			new LexerSpeedTest().runTest(inputs, false);
+			new LexerSpeedTest().runTest(inputs, true);
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+
+	private static void readFiles(File dir, List<char[]> result) throws IOException {
+		File[] files= dir.listFiles();
+		if (files == null)
+			return;
+		for (File file : files) {
+			if (file.isDirectory()) {
+				readFiles(file, result);
+			} else {
+				char[] buf= new char[(int) file.length()];
+				FileReader reader= new FileReader(file);
+				try {
+					int len= 0;
+					int n;
+					while (len < buf.length && (n= reader.read(buf, len, buf.length - len)) > 0) {
+						len += n;
+					}
+				} finally {
+					reader.close();
+				}
+				result.add(buf);
+			}
+		}
+	}
+
+	private void runTest(List<char[]> inputs, boolean skip) throws Exception {
+		final LexerOptions options= new LexerOptions();
+		long tokens= 0;
+		long time= 0;
+		long bytes= 0;
+		for (int i = 0; i < RUNS; i++) {
+			tokens= 0;
+			long allocated= getAllocatedBytes();
+			long start= System.nanoTime();
+			for (char[] input : inputs) {
+				Lexer lexer= new Lexer(input, options, ILexerLog.NULL, null);
+				if (skip) {
+					while (lexer.nextDirective().getType() != IToken.tEND_OF_INPUT) {
+						lexer.consumeLine(0);
+						tokens++;
+					}
+				} else {
+					while (lexer.nextToken().getType() != IToken.tEND_OF_INPUT) {
+						tokens++;
+					}
+				}
+			}
+			// The first run is for warming up.
+			if (i > 0) {
+				time += System.nanoTime() - start;
+				bytes += getAllocatedBytes() - allocated;
+			}
+		}
+		final long ms= time / 1000000 / (RUNS - 1);
+		System.out.println((skip ? "Skipping: " : "Lexing:   ") + ms + " millisecs, "
+				+ bytes / (RUNS - 1) / 1024 + " kB allocated"
+				+ (skip ? ", " + tokens + " directives" : ", " + tokens + " tokens"));
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread, or 0 if the virtual machine
+	 * does not provide the information.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean= ManagementFactory.getThreadMXBean();
+		try {
+			Method method= Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+			return (Long) method.invoke(bean, Thread.currentThread().getId());
+		} catch (Exception e) {
+			return 0;
+		}
+	}
+}
@@ -836,4 +836,53 @@ public class LexerTests extends BaseTestCase {
 		token(IToken.tPOUND);
 		eof();
 	}
+
+	public void testNextDirectiveCreatesTokens() throws Exception {
+		init("int a; \n %: define X \n#if");
+		fLexer.nextDirective();
+		Token pound= fLexer.currentToken();
+		assertEquals(IToken.tPOUND, pound.getType());
+		assertEquals(9, pound.getOffset());
+		assertEquals("%:", new String(pound.getCharImage()));
+		assertEquals(8, fLexer.getLastEndOffset());
+		assertTrue(fLexer.currentTokenIsFirstOnLine());
+
+		fLastEndOffset= 9;
+		token(IToken.tPOUND);
+		fLexer.nextDirective();
+		Token pound2= fLexer.currentToken();
+		assertNotSame(pound, pound2);
+		assertEquals(IToken.tPOUND, pound2.getType());
+		assertEquals(22, pound2.getOffset());
+		assertEquals("#", new String(pound2.getCharImage()));
+		assertEquals(22, fLexer.getLastEndOffset());
+		assertEquals(IToken.tPOUND, pound.getType());
+		assertEquals(9, pound.getOffset());
+	}
+
+	public void testConsumeLineCreatesTokens() throws Exception {
+		init("#define X(a) a + \"str\" \nint");
+		token(IToken.tPOUND);
+		assertEquals(22, fLexer.consumeLine(0));
+		assertEquals(22, fLexer.getLastEndOffset());
+		Token t= fLexer.currentToken();
+		assertEquals(Lexer.tNEWLINE, t.getType());
+		assertEquals(23, t.getOffset());
+		fLastEndOffset= 23;
+		nl();
+		id("int");
+
+		// Nothing to consume
+		init("#\nint");
+		token(IToken.tPOUND);
+		assertEquals(1, fLexer.consumeLine(0));
+		nl();
+		id("int");
+		eof();
+
+		init("#error message");
+		token(IToken.tPOUND);
+		assertEquals(14, fLexer.consumeLine(0));
+		eof();
+	}
 }
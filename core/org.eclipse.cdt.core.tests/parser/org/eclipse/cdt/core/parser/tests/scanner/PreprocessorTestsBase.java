@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -75,7 +75,7 @@ public abstract class PreprocessorTestsBase extends BaseTestCase {
 	}
 	
 	protected void initializeScanner(FileContent input, ParserLanguage lang, ParserMode mode, IScannerInfo scannerInfo, IScannerExtensionConfiguration scannerConfig) throws IOException {
-		IncludeFileContentProvider readerFactory= FileCodeReaderFactory.getInstance();
+		IncludeFileContentProvider readerFactory= getFileContentProvider();
 		//IScannerExtensionConfiguration scannerConfig;
 	
 		if(scannerConfig == null) {
@@ -91,6 +91,10 @@ public abstract class PreprocessorTestsBase extends BaseTestCase {
 		fLocationResolver= fScanner.getLocationMap();
 	}
 
+	protected IncludeFileContentProvider getFileContentProvider() {
+		return FileCodeReaderFactory.getInstance();
+	}
+
 	protected void initializeScanner() throws Exception {
 		initializeScanner(getAboveComment());
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 Symbian Software Ltd. and others.
+ * Copyright (c) 2007, 2013 Symbian Software Ltd. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import org.eclipse.cdt.core.dom.ast.IBinding;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
 import org.eclipse.cdt.core.index.IIndexLinkage;
 import org.eclipse.cdt.core.index.IIndexMacro;
+import org.eclipse.cdt.core.index.IIndexNameVisitor;
 import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.parser.ISignificantMacros;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
@@ -100,6 +101,11 @@ public class EmptyIndexFragment implements IIndexFragment {
 		return IIndexFragmentName.EMPTY_NAME_ARRAY;
 	}
 
+	@Override
+	public boolean findNames(IBinding binding, int flags, IIndexNameVisitor visitor) {
+		return true;
+	}
+
 	@Override
 	public IIndexFragmentBinding[] findMacroContainers(Pattern pattern, IndexFilter filter, IProgressMonitor monitor) {
 		return IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.ILinkage;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexManager;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.index.HeaderContentCache;
+import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Tests for sharing the content of headers taken from the index between translation units.
+ */
+public class IndexHeaderContentCacheTest extends BaseTestCase {
+	private static final int SOURCES= 10;
+
+	private ICProject fCProject;
+	private IFile fHeaderA;
+	private IFile fHeaderB;
+
+	public static TestSuite suite() {
+		return suite(IndexHeaderContentCacheTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fCProject= CProjectHelper.createCCProject("__headerCacheTest__", "bin", IPDOMManager.ID_FAST_INDEXER);
+		fHeaderB= TestSourceReader.createFile(fCProject.getProject(), "b.h",
+				"#pragma once\n#define B_VALUE 1\nstruct B {};\n");
+		fHeaderA= TestSourceReader.createFile(fCProject.getProject(), "a.h",
+				"#include \"b.h\"\n#ifdef USE_LONG\ntypedef long AType;\n#else\ntypedef int AType;\n#endif\n");
+		for (int i = 0; i < SOURCES; i++) {
+			StringBuilder source= new StringBuilder();
+			if (i % 3 == 1) {
+				source.append("#define USE_LONG\n");
+			} else if (i % 3 == 2) {
+				// b.h is skipped when a.h is included.
+				source.append("#include \"b.h\"\n");
+			}
+			source.append("#include \"a.h\"\n");
+			source.append("AType func").append(i).append("(B b);\n");
+			source.append("#if B_VALUE == 1\nint bValue").append(i).append(";\n#endif\n");
+			TestSourceReader.createFile(fCProject.getProject(), "source" + i + ".cpp", source.toString());
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		IndexerPreferences.setParserThreads(IndexerPreferences.DEFAULT_PARSER_THREADS);
+		if (fCProject != null) {
+			CProjectHelper.delete(fCProject);
+		}
+		super.tearDown();
+	}
+
+	private void indexProject(int parserThreads) throws Exception {
+		IndexerPreferences.setParserThreads(parserThreads);
+		CCorePlugin.getIndexManager().reindex(fCProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(IIndexManager.FOREVER, npm()));
+	}
+
+	private void checkIndex() throws Exception {
+		IIndex index= CCorePlugin.getIndexManager().getIndex(fCProject);
+		index.acquireReadLock();
+		try {
+			IIndexFile[] files= index.getFiles(ILinkage.CPP_LINKAGE_ID, IndexLocationFactory.getWorkspaceIFL(fHeaderA));
+			assertEquals(2, files.length);
+			files= index.getFiles(ILinkage.CPP_LINKAGE_ID, IndexLocationFactory.getWorkspaceIFL(fHeaderB));
+			assertEquals(1, files.length);
+			for (int i = 0; i < SOURCES; i++) {
+				IBinding[] bindings= index.findBindings(("func" + i).toCharArray(), IndexFilter.ALL_DECLARED, npm());
+				assertEquals(1, bindings.length);
+				// The macro defined in the nested header must be visible in all sources.
+				bindings= index.findBindings(("bValue" + i).toCharArray(), IndexFilter.ALL_DECLARED, npm());
+				assertEquals(1, bindings.length);
+			}
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+
+	public void testSharedHeaderContent() throws Exception {
+		indexProject(1);
+		checkIndex();
+	}
+
+	public void testSharedHeaderContentWithParserThreads() throws Exception {
+		indexProject(4);
+		checkIndex();
+	}
+
+	public void testSharedHeaderContentForEditorParses() throws Exception {
+		indexProject(1);
+		ITranslationUnit tu= (ITranslationUnit) CoreModel.getDefault().create(
+				fCProject.getProject().getFile("source0.cpp"));
+		IIndex index= CCorePlugin.getIndexManager().getIndex(fCProject);
+		HeaderContentCache cache;
+		index.acquireReadLock();
+		try {
+			cache= HeaderContentCache.getCache(index);
+			assertNotNull(cache);
+			assertSame(cache, HeaderContentCache.getCache(index));
+			for (int i = 0; i < 2; i++) {
+				IASTTranslationUnit ast= tu.getAST(index, ITranslationUnit.AST_SKIP_INDEXED_HEADERS);
+				// The declaration of bValue0 depends on the macro from the nested header.
+				assertEquals(2, ast.getDeclarations().length);
+			}
+			assertTrue(cache.getHits() > 0);
+		} finally {
+			index.releaseReadLock();
+		}
+
+		// The cache is discarded when the index is modified.
+		indexProject(1);
+		index= CCorePlugin.getIndexManager().getIndex(fCProject);
+		index.acquireReadLock();
+		try {
+			assertNotSame(cache, HeaderContentCache.getCache(index));
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.cdt.internal.index.tests;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
 import junit.framework.TestSuite;
@@ -483,4 +484,51 @@ public class IndexNamesTests extends BaseTestCase {
 
 		checkReadWriteFlags(file, ILinkage.CPP_LINKAGE_ID, 2);
 	}
+
+	//	class A {};
+	//	class B : public A {};
+	//	class C : public A, public B {};
+	//	void f(A* a, B& b) {}
+	public void testFindBaseSpecifiers() throws Exception {
+		waitForIndexer();
+		String content= getComment();
+		IFile file= createFile(getProject().getProject(), "testFindBaseSpecifiers.cpp", content);
+		waitUntilFileIsIndexed(file, 4000);
+
+		fIndex.acquireReadLock();
+		try {
+			IIndexBinding a= fIndex.findBindings(getPattern("A"), true, IndexFilter.ALL, npm())[0];
+			IIndexName[] names= fIndex.findBaseSpecifiers(a);
+			assertEquals(2, names.length);
+			String[] subClasses= new String[names.length];
+			for (int i = 0; i < names.length; i++) {
+				assertTrue(names[i].isBaseSpecifier());
+				subClasses[i]= names[i].getEnclosingDefinition().toString();
+			}
+			Arrays.sort(subClasses);
+			assertEquals("[B, C]", Arrays.toString(subClasses));
+			// The base specifiers are references, too.
+			assertTrue(Arrays.asList(fIndex.findReferences(a)).containsAll(Arrays.asList(names)));
+		} finally {
+			fIndex.releaseReadLock();
+		}
+
+		// The base specifiers of the previous version of the file have to be removed.
+		file= createFile(getProject().getProject(), "testFindBaseSpecifiers.cpp",
+				content.replace("public A, public B", "public B"));
+		waitUntilFileIsIndexed(file, 4000);
+		fIndex.acquireReadLock();
+		try {
+			IIndexBinding a= fIndex.findBindings(getPattern("A"), true, IndexFilter.ALL, npm())[0];
+			IIndexName[] names= fIndex.findBaseSpecifiers(a);
+			assertEquals(1, names.length);
+			assertEquals("B", names[0].getEnclosingDefinition().toString());
+			IIndexBinding b= fIndex.findBindings(getPattern("B"), true, IndexFilter.ALL, npm())[0];
+			names= fIndex.findBaseSpecifiers(b);
+			assertEquals(1, names.length);
+			assertEquals("C", names[0].getEnclosingDefinition().toString());
+		} finally {
+			fIndex.releaseReadLock();
+		}
+	}
 }
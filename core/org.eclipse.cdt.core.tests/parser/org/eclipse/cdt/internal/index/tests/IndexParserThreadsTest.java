@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.ILinkage;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexManager;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Tests for parsing sources with multiple threads while indexing.
+ */
+public class IndexParserThreadsTest extends BaseTestCase {
+	private static final int PARSER_THREADS= 4;
+
+	private ICProject fCProject;
+	private IFile fHeader;
+
+	public static TestSuite suite() {
+		return suite(IndexParserThreadsTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fCProject= CProjectHelper.createCCProject("__parserThreadsTest__", "bin", IPDOMManager.ID_FAST_INDEXER);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		IndexerPreferences.setParserThreads(IndexerPreferences.DEFAULT_PARSER_THREADS);
+		if (fCProject != null) {
+			CProjectHelper.delete(fCProject);
+		}
+		super.tearDown();
+	}
+
+	private void createSources(int count) throws Exception {
+		StringBuilder header= new StringBuilder();
+		header.append("#pragma once\n");
+		header.append("struct Common { int member; };\n");
+		for (int i = 0; i < 100; i++) {
+			header.append("int commonFunction").append(i).append("(Common* c);\n");
+		}
+		fHeader= TestSourceReader.createFile(fCProject.getProject(), "common.h", header.toString());
+		for (int i = 0; i < count; i++) {
+			StringBuilder source= new StringBuilder();
+			source.append("#include \"common.h\"\n");
+			source.append("int source").append(i).append("(Common* c) {\n");
+			for (int j = 0; j < 100; j++) {
+				source.append("  commonFunction").append(j).append("(c);\n");
+			}
+			source.append("  return c->member;\n}\n");
+			TestSourceReader.createFile(fCProject.getProject(), "source" + i + ".cpp", source.toString());
+		}
+	}
+
+	private long indexProject(int parserThreads) throws Exception {
+		IndexerPreferences.setParserThreads(parserThreads);
+		long start= System.currentTimeMillis();
+		CCorePlugin.getIndexManager().reindex(fCProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(IIndexManager.FOREVER, npm()));
+		return System.currentTimeMillis() - start;
+	}
+
+	private void checkIndex(int sourceCount) throws Exception {
+		IIndex index= CCorePlugin.getIndexManager().getIndex(fCProject);
+		index.acquireReadLock();
+		try {
+			IIndexFile[] files= index.getFiles(ILinkage.CPP_LINKAGE_ID, IndexLocationFactory.getWorkspaceIFL(fHeader));
+			assertEquals(1, files.length);
+			IBinding[] bindings= index.findBindings("commonFunction0".toCharArray(), IndexFilter.ALL_DECLARED, npm());
+			assertEquals(1, bindings.length);
+			assertEquals(sourceCount, index.findReferences(bindings[0]).length);
+			for (int i = 0; i < sourceCount; i++) {
+				bindings= index.findBindings(("source" + i).toCharArray(), IndexFilter.ALL_DECLARED, npm());
+				assertEquals(1, bindings.length);
+			}
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+
+	public void testParallelParsing() throws Exception {
+		createSources(20);
+		indexProject(PARSER_THREADS);
+		checkIndex(20);
+	}
+
+	public void testSameResultAsSequentialParsing() throws Exception {
+		createSources(20);
+		indexProject(1);
+		checkIndex(20);
+		indexProject(PARSER_THREADS);
+		checkIndex(20);
+	}
+
+	public void disabled_testThroughput() throws Exception {
+		final int count= 500;
+		final int threads= Runtime.getRuntime().availableProcessors();
+		createSources(count);
+		indexProject(1);
+		long sequential= indexProject(1);
+		long parallel= indexProject(threads);
+		checkIndex(count);
+		System.out.println(count + " sources, 1 thread: " + count * 1000 / sequential + " files/s, "
+				+ threads + " threads: " + count * 1000 / parallel + " files/s");
+	}
+}
@@ -31,6 +31,8 @@ public class IndexTests extends TestSuite {
 		suite.addTest(TeamSharedIndexTest.suite());
 		suite.addTest(IndexProviderManagerTest.suite());
 		suite.addTest(IndexMultiVariantHeaderTest.suite());
+		suite.addTest(IndexParserThreadsTest.suite());
+		suite.addTest(IndexHeaderContentCacheTest.suite());
 		
 		IndexCPPBindingResolutionBugs.addTests(suite);
 		IndexCPPBindingResolutionTest.addTests(suite);
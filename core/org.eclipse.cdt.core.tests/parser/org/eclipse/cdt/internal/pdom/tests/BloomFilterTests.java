@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.db.BloomFilter;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+/**
+ * Tests for the Bloom filter stored in the database.
+ */
+public class BloomFilterTests extends BaseTestCase {
+	private File fFile;
+	private Database fDatabase;
+	private long fRecord;
+
+	public static Test suite() {
+		return suite(BloomFilterTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fFile= File.createTempFile("bloomfiltertest", "db");
+		fDatabase= new Database(fFile, new ChunkCache(), 0, false);
+		fDatabase.setExclusiveLock();
+		fRecord= fDatabase.malloc(Database.PTR_SIZE);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fDatabase.close();
+		fFile.deleteOnExit();
+		super.tearDown();
+	}
+
+	private static char[] key(String prefix, int i) {
+		return (prefix + i).toCharArray();
+	}
+
+	public void testEmptyFilter() throws Exception {
+		BloomFilter filter= new BloomFilter(fDatabase, fRecord);
+		assertFalse(filter.mightContain("a".toCharArray()));
+		assertFalse(filter.mightContain(new char[0]));
+		assertEquals(0, filter.getKeyCount());
+		assertEquals(0, fDatabase.getRecPtr(fRecord));
+	}
+
+	public void testNoFalseNegatives() throws Exception {
+		final int count= 20000;
+		BloomFilter filter= new BloomFilter(fDatabase, fRecord);
+		for (int i = 0; i < count; i++) {
+			filter.add(key("name", i));
+			if (filter.isOverloaded()) {
+				filter.reset(i + 1);
+				for (int j = 0; j <= i; j++) {
+					filter.add(key("name", j));
+				}
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			assertTrue(filter.mightContain(key("name", i)));
+		}
+
+		// The filter is persisted.
+		filter= new BloomFilter(fDatabase, fRecord);
+		for (int i = 0; i < count; i++) {
+			assertTrue(filter.mightContain(key("name", i)));
+		}
+
+		int falsePositives= 0;
+		for (int i = 0; i < count; i++) {
+			if (filter.mightContain(key("other", i)))
+				falsePositives++;
+		}
+		assertTrue("Too many false positives: " + falsePositives, falsePositives < count / 20);
+	}
+
+	public void testOverload() throws Exception {
+		BloomFilter filter= new BloomFilter(fDatabase, fRecord);
+		int i= 0;
+		while (!filter.isOverloaded()) {
+			filter.add(key("name", i++));
+		}
+		assertEquals(i, filter.getKeyCount());
+		filter.reset(i);
+		assertFalse(filter.isOverloaded());
+		assertEquals(0, filter.getKeyCount());
+		assertFalse(filter.mightContain(key("name", 0)));
+	}
+
+	public void testDelete() throws Exception {
+		BloomFilter filter= new BloomFilter(fDatabase, fRecord);
+		filter.add("a".toCharArray());
+		assertTrue(filter.mightContain("a".toCharArray()));
+		filter.delete();
+		assertEquals(0, fDatabase.getRecPtr(fRecord));
+		assertFalse(filter.mightContain("a".toCharArray()));
+	}
+}
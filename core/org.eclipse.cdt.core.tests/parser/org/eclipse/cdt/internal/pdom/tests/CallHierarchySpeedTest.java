@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.cdt.core.dom.ILinkage;
+import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IFunction;
+import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexLocationConverter;
+import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.model.ILanguage;
+import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.core.parser.NullLogService;
+import org.eclipse.cdt.core.parser.ScannerInfo;
+import org.eclipse.cdt.internal.core.index.IndexFileLocation;
+import org.eclipse.cdt.internal.core.indexer.FileEncodingRegistry;
+import org.eclipse.cdt.internal.core.indexer.ILanguageMapper;
+import org.eclipse.cdt.internal.core.indexer.IStandaloneScannerInfoProvider;
+import org.eclipse.cdt.internal.core.indexer.StandaloneFastIndexer;
+import org.eclipse.cdt.internal.core.pdom.dom.IPDOMLinkageFactory;
+import org.eclipse.cdt.internal.core.pdom.dom.cpp.PDOMCPPLinkageFactory;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Measures the latency of expanding the 'called by' nodes of the call hierarchy. The given C++
+ * files are indexed, then the callers of the most frequently called functions are computed for
+ * several levels. Like the call hierarchy the test finds the references of the callees and
+ * resolves their enclosing definitions, once for every reference and once for every caller.
+ * Usage: CallHierarchySpeedTest [-I include-directory]... source-file...
+ */
+public class CallHierarchySpeedTest {
+	private static final int RUNS= 5;
+	private static final int CALLEES= 20;
+	private static final int LEVELS= 3;
+
+	public static void main(String[] args) {
+		try {
+			List<String> includes= new ArrayList<String>();
+			List<String> files= new ArrayList<String>();
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-I") && i + 1 < args.length) {
+					includes.add(args[++i]);
+				} else if (args[i].startsWith("-I")) {
+					includes.add(args[i].substring(2));
+				} else {
+					files.add(new File(args[i]).getAbsolutePath());
+				}
+			}
+			new CallHierarchySpeedTest().runTest(files, includes.toArray(new String[includes.size()]));
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+
+	private void runTest(List<String> files, String[] includes) throws Exception {
+		final File dbFile= File.createTempFile("callhierarchy", "pdom");
+		dbFile.deleteOnExit();
+		final IScannerInfo scannerInfo= new ScannerInfo(null, includes);
+		Map<String, IPDOMLinkageFactory> linkageFactories= new HashMap<String, IPDOMLinkageFactory>();
+		linkageFactories.put(ILinkage.CPP_LINKAGE_NAME, new PDOMCPPLinkageFactory());
+		StandaloneFastIndexer indexer= new StandaloneFastIndexer(dbFile, new IIndexLocationConverter() {
+			@Override
+			public IIndexFileLocation fromInternalFormat(String raw) {
+				return new IndexFileLocation(URI.create(raw), null);
+			}
+			@Override
+			public String toInternalFormat(IIndexFileLocation location) {
+				return location.getURI().toString();
+			}
+		}, linkageFactories, new IStandaloneScannerInfoProvider() {
+			@Override
+			public IScannerInfo getScannerInformation(String path) {
+				return scannerInfo;
+			}
+			@Override
+			public IScannerInfo getDefaultScannerInformation(int linkageID) {
+				return scannerInfo;
+			}
+		}, new FileEncodingRegistry("UTF-8"), new ILanguageMapper() {
+			@Override
+			public ILanguage getLanguage(String file) {
+				return GPPLanguage.getDefault();
+			}
+		}, new NullLogService());
+
+		long start= System.currentTimeMillis();
+		indexer.rebuild(files, new NullProgressMonitor());
+		System.out.println("Indexed " + files.size() + " files in " + (System.currentTimeMillis() - start) + " ms");
+
+		IIndex index= indexer.getIndex();
+		index.acquireReadLock();
+		try {
+			List<IIndexBinding> callees= findMostCalledFunctions(index);
+			Set<IBinding> level= new HashSet<IBinding>(callees);
+			for (int i = 1; i <= LEVELS && !level.isEmpty(); i++) {
+				int references= 0;
+				for (IBinding callee : level) {
+					references += index.findNames(callee, IIndex.FIND_REFERENCES).length;
+				}
+				Set<IBinding> callers= expand(index, level, true);
+				if (!callers.equals(expand(index, level, false)))
+					throw new IllegalStateException("Level " + i);
+				System.out.println("Level " + i + ": " + level.size() + " callees, " + references
+						+ " references, " + callers.size() + " callers");
+				level= callers;
+			}
+			for (int i = 0; i < RUNS; i++) {
+				StringBuilder buf= new StringBuilder("Run " + (i + 1) + ":");
+				Set<IBinding> perReference= new HashSet<IBinding>(callees);
+				Set<IBinding> perCaller= new HashSet<IBinding>(callees);
+				for (int j = 1; j <= LEVELS; j++) {
+					long time1= System.nanoTime();
+					perReference= expand(index, perReference, false);
+					long time2= System.nanoTime();
+					perCaller= expand(index, perCaller, true);
+					long time3= System.nanoTime();
+					buf.append(" level ").append(j).append(' ').append((time2 - time1) / 1000).append('/')
+							.append((time3 - time2) / 1000).append(" us");
+				}
+				System.out.println(buf);
+			}
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+
+	private List<IIndexBinding> findMostCalledFunctions(IIndex index) throws CoreException {
+		IIndexBinding[] functions= index.findBindings(Pattern.compile(".*"), false, new IndexFilter() {
+			@Override
+			public boolean acceptBinding(IBinding binding) {
+				return binding instanceof IFunction;
+			}
+		}, new NullProgressMonitor());
+		final Map<IIndexBinding, Integer> counts= new HashMap<IIndexBinding, Integer>();
+		for (IIndexBinding function : functions) {
+			counts.put(function, index.findNames(function, IIndex.FIND_REFERENCES).length);
+		}
+		List<IIndexBinding> result= new ArrayList<IIndexBinding>(counts.keySet());
+		Collections.sort(result, new Comparator<IIndexBinding>() {
+			@Override
+			public int compare(IIndexBinding b1, IIndexBinding b2) {
+				return counts.get(b2) - counts.get(b1);
+			}
+		});
+		return result.subList(0, Math.min(CALLEES, result.size()));
+	}
+
+	/**
+	 * Computes the callers of the given functions, the enclosing definitions of the references
+	 * are resolved for every reference or for every caller.
+	 */
+	private Set<IBinding> expand(IIndex index, Collection<IBinding> callees, boolean perCaller)
+			throws CoreException {
+		Set<IBinding> result= new HashSet<IBinding>();
+		Map<IIndexName, IBinding> callers= new HashMap<IIndexName, IBinding>();
+		for (IBinding callee : callees) {
+			for (IIndexName reference : index.findNames(callee, IIndex.FIND_REFERENCES)) {
+				IIndexName definition= reference.getEnclosingDefinition();
+				if (definition != null) {
+					IBinding caller;
+					if (!perCaller) {
+						caller= resolve(index, definition);
+					} else if (callers.containsKey(definition)) {
+						caller= callers.get(definition);
+					} else {
+						caller= resolve(index, definition);
+						callers.put(definition, caller);
+					}
+					if (caller != null) {
+						result.add(caller);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the binding of an enclosing definition and computes the label of a
+	 * call hierarchy node for it.
+	 */
+	private IBinding resolve(IIndex index, IIndexName definition) throws CoreException {
+		IIndexBinding binding= index.findBinding(definition);
+		if (binding instanceof IFunction) {
+			definition.getFile().getLocation();
+			binding.getQualifiedName();
+			ASTTypeUtil.getType(((IFunction) binding).getType());
+		}
+		return binding;
+	}
+}
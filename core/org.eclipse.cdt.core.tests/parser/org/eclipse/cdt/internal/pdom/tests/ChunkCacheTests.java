@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.Random;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+/**
+ * Tests for the segmented chunk cache shared by concurrent readers.
+ */
+public class ChunkCacheTests extends BaseTestCase {
+	private static final int RECORD_COUNT= 2000;
+
+	private File fFile;
+	private Database fDatabase;
+	private long[] fRecords;
+
+	public static Test suite() {
+		return suite(ChunkCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fFile= CTestPlugin.getDefault().getStateLocation().append(getName() + System.currentTimeMillis() + ".dat").toFile();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fDatabase != null) {
+			fDatabase.setExclusiveLock();
+			fDatabase.close();
+		}
+		if (!fFile.delete()) {
+			fFile.deleteOnExit();
+		}
+		super.tearDown();
+	}
+
+	private void createDatabase(ChunkCache cache) throws Exception {
+		fDatabase= new Database(fFile, cache, 0, false);
+		fDatabase.setExclusiveLock();
+		fRecords= new long[RECORD_COUNT];
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			fRecords[i]= fDatabase.malloc(Database.MAX_MALLOC_SIZE);
+			fDatabase.putInt(fRecords[i], i);
+		}
+		fDatabase.giveUpExclusiveLock(true);
+		fDatabase.setLocked(true);
+		fDatabase.resetCacheCounters();
+	}
+
+	private long runReaders(int threadCount, final int readsPerThread) throws Exception {
+		final Throwable[] failure= {null};
+		Thread[] threads= new Thread[threadCount];
+		for (int i = 0; i < threads.length; i++) {
+			final int seed= i;
+			threads[i]= new Thread() {
+				@Override
+				public void run() {
+					try {
+						Random random= new Random(seed);
+						for (int j = 0; j < readsPerThread; j++) {
+							int idx= random.nextInt(RECORD_COUNT);
+							if (fDatabase.getInt(fRecords[idx]) != idx) {
+								throw new AssertionError("Unexpected content of record " + idx);
+							}
+						}
+					} catch (Throwable e) {
+						failure[0]= e;
+					}
+				}
+			};
+		}
+		long start= System.currentTimeMillis();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long time= System.currentTimeMillis() - start;
+		if (failure[0] != null) {
+			fail(failure[0].toString());
+		}
+		return time;
+	}
+
+	public void testSegmentedCacheSize() throws Exception {
+		ChunkCache cache= new ChunkCache(Database.CHUNK_SIZE * 100, 8);
+		assertEquals(Database.CHUNK_SIZE * 100, cache.getMaxSize());
+		cache.setMaxSize(Database.CHUNK_SIZE * 37);
+		assertEquals(Database.CHUNK_SIZE * 37, cache.getMaxSize());
+
+		// The number of segments is limited by the number of chunks.
+		cache= new ChunkCache(Database.CHUNK_SIZE * 2, 8);
+		assertEquals(Database.CHUNK_SIZE * 2, cache.getMaxSize());
+	}
+
+	public void testConcurrentReaders() throws Exception {
+		createDatabase(new ChunkCache(Database.CHUNK_SIZE * 64, 8));
+		runReaders(8, 5000);
+		assertEquals(8 * 5000, fDatabase.getCacheHits() + fDatabase.getCacheMisses());
+	}
+
+	public void testCacheHits() throws Exception {
+		createDatabase(new ChunkCache(Database.CHUNK_SIZE * (RECORD_COUNT + 10), 4));
+		fDatabase.resetCacheCounters();
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			assertEquals(i, fDatabase.getInt(fRecords[i]));
+		}
+		assertEquals(RECORD_COUNT, fDatabase.getCacheHits());
+		assertEquals(0, fDatabase.getCacheMisses());
+	}
+
+	public void disabled_testPerformance() throws Exception {
+		final int threads= Runtime.getRuntime().availableProcessors();
+		createDatabase(new ChunkCache(Database.CHUNK_SIZE * RECORD_COUNT / 2, 1));
+		long single= runReaders(threads, 200000);
+		fDatabase.setExclusiveLock();
+		fDatabase.close();
+		fFile.delete();
+
+		createDatabase(new ChunkCache(Database.CHUNK_SIZE * RECORD_COUNT / 2, threads * 2));
+		long segmented= runReaders(threads, 200000);
+		System.out.println(threads + " readers, single segment: " + single + "ms, segmented: " + segmented + "ms");
+	}
+}
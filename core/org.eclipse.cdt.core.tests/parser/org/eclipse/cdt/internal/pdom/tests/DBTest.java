@@ -36,10 +36,13 @@ public class DBTest extends BaseTestCase {
 	@Override
 	protected void setUp() throws Exception {
 		super.setUp();
-		db = new Database(getTestDir().append(getName()+System.currentTimeMillis()+".dat").toFile(),
-				new ChunkCache(), 0, false);
+		db = createDatabase(getTestDir().append(getName()+System.currentTimeMillis()+".dat").toFile());
 		db.setExclusiveLock();
 	}
+
+	protected Database createDatabase(File file) throws CoreException {
+		return new Database(file, new ChunkCache(), 0, false);
+	}
 		
 	public static Test suite() {
 		return suite(DBTest.class);
@@ -156,7 +159,7 @@ public class DBTest extends BaseTestCase {
 		// Tests inserting and retrieving strings
 		File f = getTestDir().append("testStrings.dat").toFile();
 		f.delete();
-		final Database db = new Database(f, new ChunkCache(), 0, false);
+		final Database db = createDatabase(f);
 		db.setExclusiveLock();
 
 		String[] names = {
@@ -216,6 +219,35 @@ public class DBTest extends BaseTestCase {
 		}
 	}
 	
+	public void disabled_testLongStringPerformance() throws Exception {
+		final int count= 2000;
+		char[] chars= new char[20000];
+		Random r= new Random(4711);
+		long[] records= new long[count];
+		long start= System.currentTimeMillis();
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < chars.length; j++) {
+				chars[j]= randomChar(r);
+			}
+			records[i]= db.newString(chars).getRecord();
+		}
+		db.flush();
+		long writeTime= System.currentTimeMillis() - start;
+
+		File location= db.getLocation();
+		db.close();
+		db= new Database(location, new ChunkCache(Database.CHUNK_SIZE * 64), 0, true);
+		db.setLocked(true);
+		start= System.currentTimeMillis();
+		for (int i = 0; i < count; i++) {
+			assertEquals(chars.length, db.getString(records[i]).getChars().length);
+		}
+		long readTime= System.currentTimeMillis() - start;
+		System.out.println("Chunk size: " + Database.CHUNK_SIZE + ", write: " + writeTime + "ms, read: "
+				+ readTime + "ms, cache misses: " + db.getCacheMisses());
+		db.setExclusiveLock();
+	}
+
 	private final int GT = 1, LT = -1, EQ = 0;
 	
 	public void testShortStringComparison() throws CoreException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Symbian Software Systems and others.
+ * Copyright (c) 2007, 2013 Symbian Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,6 +43,7 @@ import org.eclipse.cdt.core.testplugin.CTestPlugin;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
 import org.eclipse.cdt.internal.core.pdom.export.GeneratePDOMApplication;
+import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -123,6 +124,27 @@ public class GeneratePDOMApplicationTest extends PDOMTestBase {
 		assertTrue(fid.startsWith("export")); // check for default export id
 	}
 
+	public void testParallelParsing() throws Exception {
+		doGenerate(new String[] {
+				GeneratePDOMApplication.OPT_TARGET, target.getAbsolutePath(), 
+				GeneratePDOMApplication.OPT_PROJECTPROVIDER, TestProjectProvider3.class.getName(),
+				GeneratePDOMApplication.OPT_PARSER_THREADS, "4"
+		});
+		assertTrue(target.exists());
+		WritablePDOM wpdom= new WritablePDOM(target, new URIRelativeLocationConverter(BASEURI), LanguageManager.getInstance().getPDOMLinkageFactoryMappings());
+		verifyProject1Content(wpdom);
+		assertEquals(IndexerPreferences.DEFAULT_PARSER_THREADS, IndexerPreferences.getParserThreads());
+	}
+
+	public void testInvalidParserThreads() throws Exception {
+		doGenerate(new String[] {
+				GeneratePDOMApplication.OPT_TARGET, target.getAbsolutePath(), 
+				GeneratePDOMApplication.OPT_PROJECTPROVIDER, TestProjectProvider3.class.getName(),
+				GeneratePDOMApplication.OPT_PARSER_THREADS, "none"
+		});
+		assertFalse(target.exists());
+	}
+
 	public void testSimpleExportProjectProvider2() throws Exception {
 		doGenerate(new String[] {
 				GeneratePDOMApplication.OPT_TARGET, target.getAbsolutePath(), 
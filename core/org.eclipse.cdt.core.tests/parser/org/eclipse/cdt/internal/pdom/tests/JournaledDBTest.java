@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Runs the database tests with modified chunks written to a write-ahead log.
+ */
+public class JournaledDBTest extends DBTest {
+
+	public static Test suite() {
+		return suite(JournaledDBTest.class);
+	}
+
+	@Override
+	protected Database createDatabase(File file) throws CoreException {
+		return new Database(file, new ChunkCache(), 0, false, false, true);
+	}
+
+	private File getLog() {
+		return getLog(db.getLocation());
+	}
+
+	private File getLog(File location) {
+		return new File(location.getPath() + ".wal");
+	}
+
+	/**
+	 * Opens the database again without closing it, as it happens after a crash.
+	 */
+	private void simulateCrash() throws CoreException {
+		db= createDatabase(db.getLocation());
+		db.setExclusiveLock();
+	}
+
+	public void testIsJournaled() throws Exception {
+		assertTrue(db.isJournaled());
+		assertTrue(getLog().exists());
+	}
+
+	public void testRecoveryOfCommittedChunks() throws Exception {
+		final int count= 100;
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.setVersion(4711);
+		db.giveUpExclusiveLock(true);
+		db.setExclusiveLock();
+
+		simulateCrash();
+		assertEquals(4711, db.getVersion());
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, db.getInt(records[i]));
+		}
+	}
+
+	public void testUncommittedChunksAreDiscarded() throws Exception {
+		long record= db.malloc(42);
+		db.putInt(record, 1);
+		db.giveUpExclusiveLock(true);
+		db.setExclusiveLock();
+		db.putInt(record, 2);
+		db.giveUpExclusiveLock(false);
+		db.setExclusiveLock();
+
+		simulateCrash();
+		assertEquals(1, db.getInt(record));
+	}
+
+	public void testIncompleteRecordIsIgnored() throws Exception {
+		long record= db.malloc(42);
+		db.putInt(record, 1);
+		db.flush();
+
+		RandomAccessFile log= new RandomAccessFile(getLog(), "rw");
+		try {
+			log.seek(log.length());
+			log.write(new byte[Database.CHUNK_SIZE / 2]);
+		} finally {
+			log.close();
+		}
+
+		simulateCrash();
+		assertEquals(1, db.getInt(record));
+	}
+
+	public void testCheckpoint() throws Exception {
+		long record= db.malloc(42);
+		db.putInt(record, 1);
+		db.flush();
+		assertTrue(getLog().length() > Database.CHUNK_SIZE);
+
+		db.checkpoint();
+		assertTrue(getLog().length() < Database.CHUNK_SIZE);
+		assertTrue(db.getLocation().length() > Database.CHUNK_SIZE);
+
+		File location= db.getLocation();
+		db.close();
+		assertFalse(getLog().exists());
+		db= new Database(location, new ChunkCache(), 0, true);
+		db.setLocked(true);
+		assertEquals(1, db.getInt(record));
+		db.setExclusiveLock();
+	}
+
+	public void testDeleteRemovesLog() throws Exception {
+		db.setVersion(4711);
+		db.flush();
+
+		// Leave committed records in the log, as after a crash.
+		File location= db.getLocation();
+		db= null;
+		assertTrue(getLog(location).exists());
+		assertTrue(Database.delete(location));
+		assertFalse(location.exists());
+		assertFalse(getLog(location).exists());
+
+		db= createDatabase(location);
+		db.setExclusiveLock();
+		assertEquals(0, db.getVersion());
+	}
+
+	public void disabled_testPerformance() throws Exception {
+		System.out.println("file:    " + timeDatabase(false) + "ms");
+		System.out.println("journal: " + timeDatabase(true) + "ms");
+	}
+
+	private long timeDatabase(boolean journaled) throws Exception {
+		final int count= 20000;
+		File file= getTestDir().append(getName() + journaled + System.currentTimeMillis() + ".dat").toFile();
+		long start= System.currentTimeMillis();
+		Database db= new Database(file, new ChunkCache(), 0, false, false, journaled);
+		db.setExclusiveLock();
+		for (int i = 0; i < count; i++) {
+			long record= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(record, i);
+			if (i % 100 == 0) {
+				// Transactions of the size written for a typical source file.
+				db.giveUpExclusiveLock(true);
+				db.setExclusiveLock();
+			}
+		}
+		db.close();
+		long time= System.currentTimeMillis() - start;
+		file.delete();
+		return time;
+	}
+}
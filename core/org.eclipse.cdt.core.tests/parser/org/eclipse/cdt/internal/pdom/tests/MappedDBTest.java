@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.Random;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Runs the database tests with the file accessed via memory mapped regions.
+ */
+public class MappedDBTest extends DBTest {
+
+	public static Test suite() {
+		return suite(MappedDBTest.class);
+	}
+
+	@Override
+	protected Database createDatabase(File file) throws CoreException {
+		return new Database(file, new ChunkCache(), 0, false, true);
+	}
+
+	public void testUsesMappedIO() throws Exception {
+		assertEquals(Database.isMappedIOSupported(), db.isUsingMappedIO());
+	}
+
+	public void testContentBeyondFirstRegion() throws Exception {
+		// Allocate enough chunks for the file to grow beyond a single mapped region of 16MB.
+		final int count= 16 * 1024 * 1024 / Database.CHUNK_SIZE + 100;
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+			db.putLong(records[i] + Database.MAX_MALLOC_SIZE - 8, -i);
+		}
+		db.flush();
+		File location= db.getLocation();
+		db.close();
+
+		db= new Database(location, new ChunkCache(Database.CHUNK_SIZE * 16), 0, true, true);
+		db.setLocked(true);
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, db.getInt(records[i]));
+			assertEquals(-i, db.getLong(records[i] + Database.MAX_MALLOC_SIZE - 8));
+		}
+		db.setExclusiveLock();
+	}
+
+	public void testClearBeyondFirstRegion() throws Exception {
+		final int count= 16 * 1024 * 1024 / Database.CHUNK_SIZE + 100;
+		for (int i = 0; i < count; i++) {
+			db.putInt(db.malloc(Database.MAX_MALLOC_SIZE), i);
+		}
+		db.flush();
+		db.clear(0);
+		assertEquals(Database.CHUNK_SIZE, db.getLocation().length());
+
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], -i);
+		}
+		db.flush();
+		for (int i = 0; i < count; i++) {
+			assertEquals(-i, db.getInt(records[i]));
+		}
+	}
+
+	public void disabled_testPerformance() throws Exception {
+		System.out.println("channel: " + timeDatabase(false) + "ms");
+		System.out.println("mapped:  " + timeDatabase(true) + "ms");
+	}
+
+	private long timeDatabase(boolean mapped) throws Exception {
+		final int count= 20000;
+		File file= getTestDir().append(getName() + mapped + System.currentTimeMillis() + ".dat").toFile();
+		long start= System.currentTimeMillis();
+		Database db= new Database(file, new ChunkCache(), 0, false, mapped);
+		db.setExclusiveLock();
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.giveUpExclusiveLock(true);
+
+		// Random reads through a cache that is much smaller than the database.
+		db.setLocked(true);
+		Random random= new Random(4711);
+		for (int i = 0; i < count * 10; i++) {
+			int idx= random.nextInt(count);
+			assertEquals(idx, db.getInt(records[idx]));
+		}
+		long time= System.currentTimeMillis() - start;
+		db.setExclusiveLock();
+		db.close();
+		file.delete();
+		return time;
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.NameTrigramIndex;
+import org.eclipse.cdt.internal.core.pdom.db.PDOMStringTable;
+
+/**
+ * Tests for the trigram index of the strings of a {@link PDOMStringTable}.
+ */
+public class NameTrigramIndexTests extends PDOMTestBase {
+	private File fFile;
+	private Database fDatabase;
+	private long fRoot;
+	private long fTrigramRoot;
+	private PDOMStringTable fTable;
+
+	public static Test suite() {
+		return suite(NameTrigramIndexTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fFile= File.createTempFile("pdomtrigramtest", "db");
+		fDatabase= new Database(fFile, new ChunkCache(), 0, false);
+		fDatabase.setExclusiveLock();
+		fRoot= fDatabase.malloc(Database.PTR_SIZE);
+		fTrigramRoot= fDatabase.malloc(Database.PTR_SIZE);
+		fTable= new PDOMStringTable(fDatabase, fRoot, fTrigramRoot);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fDatabase.close();
+		fFile.deleteOnExit();
+		super.tearDown();
+	}
+
+	private String[] find(String pattern) throws Exception {
+		return find(fTable.getTrigramIndex(), Pattern.compile(pattern));
+	}
+
+	private String[] find(NameTrigramIndex index, Pattern pattern) throws Exception {
+		long[] strings= index.findStrings(NameTrigramIndex.getRequiredTrigrams(pattern));
+		String[] result= new String[strings.length];
+		for (int i = 0; i < strings.length; i++) {
+			result[i]= fDatabase.getString(strings[i]).getString();
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	public void testGetTrigrams() throws Exception {
+		assertEquals(0, NameTrigramIndex.getTrigrams("ab").length);
+		assertEquals(1, NameTrigramIndex.getTrigrams("abc").length);
+		// Trigrams are case-insensitive and distinct.
+		assertTrue(Arrays.equals(NameTrigramIndex.getTrigrams("abc"), NameTrigramIndex.getTrigrams("ABC")));
+		assertEquals(3, NameTrigramIndex.getTrigrams("abcabc").length);
+		int[] trigrams= NameTrigramIndex.getTrigrams("size_type");
+		assertEquals(7, trigrams.length);
+		for (int i = 1; i < trigrams.length; i++) {
+			assertTrue(trigrams[i - 1] < trigrams[i]);
+		}
+	}
+
+	public void testGetRequiredTrigrams() throws Exception {
+		assertNull(NameTrigramIndex.getRequiredTrigrams(Pattern.compile(".*")));
+		assertNull(NameTrigramIndex.getRequiredTrigrams(Pattern.compile("a.b.c")));
+		assertNull(NameTrigramIndex.getRequiredTrigrams(Pattern.compile("ab*c")));
+		assertNull(NameTrigramIndex.getRequiredTrigrams(Pattern.compile("size|type")));
+		assertNull(NameTrigramIndex.getRequiredTrigrams(Pattern.compile("[a-z]+_type")));
+		assertNull(NameTrigramIndex.getRequiredTrigrams(Pattern.compile("\\w+_type")));
+		assertNull(NameTrigramIndex.getRequiredTrigrams(Pattern.compile("size", Pattern.UNICODE_CASE)));
+
+		assertTrue(Arrays.equals(NameTrigramIndex.getTrigrams("size"),
+				NameTrigramIndex.getRequiredTrigrams(Pattern.compile(".*size.*"))));
+		assertTrue(Arrays.equals(NameTrigramIndex.getTrigrams("siz"),
+				NameTrigramIndex.getRequiredTrigrams(Pattern.compile("siz.", Pattern.CASE_INSENSITIVE))));
+		assertTrue(Arrays.equals(NameTrigramIndex.getTrigrams("size"),
+				NameTrigramIndex.getRequiredTrigrams(Pattern.compile("sizes*"))));
+		assertTrue(Arrays.equals(NameTrigramIndex.getTrigrams("operator*"),
+				NameTrigramIndex.getRequiredTrigrams(Pattern.compile("^operator\\*$"))));
+
+		// The trigrams of separate literals are combined, no trigrams span the wildcards.
+		int[] trigrams= NameTrigramIndex.getRequiredTrigrams(Pattern.compile("get.*Alloc.*"));
+		assertEquals(4, trigrams.length);
+		for (String literal : new String[] {"get", "Alloc"}) {
+			for (int trigram : NameTrigramIndex.getTrigrams(literal)) {
+				assertTrue(Arrays.binarySearch(trigrams, trigram) >= 0);
+			}
+		}
+		for (String spanning : new String[] {"etA", "tAl"}) {
+			assertTrue(Arrays.binarySearch(trigrams, NameTrigramIndex.getTrigrams(spanning)[0]) < 0);
+		}
+	}
+
+	public void testFindStrings() throws Exception {
+		for (String name : new String[] {"size", "size_type", "resize", "max_size", "SizeT", "get_allocator"}) {
+			fTable.intern(name.toCharArray());
+		}
+		assertEquals("[SizeT, max_size, resize, size, size_type]", Arrays.toString(find("size")));
+		assertEquals("[max_size]", Arrays.toString(find(".*x_siz.*")));
+		assertEquals("[size_type]", Arrays.toString(find("size_type")));
+		assertEquals("[get_allocator]", Arrays.toString(find("get.*alloc.*")));
+		assertEquals("[]", Arrays.toString(find("iterator")));
+
+		// Use a new instance, such that the entries are not cached.
+		PDOMStringTable table= new PDOMStringTable(fDatabase, fRoot, fTrigramRoot);
+		assertEquals("[size_type]", Arrays.toString(find(table.getTrigramIndex(), Pattern.compile(".*typ.*"))));
+	}
+
+	public void testReleasedStrings() throws Exception {
+		long size= fTable.intern("size".toCharArray());
+		fTable.intern("size".toCharArray());
+		fTable.intern("resize".toCharArray());
+		fTable.release(size);
+		assertEquals("[resize, size]", Arrays.toString(find("size")));
+		fTable.release(size);
+		assertEquals("[resize]", Arrays.toString(find("size")));
+
+		PDOMStringTable table= new PDOMStringTable(fDatabase, fRoot, fTrigramRoot);
+		assertEquals("[resize]", Arrays.toString(find(table.getTrigramIndex(), Pattern.compile("size"))));
+	}
+
+	public void testManyStrings() throws Exception {
+		final int count= 20000;
+		for (int i = 0; i < count; i++) {
+			fTable.intern(("name" + i).toCharArray());
+		}
+		// 'name1234', 'name11234', 'name12340' - 'name12349'
+		assertEquals(12, find(".*1234.*").length);
+		// 'name1', 'name10' - 'name19', ..., 'name10000' - 'name19999'
+		assertEquals(11111, find("name1.*").length);
+	}
+}
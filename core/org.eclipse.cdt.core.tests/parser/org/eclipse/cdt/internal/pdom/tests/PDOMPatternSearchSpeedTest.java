@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.cdt.core.dom.ILinkage;
+import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexLocationConverter;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.model.ILanguage;
+import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.core.parser.NullLogService;
+import org.eclipse.cdt.core.parser.ScannerInfo;
+import org.eclipse.cdt.internal.core.index.IndexFileLocation;
+import org.eclipse.cdt.internal.core.indexer.FileEncodingRegistry;
+import org.eclipse.cdt.internal.core.indexer.ILanguageMapper;
+import org.eclipse.cdt.internal.core.indexer.IStandaloneScannerInfoProvider;
+import org.eclipse.cdt.internal.core.indexer.StandaloneFastIndexer;
+import org.eclipse.cdt.internal.core.pdom.dom.IPDOMLinkageFactory;
+import org.eclipse.cdt.internal.core.pdom.dom.cpp.PDOMCPPLinkageFactory;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Measures the time for searching bindings with wildcard patterns, as done by the C/C++ search
+ * and 'Open Element'. The given C++ files are indexed, then queries for prefixes, infixes and
+ * parts of words are run with and without using the trigram index of the names. The full scan
+ * is enforced by compiling the patterns with {@link Pattern#UNICODE_CASE}.
+ * Usage: PDOMPatternSearchSpeedTest [-I include-directory]... source-file...
+ */
+public class PDOMPatternSearchSpeedTest {
+	private static final int RUNS= 5;
+	private static final String[] PATTERNS= {
+		"vec.*", "_M_.*",				// prefixes
+		".*iter.*", ".*_type",			// infixes
+		"get.*alloc.*", "_M_.*_node.*"	// parts of words
+	};
+
+	public static void main(String[] args) {
+		try {
+			List<String> includes= new ArrayList<String>();
+			List<String> files= new ArrayList<String>();
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-I") && i + 1 < args.length) {
+					includes.add(args[++i]);
+				} else if (args[i].startsWith("-I")) {
+					includes.add(args[i].substring(2));
+				} else {
+					files.add(new File(args[i]).getAbsolutePath());
+				}
+			}
+			new PDOMPatternSearchSpeedTest().runTest(files, includes.toArray(new String[includes.size()]));
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+
+	private void runTest(List<String> files, String[] includes) throws Exception {
+		final File dbFile= File.createTempFile("patternsearch", "pdom");
+		dbFile.deleteOnExit();
+		final IScannerInfo scannerInfo= new ScannerInfo(null, includes);
+		Map<String, IPDOMLinkageFactory> linkageFactories= new HashMap<String, IPDOMLinkageFactory>();
+		linkageFactories.put(ILinkage.CPP_LINKAGE_NAME, new PDOMCPPLinkageFactory());
+		StandaloneFastIndexer indexer= new StandaloneFastIndexer(dbFile, new IIndexLocationConverter() {
+			@Override
+			public IIndexFileLocation fromInternalFormat(String raw) {
+				return new IndexFileLocation(URI.create(raw), null);
+			}
+			@Override
+			public String toInternalFormat(IIndexFileLocation location) {
+				return location.getURI().toString();
+			}
+		}, linkageFactories, new IStandaloneScannerInfoProvider() {
+			@Override
+			public IScannerInfo getScannerInformation(String path) {
+				return scannerInfo;
+			}
+			@Override
+			public IScannerInfo getDefaultScannerInformation(int linkageID) {
+				return scannerInfo;
+			}
+		}, new FileEncodingRegistry("UTF-8"), new ILanguageMapper() {
+			@Override
+			public ILanguage getLanguage(String file) {
+				return GPPLanguage.getDefault();
+			}
+		}, new NullLogService());
+
+		long start= System.currentTimeMillis();
+		indexer.rebuild(files, new NullProgressMonitor());
+		System.out.println("Indexed " + files.size() + " files in " + (System.currentTimeMillis() - start) + " ms");
+
+		IIndex index= indexer.getIndex();
+		index.acquireReadLock();
+		try {
+			for (String pattern : PATTERNS) {
+				// Like the search for simple names, the search via the index also reports
+				// members of specializations, which are not visited by the full scan.
+				Set<IIndexBinding> found= new HashSet<IIndexBinding>(Arrays.asList(find(index, Pattern.compile(pattern))));
+				IIndexBinding[] scanned= find(index, Pattern.compile(pattern, Pattern.UNICODE_CASE));
+				if (!found.containsAll(Arrays.asList(scanned)))
+					throw new IllegalStateException(pattern);
+				System.out.println(pattern + ": " + found.size() + " bindings, " + scanned.length + " by full scan");
+			}
+			for (int i = 0; i < RUNS; i++) {
+				StringBuilder buf= new StringBuilder("Run " + (i + 1) + ":");
+				for (String pattern : PATTERNS) {
+					long indexed= measure(index, Pattern.compile(pattern));
+					long scan= measure(index, Pattern.compile(pattern, Pattern.UNICODE_CASE));
+					buf.append(' ').append(pattern).append(' ').append(indexed / 1000).append('/')
+							.append(scan / 1000).append(" us");
+				}
+				System.out.println(buf);
+			}
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+
+	private long measure(IIndex index, Pattern pattern) throws Exception {
+		final long start= System.nanoTime();
+		find(index, pattern);
+		return System.nanoTime() - start;
+	}
+
+	private IIndexBinding[] find(IIndex index, Pattern pattern) throws Exception {
+		return index.findBindings(pattern, false, IndexFilter.ALL, new NullProgressMonitor());
+	}
+}
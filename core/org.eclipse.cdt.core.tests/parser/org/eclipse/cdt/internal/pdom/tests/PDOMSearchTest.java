@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2009 IBM Corporation and others.
+ *  Copyright (c) 2007, 2013 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -278,6 +278,36 @@ public class PDOMSearchTest extends PDOMTestBase {
 		assertEquals(offset("main.cpp","int var;") + 4, loc.getNodeOffset()); //character offset	
 	}
 
+	/**
+	 * Compares the bindings found via the index of the names with the ones found by visiting
+	 * all bindings. The flag {@link Pattern#UNICODE_CASE} prevents the use of the index.
+	 */
+	public void testWildcardPatterns() throws Exception {
+		String[] patterns= {"Class.", ".*ass1.*", "class1.", "foo.*2", ".*main", "~Class.*"};
+		for (String p : patterns) {
+			for (int flags : new int[] {0, Pattern.CASE_INSENSITIVE}) {
+				for (boolean isFullyQualified : new boolean[] {false, true}) {
+					IBinding[] expected= pdom.findBindings(Pattern.compile(p, flags | Pattern.UNICODE_CASE),
+							isFullyQualified, INDEX_FILTER, NULL_MONITOR);
+					IBinding[] actual= pdom.findBindings(Pattern.compile(p, flags),
+							isFullyQualified, INDEX_FILTER, NULL_MONITOR);
+					assertEquals(p, getQualifiedNames(expected), getQualifiedNames(actual));
+				}
+			}
+		}
+		IBinding[] classes= pdom.findBindings(Pattern.compile("Class."), true, INDEX_FILTER, NULL_MONITOR);
+		assertEquals(2, classes.length);
+	}
+
+	private String getQualifiedNames(IBinding[] bindings) throws CoreException {
+		String[] names= new String[bindings.length];
+		for (int i = 0; i < bindings.length; i++) {
+			names[i]= getBindingQualifiedName(pdom.getLinkageImpls()[0].adaptBinding(bindings[i]));
+		}
+		Arrays.sort(names);
+		return Arrays.toString(names);
+	}
+
 	/**
 	 * Get the fully qualified name for a given PDOMBinding
 	 * 
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.cdt.internal.core.pdom.db.PDOMStringTable;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Tests for the table of interned strings.
+ */
+public class PDOMStringTableTests extends PDOMTestBase {
+	private File fFile;
+	private Database fDatabase;
+	private long fRoot;
+	private PDOMStringTable fTable;
+
+	public static Test suite() {
+		return suite(PDOMStringTableTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fFile= File.createTempFile("pdomstringtabletest", "db");
+		fDatabase= new Database(fFile, new ChunkCache(), 0, false);
+		fDatabase.setExclusiveLock();
+		fRoot= fDatabase.malloc(Database.PTR_SIZE);
+		fTable= new PDOMStringTable(fDatabase, fRoot);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fDatabase.close();
+		fFile.deleteOnExit();
+		super.tearDown();
+	}
+
+	public void testIntern() throws Exception {
+		long rec1= fTable.intern("size".toCharArray());
+		long rec2= fTable.intern("value_type".toCharArray());
+		long rec3= fTable.intern("size".toCharArray());
+		assertTrue(rec1 != 0);
+		assertTrue(rec1 != rec2);
+		assertEquals(rec1, rec3);
+		assertEquals("size", fDatabase.getString(rec1).getString());
+		assertEquals(2, fTable.getReferenceCount("size".toCharArray()));
+		assertEquals(1, fTable.getReferenceCount("value_type".toCharArray()));
+		assertEquals(rec2, fTable.find("value_type".toCharArray()));
+		assertEquals(0, fTable.find("iterator".toCharArray()));
+	}
+
+	public void testRelease() throws Exception {
+		long rec= fTable.intern("iterator".toCharArray());
+		fTable.intern("iterator".toCharArray());
+		fTable.release(rec);
+		assertEquals(rec, fTable.find("iterator".toCharArray()));
+		assertEquals(1, fTable.getReferenceCount("iterator".toCharArray()));
+		fTable.release(rec);
+		assertEquals(0, fTable.find("iterator".toCharArray()));
+		assertEquals(0, fTable.findCached("iterator".toCharArray()));
+	}
+
+	public void testManyStrings() throws Exception {
+		final int count= 20000;
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= fTable.intern(("name" + i).toCharArray());
+		}
+		// Use a new instance, such that the strings are not cached.
+		PDOMStringTable table= new PDOMStringTable(fDatabase, fRoot);
+		for (int i = 0; i < count; i++) {
+			assertEquals(records[i], table.find(("name" + i).toCharArray()));
+			assertEquals(records[i], table.intern(("name" + i).toCharArray()));
+		}
+		assertEquals(count, countStrings(table));
+	}
+
+	private int countStrings(PDOMStringTable table) throws CoreException {
+		final int[] count= {0};
+		table.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+			@Override
+			public boolean visit(long record) throws CoreException {
+				count[0]++;
+				return true;
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * Reports the number of distinct names, the size of the database and the time for looking up
+	 * all names of the PDOM test projects.
+	 */
+	public void disabled_testInternedNamesOfTestProjects() throws Exception {
+		String[] projects= {"classTests", "namespaceTests", "overloadsWithinCommonHeader", "searchTests", "types"};
+		for (String name : projects) {
+			ICProject project= createProject(name, true);
+			try {
+				final PDOM pdom= (PDOM) CCoreInternals.getPDOMManager().getPDOM(project);
+				pdom.acquireReadLock();
+				try {
+					final int distinct= countStrings(pdom.getStringTable());
+					final char[][] names= new char[distinct][];
+					pdom.getStringTable().accept(new IBTreeVisitor() {
+						int i= 0;
+						@Override
+						public int compare(long record) throws CoreException {
+							return 0;
+						}
+						@Override
+						public boolean visit(long record) throws CoreException {
+							names[i++]= pdom.getDB().getString(record).getChars();
+							return true;
+						}
+					});
+					long start= System.currentTimeMillis();
+					for (int j = 0; j < 100; j++) {
+						for (char[] n : names) {
+							pdom.findBindings(n, false, IndexFilter.ALL, npm());
+						}
+					}
+					long time= System.currentTimeMillis() - start;
+					System.out.println(name + ": " + distinct + " distinct names, "
+							+ pdom.getDB().getSizeBytes() + " bytes, " + time + "ms for 100 lookups of each name");
+				} finally {
+					pdom.releaseReadLock();
+				}
+			} finally {
+				project.getProject().delete(IResource.FORCE | IResource.ALWAYS_DELETE_PROJECT_CONTENT, npm());
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 QNX Software Systems and others.
+ * Copyright (c) 2006, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,6 +25,9 @@ public class PDOMTests extends TestSuite {
 		TestSuite suite = new PDOMTests();
 
 		suite.addTest(DBTest.suite());
+		suite.addTest(MappedDBTest.suite());
+		suite.addTest(JournaledDBTest.suite());
+		suite.addTest(ChunkCacheTests.suite());
 		suite.addTest(DBPropertiesTests.suite());
 		suite.addTest(PDOMCBugsTest.suite());
 		suite.addTest(PDOMCPPBugsTest.suite());
@@ -39,6 +42,9 @@ public class PDOMTests extends TestSuite {
 		suite.addTest(OverloadsWithinCommonHeaderTests.suite());
 		suite.addTest(BTreeTests.suite());
 		suite.addTest(PDOMStringSetTests.suite());
+		suite.addTest(BloomFilterTests.suite());
+		suite.addTest(PDOMStringTableTests.suite());
+		suite.addTest(NameTrigramIndexTests.suite());
 		suite.addTest(PDOMTagIndexTests.suite());
 		suite.addTest(FilesOnReindexTests.suite());
 		suite.addTest(GeneratePDOMApplicationTest.suite());
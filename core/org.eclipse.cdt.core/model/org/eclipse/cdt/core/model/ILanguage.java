@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 QNX Software Systems and others.
+ * Copyright (c) 2005, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -82,6 +82,16 @@ public interface ILanguage extends IAdaptable {
 	 */
 	public final static int OPTION_PARSE_INACTIVE_CODE= 0x20;
 
+	/**
+	 * Option for {@link #getASTTranslationUnit(FileContent, IScannerInfo, IncludeFileContentProvider, IIndex, int, IParserLogService)}
+	 * Performance optimization, instructs the ast nodes not to cache their file locations. This
+	 * reduces the memory used by the ast, when the location of a node is requested only once or
+	 * twice, as it is the case for indexing.
+	 * 
+	 * @since 5.5
+	 */
+	public final static int OPTION_NO_CACHED_LOCATIONS= 0x40;
+
 	/**
 	 * Return the language id for this language.
 	 * This is to differentiate languages from each other.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -145,7 +145,7 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 			parseFlags |= ITranslationUnit.AST_PARSE_INACTIVE_CODE;
 			final IASTTranslationUnit ast;
 			try {
-				ast= fTranslationUnit.getAST(index, parseFlags, fProgressMonitor);
+				ast= fTranslationUnit.getReconciledAST(index, parseFlags, fProgressMonitor);
 				if (DEBUG) {
 					Util.debugLog("CModelBuilder2: parsing " //$NON-NLS-1$
 							+ fTranslationUnit.getElementName()
@@ -19,6 +19,7 @@ package org.eclipse.cdt.internal.core.model;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -31,6 +32,7 @@ import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ILinkage;
 import org.eclipse.cdt.core.dom.ast.IASTCompletionNode;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.parser.AbstractCLikeLanguage;
 import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexFile;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
@@ -68,6 +70,7 @@ import org.eclipse.cdt.core.parser.ParserUtil;
 import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
 import org.eclipse.cdt.core.settings.model.ICProjectDescription;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
+import org.eclipse.cdt.internal.core.index.CIndex;
 import org.eclipse.cdt.internal.core.index.IndexBasedFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.InternalParserUtil;
 import org.eclipse.cdt.internal.core.parser.ParserLogService;
@@ -94,6 +97,47 @@ import org.eclipse.core.runtime.content.IContentType;
  * @see ITranslationUnit
  */
 public class TranslationUnit extends Openable implements ITranslationUnit {
+	private static final boolean BYPASS_INCREMENTAL_REPARSE= Boolean.getBoolean("CDT_BYPASS_INCREMENTAL_REPARSE"); //$NON-NLS-1$
+
+	/**
+	 * The AST most recently returned by {@link TranslationUnit#getReconciledAST(IIndex, int, IProgressMonitor)}
+	 * together with the parameters it was created with.
+	 */
+	private static class ReconciledAST {
+		private final WeakReference<IASTTranslationUnit> fAST;
+		private final int fStyle;
+		private final Object fIndexKey;
+		private final long fLastWriteAccess;
+
+		ReconciledAST(IASTTranslationUnit ast, IIndex index, int style) {
+			fAST= new WeakReference<IASTTranslationUnit>(ast);
+			fStyle= style;
+			fIndexKey= getIndexKey(index);
+			fLastWriteAccess= index == null ? 0 : index.getLastWriteAccess();
+		}
+
+		/**
+		 * Returns the AST if it was created with the same style and an unchanged index,
+		 * or <code>null</code>.
+		 */
+		IASTTranslationUnit getAST(IIndex index, int style) {
+			if (style != fStyle)
+				return null;
+			Object indexKey= getIndexKey(index);
+			if (indexKey == null ? fIndexKey != null : !indexKey.equals(fIndexKey))
+				return null;
+			if (index != null && index.getLastWriteAccess() != fLastWriteAccess)
+				return null;
+			return fAST.get();
+		}
+
+		private static Object getIndexKey(IIndex index) {
+			if (index instanceof CIndex)
+				return Arrays.asList(((CIndex) index).getFragments());
+			return index;
+		}
+	}
+
 	private URI location = null;
 	private String contentTypeId;
 
@@ -105,6 +149,7 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 
 	SourceManipulationInfo sourceManipulationInfo = null;
 	private ILanguage fLanguageOfContext;
+	private ReconciledAST fReconciledAST;
 
 	public TranslationUnit(ICElement parent, IFile file, String idType) {
 		super(parent, file, ICElement.C_UNIT);
@@ -825,6 +870,37 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 	}
 
 	public IASTTranslationUnit getAST(IIndex index, int style, IProgressMonitor monitor) throws CoreException {
+		return createAST(index, style, monitor, null);
+	}
+
+	/**
+	 * Same as {@link #getAST(IIndex, int, IProgressMonitor)}, however the AST returned by
+	 * the previous call to this method is updated, rather than parsed from scratch, when only
+	 * the body of a single function has changed. The AST returned by the previous call must no
+	 * longer be used by clients after this method was called.
+	 */
+	public IASTTranslationUnit getReconciledAST(IIndex index, int style, IProgressMonitor monitor)
+			throws CoreException {
+		IASTTranslationUnit baseAST= null;
+		if (!BYPASS_INCREMENTAL_REPARSE && isWorkingCopy()) {
+			synchronized (this) {
+				if (fReconciledAST != null) {
+					baseAST= fReconciledAST.getAST(index, style);
+					fReconciledAST= null;
+				}
+			}
+		}
+		IASTTranslationUnit ast= createAST(index, style, monitor, baseAST);
+		if (ast != null && isWorkingCopy()) {
+			synchronized (this) {
+				fReconciledAST= new ReconciledAST(ast, index, style);
+			}
+		}
+		return ast;
+	}
+
+	private IASTTranslationUnit createAST(IIndex index, int style, IProgressMonitor monitor,
+			IASTTranslationUnit baseAST) throws CoreException {
 		boolean incompleteIndex = index != null && !index.isFullyInitialized();
 		IIndexFile[] contextToHeader = getContextToHeader(index, style);
 		ITranslationUnit configureWith = getConfigureWith(contextToHeader);
@@ -866,13 +942,39 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 		} else {
 			log= ParserUtil.getParserLogService();
 		}
-		ASTTranslationUnit ast = (ASTTranslationUnit) ((AbstractLanguage) language).getASTTranslationUnit(
-				fileContent, scanInfo, crf, index, options, log);
+		ASTTranslationUnit ast= null;
+		if (baseAST instanceof ASTTranslationUnit && language instanceof AbstractCLikeLanguage) {
+			ast= reparseFunctionBody((ASTTranslationUnit) baseAST, (AbstractCLikeLanguage) language,
+					fileContent, scanInfo, crf, index, options, log);
+		}
+		if (ast == null) {
+			ast= (ASTTranslationUnit) ((AbstractLanguage) language).getASTTranslationUnit(
+					fileContent, scanInfo, crf, index, options, log);
+		}
 		ast.setOriginatingTranslationUnit(this);
 		ast.setBasedOnIncompleteIndex(incompleteIndex);
 		return ast;
 	}
 
+	private ASTTranslationUnit reparseFunctionBody(ASTTranslationUnit baseAST,
+			AbstractCLikeLanguage language, FileContent fileContent, IScannerInfo scanInfo,
+			IncludeFileContentProvider crf, IIndex index, int options, IParserLogService log)
+			throws CoreException {
+		// A client may still be working with the AST, in this case it cannot be modified.
+		if (!baseAST.tryBeginExclusiveAccess())
+			return null;
+		try {
+			ASTTranslationUnit ast= (ASTTranslationUnit) language.getIncrementalASTTranslationUnit(
+					baseAST, fileContent, scanInfo, crf, index, options, log);
+			if (ast != null && ast.getIndex() != index) {
+				ast.replaceIndex(index);
+			}
+			return ast;
+		} finally {
+			baseAST.endExclusiveAccess();
+		}
+	}
+
 	private IncludeFileContentProvider getIncludeFileContentProvider(int style, IIndex index, int linkageID, IIndexFile[] contextToHeader) {
 		final ICProject cprj= getCProject();
 		final ProjectIndexerInputAdapter pathResolver = new ProjectIndexerInputAdapter(cprj);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 IBM Corporation and others.
+ * Copyright (c) 2007, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,8 +33,12 @@ import org.eclipse.cdt.core.parser.IScannerInfo;
 import org.eclipse.cdt.core.parser.IncludeFileContentProvider;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.ParserMode;
+import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.AbstractGNUSourceCodeParser;
+import org.eclipse.cdt.internal.core.dom.parser.FunctionBodyReparser;
+import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.CPreprocessor;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 import org.eclipse.cdt.internal.core.util.ICancelable;
 import org.eclipse.cdt.internal.core.util.ICanceler;
 import org.eclipse.core.runtime.CoreException;
@@ -142,6 +146,9 @@ public abstract class AbstractCLikeLanguage extends AbstractLanguage implements
 			// Parse
 			IASTTranslationUnit ast= parser.parse();
 			ast.setIsHeaderUnit((options & OPTION_IS_SOURCE_UNIT) == 0);
+			if ((options & OPTION_NO_CACHED_LOCATIONS) != 0 && ast instanceof ASTTranslationUnit) {
+				((ASTTranslationUnit) ast).setCacheLocations(false);
+			}
 			return ast;
 		} finally {
 			if (canceler != null) {
@@ -150,6 +157,48 @@ public abstract class AbstractCLikeLanguage extends AbstractLanguage implements
 		}
 	}
 
+	/**
+	 * Updates an AST after its file has been modified within the body of a single function
+	 * definition, such that only the modified body needs to be parsed. The file is preprocessed
+	 * again, the headers are handled as specified by the file content provider.
+	 * <p>
+	 * The method returns <code>null</code>, when the AST cannot be updated incrementally, in that
+	 * case the AST is left unchanged. The AST must not be accessed by other threads while this
+	 * method is running.
+	 *
+	 * @param baseAST the AST created for the previous content of the file with the same options
+	 *     and the same kind of file content provider.
+	 * @return the updated AST or <code>null</code>.
+	 * @noreference This method is not intended to be referenced by clients.
+	 * @since 5.5
+	 */
+	public IASTTranslationUnit getIncrementalASTTranslationUnit(IASTTranslationUnit baseAST,
+			FileContent reader, IScannerInfo scanInfo, IncludeFileContentProvider fileCreator,
+			IIndex index, int options, IParserLogService log) throws CoreException {
+		if (!(baseAST instanceof ASTTranslationUnit) || !(reader instanceof InternalFileContent))
+			return null;
+		if ((options & OPTION_SKIP_FUNCTION_BODIES) != 0
+				|| baseAST.isHeaderUnit() != ((options & OPTION_IS_SOURCE_UNIT) == 0)
+				|| baseAST.getLinkage().getLinkageID() != getLinkageID()
+				|| !baseAST.getFilePath().equals(reader.getFileLocation())) {
+			return null;
+		}
+		final AbstractCharArray source= ((InternalFileContent) reader).getSource();
+		if (source == null)
+			return null;
+		FunctionBodyReparser reparser= new FunctionBodyReparser((ASTTranslationUnit) baseAST, source);
+		if (!reparser.canReparse())
+			return null;
+
+		final IScanner scanner= createScanner(reader, scanInfo, fileCreator, log);
+		scanner.setComputeImageLocations((options & OPTION_NO_IMAGE_LOCATIONS) == 0);
+		scanner.setProcessInactiveCode((options & OPTION_PARSE_INACTIVE_CODE) != 0);
+		final ISourceCodeParser parser= createParser(reparser.createBodyScanner(scanner), log, index, false, options);
+		if (!(parser instanceof AbstractGNUSourceCodeParser))
+			return null;
+		return reparser.reparse((AbstractGNUSourceCodeParser) parser);
+	}
+
 	@Deprecated
 	@Override
 	public IASTCompletionNode getCompletionNode(org.eclipse.cdt.core.parser.CodeReader reader,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -385,6 +385,23 @@ public interface IIndex {
 	 */
 	public IIndexName[] findNames(IBinding binding, int flags) throws CoreException;
 
+	/**
+	 * Searches for all names that resolve to the given binding and passes them to the visitor
+	 * as soon as they are read from the index. Other than {@link #findNames(IBinding, int)} the
+	 * method does not collect the names, the search stops as soon as the visitor returns
+	 * <code>false</code>. This allows for showing the first results of a search for a binding
+	 * with many names early, and for cancelling the search.
+	 * @param binding a binding for which names are searched for
+	 * @param flags a combination of {@link #FIND_DECLARATIONS}, {@link #FIND_DEFINITIONS},
+	 * {@link #FIND_REFERENCES} and {@link #SEARCH_ACROSS_LANGUAGE_BOUNDARIES}.
+	 * @param visitor the visitor receiving the names
+	 * @return <code>false</code> if the search was stopped by the visitor, <code>true</code>
+	 * otherwise
+	 * @throws CoreException
+	 * @since 5.5
+	 */
+	public boolean findNames(IBinding binding, int flags, IIndexNameVisitor visitor) throws CoreException;
+
 	/**
 	 * Searches for all references that resolve to the given binding.
 	 * This is fully equivalent to
@@ -421,6 +438,18 @@ public interface IIndex {
 	 */
 	public IIndexName[] findDefinitions(IBinding binding) throws CoreException;
 
+	/**
+	 * Searches for the names that specify the given binding as a base class, see
+	 * {@link IIndexName#isBaseSpecifier()}. Other than filtering the result of
+	 * {@link #findReferences(IBinding)}, this does not visit all references of the binding,
+	 * which makes the search for subclasses fast.
+	 * @param binding a binding for which the base specifiers are searched for
+	 * @return an array of names
+	 * @throws CoreException
+	 * @since 5.5
+	 */
+	public IIndexName[] findBaseSpecifiers(IBinding binding) throws CoreException;
+
 	/**
 	 * Returns an IIndexBinding for this IIndex that is equivalent to the specified binding,
 	 * or null if such a binding does not exist in this index. This is useful for adapting
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.index;
+
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Receives the names found by {@link IIndex#findNames(IBinding, int, IIndexNameVisitor)}.
+ * The names are passed to the visitor one by one while they are read from the index, the search
+ * continues only after the visitor has returned. Thus the visitor controls the pace of the search
+ * and can stop it at any time.
+ * <p>
+ * Clients may implement this interface.
+ *
+ * @since 5.5
+ */
+public interface IIndexNameVisitor {
+	/**
+	 * Called for every name found. The name is valid only while the read lock on the index
+	 * is held.
+	 * @return whether the search shall continue
+	 */
+	boolean visit(IIndexName name) throws CoreException;
+}
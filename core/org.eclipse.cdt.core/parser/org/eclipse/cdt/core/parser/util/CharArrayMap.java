@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,122 +10,52 @@
  *******************************************************************************/
 package org.eclipse.cdt.core.parser.util;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 
 /**
- * Provides functionality similar to a Map, with the feature that char arrays 
+ * Provides functionality similar to a Map, with the feature that char arrays
  * and sections of char arrays (known as slices) may be used as keys.
- * 
+ *
  * This class is useful because small pieces of an existing large char[] buffer
- * can be directly used as map keys. This avoids the need to create many String 
+ * can be directly used as map keys. This avoids the need to create many String
  * objects as would normally be needed as keys in a standard java.util.Map.
  * Thus performance is improved in the CDT core.
  *
  * Most methods are overloaded with two versions, one that uses a
  * section of a char[] as the key (a slice), and one that uses
  * the entire char[] as the key.
- * 
+ *
  * This class is intended as a replacement for CharArrayObjectMap.
- * 
+ *
  * ex:
  * char[] key = "one two three".toCharArray();
  * map.put(key, 4, 3, new Integer(99));
  * map.get(key, 4, 3); // returns 99
  * map.get("two".toCharArray()); // returns 99
- * 
+ *
+ * The map uses open addressing with linear probing, the hash codes of the keys are stored
+ * with the entries. Lookups do not allocate any objects, in particular not for slices.
+ * A slice used as a key for a new mapping is copied. An ordered map keeps the indices of its
+ * entries sorted by key on insertion, such that iterating does not require sorting.
+ *
  * @author Mike Kucera
  *
- * @param <V>  
+ * @param <V>
  */
 public final class CharArrayMap<V> {
-
-	/**
-	 * Wrapper class used as keys in the map. The purpose
-	 * of this class is to provide implementations of
-	 * equals() and hashCode() that operate on array slices.
-	 * 
-	 * This class is private so it is assumed that the arguments
-	 * passed to the constructor are legal.
-	 */
-    private static final class Key implements Comparable<Key>{
-        private final char[] buffer;
-        private final int start;
-        private final int length;
-
-        public Key(char[] buffer, int start, int length) {
-            this.buffer = buffer;
-            this.length = length;
-            this.start = start;
-        }
-        
-        /**
-         * @throws NullPointerException if buffer is null
-         */
-        public Key(char[] buffer) {
-        	this.buffer = buffer;
-        	this.length = buffer.length; // throws NPE
-        	this.start = 0;
-        }
-        
-        @Override 
-        public boolean equals(Object x) {
-        	if(this == x) 
-        		return true;
-        	if(!(x instanceof Key))  
-        		return false;
-        	
-            Key k = (Key) x;
-            if(length != k.length)
-            	return false;
-            
-            for(int i = start, j = k.start; i < length; i++, j++) {
-            	if(buffer[i] != k.buffer[j]) {
-            		return false;
-            	}
-            }
-            return true;
-        }
-        
-        @Override 
-        public int hashCode() {
-            int result = 17;
-            for(int i = start; i < start+length; i++) {
-            	result = 37 * result + buffer[i];
-            }
-            return result;
-        }
-        
-        @SuppressWarnings("nls")
-		@Override 
-        public String toString() {
-        	String slice = new String(buffer, start, length);
-        	return "'" + slice + "'@(" + start + "," + length + ")"; 
-        }
-        
-        
-        @Override
-		public int compareTo(Key other) {
-        	char[] b1 = buffer, b2 = other.buffer;
-        	
-        	for(int i = start, j = other.start; i < b1.length && j < b2.length; i++, j++) {
-        		if(b1[i] != b2[j])
-        			return b1[i] < b2[j] ? -1 : 1;
-        	}
-        	return b1.length - b2.length;
-        }
-    }
-    
+	private static final int MIN_CAPACITY = 4;
 
     /**
-     * Used to enforce preconditions. 
-     * Note that the NPE thrown by mutator methods is thrown from the Key constructor.
-     * 
+     * Used to enforce preconditions.
+     *
      * @throws IndexOutOfBoundsException if boundaries are wrong in any way
      */
     private static void checkBoundaries(char[] chars, int start, int length) {
@@ -134,45 +64,238 @@ public final class CharArrayMap<V> {
     				                          ", Start index: " + start + //$NON-NLS-1$
     				                          ", Length: " + length); //$NON-NLS-1$
     }
-    
-    
-    private final Map<Key,V> map;
 
-    
+    /**
+     * Computes the hash code for a slice, the bits of {@link CharArrayUtils#hash(char[], int, int)}
+     * are spread such that the lower bits can be used for addressing the slots.
+     */
+    private static int hash(char[] chars, int start, int length) {
+    	int h = CharArrayUtils.hash(chars, start, length);
+    	h ^= h >>> 16;
+    	h *= 0x85ebca6b;
+    	return h ^ (h >>> 13);
+    }
+
+    private final boolean ordered;
+    /** The entries are stored without gaps in the order of insertion, removals fill the gap with the last entry. */
+    private char[][] keys;
+    private int[] hashes;
+    private Object[] values;
+    private int size;
+    /** Open addressed slots with the index of an entry plus one, or 0 for a free slot. */
+    private int[] slots;
+    /** For an ordered map, the indices of the entries in ascending order of their keys. */
+    private int[] order;
+    private int modCount;
+    private Collection<V> valuesView;
+
     /**
      * Constructs an empty CharArrayMap with default initial capacity.
      */
     public CharArrayMap() {
-    	map = new HashMap<Key,V>();
+    	this(16, false);
     }
-    
-    
+
     /**
      * Static factory method that constructs an empty CharArrayMap with default initial capacity,
      * and the map will be kept in ascending key order.
-     * 
+     *
      * Characters are compared using a strictly numerical comparison; it is not locale-dependent.
      */
     public static <V> CharArrayMap<V> createOrderedMap() {
-    	// TreeMap does not have a constructor that takes an initial capacity
-    	return new CharArrayMap<V>(new TreeMap<Key, V>());
-    }
-    
-    
-    private CharArrayMap(Map<Key, V> map) {
-    	assert map != null;
-    	this.map = map;
+    	return new CharArrayMap<V>(16, true);
     }
-    
-    
+
     /**
      * Constructs an empty CharArrayMap with the given initial capacity.
      * @throws IllegalArgumentException if the initial capacity is negative
      */
     public CharArrayMap(int initialCapacity) {
-    	map = new HashMap<Key,V>(initialCapacity);
+    	this(initialCapacity, false);
+    }
+
+    private CharArrayMap(int initialCapacity, boolean ordered) {
+    	if (initialCapacity < 0)
+    		throw new IllegalArgumentException("Illegal capacity: " + initialCapacity); //$NON-NLS-1$
+    	this.ordered = ordered;
+    	allocate(Math.max(MIN_CAPACITY, initialCapacity));
+    }
+
+    private void allocate(int capacity) {
+    	keys = new char[capacity][];
+    	hashes = new int[capacity];
+    	values = new Object[capacity];
+    	if (ordered)
+    		order = new int[capacity];
+    	int slotCount = Integer.highestOneBit(capacity) << 2;
+    	slots = new int[slotCount];
+    }
+
+    /**
+     * Doubles the capacity, the cached hash codes are used to populate the new slots.
+     */
+    private void grow() {
+    	final char[][] oldKeys = keys;
+    	final int[] oldHashes = hashes;
+    	final Object[] oldValues = values;
+    	final int[] oldOrder = order;
+    	allocate(oldKeys.length * 2);
+    	System.arraycopy(oldKeys, 0, keys, 0, size);
+    	System.arraycopy(oldHashes, 0, hashes, 0, size);
+    	System.arraycopy(oldValues, 0, values, 0, size);
+    	if (ordered)
+    		System.arraycopy(oldOrder, 0, order, 0, size);
+    	final int mask = slots.length - 1;
+    	for (int i = 0; i < size; i++) {
+    		int slot = hashes[i] & mask;
+    		while (slots[slot] != 0) {
+    			slot = (slot + 1) & mask;
+    		}
+    		slots[slot] = i + 1;
+    	}
+    }
+
+    /**
+     * Returns the slot holding the entry for the given slice, or minus one minus the free slot
+     * where an entry for the slice can be inserted.
+     */
+    private int findSlot(char[] chars, int start, int length, int hash) {
+    	final int mask = slots.length - 1;
+    	for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+    		final int idx = slots[slot] - 1;
+    		if (idx < 0)
+    			return -slot - 1;
+    		if (hashes[idx] == hash && CharArrayUtils.equals(chars, start, length, keys[idx]))
+    			return slot;
+    	}
+    }
+
+    private int indexOf(char[] chars, int start, int length) {
+    	final int slot = findSlot(chars, start, length, hash(chars, start, length));
+    	return slot < 0 ? -1 : slots[slot] - 1;
+    }
+
+    /**
+     * Returns the slot referencing the entry with the given index.
+     */
+    private int slotOf(int idx) {
+    	final int mask = slots.length - 1;
+    	int slot = hashes[idx] & mask;
+    	while (slots[slot] != idx + 1) {
+    		slot = (slot + 1) & mask;
+    	}
+    	return slot;
+    }
+
+    /**
+     * For an ordered map, returns the position of the key within {@link #order}, or minus one
+     * minus the position where it has to be inserted.
+     */
+    private int orderPosition(char[] key, int count) {
+    	int low = 0;
+    	int high = count - 1;
+    	while (low <= high) {
+    		final int mid = (low + high) >>> 1;
+    		final int cmp = CharArrayUtils.compare(keys[order[mid]], key);
+    		if (cmp < 0) {
+    			low = mid + 1;
+    		} else if (cmp > 0) {
+    			high = mid - 1;
+    		} else {
+    			return mid;
+    		}
+    	}
+    	return -low - 1;
+    }
+
+    /**
+     * Returns the index of the entry at the given position of the iteration order.
+     */
+    private int entryAt(int pos) {
+    	return ordered ? order[pos] : pos;
+    }
+
+    private void doPut(char[] chars, int start, int length, V value) {
+    	final int hash = hash(chars, start, length);
+    	int slot = findSlot(chars, start, length, hash);
+    	if (slot >= 0) {
+    		values[slots[slot] - 1] = value;
+    		return;
+    	}
+    	if (size == keys.length) {
+    		grow();
+    		slot = findSlot(chars, start, length, hash);
+    	}
+    	final int idx = size;
+    	final char[] key = CharArrayUtils.extract(chars, start, length);
+    	if (ordered) {
+    		final int pos = -orderPosition(key, size) - 1;
+    		System.arraycopy(order, pos, order, pos + 1, size - pos);
+    		order[pos] = idx;
+    	}
+    	size++;
+    	modCount++;
+    	keys[idx] = key;
+    	hashes[idx] = hash;
+    	values[idx] = value;
+    	slots[-slot - 1] = idx + 1;
+    }
+
+    private V doRemove(char[] chars, int start, int length) {
+    	final int slot = findSlot(chars, start, length, hash(chars, start, length));
+    	if (slot < 0)
+    		return null;
+
+    	final int idx = slots[slot] - 1;
+    	@SuppressWarnings("unchecked")
+		final V result = (V) values[idx];
+    	removeEntry(idx, slot);
+    	return result;
+    }
+
+    /**
+     * Removes the entry with the given index, which is referenced by the given slot.
+     */
+    private void removeEntry(int idx, int slot) {
+    	final int last = size - 1;
+    	if (ordered) {
+    		final int pos = orderPosition(keys[idx], size);
+    		System.arraycopy(order, pos + 1, order, pos, last - pos);
+    		if (idx != last) {
+    			order[orderPosition(keys[last], last)] = idx;
+    		}
+    	}
+    	freeSlot(slot);
+    	size = last;
+    	modCount++;
+
+    	// Move the last entry into the gap.
+    	if (idx != last) {
+    		slots[slotOf(last)] = idx + 1;
+    		keys[idx] = keys[last];
+    		hashes[idx] = hashes[last];
+    		values[idx] = values[last];
+    	}
+    	keys[last] = null;
+    	values[last] = null;
+    }
+
+    /**
+     * Frees a slot, the subsequent entries of the probe sequence are shifted back such that no
+     * deletion markers are needed.
+     */
+    private void freeSlot(int hole) {
+    	final int mask = slots.length - 1;
+    	for (int slot = (hole + 1) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+    		final int home = hashes[slots[slot] - 1] & mask;
+    		if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+    			slots[hole] = slots[slot];
+    			hole = slot;
+    		}
+    	}
+    	slots[hole] = 0;
     }
-    
+
     /**
 	 * Creates a new mapping in this map, uses the given array slice as the key.
 	 * If the map previously contained a mapping for this key, the old value is replaced.
@@ -181,7 +304,7 @@ public final class CharArrayMap<V> {
 	 */
     public void put(char[] chars, int start, int length, V value) {
     	checkBoundaries(chars, start, length);
-        map.put(new Key(chars, start, length), value);
+    	doPut(chars, start, length, value);
     }
 
     /**
@@ -190,27 +313,31 @@ public final class CharArrayMap<V> {
 	 * @throws NullPointerException if chars is null
 	 */
     public void put(char[] chars, V value) {
-        map.put(new Key(chars), value);
+    	doPut(chars, 0, chars.length, value);
     }
 
     /**
-	 * Returns the value to which the specified array slice is mapped in this map, 
-	 * or null if the map contains no mapping for this key. 
+	 * Returns the value to which the specified array slice is mapped in this map,
+	 * or null if the map contains no mapping for this key.
 	 * @throws NullPointerException if chars is null
 	 * @throws IndexOutOfBoundsException if the boundaries specified by start and length are out of range
 	 */
-    public V get(char[] chars, int start, int length) {
+    @SuppressWarnings("unchecked")
+	public V get(char[] chars, int start, int length) {
     	checkBoundaries(chars, start, length);
-        return map.get(new Key(chars, start, length));
+    	final int idx = indexOf(chars, start, length);
+    	return idx < 0 ? null : (V) values[idx];
     }
 
     /**
-	 * Returns the value to which the specified array is mapped in this map, 
-	 * or null if the map contains no mapping for this key. 
+	 * Returns the value to which the specified array is mapped in this map,
+	 * or null if the map contains no mapping for this key.
 	 * @throws NullPointerException if chars is null
 	 */
-    public V get(char[] chars) {
-        return map.get(new Key(chars));
+    @SuppressWarnings("unchecked")
+	public V get(char[] chars) {
+    	final int idx = indexOf(chars, 0, chars.length);
+    	return idx < 0 ? null : (V) values[idx];
     }
 
     /**
@@ -222,9 +349,9 @@ public final class CharArrayMap<V> {
 	 */
     public V remove(char[] chars, int start, int length) {
     	checkBoundaries(chars, start, length);
-    	return map.remove(new Key(chars, start, length));
+    	return doRemove(chars, start, length);
     }
-    
+
     /**
 	 * Removes the mapping for the given array if present.
 	 * Returns the value object that corresponded to the key
@@ -232,7 +359,7 @@ public final class CharArrayMap<V> {
 	 * @throws NullPointerException if chars is null
 	 */
     public V remove(char[] chars) {
-    	return map.remove(new Key(chars));
+    	return doRemove(chars, 0, chars.length);
     }
 
     /**
@@ -242,7 +369,7 @@ public final class CharArrayMap<V> {
 	 */
     public boolean containsKey(char[] chars, int start, int length) {
     	checkBoundaries(chars, start, length);
-    	return map.containsKey(new Key(chars, start, length));
+    	return indexOf(chars, start, length) >= 0;
     }
 
     /**
@@ -250,32 +377,55 @@ public final class CharArrayMap<V> {
 	 * @throws NullPointerException if chars is null
 	 */
     public boolean containsKey(char[] chars) {
-    	return map.containsKey(new Key(chars));
+    	return indexOf(chars, 0, chars.length) >= 0;
     }
-    
+
     /**
 	 * Returns true if the given value is contained in the map.
 	 */
     public boolean containsValue(V value) {
-    	return map.containsValue(value);
+    	for (int i = 0; i < size; i++) {
+    		final Object v = values[i];
+    		if (v == null ? value == null : v.equals(value))
+    			return true;
+    	}
+    	return false;
     }
 
-    /** 
-	 * Use this in a foreach loop.
+    /**
+	 * Use this in a foreach loop. The returned collection is backed by the map, values can be
+	 * removed from the map via its iterator.
 	 */
     public Collection<V> values() {
-        return map.values();
+    	if (valuesView == null) {
+    		valuesView = new AbstractCollection<V>() {
+    			@Override
+    			public Iterator<V> iterator() {
+    				return new ValueIterator();
+    			}
+
+    			@Override
+    			public int size() {
+    				return size;
+    			}
+
+    			@Override
+    			public void clear() {
+    				CharArrayMap.this.clear();
+    			}
+    		};
+    	}
+        return valuesView;
     }
 
     /**
-	 * Returns the keys stored in the map.
+	 * Returns a copy of the keys stored in the map.
 	 */
     public Collection<char[]> keys() {
-    	Set<Key> keys= map.keySet();
-    	ArrayList<char[]> r= new ArrayList<char[]>(keys.size());
-    	for (Key key : keys) {
-    		r.add(CharArrayUtils.extract(key.buffer, key.start, key.length));
-		}
+    	List<char[]> r = new ArrayList<char[]>(size);
+    	for (int pos = 0; pos < size; pos++) {
+    		r.add(keys[entryAt(pos)].clone());
+    	}
         return r;
     }
 
@@ -283,31 +433,84 @@ public final class CharArrayMap<V> {
 	 * Removes all mappings from the map.
 	 */
     public void clear() {
-    	map.clear();
+    	Arrays.fill(keys, 0, size, null);
+    	Arrays.fill(values, 0, size, null);
+    	Arrays.fill(slots, 0);
+    	size = 0;
+    	modCount++;
     }
 
     /**
 	 * Returns the number of mappings.
 	 */
     public int size() {
-    	return map.size();
+    	return size;
     }
 
     /**
 	 * Returns true if the map is empty.
 	 */
     public boolean isEmpty() {
-    	return map.isEmpty();
+    	return size == 0;
     }
-    
-    
+
+
     /**
      * Returns a String representation of the map.
      */
-    @Override 
+    @Override
     public String toString() {
-    	return map.toString();
+    	StringBuilder buf = new StringBuilder();
+    	buf.append('{');
+    	for (int pos = 0; pos < size; pos++) {
+    		final int idx = entryAt(pos);
+    		if (buf.length() > 1)
+    			buf.append(", "); //$NON-NLS-1$
+    		buf.append(keys[idx]).append('=').append(values[idx]);
+    	}
+    	return buf.append('}').toString();
     }
-   
-}
 
+    /**
+     * Iterates over the values in the order of the map. Removing an entry moves another one
+     * to the current position: for an ordered map the subsequent ones move up, otherwise the
+     * last entry fills the gap. In both cases the iteration continues at the current position.
+     */
+    private class ValueIterator implements Iterator<V> {
+    	private int fNext;
+    	private int fCurrent = -1;
+    	private int fExpectedModCount = modCount;
+
+    	@Override
+		public boolean hasNext() {
+    		return fNext < size;
+    	}
+
+    	@Override
+		@SuppressWarnings("unchecked")
+    	public V next() {
+    		checkModCount();
+    		if (fNext >= size)
+    			throw new NoSuchElementException();
+    		fCurrent = fNext++;
+    		return (V) values[entryAt(fCurrent)];
+    	}
+
+    	@Override
+		public void remove() {
+    		if (fCurrent < 0)
+    			throw new IllegalStateException();
+    		checkModCount();
+    		final int idx = entryAt(fCurrent);
+    		removeEntry(idx, slotOf(idx));
+    		fNext = fCurrent;
+    		fCurrent = -1;
+    		fExpectedModCount = modCount;
+    	}
+
+    	private void checkModCount() {
+    		if (modCount != fExpectedModCount)
+    			throw new ConcurrentModificationException();
+    	}
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2008 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,10 +20,13 @@ import java.util.List;
  */
 public class CharTable extends HashTable {
 	protected char[][] keyTable;
+	/** The hash codes of the keys, such that they need not be computed when resizing the table. */
+	private int[] keyHashes;
 
 	public CharTable(int initialSize) {
 		super(initialSize);
 		keyTable = new char[capacity()][];
+		keyHashes = new int[capacity()];
 	}
 	
 	@Override
@@ -31,8 +34,20 @@ public class CharTable extends HashTable {
 		char[][] oldKeyTable = keyTable;
 		keyTable = new char[size][];
 		System.arraycopy(oldKeyTable, 0, keyTable, 0, Math.min(size, oldKeyTable.length));
+		int[] oldKeyHashes = keyHashes;
+		keyHashes = new int[size];
+		System.arraycopy(oldKeyHashes, 0, keyHashes, 0, Math.min(size, oldKeyHashes.length));
 		super.resize(size);
 	}
+
+	@Override
+	protected void rehash() {
+		// The keys may have been reordered.
+		for (int i = 0; i <= currEntry; i++) {
+			keyHashes[i] = CharArrayUtils.hash(keyTable[i]);
+		}
+		super.rehash();
+	}
 	
 	@Override
 	public void clear() {
@@ -48,6 +63,8 @@ public class CharTable extends HashTable {
         int size = capacity();
         newTable.keyTable = new char[size][];
         System.arraycopy(keyTable, 0, newTable.keyTable, 0, keyTable.length);
+        newTable.keyHashes = new int[size];
+        System.arraycopy(keyHashes, 0, newTable.keyHashes, 0, keyHashes.length);
         
 	    return newTable;
 	}
@@ -58,7 +75,7 @@ public class CharTable extends HashTable {
 	
 	@Override
 	protected final int hash(int pos) {
-	    return hash(keyTable[pos], 0, keyTable[pos].length);
+	    return keyHashes[pos] & ((keyTable.length * 2) - 1);
 	}
 	
 	protected final int hash(char[] obj) {
@@ -70,20 +87,20 @@ public class CharTable extends HashTable {
 	}
 	
 	public final int addIndex(char[] buffer, int start, int len) {
+		final int keyHash = CharArrayUtils.hash(buffer, start, len);
 		if (hashTable != null) {
-			int hash = hash(buffer, start, len);
-			int pos = lookup(buffer, start, len, hash);
+			int pos = lookupHashed(buffer, start, len, keyHash);
 			if (pos != -1)
 				return pos;
 			
 			// key is not here, add it.
 			if ((currEntry + 1) >= capacity()) {
 				resize();
-				hash = hash(buffer, start, len);
 			}
 			currEntry++;
 			keyTable[currEntry] = CharArrayUtils.extract(buffer, start, len);
-			linkIntoHashTable(currEntry, hash);		
+			keyHashes[currEntry] = keyHash;
+			linkIntoHashTable(currEntry, hash(currEntry));
 		} else {
 			int pos = lookup(buffer, start, len);
 			if (pos != -1)
@@ -98,15 +115,18 @@ public class CharTable extends HashTable {
 			}
 			currEntry++;
 			keyTable[currEntry] = CharArrayUtils.extract(buffer, start, len);
+			keyHashes[currEntry] = keyHash;
 		}
 		return currEntry;
 	}
 	
 	protected void removeEntry(int i) {		
 		// Remove the entry from the keyTable, shifting everything over if necessary
-		int hash = hash(keyTable[i]);
-		if (i < currEntry)
-			System.arraycopy(keyTable, i + 1, keyTable, i, currEntry - i);			
+		int hash = hash(i);
+		if (i < currEntry) {
+			System.arraycopy(keyTable, i + 1, keyTable, i, currEntry - i);
+			System.arraycopy(keyHashes, i + 1, keyHashes, i, currEntry - i);
+		}
 
 		keyTable[currEntry] = null;
 		
@@ -152,7 +172,7 @@ public class CharTable extends HashTable {
 	
 	protected final int lookup(char[] buffer, int start, int len) {
 		if (hashTable != null)
-			return lookup(buffer, start, len, hash(buffer, start, len));
+			return lookupHashed(buffer, start, len, CharArrayUtils.hash(buffer, start, len));
 		for (int i = 0; i <= currEntry; i++) {
 			if (CharArrayUtils.equals(buffer, start, len, keyTable[i]))
 				return i;
@@ -176,6 +196,21 @@ public class CharTable extends HashTable {
 		return -1;
 	}
 	
+	/**
+	 * Looks up a key with the given hash code, the cached hash codes of the keys are compared
+	 * before comparing the characters.
+	 */
+	private int lookupHashed(char[] buffer, int start, int len, int keyHash) {
+		int i = hashTable[keyHash & ((keyTable.length * 2) - 1)] - 1;
+		for (; i >= 0; i = nextTable[i] - 1) {
+			if (keyHashes[i] == keyHash && CharArrayUtils.equals(buffer, start, len, keyTable[i]))
+				return i;
+			if (nextTable[i] == i + 1)
+				break;
+		}
+		return -1;
+	}
+
 	public Object[] keyArray() {
 	    Object[] keys = new Object[ size() ];
 	    System.arraycopy(keyTable, 0, keys, 0, keys.length);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,6 +33,19 @@ import org.eclipse.cdt.internal.core.parser.scanner.Token;
  * Base class for all non-preprocessor nodes in the AST.
  */
 public abstract class ASTNode implements IASTNode {
+	/**
+	 * The node locations and the file location of a node for which both have been requested.
+	 */
+	private static final class Locations {
+		final IASTNodeLocation[] fNodeLocations;
+		IASTFileLocation fFileLocation;
+
+		Locations(IASTNodeLocation[] nodeLocations, IASTFileLocation fileLocation) {
+			fNodeLocations= nodeLocations;
+			fFileLocation= fileLocation;
+		}
+	}
+
     private IASTNode parent;
     private ASTNodeProperty property;
 
@@ -42,8 +55,13 @@ public abstract class ASTNode implements IASTNode {
      */
     private int offset;
     private int length;
-    private IASTNodeLocation[] locations;
-    private IASTFileLocation fileLocation;
+    /**
+     * The cached file location, the node locations or both of them in a {@link Locations} object.
+     * A single field is used to keep the nodes small, in most cases only one of them is requested.
+     * File locations are not cached for asts created with
+     * {@link org.eclipse.cdt.core.model.ILanguage#OPTION_NO_CACHED_LOCATIONS}.
+     */
+    private Object locations;
 
     private boolean frozen = false;
     private boolean active = true;
@@ -73,6 +91,13 @@ public abstract class ASTNode implements IASTNode {
 		frozen = true;
 	}
 
+	/**
+	 * Makes a frozen node modifiable again, used when a translation unit is updated incrementally.
+	 */
+	void unfreeze() {
+		frozen = false;
+	}
+
 	public void setInactive() {
 		if (frozen)
 			throw new IllegalStateException("attempt to modify frozen AST node"); //$NON-NLS-1$
@@ -112,20 +137,17 @@ public abstract class ASTNode implements IASTNode {
     public void setOffset(int offset) {
         this.offset = offset;
         this.locations = null;
-        this.fileLocation = null;
     }
 
     public void setLength(int length) {
         this.length = length;
         this.locations = null;
-        this.fileLocation = null;
     }
 
     public void setOffsetAndLength(int offset, int length) {
         this.offset = offset;
         this.length = length;
         this.locations = null;
-        this.fileLocation = null;
     }
 
     public void setOffsetAndLength(ASTNode node) {
@@ -134,20 +156,29 @@ public abstract class ASTNode implements IASTNode {
 
     @Override
 	public IASTNodeLocation[] getNodeLocations() {
-        if (locations == null) {
-	        if (length != 0) {
-	        	final IASTTranslationUnit tu= getTranslationUnit();
-	        	if (tu != null) {
-	        		ILocationResolver l= (ILocationResolver) tu.getAdapter(ILocationResolver.class);
-	        		if (l != null) {
-	        			locations= l.getLocations(getOffset(), length);
-	        		}
-	        	}
-	        }
-	        if (locations == null)
-	        	locations= IASTNodeLocation.EMPTY_ARRAY;
-        }
-        return locations;
+    	if (locations instanceof IASTNodeLocation[])
+    		return (IASTNodeLocation[]) locations;
+    	if (locations instanceof Locations)
+    		return ((Locations) locations).fNodeLocations;
+
+    	IASTNodeLocation[] result= null;
+    	if (length != 0) {
+    		final IASTTranslationUnit tu= getTranslationUnit();
+    		if (tu != null) {
+    			ILocationResolver l= (ILocationResolver) tu.getAdapter(ILocationResolver.class);
+    			if (l != null) {
+    				result= l.getLocations(getOffset(), length);
+    			}
+    		}
+    	}
+    	if (result == null)
+    		result= IASTNodeLocation.EMPTY_ARRAY;
+    	if (locations == null) {
+    		locations= result;
+    	} else if (locations instanceof IASTFileLocation) {
+    		locations= new Locations(result, (IASTFileLocation) locations);
+    	}
+    	return result;
     }
 
     public IASTImageLocation getImageLocation() {
@@ -196,24 +227,37 @@ public abstract class ASTNode implements IASTNode {
 
     @Override
 	public IASTFileLocation getFileLocation() {
-        if (fileLocation != null)
-            return fileLocation;
+        if (locations instanceof IASTFileLocation)
+            return (IASTFileLocation) locations;
+        if (locations instanceof Locations && ((Locations) locations).fFileLocation != null)
+        	return ((Locations) locations).fFileLocation;
         // TODO(sprigogin): The purpose of offset == 0 && length == 0 condition is not clear to me.
         final int offset = getOffset();
 		if (offset < 0 || (offset == 0 && length == 0 && !(this instanceof IASTTranslationUnit))) {
         	return null;
         }
+		IASTFileLocation result= null;
         IASTTranslationUnit ast = getTranslationUnit();
         if (ast != null) {
         	ILocationResolver lr= (ILocationResolver) ast.getAdapter(ILocationResolver.class);
         	if (lr != null) {
-        		fileLocation= lr.getMappedFileLocation(offset, length);
+        		result= lr.getMappedFileLocation(offset, length);
         	} else {
         		// Support for old location map
-        		fileLocation= ast.flattenLocationsToFile(getNodeLocations());
+        		result= ast.flattenLocationsToFile(getNodeLocations());
+        	}
+        }
+        if (result != null && (!(ast instanceof ASTTranslationUnit)
+        		|| ((ASTTranslationUnit) ast).isCachingLocations())) {
+        	if (locations == null) {
+        		locations= result;
+        	} else if (locations instanceof IASTNodeLocation[]) {
+        		locations= new Locations((IASTNodeLocation[]) locations, result);
+        	} else if (locations instanceof Locations) {
+        		((Locations) locations).fFileLocation= result;
         	}
         }
-        return fileLocation;
+        return result;
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroDefinition;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroExpansion;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorStatement;
 import org.eclipse.cdt.core.dom.ast.IASTProblem;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.dom.ast.IASTTypeId;
 import org.eclipse.cdt.core.dom.ast.IBinding;
@@ -74,6 +75,7 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 	private IIndexFileSet fASTFileSet;
 	private INodeFactory fNodeFactory;
 	private boolean fForContentAssist;
+	private boolean fCacheLocations= true;
 	private ITranslationUnit fOriginatingTranslationUnit;
 	private ISignificantMacros fSignificantMacros= ISignificantMacros.NONE;
 	private boolean fPragmaOnceSemantics;
@@ -212,6 +214,15 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
         resolver.setRootNode(this);
 	}
 
+	/**
+	 * Replaces the location resolver, when the translation unit is updated incrementally. Other than
+	 * {@link #setLocationResolver(ILocationResolver)}, the method does not introduce the translation
+	 * unit to the resolver.
+	 */
+	final void replaceLocationResolver(ILocationResolver resolver) {
+		fLocationResolver= resolver;
+	}
+
 	@Override
 	public final IASTProblem[] getPreprocessorProblems() {
 		if (fLocationResolver == null)
@@ -292,6 +303,14 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
     	}
     }
 
+    /**
+     * Replaces the index by one that consists of the same fragments, which have not been
+     * modified since the translation unit was created. The file sets are kept.
+     */
+    public final void replaceIndex(IIndex index) {
+    	this.fIndex = index;
+    }
+
     @Override
 	public final INodeFactory getASTNodeFactory() {
     	return fNodeFactory;
@@ -342,6 +361,21 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 		fForContentAssist= forContentAssist;
 	}
 
+	/**
+	 * Returns whether the nodes of this ast cache their file locations.
+	 */
+	public final boolean isCachingLocations() {
+		return fCacheLocations;
+	}
+
+	/**
+	 * Specifies whether the nodes of this ast cache their file locations, not doing so saves
+	 * memory when the locations are requested only once.
+	 */
+	public final void setCacheLocations(boolean cacheLocations) {
+		fCacheLocations= cacheLocations;
+	}
+
 	@Override
 	public boolean isBasedOnIncompleteIndex() {
 		return fBasedOnIncompleteIndex;
@@ -404,6 +438,12 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 	 */
 	public abstract void resolveAmbiguities();
 
+	/**
+	 * Resolves the ambiguities of a function body that replaces the body of a function definition
+	 * of this translation unit.
+	 */
+	public abstract void resolveAmbiguities(IASTStatement functionBody);
+
 	/**
 	 * Can be called to create a type for a type-id.
 	 */
@@ -415,6 +455,7 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 		copy.fNodeFactory = fNodeFactory;
 		copy.setLocationResolver(fLocationResolver);
 		copy.fForContentAssist = fForContentAssist;
+		copy.fCacheLocations = fCacheLocations;
 		copy.fOriginatingTranslationUnit = fOriginatingTranslationUnit;
 		
 		for (IASTDeclaration declaration : getDeclarations()) {
@@ -475,6 +516,14 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 		fSemaphore.acquire();
 	}
 
+	/**
+	 * Starts exclusive access, if it can be obtained without waiting.
+	 * @return whether exclusive access was obtained.
+	 */
+	public boolean tryBeginExclusiveAccess() {
+		return fSemaphore.tryAcquire();
+	}
+
 	public void endExclusiveAccess() {
 		fSemaphore.release();
 	}
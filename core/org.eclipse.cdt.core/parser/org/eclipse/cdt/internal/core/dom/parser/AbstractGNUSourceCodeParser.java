@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -672,8 +672,45 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
         }
     }
 
+    /**
+     * Parses the body of a function definition of an existing translation unit. The scanner
+     * has to provide the tokens of the body, only. The ambiguities of the body are not resolved.
+     * @param tu the translation unit the body will become part of.
+     * @return the body, or <code>null</code> if the tokens do not form a single compound statement.
+     */
+    public IASTCompoundStatement parseFunctionBody(IASTTranslationUnit tu) {
+    	useTranslationUnit(tu);
+    	try {
+    		IASTCompoundStatement body;
+    		try {
+    			if (LT(1) != IToken.tLBRACE)
+    				return null;
+    			body= functionBody();
+    		} catch (EndOfFileException e) {
+    			return null;
+    		} catch (BacktrackException e) {
+    			return null;
+    		}
+    		try {
+    			LA(1);
+    			// There are tokens following the body.
+    			return null;
+    		} catch (EndOfFileException e) {
+    			return body;
+    		}
+    	} finally {
+    		nullifyTranslationUnit();
+    	}
+    }
+
     protected abstract ASTVisitor createAmbiguityNodeVisitor();
 
+    /**
+     * Makes the parser use an existing translation unit.
+     * @see #parseFunctionBody(IASTTranslationUnit)
+     */
+    protected abstract void useTranslationUnit(IASTTranslationUnit tu);
+
     protected abstract void nullifyTranslationUnit();
 
 	protected IToken skipOverCompoundStatement() throws BacktrackException, EndOfFileException {
@@ -0,0 +1,577 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cdt.core.dom.ast.ASTGenericVisitor;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.DOMException;
+import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
+import org.eclipse.cdt.core.dom.ast.IASTDeclSpecifier;
+import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTNodeLocation;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorIncludeStatement;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorStatement;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.ast.IMacroBinding;
+import org.eclipse.cdt.core.dom.ast.IScope;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTDeclSpecifier;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTFunctionWithTryBlock;
+import org.eclipse.cdt.core.parser.EndOfFileException;
+import org.eclipse.cdt.core.parser.IScanner;
+import org.eclipse.cdt.core.parser.ISignificantMacros;
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.core.parser.IncludeExportPatterns;
+import org.eclipse.cdt.core.parser.OffsetLimitReachedException;
+import org.eclipse.cdt.core.parser.util.CharArrayUtils;
+import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.ILocationResolver;
+import org.eclipse.cdt.internal.core.parser.scanner.LocationMap;
+
+/**
+ * Updates the AST of a translation unit after an edit that is confined to the body of a single
+ * function definition. The file is preprocessed again, however only the modified body is parsed
+ * and replaced in the AST. The offsets of the nodes following the body are shifted, such that
+ * they match the new location resolver.
+ * <p>
+ * The update is performed only, when it can be verified that preprocessing yields the same result
+ * outside of the body. Otherwise the translation unit is left unchanged and a full parse has to
+ * be performed.
+ */
+public final class FunctionBodyReparser {
+	private static final char[] __LINE__ = "__LINE__".toCharArray(); //$NON-NLS-1$
+	private static final char[] __COUNTER__ = "__COUNTER__".toCharArray(); //$NON-NLS-1$
+	private static final char[] _Pragma = "_Pragma".toCharArray(); //$NON-NLS-1$
+
+	/**
+	 * Provides the tokens of the new body to the parser. All tokens are fetched from the
+	 * preprocessor up front, such that the location resolver is complete before parsing starts.
+	 */
+	private final class BodyScanner implements IScanner {
+		private final IScanner fPreprocessor;
+		private final List<IToken> fTokens= new ArrayList<IToken>();
+		private int fNextToken;
+
+		BodyScanner(IScanner preprocessor) {
+			fPreprocessor= preprocessor;
+		}
+
+		/**
+		 * Fetches all tokens from the preprocessor and keeps the ones of the body that starts at
+		 * the given sequence number. Returns the sequence number of the end of the body, or -1 if
+		 * the body cannot be found.
+		 */
+		int fetchBody(int bodySequenceNumber) {
+			int depth= -1;
+			int bodyEnd= -1;
+			try {
+				while (true) {
+					IToken t= fPreprocessor.nextToken();
+					if (depth < 0) {
+						if (t.getOffset() == bodySequenceNumber && bodyEnd < 0) {
+							if (t.getType() != IToken.tLBRACE)
+								return -1;
+							depth= 1;
+							fTokens.add(t);
+						}
+					} else if (depth > 0) {
+						fTokens.add(t);
+						switch (t.getType()) {
+						case IToken.tLBRACE:
+							depth++;
+							break;
+						case IToken.tRBRACE:
+							if (--depth == 0) {
+								bodyEnd= t.getEndOffset();
+								depth= -1;
+							}
+							break;
+						case IToken.tINACTIVE_CODE_START:
+						case IToken.tINACTIVE_CODE_SEPARATOR:
+						case IToken.tINACTIVE_CODE_END:
+							return -1;
+						}
+					}
+				}
+			} catch (EndOfFileException e) {
+			}
+			// The parser links the tokens it obtains, the preprocessor may have done so already.
+			for (IToken t : fTokens) {
+				t.setNext(null);
+			}
+			return bodyEnd;
+		}
+
+		@Override
+		public IToken nextToken() throws EndOfFileException {
+			if (fNextToken < fTokens.size())
+				return fTokens.get(fNextToken++);
+			throw new EndOfFileException(fNewBodyEnd);
+		}
+
+		@Override
+		public Map<String, IMacroBinding> getMacroDefinitions() {
+			return fPreprocessor.getMacroDefinitions();
+		}
+
+		@Override
+		public boolean isOnTopContext() {
+			return fPreprocessor.isOnTopContext();
+		}
+
+		@Override
+		public void cancel() {
+			fPreprocessor.cancel();
+		}
+
+		@Override
+		public ILocationResolver getLocationResolver() {
+			return fPreprocessor.getLocationResolver();
+		}
+
+		@Override
+		public void setContentAssistMode(int offset) {
+			fPreprocessor.setContentAssistMode(offset);
+		}
+
+		@Override
+		public void setSplitShiftROperator(boolean val) {
+			fPreprocessor.setSplitShiftROperator(val);
+		}
+
+		@Override
+		public void setComputeImageLocations(boolean val) {
+			fPreprocessor.setComputeImageLocations(val);
+		}
+
+		@Override
+		public void setTrackIncludeExport(IncludeExportPatterns patterns) {
+			fPreprocessor.setTrackIncludeExport(patterns);
+		}
+
+		@Override
+		public void setProcessInactiveCode(boolean val) {
+			fPreprocessor.setProcessInactiveCode(val);
+		}
+
+		@Override
+		public void skipInactiveCode() throws OffsetLimitReachedException {
+		}
+
+		@Override
+		public int getCodeBranchNesting() {
+			return 0;
+		}
+
+		@Deprecated
+		@Override
+		public void setScanComments(boolean val) {
+		}
+	}
+
+	private final ASTTranslationUnit fTu;
+	private final AbstractCharArray fNewSource;
+	private LocationMap fOldLocationMap;
+	private IASTFunctionDefinition fFunction;
+	private IASTCompoundStatement fOldBody;
+	private int fOldBodyOffset;
+	private int fOldBodyEnd;
+	private int fOldBodyFileOffset;
+	private int fOldBodyFileEnd;
+	private int fLengthDelta;
+	private int fNewBodyEnd;
+	private boolean fLinesChanged;
+	private List<ASTNode> fEnclosingNodes;
+	private List<ASTNode> fFollowingNodes;
+	private BodyScanner fScanner;
+
+	/**
+	 * @param tu the translation unit to update, it must not be accessed by other threads.
+	 * @param newSource the modified content of the file of the translation unit.
+	 */
+	public FunctionBodyReparser(ASTTranslationUnit tu, AbstractCharArray newSource) {
+		fTu= tu;
+		fNewSource= newSource;
+	}
+
+	/**
+	 * Checks whether the translation unit can be updated incrementally. Does not modify the
+	 * translation unit.
+	 */
+	public boolean canReparse() {
+		ILocationResolver resolver= fTu.fLocationResolver;
+		if (!(resolver instanceof LocationMap) || fTu.isForContentAssist())
+			return false;
+		fOldLocationMap= (LocationMap) resolver;
+
+		final AbstractCharArray oldSource= fOldLocationMap.getTranslationUnitSource();
+		final int oldLength= oldSource.getLength();
+		final int newLength= fNewSource.getLength();
+		final int minLength= Math.min(oldLength, newLength);
+		int prefix= 0;
+		while (prefix < minLength && oldSource.get(prefix) == fNewSource.get(prefix)) {
+			prefix++;
+		}
+		if (prefix == oldLength && prefix == newLength)
+			return false;
+
+		int suffix= 0;
+		while (suffix < minLength - prefix
+				&& oldSource.get(oldLength - suffix - 1) == fNewSource.get(newLength - suffix - 1)) {
+			suffix++;
+		}
+		final int oldChangeEnd= oldLength - suffix;
+		final int newChangeEnd= newLength - suffix;
+		if (!isPlainCode(oldSource, prefix, oldChangeEnd) || !isPlainCode(fNewSource, prefix, newChangeEnd))
+			return false;
+		fLinesChanged= countLines(oldSource, prefix, oldChangeEnd) != countLines(fNewSource, prefix, newChangeEnd);
+		fLengthDelta= newLength - oldLength;
+
+		// Find the outermost function definition with a body enclosing the change.
+		fFunction= findFunction(fTu.getDeclarations(true), prefix, oldChangeEnd);
+		if (fFunction == null || !fFunction.isActive() || fFunction instanceof ICPPASTFunctionWithTryBlock)
+			return false;
+
+		fOldBody= (IASTCompoundStatement) fFunction.getBody();
+		// Constant expressions elsewhere in the file may depend on the body of a constexpr function.
+		if (isConstexpr(fFunction) || containsConstexprFunction(fOldBody))
+			return false;
+
+		final ASTNode body= (ASTNode) fOldBody;
+		fOldBodyOffset= body.getOffset();
+		fOldBodyEnd= fOldBodyOffset + body.getLength();
+		if (!isBraceInFile(fOldLocationMap, fOldBodyOffset, fOldBodyFileOffset, '{', oldSource)
+				|| !isBraceInFile(fOldLocationMap, fOldBodyEnd - 1, fOldBodyFileEnd - 1, '}', oldSource)) {
+			return false;
+		}
+		if (hasDirectivesOrLineDependentMacros(fOldLocationMap, fOldBodyOffset, fOldBodyEnd))
+			return false;
+
+		return collectNodes();
+	}
+
+	/**
+	 * Searches the nodes for the outermost function definition with a body that strictly encloses
+	 * the given range of the file.
+	 */
+	private IASTFunctionDefinition findFunction(IASTNode[] nodes, int offset, int endOffset) {
+		for (IASTNode node : nodes) {
+			if (!node.isPartOfTranslationUnitFile())
+				continue;
+			IASTFileLocation loc= node.getFileLocation();
+			if (loc == null || loc.getNodeOffset() > offset || loc.getNodeOffset() + loc.getNodeLength() < endOffset)
+				continue;
+
+			if (node instanceof IASTFunctionDefinition) {
+				IASTStatement body= ((IASTFunctionDefinition) node).getBody();
+				if (body instanceof IASTCompoundStatement && body.isPartOfTranslationUnitFile()) {
+					loc= body.getFileLocation();
+					if (loc != null && loc.getNodeOffset() < offset
+							&& endOffset < loc.getNodeOffset() + loc.getNodeLength()) {
+						fOldBodyFileOffset= loc.getNodeOffset();
+						fOldBodyFileEnd= loc.getNodeOffset() + loc.getNodeLength();
+						return (IASTFunctionDefinition) node;
+					}
+				}
+			}
+			IASTFunctionDefinition result= findFunction(node.getChildren(), offset, endOffset);
+			if (result != null)
+				return result;
+		}
+		return null;
+	}
+
+	private static boolean isConstexpr(IASTFunctionDefinition fdef) {
+		final IASTDeclSpecifier declSpec= fdef.getDeclSpecifier();
+		return declSpec instanceof ICPPASTDeclSpecifier && ((ICPPASTDeclSpecifier) declSpec).isConstexpr();
+	}
+
+	/**
+	 * Checks whether the body contains the definition of a constexpr function, e.g. as a member
+	 * of a local class.
+	 */
+	private static boolean containsConstexprFunction(IASTCompoundStatement body) {
+		final boolean[] result= {false};
+		body.accept(new ASTVisitor() {
+			{
+				shouldVisitDeclarations= true;
+			}
+			@Override
+			public int visit(IASTDeclaration declaration) {
+				if (declaration instanceof IASTFunctionDefinition
+						&& isConstexpr((IASTFunctionDefinition) declaration)) {
+					result[0]= true;
+					return PROCESS_ABORT;
+				}
+				return PROCESS_CONTINUE;
+			}
+		});
+		return result[0];
+	}
+
+	/**
+	 * Checks that the given range does not contain characters that may introduce directives or
+	 * pragmas.
+	 */
+	private static boolean isPlainCode(AbstractCharArray source, int offset, int endOffset) {
+		char prev= 0;
+		for (int i = offset; i < endOffset; i++) {
+			final char c= source.get(i);
+			switch (c) {
+			case '#':
+				return false;
+			case ':':
+				if (prev == '%') // digraph
+					return false;
+				break;
+			case '=':
+				if (prev == '?') // trigraph
+					return false;
+				break;
+			case '_':
+				if (i + _Pragma.length <= endOffset) {
+					int j= 1;
+					while (j < _Pragma.length && source.get(i + j) == _Pragma[j]) {
+						j++;
+					}
+					if (j == _Pragma.length)
+						return false;
+				}
+				break;
+			}
+			prev= c;
+		}
+		return true;
+	}
+
+	private static int countLines(AbstractCharArray source, int offset, int endOffset) {
+		int result= 0;
+		for (int i = offset; i < endOffset; i++) {
+			if (source.get(i) == '\n')
+				result++;
+		}
+		return result;
+	}
+
+	/**
+	 * Checks whether the sequence number maps to the given brace at the expected offset in the file
+	 * of the translation unit, rather than to a macro expansion.
+	 */
+	private static boolean isBraceInFile(LocationMap map, int sequenceNumber, int fileOffset, char brace,
+			AbstractCharArray source) {
+		if (!map.isPartOfTranslationUnitFile(sequenceNumber))
+			return false;
+		IASTNodeLocation[] locs= map.getLocations(sequenceNumber, 1);
+		if (locs.length != 1 || !(locs[0] instanceof IASTFileLocation) || locs[0].getNodeOffset() != fileOffset)
+			return false;
+		return source.isValidOffset(fileOffset) && source.get(fileOffset) == brace;
+	}
+
+	/**
+	 * Checks for directives in the body and for macros, whose expansions would change because
+	 * the body has been modified.
+	 */
+	private boolean hasDirectivesOrLineDependentMacros(LocationMap map, int bodyOffset, int bodyEnd) {
+		for (IASTPreprocessorStatement stmt : map.getAllPreprocessorStatements()) {
+			final ASTNode n= (ASTNode) stmt;
+			if (n.getOffset() + n.getLength() > bodyOffset && n.getOffset() < bodyEnd)
+				return true;
+		}
+		for (IASTName ref : map.getMacroReferences()) {
+			final int offset= ((ASTNode) ref).getOffset();
+			if (offset >= bodyOffset) {
+				final char[] name= ref.toCharArray();
+				if (CharArrayUtils.equals(name, __COUNTER__))
+					return true;
+				if (fLinesChanged && offset >= bodyEnd && CharArrayUtils.equals(name, __LINE__))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Collects the nodes that enclose or follow the body, fails for nodes that overlap with
+	 * the body.
+	 */
+	private boolean collectNodes() {
+		fEnclosingNodes= new ArrayList<ASTNode>();
+		fFollowingNodes= new ArrayList<ASTNode>();
+		final boolean[] overlap= {false};
+		ASTGenericVisitor visitor= new ASTGenericVisitor(true) {
+			{
+				includeInactiveNodes= true;
+				shouldVisitImplicitNames= true;
+			}
+			@Override
+			protected int genericVisit(IASTNode node) {
+				if (node == fOldBody)
+					return PROCESS_SKIP;
+
+				final ASTNode n= (ASTNode) node;
+				final int offset= n.getOffset();
+				final int endOffset= offset + n.getLength();
+				if (endOffset <= fOldBodyOffset)
+					return PROCESS_SKIP;
+				if (offset >= fOldBodyEnd) {
+					fFollowingNodes.add(n);
+				} else if (offset <= fOldBodyOffset && endOffset >= fOldBodyEnd) {
+					fEnclosingNodes.add(n);
+				} else {
+					overlap[0]= true;
+					return PROCESS_ABORT;
+				}
+				return PROCESS_CONTINUE;
+			}
+		};
+		for (IASTNode decl : fTu.getDeclarations(true)) {
+			if (!decl.accept(visitor))
+				break;
+		}
+		return !overlap[0];
+	}
+
+	/**
+	 * Creates the scanner to be used by the parser for the body.
+	 */
+	public IScanner createBodyScanner(IScanner preprocessor) {
+		fScanner= new BodyScanner(preprocessor);
+		return fScanner;
+	}
+
+	/**
+	 * Updates the translation unit, must be called after {@link #canReparse()} and
+	 * {@link #createBodyScanner(IScanner)}.
+	 * @param parser the parser using the scanner for the body.
+	 * @return the updated translation unit, or <code>null</code> if the update has not been
+	 *     performed. In that case the translation unit is unchanged.
+	 */
+	public ASTTranslationUnit reparse(AbstractGNUSourceCodeParser parser) {
+		final ILocationResolver resolver= fScanner.getLocationResolver();
+		if (!(resolver instanceof LocationMap))
+			return null;
+		final LocationMap map= (LocationMap) resolver;
+
+		// The location map updates the translation unit while the file is preprocessed.
+		final int oldTuLength= fTu.getLength();
+		final boolean oldPragmaOnce= fTu.hasPragmaOnceSemantics();
+		final ISignificantMacros oldSigMacros= fTu.getSignificantMacros();
+		fTu.unfreeze();
+		map.setRootNode(fTu, false);
+		fTu.replaceLocationResolver(map);
+		boolean success= false;
+		try {
+			fNewBodyEnd= fScanner.fetchBody(fOldBodyOffset);
+			if (fNewBodyEnd < 0)
+				return null;
+			final int delta= fNewBodyEnd - fOldBodyEnd;
+			if (fTu.getLength() != oldTuLength + delta)
+				return null;
+			final AbstractCharArray newSource= map.getTranslationUnitSource();
+			if (!isBraceInFile(map, fOldBodyOffset, fOldBodyFileOffset, '{', newSource)
+					|| !isBraceInFile(map, fNewBodyEnd - 1, fOldBodyFileEnd - 1 + fLengthDelta, '}', newSource))
+				return null;
+			if (hasDirectivesOrLineDependentMacros(map, fOldBodyOffset, fNewBodyEnd)
+					|| !haveSameContext(fOldLocationMap, map))
+				return null;
+
+			IASTCompoundStatement newBody= parser.parseFunctionBody(fTu);
+			if (newBody == null)
+				return null;
+
+			// Remove the bindings of the old body from the caches of the scopes, before the
+			// offsets are changed. This starts with the function scope, which holds the labels.
+			try {
+				IScope scope= fFunction.getScope();
+				while (scope != null) {
+					if (scope instanceof IASTInternalScope) {
+						((IASTInternalScope) scope).removeNestedFromCache(fOldBody);
+					}
+					scope= scope.getParent();
+				}
+			} catch (DOMException e) {
+				return null;
+			}
+
+			for (ASTNode node : fEnclosingNodes) {
+				node.setOffsetAndLength(node.getOffset(), node.getLength() + delta);
+			}
+			for (ASTNode node : fFollowingNodes) {
+				node.setOffsetAndLength(node.getOffset() + delta, node.getLength());
+			}
+			((IASTAmbiguityParent) fFunction).replace(fOldBody, newBody);
+			fTu.resolveAmbiguities(newBody);
+			newBody.accept(new ASTGenericVisitor(true) {
+				{
+					includeInactiveNodes= true;
+				}
+				@Override
+				protected int genericVisit(IASTNode node) {
+					((ASTNode) node).setIsFrozen();
+					return PROCESS_CONTINUE;
+				}
+			});
+			success= true;
+			return fTu;
+		} finally {
+			if (!success) {
+				fTu.replaceLocationResolver(fOldLocationMap);
+				fTu.setLength(oldTuLength);
+				fTu.setPragmaOnceSemantics(oldPragmaOnce);
+				fTu.setSignificantMacros(oldSigMacros);
+			}
+			fTu.setIsFrozen();
+		}
+	}
+
+	/**
+	 * Checks that both location maps have been created with the same built-in macros and with the
+	 * same directives outside of the modified body.
+	 */
+	private static boolean haveSameContext(LocationMap oldMap, LocationMap newMap) {
+		IASTPreprocessorMacroDefinition[] oldMacros= oldMap.getBuiltinMacroDefinitions();
+		IASTPreprocessorMacroDefinition[] newMacros= newMap.getBuiltinMacroDefinitions();
+		if (oldMacros.length != newMacros.length)
+			return false;
+		for (int i = 0; i < newMacros.length; i++) {
+			if (!CharArrayUtils.equals(oldMacros[i].getName().toCharArray(), newMacros[i].getName().toCharArray())
+					|| !oldMacros[i].getExpansion().equals(newMacros[i].getExpansion())) {
+				return false;
+			}
+		}
+
+		IASTPreprocessorStatement[] oldStmts= oldMap.getAllPreprocessorStatements();
+		IASTPreprocessorStatement[] newStmts= newMap.getAllPreprocessorStatements();
+		if (oldStmts.length != newStmts.length)
+			return false;
+		for (int i = 0; i < newStmts.length; i++) {
+			final IASTPreprocessorStatement oldStmt= oldStmts[i];
+			final IASTPreprocessorStatement newStmt= newStmts[i];
+			if (oldStmt.getClass() != newStmt.getClass())
+				return false;
+			if (newStmt instanceof IASTPreprocessorIncludeStatement) {
+				IASTPreprocessorIncludeStatement oldInclude= (IASTPreprocessorIncludeStatement) oldStmt;
+				IASTPreprocessorIncludeStatement newInclude= (IASTPreprocessorIncludeStatement) newStmt;
+				if (!oldInclude.getPath().equals(newInclude.getPath()))
+					return false;
+			}
+		}
+		return true;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1871,6 +1871,11 @@ public class GNUCSourceParser extends AbstractGNUSourceCodeParser {
         }
     }
 
+    @Override
+	protected void useTranslationUnit(IASTTranslationUnit tu) {
+        translationUnit = tu;
+    }
+
     @Override
 	protected void nullifyTranslationUnit() {
         translationUnit = null;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2011 Wind River Systems, Inc. and others.
+ * Copyright (c) 2009, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTParameterDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.dom.ast.IScope;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTCompositeTypeSpecifier;
@@ -175,11 +176,25 @@ final class CPPASTAmbiguityResolver extends ASTVisitor {
 
 	@Override
 	public int leave(IASTTranslationUnit tu) {
+		processDeferredNodes();
+		return PROCESS_CONTINUE;
+	}
+
+	/**
+	 * Resolves the ambiguities of a function body that is added to a translation unit, whose
+	 * ambiguities have already been resolved.
+	 */
+	public void resolveAmbiguities(IASTStatement functionBody) {
+		fDeferFunctions= 0;
+		functionBody.accept(this);
+		processDeferredNodes();
+	}
+
+	private void processDeferredNodes() {
 		while (!fDeferredNodes.isEmpty()) {
 			fDeferFunctions= 0;
 			fDeferredNodes.removeFirst().accept(this);
 		}
-		return PROCESS_CONTINUE;
 	}
 
 	private void repopulateScope(IASTDeclaration declaration) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ package org.eclipse.cdt.internal.core.dom.parser.cpp;
 import org.eclipse.cdt.core.dom.ILinkage;
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTypeId;
 import org.eclipse.cdt.core.dom.ast.IBasicType;
 import org.eclipse.cdt.core.dom.ast.IBasicType.Kind;
@@ -33,6 +34,7 @@ import org.eclipse.cdt.internal.core.dom.Linkage;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.IASTAmbiguityParent;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticsCache;
 import org.eclipse.cdt.internal.core.index.IIndexScope;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 
@@ -43,6 +45,7 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
     private CPPNamespaceScope fScope;
     private ICPPNamespace fBinding;
 	private final CPPScopeMapper fScopeMapper= new CPPScopeMapper(this);
+	private SemanticsCache fSemanticsCache;
 	
 	public CPPASTTranslationUnit() {
 	}
@@ -191,6 +194,25 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 	public void resolveAmbiguities() {
 		accept(new CPPASTAmbiguityResolver()); 
 	}
+
+	/**
+	 * Returns the cache for results of the semantic analysis of this translation unit.
+	 */
+	public synchronized SemanticsCache getSemanticsCache() {
+		if (fSemanticsCache == null) {
+			fSemanticsCache= new SemanticsCache();
+		}
+		return fSemanticsCache;
+	}
+
+	@Override
+	public void resolveAmbiguities(IASTStatement functionBody) {
+		// The body replaces another one, cached results may refer to the bindings of the old body.
+		if (fSemanticsCache != null) {
+			fSemanticsCache.clear();
+		}
+		new CPPASTAmbiguityResolver().resolveAmbiguities(functionBody);
+	}
 	
 	@Override
 	protected IType createType(IASTTypeId typeid) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,7 +56,6 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPParameter;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPReferenceType;
 import org.eclipse.cdt.core.index.IIndexFileSet;
 import org.eclipse.cdt.core.parser.util.ArrayUtil;
-import org.eclipse.cdt.core.parser.util.CharArrayObjectMap;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.core.parser.util.ObjectSet;
 import org.eclipse.cdt.internal.core.dom.parser.ASTQueries;
@@ -189,24 +188,8 @@ public class CPPClassScope extends CPPScope implements ICPPClassScope {
 		super.addName(name);
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private void addConstructor(Object constructor) {
-		if (bindings == null)
-            bindings = new CharArrayObjectMap(1);
-
-        Object o = bindings.get(CONSTRUCTOR_KEY);
-        if (o != null) {
-            if (o instanceof ObjectSet) {
-                ((ObjectSet)o).put(constructor);
-            } else {
-                ObjectSet set = new ObjectSet(2);
-                set.put(o);
-                set.put(constructor);
-                bindings.put(CONSTRUCTOR_KEY, set);
-            }
-        } else {
-            bindings.put(CONSTRUCTOR_KEY, constructor);
-        }
+		addToMap(CONSTRUCTOR_KEY, constructor);
 	}
 
 	@Override
@@ -269,18 +252,18 @@ public class CPPClassScope extends CPPScope implements ICPPClassScope {
 	private ICPPConstructor[] getConstructors(IASTName forName, boolean forceResolve) {
 		populateCache();
 
-		final CharArrayObjectMap<Object> nameMap = bindings;
-		if (nameMap == null)
-			return ICPPConstructor.EMPTY_CONSTRUCTOR_ARRAY;
-
-		Object o = nameMap.get(CONSTRUCTOR_KEY);
+		Object o;
+		synchronized (this) {
+			o = bindings == null ? null : bindings.get(CONSTRUCTOR_KEY);
+			if (o instanceof ObjectSet<?>) {
+				o = ((ObjectSet<?>) o).keyArray();
+			}
+		}
 		if (o != null) {
 			IBinding binding = null;
-	        if (o instanceof ObjectSet<?>) {
-	        	ObjectSet<?> set = (ObjectSet<?>) o;
+	        if (o instanceof Object[]) {
 	        	ICPPConstructor[] bs = ICPPConstructor.EMPTY_CONSTRUCTOR_ARRAY;
-        		for (int i = 0; i < set.size(); i++) {
-        			Object obj = set.keyAt(i);
+        		for (Object obj : (Object[]) o) {
         			if (obj instanceof IASTName) {
         				IASTName n = (IASTName) obj;
         				binding = shouldResolve(forceResolve, n, forName) ? n.resolveBinding() : n.getBinding();
@@ -294,8 +277,6 @@ public class CPPClassScope extends CPPScope implements ICPPClassScope {
         		return ArrayUtil.trim(ICPPConstructor.class, bs);
 	        } else if (o instanceof IASTName) {
 	        	if (shouldResolve(forceResolve, (IASTName) o, forName) || ((IASTName) o).getBinding() != null) {
-	        		// Always store the name, rather than the binding, such that we can properly flush the scope.
-	        		nameMap.put(CONSTRUCTOR_KEY, o);
 	        		binding = ((IASTName)o).resolveBinding();
 	        	}
 	        } else if (o instanceof IBinding) {
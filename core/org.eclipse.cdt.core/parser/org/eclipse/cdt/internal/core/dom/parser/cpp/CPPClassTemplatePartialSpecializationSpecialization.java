@@ -1,5 +1,5 @@
                                                    /*******************************************************************************
- * Copyright (c) 2009, 2011 Wind River Systems, Inc. and others.
+ * Copyright (c) 2009, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -53,7 +53,9 @@ public class CPPClassTemplatePartialSpecializationSpecialization extends CPPClas
 		if (instances == null)
 			instances = new ObjectMap(2);
 		String key= ASTTypeUtil.getArgumentListString(arguments, true);
-		instances.put(key, instance);
+		if (instances.get(key) == null) {
+			instances.put(key, instance);
+		}
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -70,7 +70,9 @@ public class CPPClassTemplateSpecialization extends CPPClassSpecialization
 		if (instances == null)
 			instances = new ObjectMap(2);
 		String key= ASTTypeUtil.getArgumentListString(arguments, true);
-		instances.put(key, instance);
+		if (instances.get(key) == null) {
+			instances.put(key, instance);
+		}
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2010 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -74,6 +74,23 @@ public class CPPFunctionScope extends CPPScope implements ICPPFunctionScope {
 	    return labels.get(name.getLookupKey());
 	}
 
+	@Override
+	public synchronized void removeNestedFromCache(IASTNode container) {
+		super.removeNestedFromCache(container);
+		// Labels are kept separately, remove the ones declared in the container.
+		for (int i = 0; i < labels.size(); i++) {
+			IBinding label= labels.getAt(i);
+			if (label instanceof CPPLabel) {
+				IASTNode node= ((CPPLabel) label).getPhysicalNode();
+				if (node != null && container.contains(node)) {
+					final char[] key= labels.keyAt(i);
+					labels.remove(key, 0, key.length);
+					i--;
+				}
+			}
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.cdt.core.dom.ast.IScope#find(java.lang.String)
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2010 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -50,7 +50,7 @@ import org.eclipse.core.runtime.CoreException;
 public class CPPNamespaceScope extends CPPScope implements ICPPInternalNamespaceScope {
 	private static final ICPPInternalNamespaceScope[] NO_NAMESPACE_SCOPES = {};
 
-	private List<ICPPUsingDirective> fUsingDirectives;
+	private volatile List<ICPPUsingDirective> fUsingDirectives;
 
 	private boolean fIsInline;
 	private boolean fIsInlineInitialized;
@@ -74,16 +74,28 @@ public class CPPNamespaceScope extends CPPScope implements ICPPInternalNamespace
 	public ICPPUsingDirective[] getUsingDirectives() {
 		initUsingDirectives();
 		populateCache();
-		return fUsingDirectives.toArray(new ICPPUsingDirective[fUsingDirectives.size()]);
+		synchronized (this) {
+			return fUsingDirectives.toArray(new ICPPUsingDirective[fUsingDirectives.size()]);
+		}
 	}
 	
+	/**
+	 * Must not be called while holding the lock of this scope, the inline namespaces are
+	 * looked up without holding it.
+	 */
 	private void initUsingDirectives() {
 		if (fUsingDirectives == null) {
-			fUsingDirectives= new ArrayList<ICPPUsingDirective>(1);
-			// Insert a using directive for every inline namespace found in the index.
-			for (ICPPInternalNamespaceScope inline : getIndexInlineNamespaces()) {
-				if (!(inline instanceof CPPNamespaceScope)) {
-					fUsingDirectives.add(new InlineNamespaceDirective(this, inline));
+			ICPPInternalNamespaceScope[] inlineNamespaces= getIndexInlineNamespaces();
+			synchronized (this) {
+				if (fUsingDirectives == null) {
+					List<ICPPUsingDirective> usingDirectives= new ArrayList<ICPPUsingDirective>(1);
+					// Insert a using directive for every inline namespace found in the index.
+					for (ICPPInternalNamespaceScope inline : inlineNamespaces) {
+						if (!(inline instanceof CPPNamespaceScope)) {
+							usingDirectives.add(new InlineNamespaceDirective(this, inline));
+						}
+					}
+					fUsingDirectives= usingDirectives;
 				}
 			}
 		}
@@ -92,7 +104,9 @@ public class CPPNamespaceScope extends CPPScope implements ICPPInternalNamespace
 	@Override
 	public void addUsingDirective(ICPPUsingDirective directive) {
 		initUsingDirectives();
-		fUsingDirectives.add(directive);
+		synchronized (this) {
+			fUsingDirectives.add(directive);
+		}
 	}
 
     @Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,9 +56,10 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 	protected static final char[] CONSTRUCTOR_KEY = "!!!CTOR!!!".toCharArray(); //$NON-NLS-1$
 	private static final IProgressMonitor NPM = new NullProgressMonitor();
 	private static final ICPPNamespace UNINITIALIZED = new CPPNamespace.CPPNamespaceProblem(null, 0, null);
+	private static final Object[] NO_CANDIDATES = {};
 
     private final IASTNode physicalNode;
-	private boolean isCached = false;
+	private volatile boolean isCached = false;
 	protected CharArrayObjectMap<Object> bindings;
 	private ICPPNamespace fIndexNamespace= UNINITIALIZED;
 
@@ -87,14 +88,11 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 	}
 
 	@Override
-	@SuppressWarnings({ "unchecked" })
 	public void addName(IASTName name) {
 		// Don't add inactive names to the scope.
 		if (!name.isActive())
 			return;
 
-		if (bindings == null)
-			bindings = new CharArrayObjectMap<Object>(1);
 		if (name instanceof ICPPASTQualifiedName &&
 				!(physicalNode instanceof ICPPASTCompositeTypeSpecifier) &&
 				!(physicalNode instanceof ICPPASTNamespaceDefinition)) {
@@ -104,6 +102,17 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 		final char[] c= name.getLookupKey();
 		if (c.length == 0)
 			return;
+		addToMap(c, name);
+	}
+
+	/**
+	 * Adds a name or binding to the map of this scope. The map is modified while holding the
+	 * lock of the scope, such that names can be resolved concurrently.
+	 */
+	@SuppressWarnings({ "unchecked" })
+	protected final synchronized void addToMap(char[] c, Object name) {
+		if (bindings == null)
+			bindings = new CharArrayObjectMap<Object>(1);
 		Object o = bindings.get(c);
 		if (o != null) {
 		    if (o instanceof ObjectSet) {
@@ -224,9 +233,19 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 
 	public IBinding[] getBindingsInAST(ScopeLookupData lookup) {
 		populateCache();
-	    final char[] c = lookup.getLookupKey();
 	    IBinding[] result = null;
+	    for (Object candidate : getCandidates(lookup)) {
+	    	result= addCandidate(candidate, lookup, result);
+	    }
+	    return ArrayUtil.trim(IBinding.class, result);
+	}
 
+	/**
+	 * Returns the names and bindings stored for the lookup key. The candidates are copied while
+	 * holding the lock of the scope, they are resolved afterwards.
+	 */
+	private synchronized Object[] getCandidates(ScopeLookupData lookup) {
+	    final char[] c = lookup.getLookupKey();
 	    Object obj = null;
 	    if (lookup.isPrefixLookup()) {
 	    	Object[] keys = bindings != null ? bindings.keyArray() : new Object[0];
@@ -248,17 +267,18 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 	    	obj = bindings != null ? bindings.get(c) : null;
 	    }
 
+	    if (obj instanceof ObjectSet<?>) {
+	    	ObjectSet<?> os= (ObjectSet<?>) obj;
+	    	Object[] candidates= new Object[os.size()];
+	    	for (int j = 0; j < candidates.length; j++) {
+	    		candidates[j]= os.keyAt(j);
+	    	}
+	    	return candidates;
+	    }
 	    if (obj != null) {
-	        if (obj instanceof ObjectSet<?>) {
-	        	ObjectSet<?> os= (ObjectSet<?>) obj;
-        		for (int j = 0; j < os.size(); j++) {
-        			result= addCandidate(os.keyAt(j), lookup, result);
-        		}
-	        } else {
-	        	result = addCandidate(obj, lookup, result);
-	        }
+	    	return new Object[] { obj };
 	    }
-	    return ArrayUtil.trim(IBinding.class, result);
+	    return NO_CANDIDATES;
 	}
 
 	private IBinding[] addCandidate(Object candidate, ScopeLookupData lookup, IBinding[] result) {
@@ -294,13 +314,20 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 	@Override
 	public final void populateCache() {
 		if (!isCached) {
-			CPPSemantics.populateCache(this);
-			isCached= true;
+			// Populating a scope may populate other scopes, a single lock per translation unit
+			// avoids deadlocks when names are resolved concurrently.
+			final IASTTranslationUnit tu= physicalNode.getTranslationUnit();
+			synchronized (tu != null ? tu : this) {
+				if (!isCached) {
+					CPPSemantics.populateCache(this);
+					isCached= true;
+				}
+			}
 		}
 	}
 
 	@Override
-	public void removeNestedFromCache(IASTNode container) {
+	public synchronized void removeNestedFromCache(IASTNode container) {
 		if (bindings != null) {
 			removeFromMap(bindings, container);
 		}
@@ -344,27 +371,12 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 	}
 
 	@Override
-	@SuppressWarnings({ "unchecked" })
     public void addBinding(IBinding binding) {
-        if (bindings == null)
-            bindings = new CharArrayObjectMap<Object>(1);
         char[] c = binding.getNameCharArray();
         if (c.length == 0) {
         	return;
         }
-        Object o = bindings.get(c);
-        if (o != null) {
-            if (o instanceof ObjectSet) {
-                ((ObjectSet<Object>) o).put(binding);
-            } else {
-                ObjectSet<Object> set = new ObjectSet<Object>(2);
-                set.put(o);
-                set.put(binding);
-                bindings.put(c, set);
-            }
-        } else {
-            bindings.put(c, binding);
-        }
+        addToMap(c, binding);
     }
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -133,7 +133,7 @@ public class CPPScopeMapper {
 		}
 
 		@Override
-		public void addUsingDirective(ICPPUsingDirective usingDirective) {
+		public synchronized void addUsingDirective(ICPPUsingDirective usingDirective) {
 			initUsingDirectives();
 			fUsingDirectives.add(usingDirective);
 		}
@@ -149,7 +149,7 @@ public class CPPScopeMapper {
 		}
 
 		@Override
-		public ICPPUsingDirective[] getUsingDirectives() {
+		public synchronized ICPPUsingDirective[] getUsingDirectives() {
 			initUsingDirectives();
 			return fUsingDirectives.toArray(new ICPPUsingDirective[fUsingDirectives.size()]);
 		}
@@ -286,12 +286,17 @@ public class CPPScopeMapper {
 	 */
 	public void handleAdditionalDirectives(ICPPNamespaceScope scope) {
 		assert !(scope instanceof IIndexScope);
-		if (fPerName.isEmpty()) {
-			return;
+		synchronized (fPerName) {
+			if (fPerName.isEmpty()) {
+				return;
+			}
 		}
 		try {
 			String qname = getReverseQualifiedName(scope);
-			List<UsingDirectiveWrapper> candidates= fPerName.remove(qname);
+			List<UsingDirectiveWrapper> candidates;
+			synchronized (fPerName) {
+				candidates= fPerName.remove(qname);
+			}
 			if (candidates != null) {
 				for (UsingDirectiveWrapper ud : candidates) {
 					scope.addUsingDirective(ud);
@@ -331,13 +336,18 @@ public class CPPScopeMapper {
 			return fTu.getScope();
 		}
 		if (scope instanceof ICPPNamespaceScope) {
-			IScope result= fMappedScopes.get(scope);
+			IScope result;
+			synchronized (fMappedScopes) {
+				result= fMappedScopes.get(scope);
+			}
 			if (result == null) {
 				result= fTu.getScope().findNamespaceScope(scope);
 				if (result == null) {
 					result= wrapNamespaceScope((ICPPNamespaceScope) scope);
 				}
-				fMappedScopes.put(scope, result);
+				synchronized (fMappedScopes) {
+					fMappedScopes.put(scope, result);
+				}
 			}
 			return result;
 		}
@@ -347,10 +357,20 @@ public class CPPScopeMapper {
 	private IScope wrapNamespaceScope(ICPPNamespaceScope scope) {
 		try {
 			String rqname= getReverseQualifiedName(scope);
-			NamespaceScopeWrapper result= fNamespaceWrappers.get(rqname);
+			NamespaceScopeWrapper result;
+			synchronized (fNamespaceWrappers) {
+				result= fNamespaceWrappers.get(rqname);
+			}
 			if (result == null) {
-				result= new NamespaceScopeWrapper(getCompositeNamespaceScope(scope));
-				fNamespaceWrappers.put(rqname, result);
+				NamespaceScopeWrapper wrapper= new NamespaceScopeWrapper(getCompositeNamespaceScope(scope));
+				synchronized (fNamespaceWrappers) {
+					// Use the wrapper created first, when names are resolved concurrently.
+					result= fNamespaceWrappers.get(rqname);
+					if (result == null) {
+						result= wrapper;
+						fNamespaceWrappers.put(rqname, result);
+					}
+				}
 			}
 			return result;
 		} catch (DOMException e) {
@@ -384,11 +404,14 @@ public class CPPScopeMapper {
 			return type;
 		}
 		
-		if (fClasses == null) {
-			fClasses= new CharArrayMap<IASTName[]>();
-			fTu.accept(new Visitor());
+		IASTName[] names;
+		synchronized (this) {
+			if (fClasses == null) {
+				fClasses= new CharArrayMap<IASTName[]>();
+				fTu.accept(new Visitor());
+			}
+			names= fClasses.get(type.getNameCharArray());
 		}
-		IASTName[] names= fClasses.get(type.getNameCharArray());
 		if (names != null) {
 			for (IASTName name : names) {
 				if (name == null)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -95,20 +95,24 @@ public abstract class CPPTemplateDefinition extends PlatformObject implements IC
 	}
 	
 	@Override
-	public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
+	public synchronized final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
 		if (instances == null)
 			instances = new ObjectMap(2);
 		String key= ASTTypeUtil.getArgumentListString(arguments, true);
-		instances.put(key, instance);
+		if (instances.get(key) == null) {
+			instances.put(key, instance);
+		}
 	}
 
 	@Override
 	public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
-		if (instances != null) {
-			String key= ASTTypeUtil.getArgumentListString(arguments, true);
-			ICPPTemplateInstance cand = (ICPPTemplateInstance) instances.get(key);
-			if (cand != null)
-				return cand;
+		synchronized (this) {
+			if (instances != null) {
+				String key= ASTTypeUtil.getArgumentListString(arguments, true);
+				ICPPTemplateInstance cand = (ICPPTemplateInstance) instances.get(key);
+				if (cand != null)
+					return cand;
+			}
 		}
 		
 		final ICPPClassTemplate ib = getIndexBinding();
@@ -142,7 +146,7 @@ public abstract class CPPTemplateDefinition extends PlatformObject implements IC
 	}
 
 	@Override
-	public ICPPTemplateInstance[] getAllInstances() {
+	public synchronized ICPPTemplateInstance[] getAllInstances() {
 		if (instances != null) {
 			ICPPTemplateInstance[] result= new ICPPTemplateInstance[instances.size()];
 			for (int i= 0; i < instances.size(); i++) {
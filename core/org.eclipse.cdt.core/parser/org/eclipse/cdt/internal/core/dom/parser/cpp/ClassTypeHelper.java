@@ -705,15 +705,13 @@ public class ClassTypeHelper {
 			result.add(classOrTypedef);
 		}
 
-		IIndexName[] names= index.findNames(classOrTypedef, IIndex.FIND_REFERENCES | IIndex.FIND_DEFINITIONS);
+		IIndexName[] names= index.findBaseSpecifiers(classOrTypedef);
 		for (IIndexName indexName : names) {
-			if (indexName.isBaseSpecifier()) {
-				IIndexName subClassDef= indexName.getEnclosingDefinition();
-				if (subClassDef != null) {
-					IBinding subClass= index.findBinding(subClassDef);
-					if (subClass instanceof ICPPBinding) {
-						getSubClasses(index, (ICPPBinding) subClass, result, handled);
-					}
+			IIndexName subClassDef= indexName.getEnclosingDefinition();
+			if (subClassDef != null) {
+				IBinding subClass= index.findBinding(subClassDef);
+				if (subClass instanceof ICPPBinding) {
+					getSubClasses(index, (ICPPBinding) subClass, result, handled);
 				}
 			}
 		}
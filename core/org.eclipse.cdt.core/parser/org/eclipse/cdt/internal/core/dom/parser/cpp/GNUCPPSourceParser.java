@@ -4457,6 +4457,11 @@ public class GNUCPPSourceParser extends AbstractGNUSourceCodeParser {
         return tryStatement;
     }
 
+    @Override
+	protected void useTranslationUnit(IASTTranslationUnit tu) {
+        translationUnit = (ICPPASTTranslationUnit) tu;
+    }
+
     @Override
 	protected void nullifyTranslationUnit() {
         translationUnit = null;
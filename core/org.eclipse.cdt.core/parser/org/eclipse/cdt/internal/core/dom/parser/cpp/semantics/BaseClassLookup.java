@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2009, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,19 +19,24 @@ import java.util.List;
 
 import org.eclipse.cdt.core.dom.IName;
 import org.eclipse.cdt.core.dom.ast.DOMException;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTNameOwner;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IBinding;
 import org.eclipse.cdt.core.dom.ast.IProblemBinding;
 import org.eclipse.cdt.core.dom.ast.IScope;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTCompositeTypeSpecifier;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPBase;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassScope;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassType;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPMember;
 import org.eclipse.cdt.core.parser.util.ArrayUtil;
 import org.eclipse.cdt.core.parser.util.CharArrayObjectMap;
+import org.eclipse.cdt.internal.core.dom.parser.ASTNode;
 import org.eclipse.cdt.internal.core.dom.parser.ProblemBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInternalBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInternalUnknownScope;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPUnknownBinding;
 
@@ -49,7 +54,27 @@ class BaseClassLookup {
 		final ICPPClassType classType= classScope.getClassType();
 		if (classType == null) 
 			return;
-		
+
+		// The result of a lookup without side effects can be reused.
+		SemanticsCache cache= null;
+		if (!data.contentAssist && !data.isPrefixLookup() && data.isResolve() && data.problem == null
+				&& data.skippedScope == null && data.forDeclaration() == null
+				&& !data.ignoreRecursionResolvingBindings()) {
+			// The role is determined without resolving the name, which may be the one being resolved.
+			final IASTName lookupName= data.getLookupName();
+			if (lookupName == null || (lookupName.getRoleOfName(false) == IASTNameOwner.r_reference
+					&& (LookupData.checkWholeClassScope(lookupName) || isDefinedBefore(classType, data.getLookupPoint())))) {
+				cache= SemanticsCache.getCache(data.getTranslationUnit());
+			}
+		}
+		if (cache != null) {
+			IBinding[] result= cache.getBaseClassLookup(classType, data.getLookupKey(), data.typesOnly);
+			if (result != null) {
+				data.foundItems = ArrayUtil.addAll((Object[]) data.foundItems, result);
+				return;
+			}
+		}
+
 		final HashMap<IScope, BaseClassLookup> infoMap = new HashMap<IScope, BaseClassLookup>();
 		BaseClassLookup rootInfo= lookupInBaseClass(data, null, false, classType, infoMap, 0);
 		if (data.contentAssist) {
@@ -58,6 +83,9 @@ class BaseClassLookup {
 			hideVirtualBases(rootInfo, infoMap);
 			IBinding[] result= rootInfo.collectResult(data, true, IBinding.EMPTY_BINDING_ARRAY);
 			if (data.problem == null) {
+				if (cache != null && data.skippedScope == null) {
+					cache.putBaseClassLookup(classType, data.getLookupKey(), data.typesOnly, result);
+				}
 				data.foundItems = ArrayUtil.addAll((Object[]) data.foundItems, result);
 			} else if (result.length > 0) {
 				data.problem.setCandidateBindings(result);
@@ -143,6 +171,25 @@ class BaseClassLookup {
 		return false;
 	}
 	
+	/**
+	 * Checks whether the definition of the class ends before the given point. In this case the result
+	 * of a lookup in the base classes does not depend on the point of lookup.
+	 */
+	private static boolean isDefinedBefore(ICPPClassType classType, IASTNode point) {
+		if (!(classType instanceof ICPPInternalBinding) || !(point instanceof ASTNode))
+			return false;
+		IASTNode spec= ((ICPPInternalBinding) classType).getDefinition();
+		while (spec instanceof IASTName) {
+			spec= spec.getParent();
+		}
+		if (!(spec instanceof ICPPASTCompositeTypeSpecifier)
+				|| spec.getTranslationUnit() != point.getTranslationUnit()) {
+			return false;
+		}
+		final ASTNode specNode= (ASTNode) spec;
+		return specNode.getOffset() + specNode.getLength() <= ((ASTNode) point).getOffset();
+	}
+
 	static BaseClassLookup lookupInBaseClass(LookupData data, ICPPClassScope baseClassScope,
 			boolean isVirtual, ICPPClassType root, HashMap<IScope, BaseClassLookup> infoMap, int depth) {
 		if (depth++ > CPPSemantics.MAX_INHERITANCE_DEPTH)
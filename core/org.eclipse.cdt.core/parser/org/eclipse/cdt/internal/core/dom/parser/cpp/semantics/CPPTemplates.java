@@ -338,8 +338,7 @@ public class CPPTemplates {
 
 		IBinding owner= template.getOwner();
 		instance = createInstance(owner, template, map, arguments, point);
-		addInstance(template, arguments, instance);
-		return instance;
+		return addInstance(template, arguments, instance);
 	}
 
 	/**
@@ -360,8 +359,7 @@ public class CPPTemplates {
 		}
 
 		instance= createInstance(partialSpec.getOwner(), partialSpec, tpMap, args, point);
-		addInstance(partialSpec, args, instance);
-		return instance;
+		return addInstance(partialSpec, args, instance);
 	}
 
 	/**
@@ -378,8 +376,7 @@ public class CPPTemplates {
 
 		IBinding owner= template.getOwner();
 		instance = createInstance(owner, template, map, arguments, point);
-		addInstance(template, arguments, instance);
-		return instance;
+		return addInstance(template, arguments, instance);
 	}
 
 	/**
@@ -397,12 +394,19 @@ public class CPPTemplates {
 	}
 
 	/**
-	 * Caches an instance with the template.
+	 * Caches an instance with the template and returns the cached instance. When names are
+	 * resolved concurrently, another thread may have cached an equivalent instance before.
 	 */
-	private static void addInstance(ICPPTemplateDefinition template, ICPPTemplateArgument[] args, ICPPTemplateInstance instance) {
+	private static ICPPTemplateInstance addInstance(ICPPTemplateDefinition template,
+			ICPPTemplateArgument[] args, ICPPTemplateInstance instance) {
 		if (template instanceof ICPPInstanceCache) {
-			((ICPPInstanceCache) template).addInstance(args, instance);
+			final ICPPInstanceCache cache = (ICPPInstanceCache) template;
+			cache.addInstance(args, instance);
+			ICPPTemplateInstance cached= cache.getInstance(args);
+			if (cached != null && !(cached instanceof IIndexBinding))
+				return cached;
 		}
+		return instance;
 	}
 
 	private static IBinding deferredInstance(ICPPClassTemplate template, ICPPTemplateArgument[] arguments) throws DOMException {
@@ -411,8 +415,7 @@ public class CPPTemplates {
 			return instance;
 
 		instance = new CPPDeferredClassInstance(template, arguments);
-		addInstance(template, arguments, instance);
-		return instance;
+		return addInstance(template, arguments, instance);
 	}
 
 	private static ICPPTemplateArgument[] addDefaultArguments(ICPPTemplateDefinition template,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2012 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -89,6 +89,21 @@ public class Conversions {
 	 */
 	public static Cost checkImplicitConversionSequence(IType target, IType exprType,
 			ValueCategory valueCat, UDCMode udc, Context ctx, IASTNode point) throws DOMException {
+		final SemanticsCache cache= valueCat != null && SemanticsCache.isCacheable(target, exprType) ?
+				SemanticsCache.getCache(point) : null;
+		if (cache == null)
+			return computeImplicitConversionSequence(target, exprType, valueCat, udc, ctx, point);
+
+		Cost cost= cache.getConversion(target, exprType, valueCat, udc, ctx);
+		if (cost == null) {
+			cost= computeImplicitConversionSequence(target, exprType, valueCat, udc, ctx, point);
+			cache.putConversion(target, exprType, valueCat, udc, ctx, cost);
+		}
+		return cost;
+	}
+
+	private static Cost computeImplicitConversionSequence(IType target, IType exprType,
+			ValueCategory valueCat, UDCMode udc, Context ctx, IASTNode point) throws DOMException {
 		final boolean isImpliedObject= ctx == Context.IMPLICIT_OBJECT;
 		if (isImpliedObject) 
 			udc= UDCMode.FORBIDDEN;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2012 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -104,6 +104,26 @@ public class Cost {
 		fReferenceBinding= ReferenceBinding.NO_REF;
 	}
 
+	/**
+	 * Returns a copy of this cost that can be modified independently.
+	 */
+	Cost copy() {
+		if (this == NO_CONVERSION)
+			return this;
+		Cost result= new Cost(source, target, fRank);
+		result.fSecondStandardConversionRank= fSecondStandardConversionRank;
+		result.fAmbiguousUDC= fAmbiguousUDC;
+		result.fDeferredUDC= fDeferredUDC;
+		result.fQualificationAdjustments= fQualificationAdjustments;
+		result.fInheritanceDistance= fInheritanceDistance;
+		result.fImpliedObject= fImpliedObject;
+		result.fUserDefinedConversion= fUserDefinedConversion;
+		result.fReferenceBinding= fReferenceBinding;
+		result.fCouldNarrow= fCouldNarrow;
+		result.fSelectedFunction= fSelectedFunction;
+		return result;
+	}
+
 	public final Rank getRank() {
 		return fRank;
 	}
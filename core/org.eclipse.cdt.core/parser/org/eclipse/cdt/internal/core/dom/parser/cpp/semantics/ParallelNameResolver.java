@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp.semantics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTDeclSpecifier;
+import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTDeclarator;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDeclarator;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTDeclSpecifier;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTUsingDeclaration;
+import org.eclipse.cdt.internal.core.dom.parser.ASTQueries;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
+
+/**
+ * Resolves the names of a C++ translation unit using multiple threads. The names outside of
+ * function bodies are resolved first, on the calling thread. Afterwards the function definitions,
+ * which are largely independent of each other, are distributed to a pool of threads shared by
+ * all translation units.
+ * <p>
+ * A name in a function body may be reached from other function bodies, when the body redeclares
+ * an entity of an enclosing scope, e.g. via a local function declaration. Resolving such a name
+ * adds it to the declarations of the shared binding. Function bodies with such declarations are
+ * therefore resolved on the calling thread, too, before the remaining ones are distributed.
+ * <p>
+ * The bindings are stored with the names, subsequent calls to {@link IASTName#resolveBinding()}
+ * return them without resolving the names again. Errors that occur while resolving a name are
+ * returned to the caller, a name that failed may not fail again when resolved on another thread.
+ */
+public final class ParallelNameResolver {
+	/**
+	 * Number of threads used for resolving the names of a translation unit, values less than 2
+	 * disable the concurrent name resolution.
+	 */
+	private static final int THREADS= Integer.getInteger("org.eclipse.cdt.core.parser.resolverThreads", 0); //$NON-NLS-1$
+	/** Maximum number of threads in the shared pool, the calling threads take part, also. */
+	private static final int POOL_SIZE= Math.max(1, Math.max(THREADS, Runtime.getRuntime().availableProcessors()) - 1);
+
+	private static final ThreadFactory THREAD_FACTORY= new ThreadFactory() {
+		private final AtomicInteger fCount= new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread= new Thread(r, "Name Resolver " + fCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
+	private static ThreadPoolExecutor sExecutor;
+
+	/**
+	 * Resolves the names of function bodies, or of all declarations outside of function bodies.
+	 */
+	private static class NameResolver extends ASTVisitor {
+		private final List<IASTFunctionDefinition> fFunctionDefinitions;
+		private final Map<IASTName, Throwable> fFailures;
+
+		/**
+		 * @param functionDefinitions the list to which the function definitions are added
+		 *     instead of resolving their names, or <code>null</code> to resolve all names.
+		 * @param failures the map to which names are added together with the error that
+		 *     occurred while resolving them, shared by the threads.
+		 */
+		NameResolver(List<IASTFunctionDefinition> functionDefinitions, Map<IASTName, Throwable> failures) {
+			super(true);
+			shouldVisitImplicitNames= true;
+			fFunctionDefinitions= functionDefinitions;
+			fFailures= failures;
+		}
+
+		@Override
+		public int visit(IASTDeclaration declaration) {
+			if (fFunctionDefinitions != null && declaration instanceof IASTFunctionDefinition) {
+				final IASTFunctionDefinition fdef= (IASTFunctionDefinition) declaration;
+				fdef.getDeclSpecifier().accept(this);
+				fdef.getDeclarator().accept(this);
+				if (declaresNonLocalEntities(fdef)) {
+					return PROCESS_CONTINUE;
+				}
+				fFunctionDefinitions.add(fdef);
+				return PROCESS_SKIP;
+			}
+			return PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(IASTName name) {
+			Throwable th= null;
+			try {
+				name.resolveBinding();
+			} catch (RuntimeException e) {
+				th= e;
+			} catch (StackOverflowError e) {
+				th= e;
+			}
+			if (th != null) {
+				synchronized (fFailures) {
+					fFailures.put(name, th);
+				}
+			}
+			return PROCESS_CONTINUE;
+		}
+	}
+
+	/**
+	 * Checks whether the body of the function definition contains declarations that may be
+	 * reached from other function bodies.
+	 */
+	static boolean declaresNonLocalEntities(IASTFunctionDefinition fdef) {
+		final IASTStatement body= fdef.getBody();
+		if (body == null)
+			return false;
+		final boolean[] result= {false};
+		body.accept(new ASTVisitor() {
+			{
+				shouldVisitDeclarations= true;
+			}
+			@Override
+			public int visit(IASTDeclaration declaration) {
+				if (declaration instanceof IASTFunctionDefinition)
+					return PROCESS_CONTINUE;
+				if (declaration instanceof ICPPASTUsingDeclaration) {
+					result[0]= true;
+				} else if (declaration instanceof IASTSimpleDeclaration) {
+					final IASTSimpleDeclaration sdecl= (IASTSimpleDeclaration) declaration;
+					final IASTDeclSpecifier declSpec= sdecl.getDeclSpecifier();
+					if (declSpec.getStorageClass() == IASTDeclSpecifier.sc_extern
+							|| (declSpec instanceof ICPPASTDeclSpecifier && ((ICPPASTDeclSpecifier) declSpec).isFriend())) {
+						result[0]= true;
+					} else {
+						for (IASTDeclarator dtor : sdecl.getDeclarators()) {
+							if (ASTQueries.findTypeRelevantDeclarator(dtor) instanceof IASTFunctionDeclarator) {
+								result[0]= true;
+								break;
+							}
+						}
+					}
+				}
+				return result[0] ? PROCESS_ABORT : PROCESS_CONTINUE;
+			}
+		});
+		return result[0];
+	}
+
+	/**
+	 * The function definitions of a translation unit that are resolved concurrently.
+	 */
+	private static class Task {
+		final List<IASTFunctionDefinition> fFunctionDefinitions;
+		final Map<IASTName, Throwable> fFailures;
+		final AtomicInteger fNext= new AtomicInteger();
+		private int fRunning;
+		private boolean fClosed;
+
+		Task(List<IASTFunctionDefinition> functionDefinitions, Map<IASTName, Throwable> failures) {
+			fFunctionDefinitions= functionDefinitions;
+			fFailures= failures;
+		}
+
+		/**
+		 * Resolves the names of the function definitions that have not yet been taken by another
+		 * thread.
+		 */
+		void resolveNames() {
+			synchronized (this) {
+				if (fClosed)
+					return;
+				fRunning++;
+			}
+			try {
+				final NameResolver resolver= new NameResolver(null, fFailures);
+				int i;
+				while ((i= fNext.getAndIncrement()) < fFunctionDefinitions.size()) {
+					fFunctionDefinitions.get(i).accept(resolver);
+				}
+			} finally {
+				synchronized (this) {
+					if (--fRunning == 0) {
+						notifyAll();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Prevents workers that have not yet started from taking part and waits for the others
+		 * to finish.
+		 */
+		void close() {
+			boolean interrupted= false;
+			synchronized (this) {
+				fClosed= true;
+				while (fRunning > 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// Leave the remaining function definitions to the client.
+						fNext.set(fFunctionDefinitions.size());
+						interrupted= true;
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private ParallelNameResolver() {
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		if (sExecutor == null) {
+			sExecutor= new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), THREAD_FACTORY);
+			sExecutor.allowCoreThreadTimeOut(true);
+		}
+		return sExecutor;
+	}
+
+	/**
+	 * Returns whether the concurrent name resolution is enabled via the system property
+	 * <code>org.eclipse.cdt.core.parser.resolverThreads</code>.
+	 */
+	public static boolean isEnabled() {
+		return THREADS > 1;
+	}
+
+	/**
+	 * Resolves the names of the translation unit concurrently, if this is enabled via the system
+	 * property <code>org.eclipse.cdt.core.parser.resolverThreads</code>. Does nothing, otherwise.
+	 * @return the names that could not be resolved, mapped to the error that occurred.
+	 */
+	public static Map<IASTName, Throwable> resolveNames(IASTTranslationUnit ast) {
+		if (isEnabled()) {
+			return resolveNames(ast, THREADS);
+		}
+		return Collections.emptyMap();
+	}
+
+	/**
+	 * Resolves the names of the translation unit with the given number of threads, including
+	 * the calling one. Only C++ translation units with resolved ambiguities are supported,
+	 * others are ignored. The caller is responsible for holding a read-lock on the index of
+	 * the translation unit.
+	 * @return the names that could not be resolved, mapped to the error that occurred.
+	 */
+	public static Map<IASTName, Throwable> resolveNames(IASTTranslationUnit ast, int threads) {
+		if (threads < 2 || !(ast instanceof CPPASTTranslationUnit) || !ast.isFrozen())
+			return Collections.emptyMap();
+
+		// Declarations outside of function bodies are shared by the function bodies, they are
+		// resolved upfront to avoid resolving the same declaration concurrently.
+		final Map<IASTName, Throwable> failures= new HashMap<IASTName, Throwable>();
+		final List<IASTFunctionDefinition> fdefs= new ArrayList<IASTFunctionDefinition>();
+		ast.accept(new NameResolver(fdefs, failures));
+
+		final Task task= new Task(fdefs, failures);
+		final int workers= Math.min(threads, fdefs.size());
+		if (workers < 2) {
+			task.resolveNames();
+			return failures;
+		}
+
+		final ThreadPoolExecutor executor= getExecutor();
+		final Runnable worker= new Runnable() {
+			@Override
+			public void run() {
+				task.resolveNames();
+			}
+		};
+		try {
+			for (int i = 1; i < workers; i++) {
+				executor.execute(worker);
+			}
+			task.resolveNames();
+		} finally {
+			// The caller may release the lock on the index afterwards, wait for all workers.
+			task.close();
+		}
+		return failures;
+	}
+}
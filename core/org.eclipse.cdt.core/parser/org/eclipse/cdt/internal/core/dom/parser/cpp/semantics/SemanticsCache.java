@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp.semantics;
+
+import static org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil.CVTYPE;
+import static org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil.REF;
+import static org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil.TDEF;
+import static org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil.getNestedType;
+
+import java.util.Map;
+
+import org.eclipse.cdt.core.dom.ast.IASTExpression.ValueCategory;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IBasicType;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IProblemBinding;
+import org.eclipse.cdt.core.dom.ast.ISemanticProblem;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassType;
+import org.eclipse.cdt.core.parser.util.CharArrayUtils;
+import org.eclipse.cdt.internal.core.dom.parser.IRecursionResolvingBinding;
+import org.eclipse.cdt.internal.core.dom.parser.ITypeContainer;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPBasicType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPUnknownType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.Conversions.Context;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.Conversions.UDCMode;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+
+/**
+ * Caches results of the semantic analysis of a translation unit that are computed again and again
+ * for the same input: implicit conversion sequences and the results of looking up names in the
+ * base classes of a class. Each translation unit has its own cache, the number of entries is
+ * bounded.
+ * <p>
+ * The cache is used only after the ambiguities of the translation unit have been resolved, because
+ * the results may depend on alternatives that are discarded during ambiguity resolution.
+ */
+public final class SemanticsCache {
+	private static final boolean BYPASS_CACHE= Boolean.getBoolean("CDT_BYPASS_SEMANTICS_CACHE"); //$NON-NLS-1$
+	private static final int MAX_CONVERSIONS= 10000;
+	private static final int MAX_BASE_CLASS_LOOKUPS= 10000;
+
+	/** Enables the statistics about hits and misses, initialized in the PDOMManager. */
+	public static boolean sTraceStatistics= false;
+	private static long sConversionHits;
+	private static long sConversionMisses;
+	private static long sLookupHits;
+	private static long sLookupMisses;
+
+	private static final class ConversionKey {
+		private final IType fTarget;
+		private final IType fSource;
+		private final ValueCategory fValueCategory;
+		private final UDCMode fUDC;
+		private final Context fContext;
+		private final int fHash;
+
+		ConversionKey(IType target, IType source, ValueCategory valueCat, UDCMode udc, Context ctx) {
+			fTarget= target;
+			fSource= source;
+			fValueCategory= valueCat;
+			fUDC= udc;
+			fContext= ctx;
+			fHash= ((hashCode(target) * 31 + hashCode(source)) * 31 + valueCat.ordinal()) * 31
+					+ udc.ordinal() * 7 + ctx.ordinal();
+		}
+
+		/**
+		 * Computes a hash code that is consistent with {@link IType#isSameType(IType)}, it is
+		 * based on the innermost type only.
+		 */
+		private static int hashCode(IType type) {
+			type= getNestedType(type, TDEF);
+			while (type instanceof ITypeContainer) {
+				type= getNestedType(((ITypeContainer) type).getType(), TDEF);
+			}
+			if (type instanceof IBasicType)
+				return ((IBasicType) type).getKind().ordinal();
+			if (type instanceof IBinding)
+				return CharArrayUtils.hash(((IBinding) type).getNameCharArray());
+			return 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return fHash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ConversionKey))
+				return false;
+			ConversionKey other= (ConversionKey) obj;
+			return fHash == other.fHash && fValueCategory == other.fValueCategory && fUDC == other.fUDC
+					&& fContext == other.fContext && fTarget.isSameType(other.fTarget)
+					&& fSource.isSameType(other.fSource);
+		}
+	}
+
+	private static final class LookupKey {
+		private final ICPPClassType fClassType;
+		private final char[] fName;
+		private final boolean fTypesOnly;
+
+		LookupKey(ICPPClassType classType, char[] name, boolean typesOnly) {
+			fClassType= classType;
+			fName= name;
+			fTypesOnly= typesOnly;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(fClassType) * 31 + CharArrayUtils.hash(fName) + (fTypesOnly ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof LookupKey))
+				return false;
+			LookupKey other= (LookupKey) obj;
+			return fClassType == other.fClassType && fTypesOnly == other.fTypesOnly
+					&& CharArrayUtils.equals(fName, other.fName);
+		}
+	}
+
+	private final Map<ConversionKey, Cost> fConversions= new LRUCache<ConversionKey, Cost>(MAX_CONVERSIONS);
+	private final Map<LookupKey, IBinding[]> fBaseClassLookups=
+			new LRUCache<LookupKey, IBinding[]>(MAX_BASE_CLASS_LOOKUPS);
+
+	/**
+	 * Returns the cache for the translation unit, or <code>null</code> if the cache cannot be used.
+	 */
+	static SemanticsCache getCache(IASTTranslationUnit tu) {
+		if (BYPASS_CACHE || !(tu instanceof CPPASTTranslationUnit) || !tu.isFrozen())
+			return null;
+		return ((CPPASTTranslationUnit) tu).getSemanticsCache();
+	}
+
+	/**
+	 * Returns the cache for the translation unit containing the given node, or <code>null</code>
+	 * if the cache cannot be used.
+	 */
+	static SemanticsCache getCache(IASTNode point) {
+		if (BYPASS_CACHE || point == null)
+			return null;
+		return getCache(point.getTranslationUnit());
+	}
+
+	/**
+	 * Checks whether the implicit conversion sequence for the given types can be cached.
+	 */
+	static boolean isCacheable(IType target, IType source) {
+		if (target == null || source == null)
+			return false;
+		if (source instanceof InitializerListType || source instanceof FunctionSetType)
+			return false;
+		final IType t= getNestedType(target, TDEF | REF | CVTYPE);
+		final IType s= getNestedType(source, TDEF | REF | CVTYPE);
+		if (t instanceof ICPPUnknownType || s instanceof ICPPUnknownType
+				|| t instanceof ISemanticProblem || s instanceof ISemanticProblem) {
+			return false;
+		}
+		// The value of a constant expression is relevant for narrowing conversions and null pointer
+		// constants, a string literal can be converted to a pointer to non-const char.
+		IType inner= s;
+		while (inner instanceof ITypeContainer) {
+			inner= getNestedType(((ITypeContainer) inner).getType(), TDEF | CVTYPE);
+		}
+		if (inner instanceof CPPBasicType) {
+			final CPPBasicType basicType= (CPPBasicType) inner;
+			if (basicType.getAssociatedNumericalValue() != null || basicType.isFromStringLiteral())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a copy of the cached conversion sequence, or <code>null</code>.
+	 */
+	synchronized Cost getConversion(IType target, IType source, ValueCategory valueCat, UDCMode udc,
+			Context ctx) {
+		Cost cost= fConversions.get(new ConversionKey(target, source, valueCat, udc, ctx));
+		countConversion(cost != null);
+		return cost == null ? null : cost.copy();
+	}
+
+	synchronized void putConversion(IType target, IType source, ValueCategory valueCat, UDCMode udc,
+			Context ctx, Cost cost) {
+		fConversions.put(new ConversionKey(target, source, valueCat, udc, ctx), cost.copy());
+	}
+
+	/**
+	 * Returns a copy of the cached result of looking up a name in the base classes of a class,
+	 * or <code>null</code>.
+	 */
+	synchronized IBinding[] getBaseClassLookup(ICPPClassType classType, char[] name, boolean typesOnly) {
+		IBinding[] result= fBaseClassLookups.get(new LookupKey(classType, name, typesOnly));
+		countLookup(result != null);
+		return result == null ? null : result.clone();
+	}
+
+	/**
+	 * Stores the result of looking up a name in the base classes of a class. Results containing
+	 * problems or bindings that stand for a recursion are not stored.
+	 */
+	synchronized void putBaseClassLookup(ICPPClassType classType, char[] name, boolean typesOnly,
+			IBinding[] result) {
+		int length= 0;
+		for (IBinding binding : result) {
+			if (binding == null)
+				break;
+			if (binding instanceof IProblemBinding || binding instanceof IRecursionResolvingBinding)
+				return;
+			length++;
+		}
+		IBinding[] copy= new IBinding[length];
+		System.arraycopy(result, 0, copy, 0, length);
+		fBaseClassLookups.put(new LookupKey(classType, name, typesOnly), copy);
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	public synchronized void clear() {
+		fConversions.clear();
+		fBaseClassLookups.clear();
+	}
+
+	private static void countConversion(boolean hit) {
+		if (sTraceStatistics) {
+			synchronized (SemanticsCache.class) {
+				if (hit) {
+					sConversionHits++;
+				} else {
+					sConversionMisses++;
+				}
+			}
+		}
+	}
+
+	private static void countLookup(boolean hit) {
+		if (sTraceStatistics) {
+			synchronized (SemanticsCache.class) {
+				if (hit) {
+					sLookupHits++;
+				} else {
+					sLookupMisses++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the statistics collected for all translation units while tracing is enabled.
+	 */
+	public static synchronized String getStatistics() {
+		return sConversionHits + " conversion hits, " + sConversionMisses + " conversion misses, " //$NON-NLS-1$ //$NON-NLS-2$
+				+ sLookupHits + " base class lookup hits, " + sLookupMisses + " base class lookup misses"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * For testing purposes, resets the statistics.
+	 */
+	public static synchronized void resetStatistics() {
+		sConversionHits= sConversionMisses= sLookupHits= sLookupMisses= 0;
+	}
+
+	/**
+	 * Returns the number of conversion sequences that were found in any of the caches while
+	 * tracing is enabled.
+	 */
+	public static synchronized long getConversionHits() {
+		return sConversionHits;
+	}
+
+	/**
+	 * Returns the number of base class lookups that were found in any of the caches while
+	 * tracing is enabled.
+	 */
+	public static synchronized long getLookupHits() {
+		return sLookupHits;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,6 +40,7 @@ import org.eclipse.cdt.core.index.IIndexFileSet;
 import org.eclipse.cdt.core.index.IIndexInclude;
 import org.eclipse.cdt.core.index.IIndexMacro;
 import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.index.IIndexNameVisitor;
 import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.parser.ISignificantMacros;
 import org.eclipse.cdt.internal.core.dom.Linkage;
@@ -160,18 +161,36 @@ public class CIndex implements IIndex {
 
 	@Override
 	public IIndexName[] findNames(IBinding binding, int flags) throws CoreException {
-		ArrayList<IIndexFragmentName> result= new ArrayList<IIndexFragmentName>();
+		final ArrayList<IIndexName> result= new ArrayList<IIndexName>();
+		findNames(binding, flags, new IIndexNameVisitor() {
+			@Override
+			public boolean visit(IIndexName name) {
+				result.add(name);
+				return true;
+			}
+		});
+		return result.toArray(new IIndexName[result.size()]);
+	}
+
+	@Override
+	public boolean findNames(IBinding binding, int flags, IIndexNameVisitor visitor) throws CoreException {
+		// The search for base specifiers is available via findBaseSpecifiers(), only.
+		return findFragmentNames(binding, flags & ~IIndexFragment.FIND_BASE_SPECIFIERS, visitor);
+	}
+
+	private boolean findFragmentNames(IBinding binding, int flags, IIndexNameVisitor visitor)
+			throws CoreException {
 		if (binding instanceof ICPPUsingDeclaration) {
 			IBinding[] bindings= ((ICPPUsingDeclaration) binding).getDelegates();
 			if (bindings == null || bindings.length == 0) {
-				return new IIndexName[0];
+				return true;
 			}
 			if (bindings.length > 1) {
-				ArrayList<IIndexName> multi= new ArrayList<IIndexName>();
 				for (IBinding b : bindings) {
-					multi.addAll(Arrays.asList(findNames(b, flags)));
+					if (!findFragmentNames(b, flags, visitor))
+						return false;
 				}
-				return multi.toArray(new IIndexName[multi.size()]);
+				return true;
 			}
 			binding= bindings[0];
 		}
@@ -182,28 +201,59 @@ public class CIndex implements IIndex {
 		// Read only fragments can be superseded by what the indexer writes into
 		// a writable fragment. Therefore names from a read-only fragment are
 		// ignored if there is a match in a writable fragment.
-		HashSet<NameKey> encounteredNames = new HashSet<NameKey>();
+		final HashSet<NameKey> encounteredNames = new HashSet<NameKey>();
+		final HashSet<NameKey> writableFiles = new HashSet<NameKey>();
 		for (IIndexFragment fragment : fFragments) {
 			if (fragment instanceof IWritableIndexFragment) {
-				final IIndexFragmentName[] names = fragment.findNames(binding, flags);
-				for (IIndexFragmentName name : names) {
-					if (encounteredNames.add(new NameKey(name, true))) {
-						result.add(name);
-					}
-				}
+				if (!fragment.findNames(binding, flags,
+						new UniqueNameVisitor(visitor, encounteredNames, writableFiles, true)))
+					return false;
 			}
 		}
 		for (IIndexFragment fragment : fFragments) {
 			if (!(fragment instanceof IWritableIndexFragment)) {
-				final IIndexFragmentName[] names = fragment.findNames(binding, flags);
-				for (IIndexFragmentName name : names) {
-					if (encounteredNames.add(new NameKey(name, false))) {
-						result.add(name);
-					}
-				}
+				if (!fragment.findNames(binding, flags,
+						new UniqueNameVisitor(visitor, encounteredNames, writableFiles, false)))
+					return false;
 			}
 		}
-		return result.toArray(new IIndexName[result.size()]);
+		return true;
+	}
+
+	/**
+	 * Passes the names of a fragment to a visitor, unless an equivalent name has already been
+	 * encountered.
+	 */
+	private static final class UniqueNameVisitor implements IIndexNameVisitor {
+		private final IIndexNameVisitor fDelegate;
+		private final HashSet<NameKey> fEncounteredNames;
+		private final HashSet<NameKey> fWritableFiles;
+		private final boolean fWritable;
+
+		UniqueNameVisitor(IIndexNameVisitor delegate, HashSet<NameKey> encounteredNames,
+				HashSet<NameKey> writableFiles, boolean writable) {
+			fDelegate= delegate;
+			fEncounteredNames= encounteredNames;
+			fWritableFiles= writableFiles;
+			fWritable= writable;
+		}
+
+		@Override
+		public boolean visit(IIndexName name) throws CoreException {
+			final IIndexFile file= name.getFile();
+			final NameKey fileKey= new NameKey(file.getLocation(), file.getLinkageID(), -1);
+			if (fWritable) {
+				fWritableFiles.add(fileKey);
+			} else if (fWritableFiles.contains(fileKey)) {
+				// The offsets of names in a read-only fragment are not comparable to the ones
+				// in a writable fragment, the file may have been changed.
+				return true;
+			}
+			if (fEncounteredNames.add(new NameKey(fileKey.location, fileKey.linkageID, name.getNodeOffset()))) {
+				return fDelegate.visit(name);
+			}
+			return true;
+		}
 	}
 
 	@Override
@@ -221,6 +271,19 @@ public class CIndex implements IIndex {
 		return findNames(binding, FIND_REFERENCES);
 	}
 
+	@Override
+	public IIndexName[] findBaseSpecifiers(IBinding binding) throws CoreException {
+		final ArrayList<IIndexName> result= new ArrayList<IIndexName>();
+		findFragmentNames(binding, IIndexFragment.FIND_BASE_SPECIFIERS, new IIndexNameVisitor() {
+			@Override
+			public boolean visit(IIndexName name) {
+				result.add(name);
+				return true;
+			}
+		});
+		return result.toArray(new IIndexName[result.size()]);
+	}
+
 	@Override
 	@Deprecated
 	public IIndexFile getFile(int linkageID, IIndexFileLocation location) throws CoreException {
@@ -821,22 +884,19 @@ public class CIndex implements IIndex {
 	 * for names corresponding to the same binding.
 	 */
 	private static final class NameKey {
-		private final IIndexFileLocation location;
-		private final int linkageID;
-		private final int offset;
-		private final boolean inWritableFragment;
+		final IIndexFileLocation location;
+		final int linkageID;
+		final int offset;
 
-		NameKey(IIndexFragmentName name, boolean writable) throws CoreException {
-			IIndexFile file = name.getFile();
-			location = file.getLocation();
-			linkageID = file.getLinkageID();
-			offset = name.getNodeOffset();
-			inWritableFragment= writable;
+		NameKey(IIndexFileLocation location, int linkageID, int offset) {
+			this.location = location;
+			this.linkageID = linkageID;
+			this.offset = offset;
 		}
 
 		@Override
 		public int hashCode() {
-			return location.hashCode() * 31 + linkageID;
+			return (location.hashCode() * 31 + linkageID) * 31 + offset;
 		}
 
 		@Override
@@ -848,8 +908,7 @@ public class CIndex implements IIndex {
 			if (getClass() != obj.getClass())
 				return false;
 			NameKey other = (NameKey) obj;
-			// Offset is significant only if matches are from same kind of fragment
-			if (inWritableFragment == other.inWritableFragment && offset != other.offset)
+			if (offset != other.offset)
 				return false;
 			if (linkageID != other.linkageID)
 				return false;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,7 @@ import org.eclipse.cdt.core.index.IIndexFileSet;
 import org.eclipse.cdt.core.index.IIndexInclude;
 import org.eclipse.cdt.core.index.IIndexMacro;
 import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.index.IIndexNameVisitor;
 import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.parser.ISignificantMacros;
 import org.eclipse.core.runtime.CoreException;
@@ -53,11 +54,21 @@ final public class EmptyCIndex implements IIndex {
 		return IIndexFragmentName.EMPTY_NAME_ARRAY;
 	}
 
+	@Override
+	public IIndexName[] findBaseSpecifiers(IBinding binding) {
+		return IIndexFragmentName.EMPTY_NAME_ARRAY;
+	}
+
 	@Override
 	public IIndexName[] findNames(IBinding binding, int flags) {
 		return IIndexFragmentName.EMPTY_NAME_ARRAY;
 	}
 
+	@Override
+	public boolean findNames(IBinding binding, int flags, IIndexNameVisitor visitor) {
+		return true;
+	}
+
 	@Override
 	@Deprecated
 	public IIndexFile getFile(int linkageID, IIndexFileLocation location) {
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.cdt.core.dom.ast.IFileNomination;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPUsingDirective;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexMacro;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent.FileVersion;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+
+/**
+ * Cache for the macro state contributed by headers that are taken from the index, shared by
+ * the translation units parsed by an indexer task. An entry stores the result of collecting the
+ * macros, using-directives and nested inclusions of a header, it is keyed by the location of the
+ * header together with its significant macros. The least recently used entries are evicted.
+ * <p>
+ * The cache does not track changes to the index, the owner has to {@link #invalidate(IIndexFileLocation)}
+ * entries that depend on a file that is rewritten or cleared. The caches used for parsing
+ * outside of indexer tasks are obtained via {@link #getCache(IIndex)}, they are discarded
+ * together with the cached results of the index.
+ */
+public final class HeaderContentCache {
+	private static final int MAX_ENTRIES_PER_INDEX= 500;
+
+	/**
+	 * Key for storing a cache with the cached results of the fragments of an index.
+	 */
+	private static final class IndexKey {
+		private final IIndexFragment[] fFragments;
+
+		IndexKey(IIndexFragment[] fragments) {
+			fFragments= fragments;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(fFragments);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof IndexKey && Arrays.equals(fFragments, ((IndexKey) obj).fFragments);
+		}
+	}
+
+	/**
+	 * The collected content for the inclusion of a header.
+	 */
+	static final class Entry {
+		final List<IIndexFile> fFiles;
+		final List<IIndexMacro> fMacros;
+		final List<ICPPUsingDirective> fUsingDirectives;
+		final List<FileVersion> fNonPragmaOnceFiles;
+		final Map<IIndexFileLocation, IFileNomination> fPragmaOnce;
+		final Set<IIndexFileLocation> fLocations;
+
+		Entry(List<IIndexFile> files, List<IIndexMacro> macros, List<ICPPUsingDirective> usingDirectives,
+				List<FileVersion> nonPragmaOnceFiles, Map<IIndexFileLocation, IFileNomination> pragmaOnce,
+				Set<IIndexFileLocation> locations) {
+			fFiles= files;
+			fMacros= macros;
+			fUsingDirectives= usingDirectives;
+			fNonPragmaOnceFiles= nonPragmaOnceFiles;
+			fPragmaOnce= pragmaOnce;
+			fLocations= locations;
+		}
+
+		/**
+		 * Returns whether the entry contains one of the given locations.
+		 */
+		boolean containsAny(Collection<IIndexFileLocation> locations) {
+			for (IIndexFileLocation location : locations) {
+				if (fLocations.contains(location))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Creates the file content for the given path, the lists are copied such that the
+		 * entry is not affected by modifications made by the parser.
+		 */
+		InternalFileContent createFileContent(String path) {
+			return new InternalFileContent(path, new ArrayList<IIndexMacro>(fMacros),
+					new ArrayList<ICPPUsingDirective>(fUsingDirectives), new ArrayList<IIndexFile>(fFiles),
+					new ArrayList<FileVersion>(fNonPragmaOnceFiles));
+		}
+	}
+
+	private final LRUCache<FileContentKey, Entry> fCache;
+	/** Hits and misses per header */
+	private final Map<IIndexFileLocation, int[]> fRequests= new HashMap<IIndexFileLocation, int[]>();
+	private long fHits;
+	private long fMisses;
+
+	public HeaderContentCache(int maxEntries) {
+		fCache= new LRUCache<FileContentKey, Entry>(maxEntries);
+	}
+
+	/**
+	 * Returns the cache shared by the translation units parsed with the given index outside of
+	 * an indexer task, or <code>null</code> if the index does not support caching. The cache is
+	 * stored with the cached results of all fragments of the index, it is replaced as soon as
+	 * one of the fragments discards its cached results, i.e. when the fragment is modified.
+	 * The caller has to hold a read-lock on the index while using the cache.
+	 */
+	public static HeaderContentCache getCache(IIndex index) {
+		if (!(index instanceof CIndex))
+			return null;
+		final IIndexFragment[] fragments= ((CIndex) index).getFragments();
+		if (fragments.length == 0)
+			return null;
+
+		final IndexKey key= new IndexKey(fragments);
+		Object cache= fragments[0].getCachedResult(key);
+		if (cache instanceof HeaderContentCache) {
+			boolean valid= true;
+			for (int i = 1; valid && i < fragments.length; i++) {
+				valid= fragments[i].getCachedResult(key) == cache;
+			}
+			if (valid)
+				return (HeaderContentCache) cache;
+		}
+		HeaderContentCache result= new HeaderContentCache(MAX_ENTRIES_PER_INDEX);
+		for (IIndexFragment fragment : fragments) {
+			fragment.putCachedResult(key, result, true);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the entry for the given key, or <code>null</code> if there is no such entry or
+	 * it cannot be used because it contains one of the excluded locations. The request is
+	 * counted as hit or miss for the location of the key.
+	 */
+	synchronized Entry get(FileContentKey key, Collection<IIndexFileLocation> excluded) {
+		Entry entry= fCache.get(key);
+		if (entry != null && entry.containsAny(excluded)) {
+			entry= null;
+		}
+		int[] counts= fRequests.get(key.getLocation());
+		if (counts == null) {
+			counts= new int[2];
+			fRequests.put(key.getLocation(), counts);
+		}
+		if (entry != null) {
+			counts[0]++;
+			fHits++;
+		} else {
+			counts[1]++;
+			fMisses++;
+		}
+		return entry;
+	}
+
+	synchronized void put(FileContentKey key, Entry entry) {
+		fCache.put(key, entry);
+	}
+
+	/**
+	 * Removes all entries that depend on the given location.
+	 */
+	public synchronized void invalidate(IIndexFileLocation location) {
+		for (Iterator<Entry> it = fCache.values().iterator(); it.hasNext();) {
+			if (it.next().fLocations.contains(location)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries, the statistics are kept.
+	 */
+	public synchronized void clear() {
+		fCache.clear();
+	}
+
+	public synchronized int size() {
+		return fCache.size();
+	}
+
+	public synchronized long getHits() {
+		return fHits;
+	}
+
+	public synchronized long getMisses() {
+		return fMisses;
+	}
+
+	/**
+	 * Returns the number of requests for the given header that could be served from the cache.
+	 */
+	public synchronized int getHits(IIndexFileLocation location) {
+		int[] counts= fRequests.get(location);
+		return counts == null ? 0 : counts[0];
+	}
+
+	/**
+	 * Returns the number of requests for the given header that could not be served from the cache.
+	 */
+	public synchronized int getMisses(IIndexFileLocation location) {
+		int[] counts= fRequests.get(location);
+		return counts == null ? 0 : counts[1];
+	}
+
+	/**
+	 * Returns the ratio of hits to requests for the given header, or 0 if the header
+	 * has not been requested.
+	 */
+	public synchronized double getHitRate(IIndexFileLocation location) {
+		int[] counts= fRequests.get(location);
+		if (counts == null)
+			return 0.0;
+		return (double) counts[0] / (counts[0] + counts[1]);
+	}
+
+	/**
+	 * Returns the headers that have been requested from the cache.
+	 */
+	public synchronized IIndexFileLocation[] getRequestedLocations() {
+		return fRequests.keySet().toArray(new IIndexFileLocation[fRequests.size()]);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
 import org.eclipse.cdt.core.index.IIndexLinkage;
 import org.eclipse.cdt.core.index.IIndexMacro;
+import org.eclipse.cdt.core.index.IIndexNameVisitor;
 import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.parser.ISignificantMacros;
 import org.eclipse.core.runtime.CoreException;
@@ -59,6 +60,11 @@ public interface IIndexFragment {
 	final int FIND_ALL_OCCURRENCES = IIndex.FIND_ALL_OCCURRENCES;
 
 	final int FIND_NON_LOCAL_ONLY= 0x10000;
+	/**
+	 * Constant to search for the names that specify a binding as a base class.
+	 * @see IIndex#findBaseSpecifiers(org.eclipse.cdt.core.dom.ast.IBinding)
+	 */
+	final int FIND_BASE_SPECIFIERS= 0x100000;
 	/**
 	 * Property key for the fragment ID. The fragment ID should uniquely identify the fragments
 	 * usage within a logical index.
@@ -228,6 +234,18 @@ public interface IIndexFragment {
 	 */
 	IIndexFragmentName[] findNames(IBinding binding, int flags) throws CoreException;
 
+	/**
+	 * Searches for all names that resolve to the given binding and passes them to the visitor.
+	 * The visitor is called with instances of {@link IIndexFragmentName}.
+	 * @param binding a binding for which names are searched for
+	 * @param flags a combination of {@link #FIND_DECLARATIONS}, {@link #FIND_DEFINITIONS},
+	 *     {@link #FIND_REFERENCES} and {@link #FIND_NON_LOCAL_ONLY}
+	 * @param visitor the visitor receiving the names
+	 * @return <code>false</code> if the search was stopped by the visitor
+	 * @throws CoreException
+	 */
+	boolean findNames(IBinding binding, int flags, IIndexNameVisitor visitor) throws CoreException;
+
 	/**
 	 * Acquires a read lock.
 	 * @throws InterruptedException
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 QNX Software Systems and others.
+ * Copyright (c) 2005, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,6 +34,7 @@ import org.eclipse.cdt.core.index.IIndexInclude;
 import org.eclipse.cdt.core.index.IIndexMacro;
 import org.eclipse.cdt.core.parser.IncludeFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.IMacroDictionary;
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent.FileVersion;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent.InclusionKind;
@@ -58,6 +59,15 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 	private long fFileSizeLimit= 0;
 	private IIndexFile[] fContextToHeaderGap;
 	private final Map<IIndexFileLocation, IFileNomination> fPragmaOnce= new HashMap<IIndexFileLocation, IFileNomination>();
+	/**
+	 * Cache shared with the other translation units parsed by the related indexer task or,
+	 * without an indexer task, with the index. May be <code>null</code>.
+	 */
+	private final HeaderContentCache fHeaderCache;
+	/** Set when collecting file content skipped a file included with pragma once semantics in the current translation unit. */
+	private boolean fSkippedPragmaOnceFile;
+	/** Collects the targets of unresolved includes, while collecting file content for the cache. */
+	private Set<IIndexFileLocation> fUnresolvedIncludes;
 
 	public IndexBasedFileContentProvider(IIndex index,
 			ASTFilePathResolver pathResolver, int linkage, IncludeFileContentProvider fallbackFactory) {
@@ -70,6 +80,8 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 		fFallBackFactory= (InternalFileContentProvider) fallbackFactory;
 		fPathResolver= pathResolver;
 		fRelatedIndexerTask= relatedIndexerTask;
+		fHeaderCache= relatedIndexerTask != null ?
+				relatedIndexerTask.getHeaderContentCache() : HeaderContentCache.getCache(index);
 		fLinkage= linkage;
 	}
 
@@ -125,15 +137,24 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 			IIndexFile file = selectIndexFile(macroDictionary, ifl);
 			if (file != null) {
 				try {
-					List<IIndexFile> files= new ArrayList<IIndexFile>();
-					List<IIndexMacro> macros= new ArrayList<IIndexMacro>();
-					List<ICPPUsingDirective> directives= new ArrayList<ICPPUsingDirective>();
-					Map<IIndexFileLocation, IFileNomination> newPragmaOnce= new HashMap<IIndexFileLocation, IFileNomination>();
-					LinkedHashSet<IIndexFile> preLoaded= new LinkedHashSet<IIndexFile>();
-					collectFileContent(file, null, newPragmaOnce, preLoaded, files, macros, directives, null);
+					FileContentKey key= null;
+					HeaderContentCache.Entry entry= null;
+					if (fHeaderCache != null) {
+						key= new FileContentKey(fLinkage, ifl, file.getSignificantMacros());
+						// An entry cannot be used when it contains a file that is already included with
+						// pragma once semantics, such a file has to be skipped.
+						entry= fHeaderCache.get(key, fPragmaOnce.keySet());
+					}
+					if (entry == null) {
+						entry= collectFileContent(file);
+						// The content depends on the translation unit if a pragma once file was skipped.
+						if (key != null && !fSkippedPragmaOnceFile) {
+							fHeaderCache.put(key, entry);
+						}
+					}
 					// Report pragma once inclusions, only if no exception was thrown.
-					fPragmaOnce.putAll(newPragmaOnce);
-					return new InternalFileContent(path, macros, directives, files, toList(preLoaded));
+					fPragmaOnce.putAll(entry.fPragmaOnce);
+					return entry.createFileContent(path);
 				} catch (DependsOnOutdatedFileException e) {
 				}
 			} 
@@ -183,6 +204,30 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 		return null;
 	}
 
+	private HeaderContentCache.Entry collectFileContent(IIndexFile file)
+			throws CoreException, DependsOnOutdatedFileException {
+		List<IIndexFile> files= new ArrayList<IIndexFile>();
+		List<IIndexMacro> macros= new ArrayList<IIndexMacro>();
+		List<ICPPUsingDirective> directives= new ArrayList<ICPPUsingDirective>();
+		Map<IIndexFileLocation, IFileNomination> newPragmaOnce= new HashMap<IIndexFileLocation, IFileNomination>();
+		LinkedHashSet<IIndexFile> preLoaded= new LinkedHashSet<IIndexFile>();
+		// The entry depends on the included files and on the targets of unresolved includes,
+		// which may be resolved once the target is added to the index.
+		Set<IIndexFileLocation> locations= new HashSet<IIndexFileLocation>();
+		fSkippedPragmaOnceFile= false;
+		fUnresolvedIncludes= locations;
+		try {
+			collectFileContent(file, null, newPragmaOnce, preLoaded, files, macros, directives, null);
+		} finally {
+			fUnresolvedIncludes= null;
+		}
+		for (IIndexFile f : files) {
+			locations.add(f.getLocation());
+		}
+		return new HeaderContentCache.Entry(files, macros, directives, toList(preLoaded), newPragmaOnce,
+				locations);
+	}
+
 	private boolean collectFileContent(IIndexFile file, IIndexFile stopAt,
 			Map<IIndexFileLocation, IFileNomination> newPragmaOnce,
 			LinkedHashSet<IIndexFile> preLoaded, List<IIndexFile> files,
@@ -198,8 +243,10 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 			newPragmaOnce.put(ifl, file);
 		
 		if (preventRecursion != null) {
-			if (fPragmaOnce.containsKey(ifl)) 
+			if (fPragmaOnce.containsKey(ifl)) {
+				fSkippedPragmaOnceFile= true;
 				return false;
+			}
 		} else {
 			preventRecursion= new HashSet<IIndexFile>();
 		}
@@ -236,6 +283,11 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 					}
 					if (collectFileContent(includedFile, stopAt, newPragmaOnce, preLoaded, files, macros, usingDirectives, preventRecursion))
 						return true;
+				} else if (fUnresolvedIncludes != null) {
+					IIndexFileLocation target= inc.getIncludesLocation();
+					if (target != null) {
+						fUnresolvedIncludes.add(target);
+					}
 				}
 			}
 		}
@@ -296,6 +348,11 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 		return IIndexFile.EMPTY_FILE_ARRAY;
 	}
 	
+	@Override
+	public IncludeResolutionCache.Statistics getIncludeResolutionStatistics() {
+		return fRelatedIndexerTask != null ? fRelatedIndexerTask.getIncludeResolutionStatistics() : null;
+	}
+
 	@Override
 	public String getContextPath() {
 		if (fContextToHeaderGap != null)
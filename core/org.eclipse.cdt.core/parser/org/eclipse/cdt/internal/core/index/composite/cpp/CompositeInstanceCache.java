@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.core.index.IIndexBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInstanceCache;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
@@ -34,22 +35,30 @@ public class CompositeInstanceCache {
 			return (CompositeInstanceCache) cache;
 		}
 		
-		CompositeInstanceCache newCache= new CompositeInstanceCache();
-		newCache.populate(cf, fb);
+		CompositeInstanceCache newCache= new CompositeInstanceCache(cf, fb);
 		return (CompositeInstanceCache) frag.putCachedResult(key, newCache, false);
 	}
 	
+	private final ICompositesFactory fCompositesFactory;
+	private final IIndexFragmentBinding fFragmentBinding;
 	private final HashMap<String, ICPPTemplateInstance> fMap;
+	private boolean fPopulated;
 	private ICPPDeferredClassInstance fDeferredInstance;
 
-	public CompositeInstanceCache() {
+	private CompositeInstanceCache(ICompositesFactory cf, IIndexFragmentBinding fb) {
+		fCompositesFactory= cf;
+		fFragmentBinding= fb;
 		fMap= new HashMap<String, ICPPTemplateInstance>();
 	}
 	
 	synchronized public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
 		try {
 			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			fMap.put(key, instance);
+			// An instance added concurrently takes precedence, an indexed instance is replaced.
+			final ICPPTemplateInstance existing= fMap.get(key);
+			if (existing == null || existing instanceof IIndexBinding) {
+				fMap.put(key, instance);
+			}
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
 		} catch (DOMException e) {
@@ -59,28 +68,60 @@ public class CompositeInstanceCache {
 	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
 		try {
 			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			return fMap.get(key);
+			ICPPTemplateInstance result= fMap.get(key);
+			if (result == null && !fPopulated) {
+				// Rather than collecting all instances of the template, ask the fragment for the
+				// instance with the given arguments.
+				result= getFragmentInstance(arguments);
+				if (result != null) {
+					fMap.put(key, result);
+				}
+			}
+			return result;
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
 		} catch (DOMException e) {
 		}
 		return null;
 	}
+
+	private ICPPTemplateInstance getFragmentInstance(ICPPTemplateArgument[] arguments) {
+		if (fFragmentBinding instanceof ICPPInstanceCache) {
+			ICPPTemplateInstance inst= ((ICPPInstanceCache) fFragmentBinding).getInstance(arguments);
+			if (inst instanceof IIndexFragmentBinding) {
+				return (ICPPTemplateInstance) fCompositesFactory.getCompositeBinding((IIndexFragmentBinding) inst);
+			}
+		}
+		return null;
+	}
 	
-	private void populate(ICompositesFactory cf, IIndexFragmentBinding fb) {
-		if (fb instanceof ICPPInstanceCache) {
-			ICPPTemplateInstance[] insts= ((ICPPInstanceCache) fb).getAllInstances();
+	private void populate() throws CoreException, DOMException {
+		if (fFragmentBinding instanceof ICPPInstanceCache) {
+			ICPPTemplateInstance[] insts= ((ICPPInstanceCache) fFragmentBinding).getAllInstances();
 			for (ICPPTemplateInstance ti : insts) {
 				if (ti instanceof IIndexFragmentBinding) {
-					ICPPTemplateInstance comp= (ICPPTemplateInstance) cf.getCompositeBinding((IIndexFragmentBinding) ti);
+					ICPPTemplateInstance comp= (ICPPTemplateInstance) fCompositesFactory.getCompositeBinding((IIndexFragmentBinding) ti);
 					ICPPTemplateArgument[] args= comp.getTemplateArguments();
-					addInstance(args, comp);
+					String key= IndexCPPSignatureUtil.getTemplateArgString(args, true);
+					// Instances added to the cache take precedence.
+					if (!fMap.containsKey(key)) {
+						fMap.put(key, comp);
+					}
 				}
 			}
 		}
 	}
 
 	synchronized public ICPPTemplateInstance[] getAllInstances() {
+		if (!fPopulated) {
+			fPopulated= true;
+			try {
+				populate();
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			} catch (DOMException e) {
+			}
+		}
 		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import org.eclipse.cdt.core.parser.IParserLogService;
 import org.eclipse.cdt.core.parser.IScannerInfo;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IWritableIndexFragment;
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
 import org.eclipse.cdt.internal.core.pdom.IndexerProgress;
 import org.eclipse.cdt.internal.core.pdom.PDOMWriter;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
@@ -150,6 +151,11 @@ public abstract class StandaloneIndexer {
 	
 	protected int fUpdateOptions = UPDATE_ALL;
 	
+	/**
+	 * The number of threads used to parse the sources.
+	 */
+	protected int fParserThreads = 1;
+	
 	private IndexerProgress fProgress = null;
 	private volatile StandaloneIndexerTask fDelegate;
 	
@@ -345,6 +351,22 @@ public abstract class StandaloneIndexer {
 		fTraceStatistics = traceStatistics;
 	}
 	
+	/**
+	 * Returns the number of threads used to parse the sources.
+	 */
+	public int getParserThreads() {
+		return fParserThreads;
+	}
+	
+	/**
+	 * Tells the indexer how many threads shall be used to parse the sources. With more than
+	 * one thread, the sources are distributed to the parser threads, the results are written
+	 * to the single index of the indexer.
+	 */
+	public void setParserThreads(int parserThreads) {
+		fParserThreads = Math.max(1, parserThreads);
+	}
+	
 	private IndexerProgress createProgress() {
 		IndexerProgress progress= new IndexerProgress();
 		progress.fTimeEstimate= 1000;
@@ -397,6 +419,7 @@ public abstract class StandaloneIndexer {
 		
 		try {
 			clearIndex();
+			IncludeResolutionCache.getInstance().clear();
 			fDelegate= createTask(getFilesAdded(tus), NO_TUS, NO_TUS);
 			fDelegate.setUpdateFlags(fUpdateOptions);
 			
@@ -419,6 +442,9 @@ public abstract class StandaloneIndexer {
 	 */
 	public void handleDelta(List<String> added, List<String> changed, List<String> removed, IProgressMonitor monitor) throws IOException {
 		fProgress= new IndexerProgress();
+		if (!added.isEmpty() || !removed.isEmpty()) {
+			IncludeResolutionCache.getInstance().clear();
+		}
 				
 		fDelegate= createTask(getFilesAdded(added), changed, removed);
 		if (fDelegate != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import java.util.Iterator;
 
 import org.eclipse.cdt.core.dom.ILinkage;
 import org.eclipse.cdt.core.parser.IParserLogService;
+import org.eclipse.cdt.internal.core.index.HeaderContentCache;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.pdom.AbstractIndexerTask;
 import org.eclipse.cdt.internal.core.pdom.IndexerProgress;
@@ -53,6 +54,7 @@ public abstract class StandaloneIndexerTask extends AbstractIndexerTask {
 		setShowActivity(fIndexer.getShowActivity());
 		setShowProblems(fIndexer.getShowProblems());
 		setSkipReferences(fIndexer.getSkipReferences());
+		setParserThreads(fIndexer.getParserThreads());
 		
 		if (getIndexAllFiles()) {
 			setIndexFilesWithoutBuildConfiguration(true);
@@ -134,6 +136,12 @@ public abstract class StandaloneIndexerTask extends AbstractIndexerTask {
 					+ fStatistics.fParsingTime + " parser, " //$NON-NLS-1$
 					+ fStatistics.fResolutionTime + " resolution, " //$NON-NLS-1$
 					+ fStatistics.fAddToIndexTime + " index update."); //$NON-NLS-1$
+			NumberFormat nfRate= NumberFormat.getNumberInstance();
+			nfRate.setMaximumFractionDigits(1);
+			trace(name + " Throughput: " //$NON-NLS-1$
+					+ nfRate.format(fStatistics.getFilesPerSecond(System.currentTimeMillis() - start)) + " files/s, " //$NON-NLS-1$
+					+ getParserThreads() + " parser threads, " //$NON-NLS-1$
+					+ fStatistics.fPeakHeapUsage / 1024 / 1024 + "MB peak heap."); //$NON-NLS-1$
 			int sum= fStatistics.fDeclarationCount+fStatistics.fReferenceCount+fStatistics.fProblemBindingCount;
 			double problemPct= sum==0 ? 0.0 : (double) fStatistics.fProblemBindingCount / (double) sum;
 			NumberFormat nf= NumberFormat.getPercentInstance();
@@ -155,6 +163,14 @@ public abstract class StandaloneIndexerTask extends AbstractIndexerTask {
 					+ hits + " hits, "  //$NON-NLS-1$
 					+ misses + "(" + nf.format(missPct)+ ") misses."); //$NON-NLS-1$ //$NON-NLS-2$
 			}
+
+			HeaderContentCache headerCache= getHeaderContentCache();
+			long headerHits= headerCache.getHits();
+			long headerTries= headerHits + headerCache.getMisses();
+			double headerHitPct= headerTries==0 ? 0.0 : (double) headerHits / (double) headerTries;
+			trace(name + " Header cache: " //$NON-NLS-1$
+				+ headerHits + "(" + nf.format(headerHitPct) + ") hits, " //$NON-NLS-1$ //$NON-NLS-2$
+				+ headerCache.getRequestedLocations().length + " headers."); //$NON-NLS-1$
 		}
 	}
 
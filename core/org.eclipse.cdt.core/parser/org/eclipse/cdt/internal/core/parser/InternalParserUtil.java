@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2011 IBM Corporation and others.
+ * Copyright (c) 2003, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -161,7 +161,7 @@ public class InternalParserUtil extends ParserFactory {
 			if (input instanceof FileInputStream) {
 				try {
 					return createFileContent(path, null, file.getCharset(), input,
-							fileInfo.getLastModified(), fileInfo.getLength(), fileReadTime);
+							fileInfo.getLastModified(), fileInfo.getLength(), fileReadTime, false);
 				} finally {
 					try {
 						input.close();
@@ -220,7 +220,7 @@ public class InternalParserUtil extends ParserFactory {
 				return null;
 			}
 			try {
-				return createFileContent(path, localPath, encoding, in, timestamp, fileSize, fileReadTime);
+				return createFileContent(path, localPath, encoding, in, timestamp, fileSize, fileReadTime, true);
 			} finally {
 				try {
 					in.close();
@@ -232,12 +232,12 @@ public class InternalParserUtil extends ParserFactory {
 	}
 
 	private static InternalFileContent createFileContent(String path, String localPath, String charset, InputStream in,
-			long fileTimestamp, long fileSize, long fileReadTime) {
+			long fileTimestamp, long fileSize, long fileReadTime, boolean external) {
 		if (localPath == null) {
 			localPath = path;
 		}
 		try {
-			AbstractCharArray chars= FileCharArray.create(localPath, charset, in);
+			AbstractCharArray chars= FileCharArray.create(localPath, charset, in, fileTimestamp, external);
 			if (chars == null)
 				return null;
 			
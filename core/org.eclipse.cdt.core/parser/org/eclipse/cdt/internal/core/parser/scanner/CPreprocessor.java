@@ -238,6 +238,9 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
     final private CharArrayIntMap fKeywords;
     final private CharArrayIntMap fPPKeywords;
     private final IncludeSearchPath fIncludeSearchPath;
+    private final IncludeResolutionCache fIncludeResolutionCache= IncludeResolutionCache.getInstance();
+    private IncludeResolutionCache.Resolutions fIncludeResolutions;
+    private IncludeResolutionCache.Statistics fIncludeResolutionStatistics;
     private String[][] fPreIncludedFiles= null;
 
     private int fContentAssistLimit= -1;
@@ -1130,21 +1133,21 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
         	}
         }
 
-        for (IncludeSearchPathElement path : fIncludeSearchPath.getElements()) {
-        	if (searchAfter != null) {
-        		if (searchAfter.equals(path)) {
-        			searchAfter= null;
-        		}
-        	} else if (quoteInclude || !path.isForQuoteIncludesOnly()) {
-        		String fileLocation = path.getLocation(includeDirective);
-        		if (fileLocation != null) {
-        			reader= tester.checkFile(fileLocation, false, path);
-        			if (reader != null) {
-        				return reader;
-        			}
+        final IncludeSearchPathElement[] elements= fIncludeSearchPath.getElements();
+        int startIndex= 0;
+        if (searchAfter != null) {
+        	startIndex= elements.length;
+        	for (int i = 0; i < elements.length; i++) {
+        		if (searchAfter.equals(elements[i])) {
+        			startIndex= i + 1;
+        			break;
         		}
         	}
         }
+        reader= findInclusionOnPath(includeDirective, quoteInclude, elements, startIndex, tester);
+        if (reader != null) {
+        	return reader;
+        }
         if (fIncludeFileResolutionHeuristics != null) {
         	String location= fIncludeFileResolutionHeuristics.findInclusion(includeDirective, currentFile);
         	if (location != null) {
@@ -1154,6 +1157,97 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
         return null;
     }
 
+    private <T> T findInclusionOnPath(final String includeDirective, final boolean quoteInclude,
+    		final IncludeSearchPathElement[] elements, final int startIndex, final IIncludeFileTester<T> tester) {
+    	if (fIncludeResolutions == null) {
+    		fIncludeResolutions= fIncludeResolutionCache.getResolutions(fIncludeSearchPath);
+    		fIncludeResolutionStatistics= fFileContentProvider.getIncludeResolutionStatistics();
+    	}
+    	final IncludeResolutionCache.Statistics statistics= fIncludeResolutionStatistics;
+    	String key= null;
+    	if (fIncludeResolutions != null) {
+    		key= IncludeResolutionCache.createKey(includeDirective, quoteInclude, startIndex);
+    		final int cached= fIncludeResolutionCache.getResolution(fIncludeResolutions, key, statistics);
+    		if (cached == IncludeResolutionCache.NOT_FOUND) {
+    			if (statistics != null) {
+    				statistics.countProbes(0, countCandidates(quoteInclude, elements, startIndex));
+    			}
+    			return null;
+    		}
+    		if (cached >= 0 && cached < elements.length) {
+    			final IncludeSearchPathElement path= elements[cached];
+    			final T reader= tester.checkFile(path.getLocation(includeDirective), false, path);
+    			if (reader != null) {
+    				if (statistics != null) {
+    					statistics.countProbes(1, countCandidates(quoteInclude, elements, startIndex) - 1);
+    				}
+    				return reader;
+    			}
+    			// The cached resolution is no longer valid.
+    		}
+    	}
+
+    	final String[] locations= new String[elements.length];
+    	for (int i = startIndex; i < elements.length; i++) {
+    		if (quoteInclude || !elements[i].isForQuoteIncludesOnly()) {
+    			locations[i]= elements[i].getLocation(includeDirective);
+    		}
+    	}
+    	// The resolution depends on the directories that contain the candidates, their timestamps
+    	// are read before probing.
+    	String[] directories= null;
+    	long[] timestamps= null;
+    	if (key != null) {
+    		directories= new String[elements.length];
+    		for (int i = startIndex; i < elements.length; i++) {
+    			if (locations[i] != null) {
+    				directories[i]= new File(locations[i]).getParent();
+    			}
+    		}
+    		timestamps= fIncludeResolutionCache.getTimestamps(fIncludeResolutions, directories);
+    	}
+
+    	// Probe the elements of the path. The resolution can be cached only if the files on the
+    	// elements before the one the directive is resolved on do not exist.
+    	boolean cacheable= key != null;
+    	int probes= 0;
+    	T reader= null;
+    	int i;
+    	for (i = startIndex; i < elements.length; i++) {
+    		final String fileLocation = locations[i];
+    		if (fileLocation != null) {
+    			probes++;
+    			reader= tester.checkFile(fileLocation, false, elements[i]);
+    			if (reader != null) {
+    				break;
+    			}
+    			if (cacheable && fFileContentProvider.getInclusionExists(fileLocation)) {
+    				cacheable= false;
+    			}
+    		}
+    	}
+    	if (key != null) {
+    		if (statistics != null) {
+    			statistics.countProbes(probes, 0);
+    		}
+    		if (cacheable) {
+    			fIncludeResolutionCache.putResolution(fIncludeResolutions, key,
+    					reader != null ? i : IncludeResolutionCache.NOT_FOUND, directories, timestamps);
+    		}
+    	}
+    	return reader;
+    }
+
+    private int countCandidates(boolean quoteInclude, IncludeSearchPathElement[] elements, int startIndex) {
+    	int count= 0;
+    	for (int i = startIndex; i < elements.length; i++) {
+    		if (quoteInclude || !elements[i].isForQuoteIncludesOnly()) {
+    			count++;
+    		}
+    	}
+    	return count;
+    }
+
     public static String getAbsoluteInclusionPath(String includeDirective, String currentFile) {
 		// Filename is an absolute path
 		if (new File(includeDirective).isAbsolute()) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2010, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.parser.scanner;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -17,12 +18,17 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+import org.eclipse.core.runtime.Platform;
 
 /**
  * Implementation of char array for a file referencing content via soft references.
@@ -30,8 +36,84 @@ import org.eclipse.cdt.core.CCorePlugin;
 public class FileCharArray extends LazyCharArray {
 	private static final String UTF8_CHARSET_NAME = "UTF-8"; //$NON-NLS-1$
 
+	// Smaller files are read rather than mapped into memory.
+	private static final int MAP_THRESHOLD= 16 * 1024;
+	// Mapped files cannot be modified or deleted on Windows.
+	private static final boolean MAP_FILES= !isWindows();
+
+	/** Maps charsets to whether they decode 7-bit ASCII characters to themselves */
+	private static final Map<String, Boolean> fAsciiCompatibleCharsets= new HashMap<String, Boolean>();
+	/** The contents shared by the parsers running on the current thread, if any */
+	private static final ThreadLocal<SharedContents> fSharedContents= new ThreadLocal<SharedContents>();
+
+	/**
+	 * The contents of files shared among the translation units parsed by an indexer task. Files
+	 * consisting of 7-bit ASCII characters are read once per task, large external files are mapped
+	 * into memory. The mapped contents are released when the instance is no longer referenced,
+	 * thus an instance must not outlive the task.
+	 */
+	public static final class SharedContents {
+		private static final int CACHE_SIZE= 1000;
+
+		/** Maps charsets plus file names to the content of files */
+		private final Map<String, MappedFileCharArray> fContents=
+				new LRUCache<String, MappedFileCharArray>(CACHE_SIZE);
+
+		synchronized MappedFileCharArray get(String key) {
+			return fContents.get(key);
+		}
+
+		synchronized void put(String key, MappedFileCharArray content) {
+			fContents.put(key, content);
+		}
+
+		/**
+		 * Discards the file contents kept for sharing them.
+		 */
+		public synchronized void clear() {
+			fContents.clear();
+		}
+	}
+
+	/**
+	 * Makes the given contents available to the files created on the current thread.
+	 * @param contents the contents to share, or <code>null</code> to stop sharing contents.
+	 * @return the contents shared before the call, to be restored by the caller.
+	 */
+	public static SharedContents setSharedContents(SharedContents contents) {
+		SharedContents previous= fSharedContents.get();
+		if (contents == null) {
+			fSharedContents.remove();
+		} else {
+			fSharedContents.set(contents);
+		}
+		return previous;
+	}
+
+	private static boolean isWindows() {
+		final String os= Platform.getOS();
+		if (Platform.OS_UNKNOWN.equals(os)) {
+			// OSGi is not running, e.g. for the standalone indexer.
+			return File.separatorChar == '\\';
+		}
+		return Platform.OS_WIN32.equals(os);
+	}
+
 	public static AbstractCharArray create(String fileName, String charSet, InputStream in)
 			throws IOException {
+		return create(fileName, charSet, in, 0, false);
+	}
+
+	/**
+	 * Creates the char array for the content of a file. Files consisting of 7-bit ASCII characters
+	 * are not decoded. While an indexer task shares contents via {@link #setSharedContents(SharedContents)},
+	 * their content is shared with other callers that provide the same file modification time.
+	 * @param timestamp the modification time of the file, or 0 if the content shall not be shared.
+	 * @param external whether the file is outside of the workspace, only such files are mapped into
+	 *     memory, because files mapped into memory must not be modified, e.g. by editors.
+	 */
+	public static AbstractCharArray create(String fileName, String charSet, InputStream in,
+			long timestamp, boolean external) throws IOException {
 		// No support for non-local files.
 		if (!(in instanceof FileInputStream)) {
 			return null;
@@ -42,27 +124,76 @@ public class FileCharArray extends LazyCharArray {
 		}
 		FileChannel channel = fis.getChannel();
 		final long lsize = channel.size();
-		if (lsize < CHUNK_SIZE) {
-			return decodeSmallFile(channel, (int) lsize, charSet);
+		if (lsize <= Integer.MAX_VALUE && isAsciiCompatible(charSet)) {
+			final SharedContents sharedContents= timestamp == 0 ? null : fSharedContents.get();
+			final String key= sharedContents == null ? null : charSet + ':' + fileName;
+			if (key != null) {
+				MappedFileCharArray shared= sharedContents.get(key);
+				if (shared != null && shared.isUpToDate(timestamp, lsize))
+					return shared;
+			}
+			// Mapped contents are only used by the indexer, which releases them at the end of the task.
+			ByteBuffer byteBuffer= readBytes(channel, (int) lsize, key != null && external);
+			skipUTF8ByteOrderMark(byteBuffer, charSet);
+			if (MappedFileCharArray.isASCII(byteBuffer)) {
+				MappedFileCharArray result= new MappedFileCharArray(byteBuffer.slice(), timestamp, lsize);
+				if (key != null) {
+					sharedContents.put(key, result);
+				}
+				return result;
+			}
+			if (lsize < CHUNK_SIZE) {
+				return decodeSmallFile(byteBuffer, charSet);
+			}
+		} else if (lsize < CHUNK_SIZE) {
+			ByteBuffer byteBuffer= readBytes(channel, (int) lsize, false);
+			skipUTF8ByteOrderMark(byteBuffer, charSet);
+			return decodeSmallFile(byteBuffer, charSet);
 		}
 
 		return new FileCharArray(fileName, charSet);
 	}
-	
-	private static AbstractCharArray decodeSmallFile(FileChannel channel, int lsize, String charSet)
-			throws IOException {
+
+	private static boolean isAsciiCompatible(String charSet) {
+		synchronized (fAsciiCompatibleCharsets) {
+			Boolean result= fAsciiCompatibleCharsets.get(charSet);
+			if (result == null) {
+				byte[] bytes= new byte[128];
+				for (int i = 0; i < bytes.length; i++) {
+					bytes[i]= (byte) i;
+				}
+				CharBuffer chars= Charset.forName(charSet).decode(ByteBuffer.wrap(bytes));
+				boolean compatible= chars.remaining() == bytes.length;
+				for (int i = 0; compatible && i < bytes.length; i++) {
+					compatible= chars.get(i) == i;
+				}
+				result= Boolean.valueOf(compatible);
+				fAsciiCompatibleCharsets.put(charSet, result);
+			}
+			return result.booleanValue();
+		}
+	}
+
+	private static ByteBuffer readBytes(FileChannel channel, int lsize, boolean mayMap) throws IOException {
+		if (mayMap && MAP_FILES && lsize >= MAP_THRESHOLD) {
+			return channel.map(MapMode.READ_ONLY, 0, lsize);
+		}
 		ByteBuffer byteBuffer = ByteBuffer.allocate(lsize);
-		channel.read(byteBuffer);
+		while (byteBuffer.hasRemaining() && channel.read(byteBuffer) > 0) {
+			// Read until the end of the file.
+		}
 		byteBuffer.flip();
-		skipUTF8ByteOrderMark(byteBuffer, charSet);
-		
+		return byteBuffer;
+	}
+
+	private static AbstractCharArray decodeSmallFile(ByteBuffer byteBuffer, String charSet) {
 		CharBuffer charBuffer = Charset.forName(charSet).decode(byteBuffer);
 		char[] buf= extractChars(charBuffer);
 		return new CharArray(buf);
 	}
 
 	private static void skipUTF8ByteOrderMark(ByteBuffer buf, String charset) {
-		if (charset.equals(UTF8_CHARSET_NAME) && buf.remaining() >= 3) {
+		if (charset.equalsIgnoreCase(UTF8_CHARSET_NAME) && buf.remaining() >= 3) {
 			int pos = buf.position();
 			if (buf.get(pos) == (byte) 0xEF && buf.get(++pos) == (byte) 0xBB &&
 					buf.get(++pos) == (byte) 0xBF) {
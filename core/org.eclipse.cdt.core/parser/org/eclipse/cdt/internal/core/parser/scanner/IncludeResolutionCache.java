@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.io.File;
+import java.util.Map;
+
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+
+/**
+ * Caches, on which element of an include search path an include directive is resolved. The cache
+ * is shared by all preprocessors, such that the directories of the search path are not probed for
+ * the same header again and again.
+ * <p>
+ * The cache has to be cleared when files are added or removed. In addition, a resolution is
+ * discarded when the modification time of one of the directories changes, in which the file
+ * was looked for. The cache can be accessed by multiple threads.
+ */
+public final class IncludeResolutionCache {
+	private static final boolean BYPASS_CACHE= Boolean.getBoolean("CDT_BYPASS_INCLUDE_RESOLUTION_CACHE"); //$NON-NLS-1$
+	private static final int MAX_SEARCH_PATHS= 100;
+	private static final int MAX_RESOLUTIONS_PER_SEARCH_PATH= 20000;
+	private static final int MAX_DIRECTORIES_PER_SEARCH_PATH= 5000;
+
+	/** Returned by {@link #getResolution(Resolutions, String, Statistics)} when the directive is not cached. */
+	public static final int UNKNOWN= -2;
+	/** Returned by {@link #getResolution(Resolutions, String, Statistics)} when the header is not on the path. */
+	public static final int NOT_FOUND= -1;
+
+	private static final IncludeResolutionCache INSTANCE= new IncludeResolutionCache();
+
+	/**
+	 * The modification time of a directory, which is read at most once per translation unit.
+	 */
+	private static final class DirectoryTimestamp {
+		final String fPath;
+		long fTimestamp;
+		int fGeneration;
+
+		DirectoryTimestamp(String path, int generation) {
+			fPath= path;
+			fGeneration= generation - 1;
+		}
+	}
+
+	/**
+	 * A cached resolution together with the modification times of the directories it depends on.
+	 */
+	private static final class Resolution {
+		final int fIndex;
+		final DirectoryTimestamp[] fDirectories;
+		final long[] fTimestamps;
+
+		Resolution(int index, DirectoryTimestamp[] directories, long[] timestamps) {
+			fIndex= index;
+			fDirectories= directories;
+			fTimestamps= timestamps;
+		}
+	}
+
+	/**
+	 * The resolutions for one include search path.
+	 */
+	public static final class Resolutions {
+		final Map<String, Resolution> fResolutions=
+				new LRUCache<String, Resolution>(MAX_RESOLUTIONS_PER_SEARCH_PATH);
+		final Map<String, DirectoryTimestamp> fDirectories=
+				new LRUCache<String, DirectoryTimestamp>(MAX_DIRECTORIES_PER_SEARCH_PATH);
+		int fGeneration;
+
+		DirectoryTimestamp getDirectory(String path) {
+			DirectoryTimestamp dir= fDirectories.get(path);
+			if (dir == null) {
+				dir= new DirectoryTimestamp(path, fGeneration);
+				fDirectories.put(path, dir);
+			}
+			return dir;
+		}
+
+		long getTimestamp(DirectoryTimestamp dir) {
+			if (dir.fGeneration != fGeneration) {
+				dir.fTimestamp= new File(dir.fPath).lastModified();
+				dir.fGeneration= fGeneration;
+			}
+			return dir.fTimestamp;
+		}
+
+		boolean isUpToDate(Resolution resolution) {
+			final DirectoryTimestamp[] dirs= resolution.fDirectories;
+			for (int i = 0; i < dirs.length; i++) {
+				if (getTimestamp(dirs[i]) != resolution.fTimestamps[i])
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Counts the accesses to the cache, see
+	 * {@link InternalFileContentProvider#getIncludeResolutionStatistics()}.
+	 * The statistics can be updated by multiple threads.
+	 */
+	public static final class Statistics {
+		private long fHits;
+		private long fMisses;
+		private long fProbes;
+		private long fProbesSaved;
+
+		synchronized void countLookup(boolean hit) {
+			if (hit) {
+				fHits++;
+			} else {
+				fMisses++;
+			}
+		}
+
+		/**
+		 * Records the number of probes for the existence of files that were made, and the number of
+		 * probes that were saved by using the cache.
+		 */
+		public synchronized void countProbes(int probes, int probesSaved) {
+			fProbes += probes;
+			fProbesSaved += probesSaved;
+		}
+
+		public synchronized long getHits() {
+			return fHits;
+		}
+
+		public synchronized long getMisses() {
+			return fMisses;
+		}
+
+		public synchronized long getProbes() {
+			return fProbes;
+		}
+
+		public synchronized long getProbesSaved() {
+			return fProbesSaved;
+		}
+	}
+
+	public static IncludeResolutionCache getInstance() {
+		return INSTANCE;
+	}
+
+	private final Map<String, Resolutions> fSearchPaths=
+			new LRUCache<String, Resolutions>(MAX_SEARCH_PATHS);
+
+	private IncludeResolutionCache() {
+	}
+
+	/**
+	 * Returns the resolutions for the given search path, or <code>null</code> if the cache
+	 * is bypassed. Call this method once per translation unit, the modification times of
+	 * the directories are read again after each call.
+	 */
+	public Resolutions getResolutions(IncludeSearchPath searchPath) {
+		if (BYPASS_CACHE)
+			return null;
+
+		final IncludeSearchPathElement[] elements= searchPath.getElements();
+		StringBuilder buf= new StringBuilder();
+		for (IncludeSearchPathElement element : elements) {
+			buf.append(element.isForQuoteIncludesOnly() ? '"' : '<');
+			buf.append(element.getPath()).append(File.pathSeparatorChar);
+		}
+		final String key= buf.toString();
+		synchronized (this) {
+			Resolutions result= fSearchPaths.get(key);
+			if (result == null) {
+				result= new Resolutions();
+				fSearchPaths.put(key, result);
+			}
+			result.fGeneration++;
+			return result;
+		}
+	}
+
+	/**
+	 * Creates the key for an include directive.
+	 * @param startIndex the index of the first element of the search path that is considered.
+	 */
+	public static String createKey(String includeDirective, boolean quoteInclude, int startIndex) {
+		return (quoteInclude ? '"' : '<') + String.valueOf(startIndex) + ':' + includeDirective;
+	}
+
+	/**
+	 * Returns the index of the search path element the directive was resolved on, {@link #NOT_FOUND}
+	 * or {@link #UNKNOWN}. A resolution is discarded, when one of the directories it was made for
+	 * has been modified.
+	 * @param statistics the statistics to update, may be <code>null</code>.
+	 */
+	public synchronized int getResolution(Resolutions resolutions, String key, Statistics statistics) {
+		Resolution result= resolutions.fResolutions.get(key);
+		if (result != null && !resolutions.isUpToDate(result)) {
+			resolutions.fResolutions.remove(key);
+			result= null;
+		}
+		if (statistics != null) {
+			statistics.countLookup(result != null);
+		}
+		return result == null ? UNKNOWN : result.fIndex;
+	}
+
+	/**
+	 * Returns the modification times of the given directories. Call this method before probing
+	 * the directories, such that the files added while probing invalidate the resolution.
+	 * @param directories the directories per element of the search path, may contain
+	 *     <code>null</code>.
+	 */
+	public synchronized long[] getTimestamps(Resolutions resolutions, String[] directories) {
+		long[] result= new long[directories.length];
+		for (int i = 0; i < directories.length; i++) {
+			if (directories[i] != null) {
+				result[i]= resolutions.getTimestamp(resolutions.getDirectory(directories[i]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the index of the search path element the directive was resolved on, or
+	 * {@link #NOT_FOUND}. The resolution depends on the directories of the search path elements
+	 * up to the one it was resolved on, or on all of them if the header was not found.
+	 * @param directories the directories the header was looked for in, per element of the search
+	 *     path. May contain <code>null</code>.
+	 * @param timestamps the modification times of the directories, as returned by
+	 *     {@link #getTimestamps(Resolutions, String[])}.
+	 */
+	public synchronized void putResolution(Resolutions resolutions, String key, int index,
+			String[] directories, long[] timestamps) {
+		final int end= index == NOT_FOUND ? directories.length : index + 1;
+		int count= 0;
+		for (int i = 0; i < end; i++) {
+			if (directories[i] != null)
+				count++;
+		}
+		DirectoryTimestamp[] dirs= new DirectoryTimestamp[count];
+		long[] dirTimestamps= new long[count];
+		count= 0;
+		for (int i = 0; i < end; i++) {
+			if (directories[i] != null) {
+				dirs[count]= resolutions.getDirectory(directories[i]);
+				dirTimestamps[count++]= timestamps[i];
+			}
+		}
+		resolutions.fResolutions.put(key, new Resolution(index, dirs, dirTimestamps));
+	}
+
+	/**
+	 * Discards all resolutions, needs to be called whenever files are added or removed.
+	 */
+	public synchronized void clear() {
+		fSearchPaths.clear();
+	}
+}
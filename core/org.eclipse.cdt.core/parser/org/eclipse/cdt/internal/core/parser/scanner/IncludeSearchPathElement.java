@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2009, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,6 +44,14 @@ public final class IncludeSearchPathElement {
 		return fForQuoteIncludesOnly;
 	}
 
+	String getPath() {
+		return fPath;
+	}
+
+	boolean isFrameworkDirectory() {
+		return fIsFrameworkDirectory;
+	}
+
 	public String getLocation(String includeDirective) {
 		if (fIsFrameworkDirectory) {
 			int firstSep = firstSeparator(includeDirective);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2011 Wind River Systems, Inc. and others.
+ * Copyright (c) 2009, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -149,6 +149,14 @@ public abstract class InternalFileContentProvider extends IncludeFileContentProv
 		}
 	}
 
+	/**
+	 * Returns the statistics of the include resolution cache to be updated by the preprocessor,
+	 * or <code>null</code> if the statistics are not collected.
+	 */
+	public IncludeResolutionCache.Statistics getIncludeResolutionStatistics() {
+		return null;
+	}
+
 	/** 
 	 * Return the path of the context of <code>null</code>, if there is no context.
 	 */
@@ -88,6 +88,11 @@ final public class Lexer implements ITokenSequence {
 	private boolean fInsideIncludeDirective= false;
 	private Token fToken;
 	private Token fLastToken;
+
+	// While skipping tokens, a single token object is reused and no images are created.
+	private boolean fReuseToken;
+	private boolean fReusedTokenIsDigraph;
+	private final Token fReusedToken;
 	
 	// For the few cases where we have to lookahead more than one character
 	private int fMarkOffset;
@@ -114,6 +119,7 @@ final public class Lexer implements ITokenSequence {
 		fLog= log;
 		fSource= source;
 		fLastToken= fToken= new Token(tBEFORE_INPUT, source, start, start);
+		fReusedToken= new Token(tBEFORE_INPUT, source, start, start);
 		nextCharPhase3();
 	}
 	
@@ -195,6 +201,9 @@ final public class Lexer implements ITokenSequence {
 	 * @since 5.0
 	 */
 	public final int consumeLine(int origin) throws OffsetLimitReachedException {
+		if (!fSupportContentAssist) {
+			return skipLine();
+		}
 		Token t= fToken;
 		Token lt= null;
 		while (true) {
@@ -223,24 +232,80 @@ final public class Lexer implements ITokenSequence {
 		}
 	}
 
+	/**
+	 * Implementation of {@link #consumeLine(int)} for the case where no completion can occur.
+	 * The skipped tokens are not created.
+	 */
+	private int skipLine() throws OffsetLimitReachedException {
+		Token t= fToken;
+		int tt= t.getType();
+		if (tt == tNEWLINE || tt == IToken.tEND_OF_INPUT)
+			return getLastEndOffset();
+
+		Token lt= t;
+		int ltType= tt;
+		int ltOffset= t.getOffset();
+		int ltEndOffset= t.getEndOffset();
+		fReuseToken= true;
+		try {
+			while (true) {
+				t= fetchToken();
+				tt= t.getType();
+				if (tt == tNEWLINE || tt == IToken.tEND_OF_INPUT)
+					break;
+				lt= t;
+				ltType= tt;
+				ltOffset= t.getOffset();
+				ltEndOffset= t.getEndOffset();
+			}
+		} finally {
+			fReuseToken= false;
+		}
+		fLastToken= lt == fReusedToken ? new Token(ltType, fSource, ltOffset, ltEndOffset) : lt;
+		fToken= new Token(tt, fSource, t.getOffset(), t.getEndOffset());
+		return ltEndOffset;
+	}
+
 	/** 
 	 * Advances to the next pound token that starts a preprocessor directive. 
 	 * @return pound token of the directive or end-of-input.
 	 * @throws OffsetLimitReachedException when completion is requested in a literal or an header-name.
 	 */
 	public Token nextDirective() throws OffsetLimitReachedException {
-		Token t0;
-		Token t1= fToken;
-		for (;;) {
-			t0= t1;
-			t1= fetchToken();
-			final int tt1 = t1.getType();
-			if (tt1 == IToken.tEND_OF_INPUT)
-				break;
-			if (tt1 == IToken.tPOUND) {
-				final int tt0= t0.getType();
-				if (tt0 == tNEWLINE || tt0 == tBEFORE_INPUT)
+		// The skipped tokens are needed only when they are passed on for content assist.
+		final boolean reuseToken= !fSupportContentAssist;
+		Token t0= fToken;
+		int tt0= t0.getType();
+		int t0Offset= t0.getOffset();
+		int t0EndOffset= t0.getEndOffset();
+		Token t1;
+		fReuseToken= reuseToken;
+		try {
+			for (;;) {
+				t1= fetchToken();
+				final int tt1 = t1.getType();
+				if (tt1 == IToken.tEND_OF_INPUT)
 					break;
+				if (tt1 == IToken.tPOUND) {
+					if (tt0 == tNEWLINE || tt0 == tBEFORE_INPUT)
+						break;
+				}
+				t0= t1;
+				tt0= tt1;
+				t0Offset= t1.getOffset();
+				t0EndOffset= t1.getEndOffset();
+			}
+		} finally {
+			fReuseToken= false;
+		}
+		if (reuseToken) {
+			if (t0 == fReusedToken) {
+				t0= new Token(tt0, fSource, t0Offset, t0EndOffset);
+			}
+			if (t1 == fReusedToken) {
+				t1= fReusedTokenIsDigraph ?
+						new TokenForDigraph(t1.getType(), fSource, t1.getOffset(), t1.getEndOffset()) :
+						new Token(t1.getType(), fSource, t1.getOffset(), t1.getEndOffset());
 			}
 		}
 		fLastToken= t0;
@@ -641,14 +706,20 @@ final public class Lexer implements ITokenSequence {
     }
 
 	private Token newToken(int kind, int offset) {
+		if (fReuseToken)
+			return reuseToken(kind, offset, false);
     	return new Token(kind, fSource, offset, fOffset);
     }
 
 	private Token newDigraphToken(int kind, int offset) {
+		if (fReuseToken)
+			return reuseToken(kind, offset, true);
     	return new TokenForDigraph(kind, fSource, offset, fOffset);
     }
 
     private Token newToken(final int kind, final int offset, final int imageLength) {
+		if (fReuseToken)
+			return reuseToken(kind, offset, false);
     	final int endOffset= fOffset;
     	final int sourceLen= endOffset - offset;
     	char[] image;
@@ -662,6 +733,13 @@ final public class Lexer implements ITokenSequence {
     	return new TokenWithImage(kind, fSource, offset, endOffset, image);
     }
 
+	private Token reuseToken(int kind, int offset, boolean isDigraph) {
+		fReusedToken.setType(kind);
+		fReusedToken.setOffset(offset, fOffset);
+		fReusedTokenIsDigraph= isDigraph;
+		return fReusedToken;
+	}
+
     private void handleProblem(int problemID, char[] arg, int offset) {
     	fLog.handleProblem(problemID, arg, offset, fOffset);
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,6 +56,10 @@ class LocationCtxContainer extends LocationCtx {
 		fChildren.add(locationCtx);
 	}
 
+	public AbstractCharArray getSource() {
+		return fSource;
+	}
+
 	public char[] getSource(int offset, int length) {
 		if (fSource.isValidOffset(offset + length - 1)) {
 			char[] result= new char[length];
@@ -437,12 +437,27 @@ public class LocationMap implements ILocationResolver {
 
 	@Override
 	public void setRootNode(IASTTranslationUnit root) {
+		setRootNode(root, true);
+	}
+
+	/**
+	 * Introduces the translation unit, optionally without registering it for notifications about
+	 * skipped and parsed files.
+	 */
+	public void setRootNode(IASTTranslationUnit root, boolean notifyAboutFiles) {
 		fTranslationUnit= root;
-		if (fTranslationUnit instanceof ISkippedIndexedFilesListener) {
+		if (notifyAboutFiles && fTranslationUnit instanceof ISkippedIndexedFilesListener) {
 			fSkippedFilesListeners.add((ISkippedIndexedFilesListener) root);
 		}
 	}
 	
+	/**
+	 * Returns the content of the file of the translation unit.
+	 */
+	public AbstractCharArray getTranslationUnitSource() {
+		return fRootContext.getSource();
+	}
+
 	@Override
 	public String getTranslationUnitPath() {
 		return fTranslationUnitPath;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -944,6 +944,9 @@ public class MacroExpander {
 	}
 
 	public ImageLocationInfo[] clearImageLocationInfos() {
+		// The array is stored with the location context, share the empty one.
+		if (fImageLocationInfos.isEmpty())
+			return ImageLocationInfo.NO_LOCATION_INFOS;
 		ImageLocationInfo[] result= fImageLocationInfos.toArray(new ImageLocationInfo[fImageLocationInfos.size()]);
 		fImageLocationInfos.clear();
 		return result;
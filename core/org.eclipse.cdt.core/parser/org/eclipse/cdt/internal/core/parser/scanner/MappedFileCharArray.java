@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implementation of char array for a file consisting of 7-bit ASCII characters only. The bytes
+ * of the file are used as characters, they are not decoded. The bytes of large external files
+ * read by the indexer are mapped into memory, such that the content is not copied at all.
+ * <p>
+ * Instances are immutable and can be shared among translation units and threads.
+ */
+public final class MappedFileCharArray extends AbstractCharArray {
+	private static final int HASH_CHUNK_SIZE= 4096;
+
+	private final ByteBuffer fBytes;
+	private final int fLength;
+	private final long fTimestamp;
+	private final long fFileSize;
+	private long fHash64;
+	private boolean fHashComputed;
+
+	/**
+	 * @param bytes the content, starting at index 0 and ending at the limit of the buffer.
+	 * @param timestamp the modification time of the file, used to check whether the instance can
+	 *     be shared.
+	 * @param fileSize the size of the file, used to check whether the instance can be shared.
+	 */
+	MappedFileCharArray(ByteBuffer bytes, long timestamp, long fileSize) {
+		fBytes= bytes;
+		fLength= bytes.limit();
+		fTimestamp= timestamp;
+		fFileSize= fileSize;
+	}
+
+	/**
+	 * Returns whether the bytes from the position to the limit of the buffer are 7-bit
+	 * ASCII characters. The position of the buffer is not changed.
+	 */
+	static boolean isASCII(ByteBuffer bytes) {
+		int i= bytes.position();
+		final int limit= bytes.limit();
+		for (; i + 8 <= limit; i += 8) {
+			if ((bytes.getLong(i) & 0x8080808080808080L) != 0)
+				return false;
+		}
+		for (; i < limit; i++) {
+			if (bytes.get(i) < 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether this instance can be used for the file with the given modification time and
+	 * size.
+	 */
+	boolean isUpToDate(long timestamp, long fileSize) {
+		return fTimestamp == timestamp && fFileSize == fileSize;
+	}
+
+	@Override
+	public int tryGetLength() {
+		return fLength;
+	}
+
+	@Override
+	public int getLength() {
+		return fLength;
+	}
+
+	@Override
+	public boolean isValidOffset(int offset) {
+		return offset >= 0 && offset < fLength;
+	}
+
+	@Override
+	public char get(int offset) {
+		return (char) fBytes.get(offset);
+	}
+
+	@Override
+	public void arraycopy(int offset, char[] destination, int destinationPos, int length) {
+		for (int i = 0; i < length; i++) {
+			destination[destinationPos + i]= (char) fBytes.get(offset + i);
+		}
+	}
+
+	@Override
+	public synchronized long getContentsHash() {
+		// Same as for the decoded content, see CharArray.
+		if (!fHashComputed && fLength != 0) {
+			StreamHasher hasher= new StreamHasher();
+			char[] chunk= new char[Math.min(HASH_CHUNK_SIZE, fLength)];
+			for (int offset = 0; offset < fLength; offset += chunk.length) {
+				if (fLength - offset < chunk.length) {
+					chunk= new char[fLength - offset];
+				}
+				arraycopy(offset, chunk, 0, chunk.length);
+				hasher.addChunk(chunk);
+			}
+			fHash64= hasher.computeHash();
+			fHashComputed= true;
+		}
+		return fHash64;
+	}
+
+	@Override
+	public boolean hasError() {
+		return false;
+	}
+}
@@ -25,6 +25,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.IPDOMIndexerTask;
@@ -53,11 +61,14 @@ import org.eclipse.cdt.core.parser.ParserUtil;
 import org.eclipse.cdt.internal.core.dom.IIncludeFileResolutionHeuristics;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 import org.eclipse.cdt.internal.core.index.FileContentKey;
+import org.eclipse.cdt.internal.core.index.HeaderContentCache;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IndexBasedFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.IMacroDictionary;
+import org.eclipse.cdt.internal.core.parser.scanner.FileCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider.DependsOnOutdatedFileException;
 import org.eclipse.cdt.internal.core.parser.util.LRUCache;
@@ -287,12 +298,51 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 
 	protected enum MessageKind { parsingFileTask, errorWhileParsing, tooManyIndexProblems }
 
+	/**
+	 * A required source parsed by one of the parser threads, when parsing in parallel.
+	 */
+	private static class ParsedSource {
+		final Object fTu;
+		final AbstractLanguage fLanguage;
+		final IIndexFileLocation fLocation;
+		final IScannerInfo fScannerInfo;
+		Future<?> fParsed;
+		FileInAST[] fFileKeys;
+		Data fData;
+		Throwable fError;
+
+		ParsedSource(Object tu, AbstractLanguage language, IIndexFileLocation location, IScannerInfo scannerInfo) {
+			fTu= tu;
+			fLanguage= language;
+			fLocation= location;
+			fScannerInfo= scannerInfo;
+		}
+	}
+
+	private static class ParserThreadFactory implements ThreadFactory {
+		private final AtomicInteger fThreadCount= new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread= new Thread(r, "Indexer Parser " + fThreadCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 	private int fUpdateFlags= IIndexManager.UPDATE_ALL;
 	private UnusedHeaderStrategy fIndexHeadersWithoutContext= UnusedHeaderStrategy.useDefaultLanguage;
 	private boolean fIndexFilesWithoutConfiguration= true;
 	private List<LinkageTask> fRequestsPerLinkage= new ArrayList<LinkageTask>();
-	private Map<IIndexFile, IndexFileContent> fIndexContentCache= new LRUCache<IIndexFile, IndexFileContent>(500);
-	private Map<IIndexFileLocation, IIndexFragmentFile[]> fIndexFilesCache= new LRUCache<IIndexFileLocation, IIndexFragmentFile[]>(5000);
+	// The caches are accessed by the parser threads, when parsing in parallel.
+	private Map<IIndexFile, IndexFileContent> fIndexContentCache=
+			Collections.synchronizedMap(new LRUCache<IIndexFile, IndexFileContent>(500));
+	private Map<IIndexFileLocation, IIndexFragmentFile[]> fIndexFilesCache=
+			Collections.synchronizedMap(new LRUCache<IIndexFileLocation, IIndexFragmentFile[]>(5000));
+	private final HeaderContentCache fHeaderContentCache= new HeaderContentCache(500);
+	private final IncludeResolutionCache.Statistics fIncludeResolutionStatistics=
+			new IncludeResolutionCache.Statistics();
+	private final FileCharArray.SharedContents fSharedFileContents= new FileCharArray.SharedContents();
 	private Map<IIndexFileLocation, LocationTask> fOneLinkageTasks= new HashMap<IIndexFileLocation, AbstractIndexerTask.LocationTask>();
 
 	private Object[] fFilesToUpdate;
@@ -306,6 +356,12 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	private long fFileSizeLimit= 0;
 	private InternalFileContentProvider fCodeReaderFactory;
 	private int fSwallowOutOfMemoryError= 5;
+	private int fParserThreads= 1;
+	/**
+	 * Used when parsing in parallel: The parser threads share the read-lock of the task, while ASTs are
+	 * written to the index the parser threads are blocked.
+	 */
+	private ReentrantReadWriteLock fParserLock;
 	/**
 	 * A queue of urgent indexing tasks that contribute additional files to this task.
 	 * The files from the urgent tasks are indexed before all not yet processed files.
@@ -344,6 +400,35 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		fUpdateFlags= flags;
 	}
 
+	/**
+	 * Sets the number of threads used for parsing the source files. With more than one thread,
+	 * sources are parsed in parallel and the resulting ASTs are written to the index one after the
+	 * other by the thread running the task.
+	 */
+	public final void setParserThreads(int threads) {
+		fParserThreads= Math.max(1, threads);
+	}
+
+	public final int getParserThreads() {
+		return fParserThreads;
+	}
+
+	/**
+	 * Returns the cache for the content of headers taken from the index, which is shared by
+	 * the translation units parsed by this task.
+	 */
+	public final HeaderContentCache getHeaderContentCache() {
+		return fHeaderContentCache;
+	}
+
+	/**
+	 * Returns the statistics of the include resolution cache for the translation units parsed
+	 * by this task.
+	 */
+	public final IncludeResolutionCache.Statistics getIncludeResolutionStatistics() {
+		return fIncludeResolutionStatistics;
+	}
+
 	public final void setForceFirstFiles(int number) {
 		fForceNumberFiles= number;
 	}
@@ -476,6 +561,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	}
 
 	public final void runTask(IProgressMonitor monitor) throws InterruptedException {
+		final FileCharArray.SharedContents sharedFileContents= FileCharArray.setSharedContents(fSharedFileContents);
 		try {
 			if (!fIndexFilesWithoutConfiguration) {
 				fIndexHeadersWithoutContext= UnusedHeaderStrategy.skip;
@@ -488,7 +574,8 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			fTodoTaskUpdater= createTodoTaskUpdater();
 
 			fASTOptions= ILanguage.OPTION_NO_IMAGE_LOCATIONS
-					| ILanguage.OPTION_SKIP_TRIVIAL_EXPRESSIONS_IN_AGGREGATE_INITIALIZERS;
+					| ILanguage.OPTION_SKIP_TRIVIAL_EXPRESSIONS_IN_AGGREGATE_INITIALIZERS
+					| ILanguage.OPTION_NO_CACHED_LOCATIONS;
 
 			if (getSkipReferences() == SKIP_ALL_REFERENCES) {
 				fASTOptions |= ILanguage.OPTION_SKIP_FUNCTION_BODIES;
@@ -522,6 +609,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 								}
 								fIndexContentCache.clear();
 								fIndexFilesCache.clear();
+								fHeaderContentCache.clear();
 							}
 							if (hasUrgentTasks())
 								break;
@@ -575,6 +663,8 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 				fIndex.releaseReadLock();
 			}
 		} finally {
+			FileCharArray.setSharedContents(sharedFileContents);
+			fSharedFileContents.clear();
 			synchronized (this) {
 				fTaskCompleted = true;
 			}
@@ -767,6 +857,8 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 		fIndexContentCache.remove(ifile);
 		fIndexFilesCache.remove(file.fileContentKey.getLocation());
+		fHeaderContentCache.invalidate(file.fileContentKey.getLocation());
+		fStatistics.fFilesWrittenCount++;
 
 		LocationTask task= fOneLinkageTasks.remove(location);
 		if (task != null && task != locTask) {
@@ -824,17 +916,22 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			return;
 
 		// First parse the required sources
-		for (Iterator<IIndexFileLocation> it= files.iterator(); it.hasNext();) {
-			IIndexFileLocation ifl= it.next();
-			LocationTask locTask = map.find(ifl);
-			if (locTask == null || locTask.isCompleted()) {
-				it.remove();
-			} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
-				if (monitor.isCanceled() || hasUrgentTasks())
-					return;
-				final Object tu = locTask.fTu;
-				final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
-				parseFile(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor);
+		if (fParserThreads > 1) {
+			if (!parseRequiredSourcesInParallel(linkageID, map, files, monitor))
+				return;
+		} else {
+			for (Iterator<IIndexFileLocation> it= files.iterator(); it.hasNext();) {
+				IIndexFileLocation ifl= it.next();
+				LocationTask locTask = map.find(ifl);
+				if (locTask == null || locTask.isCompleted()) {
+					it.remove();
+				} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
+					if (monitor.isCanceled() || hasUrgentTasks())
+						return;
+					final Object tu = locTask.fTu;
+					final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
+					parseFile(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor);
+				}
 			}
 		}
 
@@ -894,6 +991,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 								locTask.removeVersionTask(it);
 								fIndexContentCache.remove(v.fIndexFile);
 								fIndexFilesCache.remove(ifl);
+								fHeaderContentCache.invalidate(ifl);
 							}
 						}
 					}
@@ -904,6 +1002,203 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 
+	/**
+	 * Parses the required sources using multiple threads. The parser threads create the ASTs and
+	 * resolve the names, the thread running the task writes the results to the index in the order
+	 * of the files.
+	 * @return <code>false</code>, if parsing was interrupted because of cancellation or urgent tasks.
+	 */
+	private boolean parseRequiredSourcesInParallel(int linkageID, LinkageTask map,
+			List<IIndexFileLocation> files, final IProgressMonitor monitor)
+			throws CoreException, InterruptedException {
+		final int threads= fParserThreads;
+		final ExecutorService executor= Executors.newFixedThreadPool(threads, new ParserThreadFactory());
+		final ThreadLocal<InternalFileContentProvider> providers= new ThreadLocal<InternalFileContentProvider>();
+		final LinkedList<ParsedSource> pending= new LinkedList<ParsedSource>();
+		fParserLock= new ReentrantReadWriteLock(true);
+		try {
+			boolean completed= true;
+			for (Iterator<IIndexFileLocation> it= files.iterator(); it.hasNext();) {
+				IIndexFileLocation ifl= it.next();
+				LocationTask locTask = map.find(ifl);
+				if (locTask == null || locTask.isCompleted()) {
+					it.remove();
+				} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
+					if (monitor.isCanceled() || hasUrgentTasks()) {
+						completed= false;
+						break;
+					}
+					final Object tu = locTask.fTu;
+					final ParsedSource source= new ParsedSource(tu, getLanguage(tu, linkageID), ifl,
+							getScannerInfo(linkageID, tu));
+					IPath path= getLabel(ifl);
+					monitor.subTask(getMessage(MessageKind.parsingFileTask,
+							path.lastSegment(), path.removeLastSegments(1).toString()));
+					source.fParsed= executor.submit(new Runnable() {
+						@Override
+						public void run() {
+							parseSource(source, providers, monitor);
+						}
+					});
+					pending.add(source);
+					// Limit the number of ASTs waiting to be written to the index.
+					if (pending.size() >= 2 * threads) {
+						writeSources(linkageID, pending, monitor);
+					}
+				}
+			}
+			while (!pending.isEmpty()) {
+				writeSources(linkageID, pending, monitor);
+			}
+			return completed;
+		} finally {
+			for (ParsedSource source : pending) {
+				source.fParsed.cancel(false);
+			}
+			// The parser threads must not access the index after the read-lock of the task is released.
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			fParserLock= null;
+		}
+	}
+
+	/**
+	 * Called by a parser thread to create the AST for a source and to resolve its names. The AST
+	 * relies on the index not being modified while it is created and its names are resolved, thus
+	 * the read-lock of the parser lock is held in the meantime.
+	 */
+	private void parseSource(ParsedSource source, ThreadLocal<InternalFileContentProvider> providers,
+			IProgressMonitor pm) {
+		if (pm.isCanceled())
+			return;
+
+		if (fShowActivity) {
+			trace("Indexer: parsing " + getLabel(source.fLocation).toOSString()); //$NON-NLS-1$
+		}
+		FileContent codeReader= fResolver.getCodeReader(source.fTu);
+		final boolean isSource = fResolver.isSourceUnit(source.fTu);
+		InternalFileContentProvider fileContentProvider= providers.get();
+		if (fileContentProvider == null) {
+			fileContentProvider= createFileContentProvider(source.fLanguage);
+			providers.set(fileContentProvider);
+		}
+
+		final FileCharArray.SharedContents sharedFileContents= FileCharArray.setSharedContents(fSharedFileContents);
+		fParserLock.readLock().lock();
+		try {
+			long start= System.currentTimeMillis();
+			IASTTranslationUnit ast= createAST(source.fLanguage, codeReader, source.fScannerInfo, isSource,
+					fASTOptions, null, fileContentProvider, pm);
+			synchronized (fStatistics) {
+				fStatistics.fParsingTime += System.currentTimeMillis() - start;
+			}
+			if (ast != null) {
+				if (source.fTu instanceof ITranslationUnit)
+					((ASTTranslationUnit) ast).setOriginatingTranslationUnit((ITranslationUnit) source.fTu);
+				source.fFileKeys= collectFileKeys(source.fLanguage.getLinkageID(), ast, codeReader, null);
+				source.fData= prepareSymbols(ast, source.fFileKeys, fIndex, pm);
+				fStatistics.sampleHeapUsage();
+			}
+		} catch (CoreException e) {
+			source.fError= e;
+		} catch (RuntimeException e) {
+			// A source that depends on an outdated file is skipped, as it is when parsing sequentially.
+			if (!(e.getCause() instanceof DependsOnOutdatedFileException))
+				source.fError= e;
+		} catch (StackOverflowError e) {
+			source.fError= e;
+		} catch (AssertionError e) {
+			source.fError= e;
+		} catch (OutOfMemoryError e) {
+			source.fError= e;
+		} finally {
+			fParserLock.readLock().unlock();
+			FileCharArray.setSharedContents(sharedFileContents);
+		}
+	}
+
+	/**
+	 * Waits for the first of the pending sources to be parsed and writes it to the index, together
+	 * with all subsequent sources that have been parsed in the meantime. Acquiring the write-lock
+	 * requires waiting for the parses in progress, therefore the sources are written in batches
+	 * rather than one by one.
+	 */
+	private void writeSources(int linkageID, LinkedList<ParsedSource> pending, IProgressMonitor pm)
+			throws CoreException, InterruptedException {
+		final List<ParsedSource> written= new ArrayList<ParsedSource>();
+		awaitParsed(pending.getFirst());
+
+		// The parser threads read the state of the task, it must not be modified while they run.
+		fParserLock.writeLock().lock();
+		try {
+			// No parse is in progress, take all parsed sources in the order of the files.
+			while (!pending.isEmpty() && pending.getFirst().fParsed.isDone()) {
+				final ParsedSource source= pending.removeFirst();
+				awaitParsed(source);
+				written.add(source);
+				writeSource(linkageID, source, pm);
+			}
+		} finally {
+			fParserLock.writeLock().unlock();
+		}
+		for (ParsedSource source : written) {
+			final Throwable th= source.fError;
+			if (th != null) {
+				if (th instanceof OutOfMemoryError && --fSwallowOutOfMemoryError < 0)
+					throw (OutOfMemoryError) th;
+				swallowError(getLabel(source.fLocation), th);
+			}
+		}
+	}
+
+	private void awaitParsed(ParsedSource source) throws InterruptedException {
+		try {
+			source.fParsed.get();
+		} catch (ExecutionException e) {
+			final Throwable cause= e.getCause();
+			if (cause instanceof Error)
+				throw (Error) cause;
+			source.fError= cause;
+		}
+	}
+
+	/**
+	 * Writes the result of a parsed source to the index, the caller needs to hold the write-lock of
+	 * the parser lock.
+	 */
+	private void writeSource(int linkageID, ParsedSource source, IProgressMonitor pm)
+			throws InterruptedException {
+		if (source.fError == null && source.fData != null) {
+			final FileInAST[] fileKeys= source.fFileKeys;
+			try {
+				// Skip the files that have been stored for one of the previous sources.
+				for (int i = 0; i < fileKeys.length; i++) {
+					final FileContentKey key= fileKeys[i].fileContentKey;
+					if (selectIndexFile(linkageID, key.getLocation(), key.getSignificantMacros()) != null) {
+						fileKeys[i]= null;
+					}
+				}
+				storeSymbols(source.fData, false, null, fTodoTaskUpdater, pm);
+			} catch (CoreException e) {
+				source.fError= e;
+			} catch (RuntimeException e) {
+				source.fError= e;
+			} catch (StackOverflowError e) {
+				source.fError= e;
+			} catch (AssertionError e) {
+				source.fError= e;
+			} catch (OutOfMemoryError e) {
+				source.fError= e;
+			}
+		}
+		// Release the AST.
+		source.fData= null;
+		if (source.fError != null && source.fFileKeys != null) {
+			// Avoid parsing files again, that caused an exception to be thrown.
+			withdrawRequests(linkageID, source.fFileKeys);
+		}
+	}
+
 	private void parseVersionInContext(int linkageID, LinkageTask map, IIndexFileLocation ifl,
 			final FileVersionTask versionTask, Object tu, LinkedHashSet<IIndexFile> safeGuard,
 			IProgressMonitor monitor) throws CoreException, InterruptedException {
@@ -1023,7 +1318,9 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			if (ast != null) {
 				// Give the new AST a chance to recognize its translation unit before it is written
 				// to the index.
-				((ASTTranslationUnit) ast).setOriginatingTranslationUnit((ITranslationUnit) tu);
+				if (tu instanceof ITranslationUnit)
+					((ASTTranslationUnit) ast).setOriginatingTranslationUnit((ITranslationUnit) tu);
+				fStatistics.sampleHeapUsage();
 				writeToIndex(lang.getLinkageID(), ast, codeReader, ctx, pm);
 			}
 		} catch (CoreException e) {
@@ -1115,6 +1412,15 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	private final IASTTranslationUnit createAST(AbstractLanguage language, FileContent codeReader,
 			IScannerInfo scanInfo, boolean isSource, int options,
 			FileContext ctx, IProgressMonitor pm) throws CoreException {
+		if (fCodeReaderFactory == null) {
+			fCodeReaderFactory= createFileContentProvider(language);
+		}
+		return createAST(language, codeReader, scanInfo, isSource, options, ctx, fCodeReaderFactory, pm);
+	}
+
+	private IASTTranslationUnit createAST(AbstractLanguage language, FileContent codeReader,
+			IScannerInfo scanInfo, boolean isSource, int options, FileContext ctx,
+			InternalFileContentProvider fileContentProvider, IProgressMonitor pm) throws CoreException {
 		if (codeReader == null) {
 			return null;
 		}
@@ -1127,26 +1433,14 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			}
 			return null;
 		}
-		final IIndexFile[] ctx2header = ctx == null ? null : new IIndexFile[] {ctx.fContext, ctx.fOldFile};
-		if (fCodeReaderFactory == null) {
-			InternalFileContentProvider fileContentProvider = createInternalFileContentProvider();
-			if (fIsFastIndexer) {
-				IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
-						language.getLinkageID(), fileContentProvider, this);
-				ibfcp.setContextToHeaderGap(ctx2header);
-				ibfcp.setFileSizeLimit(fFileSizeLimit);
-				fCodeReaderFactory= ibfcp;
-			} else {
-				fCodeReaderFactory= fileContentProvider;
-			}
-			fCodeReaderFactory.setIncludeResolutionHeuristics(createIncludeHeuristics());
-		} else if (fIsFastIndexer) {
-			final IndexBasedFileContentProvider ibfcp = (IndexBasedFileContentProvider) fCodeReaderFactory;
+		if (fIsFastIndexer) {
+			final IIndexFile[] ctx2header = ctx == null ? null : new IIndexFile[] {ctx.fContext, ctx.fOldFile};
+			final IndexBasedFileContentProvider ibfcp = (IndexBasedFileContentProvider) fileContentProvider;
 			ibfcp.setContextToHeaderGap(ctx2header);
 			ibfcp.setLinkage(language.getLinkageID());
 		}
 
-		IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, fCodeReaderFactory,
+		IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, fileContentProvider,
 				fIndex, options, getLogService());
 		if (pm.isCanceled()) {
 			return null;
@@ -1154,6 +1448,18 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		return ast;
 	}
 
+	private InternalFileContentProvider createFileContentProvider(AbstractLanguage language) {
+		InternalFileContentProvider result= createInternalFileContentProvider();
+		if (fIsFastIndexer) {
+			IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
+					language.getLinkageID(), result, this);
+			ibfcp.setFileSizeLimit(fFileSizeLimit);
+			result= ibfcp;
+		}
+		result.setIncludeResolutionHeuristics(createIncludeHeuristics());
+		return result;
+	}
+
 	private InternalFileContentProvider createInternalFileContentProvider() {
 		final IncludeFileContentProvider fileContentProvider = createReaderFactory();
 		if (fileContentProvider instanceof InternalFileContentProvider)
@@ -1164,6 +1470,27 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 
 	private void writeToIndex(final int linkageID, IASTTranslationUnit ast, FileContent codeReader,
 			FileContext ctx, IProgressMonitor pm) throws CoreException, InterruptedException {
+		FileInAST[] fileKeys= collectFileKeys(linkageID, ast, codeReader, ctx);
+		try {
+			addSymbols(ast, fileKeys, fIndex, false, ctx, fTodoTaskUpdater, pm);
+		} catch (CoreException e) {
+			// Avoid parsing files again, that caused an exception to be thrown.
+			withdrawRequests(linkageID, fileKeys);
+			throw e;
+		} catch (RuntimeException e) {
+			withdrawRequests(linkageID, fileKeys);
+			throw e;
+		} catch (Error e) {
+			withdrawRequests(linkageID, fileKeys);
+			throw e;
+		}
+	}
+
+	/**
+	 * Computes the files of the AST that need to be stored in the index.
+	 */
+	private FileInAST[] collectFileKeys(final int linkageID, IASTTranslationUnit ast, FileContent codeReader,
+			FileContext ctx) throws CoreException {
 		HashSet<FileContentKey> enteredFiles= new HashSet<FileContentKey>();
 		ArrayList<FileInAST> orderedFileKeys= new ArrayList<FileInAST>();
 
@@ -1185,20 +1512,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			orderedFileKeys.add(new FileInAST(topKey, codeReader));
 		}
 
-		FileInAST[] fileKeys= orderedFileKeys.toArray(new FileInAST[orderedFileKeys.size()]);
-		try {
-			addSymbols(ast, fileKeys, fIndex, false, ctx, fTodoTaskUpdater, pm);
-		} catch (CoreException e) {
-			// Avoid parsing files again, that caused an exception to be thrown.
-			withdrawRequests(linkageID, fileKeys);
-			throw e;
-		} catch (RuntimeException e) {
-			withdrawRequests(linkageID, fileKeys);
-			throw e;
-		} catch (Error e) {
-			withdrawRequests(linkageID, fileKeys);
-			throw e;
-		}
+		return orderedFileKeys.toArray(new FileInAST[orderedFileKeys.size()]);
 	}
 
 	private void collectOrderedFileKeys(final int linkageID, IASTInclusionNode inclusion,
@@ -1222,6 +1536,8 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		LinkageTask map = findRequestMap(linkageID);
 		if (map != null) {
 			for (FileInAST fileKey : fileKeys) {
+				if (fileKey == null)
+					continue;
 				LocationTask locTask = map.find(fileKey.fileContentKey.getLocation());
 				if (locTask != null) {
 					if (locTask.fCountedUnknownVersion) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,9 +23,12 @@ import org.eclipse.cdt.core.model.ICElementDelta;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.IElementChangedListener;
 import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
 import org.eclipse.cdt.internal.core.pdom.indexer.DeltaAnalyzer;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
 
 /**
@@ -154,8 +157,44 @@ public class CModelListener implements IElementChangedListener, IResourceChangeL
 
 	@Override
 	public void resourceChanged(IResourceChangeEvent event) {
-		if (event.getType() == IResourceChangeEvent.POST_BUILD) {
+		switch (event.getType()) {
+		case IResourceChangeEvent.POST_BUILD:
 			fManager.handlePostBuildEvent();
+			break;
+		case IResourceChangeEvent.POST_CHANGE:
+			final IResourceDelta delta= event.getDelta();
+			if (delta != null && addsOrRemovesFiles(delta)) {
+				IncludeResolutionCache.getInstance().clear();
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Checks whether files are added or removed, such that include directives may be resolved
+	 * differently.
+	 */
+	private boolean addsOrRemovesFiles(IResourceDelta delta) {
+		final boolean[] result= {false};
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta d) {
+					if (result[0])
+						return false;
+					switch (d.getKind()) {
+					case IResourceDelta.ADDED:
+					case IResourceDelta.REMOVED:
+						result[0]= true;
+						return false;
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			CCorePlugin.log(e);
+			return true;
 		}
+		return result[0];
 	}
 }
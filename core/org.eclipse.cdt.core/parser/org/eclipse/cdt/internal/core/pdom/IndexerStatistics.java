@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,4 +22,26 @@ public class IndexerStatistics {
 	public int fUnresolvedIncludesCount= 0;
 	public int fPreprocessorProblemCount= 0;
 	public int fSyntaxProblemsCount= 0;
+	public int fFilesWrittenCount= 0;
+	public long fPeakHeapUsage= 0;
+
+	/**
+	 * Updates the peak heap usage with the memory currently used by the VM.
+	 */
+	public synchronized void sampleHeapUsage() {
+		final Runtime runtime= Runtime.getRuntime();
+		final long used= runtime.totalMemory() - runtime.freeMemory();
+		if (used > fPeakHeapUsage) {
+			fPeakHeapUsage= used;
+		}
+	}
+
+	/**
+	 * Returns the number of files written to the index per second, for the given total time.
+	 */
+	public double getFilesPerSecond(long totalTimeMillis) {
+		if (totalTimeMillis <= 0)
+			return 0.0;
+		return fFilesWrittenCount * 1000.0 / totalTimeMillis;
+	}
 }
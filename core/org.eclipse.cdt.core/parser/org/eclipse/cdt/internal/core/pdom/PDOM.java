@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 QNX Software Systems and others.
+ * Copyright (c) 2005, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -41,6 +41,8 @@ import org.eclipse.cdt.core.index.IIndexLinkage;
 import org.eclipse.cdt.core.index.IIndexLocationConverter;
 import org.eclipse.cdt.core.index.IIndexMacro;
 import org.eclipse.cdt.core.index.IIndexMacroContainer;
+import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.index.IIndexNameVisitor;
 import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.parser.ISignificantMacros;
 import org.eclipse.cdt.core.parser.util.ArrayUtil;
@@ -54,12 +56,15 @@ import org.eclipse.cdt.internal.core.index.IIndexFragmentFileSet;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentInclude;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentName;
 import org.eclipse.cdt.internal.core.index.IIndexScope;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
 import org.eclipse.cdt.internal.core.pdom.db.BTree;
 import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
 import org.eclipse.cdt.internal.core.pdom.db.DBProperties;
 import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.cdt.internal.core.pdom.db.NameTrigramIndex;
+import org.eclipse.cdt.internal.core.pdom.db.PDOMStringTable;
 import org.eclipse.cdt.internal.core.pdom.dom.BindingCollector;
 import org.eclipse.cdt.internal.core.pdom.dom.FindBinding;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMLinkageFactory;
@@ -104,6 +109,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private static final int BLOCKED_WRITE_LOCK_OUTPUT_INTERVAL = 30000;
 	private static final int LONG_WRITE_LOCK_REPORT_THRESHOLD = 1000;
 	private static final int LONG_READ_LOCK_WAIT_REPORT_THRESHOLD = 1000;
+	private static final int LASTING_RESULT_CACHE_SIZE = 5000;
 	static boolean sDEBUG_LOCKS= false; // initialized in the PDOMManager, because IBM needs PDOM independent of runtime plugin.
 
 	/**
@@ -239,10 +245,15 @@ public class PDOM extends PlatformObject implements IPDOM {
 	 *  145.0 - Changed marshalling of CPPBasicType to store the associated numerical value, bug 407808. 
 	 *  146.0 - Added visibility support on class type level, bug 402878.
 	 *  147.0 - Store whether function name is qualified in EvalFunctionSet, bug 408296.
+	 *  148.0 - Database chunks of 16KB instead of 4KB.
+	 *  149.0 - Bloom filter for the names of the bindings of a linkage.
+	 *  150.0 - Interned names of bindings and linkages.
+	 *  151.0 - Trigram index for the names of bindings.
+	 *  152.0 - Index of base specifiers.
 	 */
-	private static final int MIN_SUPPORTED_VERSION= version(147, 0);
-	private static final int MAX_SUPPORTED_VERSION= version(147, Short.MAX_VALUE);
-	private static final int DEFAULT_VERSION = version(147, 0);
+	private static final int MIN_SUPPORTED_VERSION= version(152, 0);
+	private static final int MAX_SUPPORTED_VERSION= version(152, Short.MAX_VALUE);
+	private static final int DEFAULT_VERSION = version(152, 0);
 
 	private static int version(int major, int minor) {
 		return (major << 16) + minor;
@@ -279,7 +290,9 @@ public class PDOM extends PlatformObject implements IPDOM {
 	public static final int INDEX_OF_FILES_WITH_UNRESOLVED_INCLUDES = Database.DATA_AREA + 12;
 	public static final int PROPERTIES = Database.DATA_AREA + 16;
 	public static final int TAG_INDEX = Database.DATA_AREA + 20;
-	public static final int END= Database.DATA_AREA + 24;
+	public static final int STRING_TABLE = Database.DATA_AREA + 24;
+	public static final int NAME_TRIGRAMS = Database.DATA_AREA + 28;
+	public static final int END= Database.DATA_AREA + 32;
 	static {
 		assert END <= Database.CHUNK_SIZE;
 	}
@@ -342,6 +355,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 	protected Database db;
 	private BTree fileIndex;
 	private PDOMTagIndex tagIndex;
+	private volatile PDOMStringTable stringTable;
 	private BTree indexOfDefectiveFiles;
 	private BTree indexOfFiledWithUnresolvedIncludes;
 	private final Map<Integer, PDOMLinkage> fLinkageIDCache = new HashMap<Integer, PDOMLinkage>();
@@ -349,6 +363,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private final IIndexLocationConverter locationConverter;
 	private final Map<String, IPDOMLinkageFactory> fPDOMLinkageFactoryCache;
 	private final HashMap<Object, Object> fResultCache= new HashMap<Object, Object>();
+	private final Map<Object, Object> fLastingResultCache= new LRUCache<Object, Object>(LASTING_RESULT_CACHE_SIZE);
 	private List<IListener> listeners;
 	protected ChangeEvent fEvent= new ChangeEvent();
 
@@ -477,6 +492,17 @@ public class PDOM extends PlatformObject implements IPDOM {
 		return tagIndex;
 	}
 
+	/**
+	 * Returns the table of interned strings, used for the names of bindings.
+	 */
+	public PDOMStringTable getStringTable() {
+		PDOMStringTable result= stringTable;
+		if (result == null) {
+			stringTable= result= new PDOMStringTable(db, STRING_TABLE, NAME_TRIGRAMS);
+		}
+		return result;
+	}
+
 	/**
 	 * Returns the index of files that were read with I/O errors.
 	 */
@@ -606,7 +632,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 		}
 		loadDatabase(file, db.getChunkCache());
 		db.setExclusiveLock();
-		oldFile.delete();
+		Database.delete(oldFile);
 		fEvent.fReloaded= true;
 	}
 
@@ -741,6 +767,11 @@ public class PDOM extends PlatformObject implements IPDOM {
 				return findBindingsForPrefix(prefix, isFullyQualified, caseSensitive, filter, monitor);
 			}
 		}
+		if (patterns.length == 1) {
+			IIndexFragmentBinding[] result= findBindingsViaTrigrams(patterns[0], isFullyQualified, filter, monitor);
+			if (result != null)
+				return result;
+		}
 
 		BindingFinder finder = new BindingFinder(patterns, isFullyQualified, filter, monitor);
 		for (PDOMLinkage linkage : getLinkageList()) {
@@ -758,6 +789,30 @@ public class PDOM extends PlatformObject implements IPDOM {
 		return finder.getBindings();
 	}
 
+	/**
+	 * Uses the trigram index of the names to find the bindings matching the pattern. Returns
+	 * <code>null</code> if no trigrams can be extracted from the pattern.
+	 */
+	private IIndexFragmentBinding[] findBindingsViaTrigrams(Pattern pattern, boolean isFullyQualified,
+			IndexFilter filter, IProgressMonitor monitor) throws CoreException {
+		final NameTrigramIndex trigramIndex= getStringTable().getTrigramIndex();
+		final int[] trigrams= NameTrigramIndex.getRequiredTrigrams(pattern);
+		if (trigramIndex == null || trigrams == null)
+			return null;
+
+		List<IIndexFragmentBinding> result= new ArrayList<IIndexFragmentBinding>();
+		for (long string : trigramIndex.findStrings(trigrams)) {
+			if (monitor.isCanceled())
+				return IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
+
+			final char[] name= db.getString(string).getChars();
+			if (pattern.matcher(new String(name)).matches()) {
+				result.addAll(Arrays.asList(findBindings(name, isFullyQualified, true, filter, monitor)));
+			}
+		}
+		return result.toArray(new IIndexFragmentBinding[result.size()]);
+	}
+
 	private Boolean getCaseSensitive(Pattern[] patterns) {
 		Boolean caseSensitive= null;
 		for (Pattern p : patterns) {
@@ -933,26 +988,28 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public void acquireReadLock() throws InterruptedException {
-		long t = sDEBUG_LOCKS ? System.nanoTime() : 0;
+		long waitStart= 0;
 		synchronized (mutex) {
-			++waitingReaders;
-			try {
-				while (lockCount < 0)
-					mutex.wait();
-			} finally {
-				--waitingReaders;
+			if (lockCount < 0) {
+				waitStart= System.nanoTime();
+				++waitingReaders;
+				try {
+					while (lockCount < 0)
+						mutex.wait();
+				} finally {
+					--waitingReaders;
+				}
 			}
 			++lockCount;
 			db.setLocked(true);
 
 			if (sDEBUG_LOCKS) {
-				t = (System.nanoTime() - t) / 1000000;
-				if (t >= LONG_READ_LOCK_WAIT_REPORT_THRESHOLD) {
-					System.out.println("Acquired index read lock after " + t + " ms wait."); //$NON-NLS-1$//$NON-NLS-2$
-				}
 				incReadLock(fLockDebugging);
 			}
 		}
+		if (sDEBUG_LOCKS && waitStart != 0) {
+			reportLockWait(false, System.nanoTime() - waitStart);
+		}
 	}
 
 	@Override
@@ -993,6 +1050,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 	 */
 	public void acquireWriteLock(int giveupReadLocks) throws InterruptedException {
 		assert !isPermanentlyReadOnly();
+		long waitStart= 0;
 		synchronized (mutex) {
 			if (sDEBUG_LOCKS) {
 				incWriteLock(giveupReadLocks);
@@ -1010,10 +1068,13 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 			// Let the readers go first
 			long start= sDEBUG_LOCKS ? System.currentTimeMillis() : 0;
-			while (lockCount > giveupReadLocks || waitingReaders > 0) {
-				mutex.wait(BLOCKED_WRITE_LOCK_OUTPUT_INTERVAL);
-				if (sDEBUG_LOCKS) {
-					start = reportBlockedWriteLock(start, giveupReadLocks);
+			if (lockCount > giveupReadLocks || waitingReaders > 0) {
+				waitStart= System.nanoTime();
+				while (lockCount > giveupReadLocks || waitingReaders > 0) {
+					mutex.wait(BLOCKED_WRITE_LOCK_OUTPUT_INTERVAL);
+					if (sDEBUG_LOCKS) {
+						start = reportBlockedWriteLock(start, giveupReadLocks);
+					}
 				}
 			}
 			lockCount= -1;
@@ -1021,6 +1082,9 @@ public class PDOM extends PlatformObject implements IPDOM {
 				timeWriteLockAcquired = System.currentTimeMillis();
 			db.setExclusiveLock();
 		}
+		if (sDEBUG_LOCKS && waitStart != 0) {
+			reportLockWait(true, System.nanoTime() - waitStart);
+		}
 	}
 
 	final public void releaseWriteLock() {
@@ -1060,6 +1124,29 @@ public class PDOM extends PlatformObject implements IPDOM {
 		fireChange(event);
 	}
 
+	/**
+	 * Reports a long wait for a lock together with the caller of the method acquiring the lock.
+	 */
+	private void reportLockWait(boolean writeLock, long nanos) {
+		final long millis= nanos / 1000000;
+		if (millis >= LONG_READ_LOCK_WAIT_REPORT_THRESHOLD) {
+			System.out.println("Acquired index " + (writeLock ? "write" : "read") + " lock after " + millis //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ " ms wait, caller: " + getLockingCaller()); //$NON-NLS-1$
+		}
+	}
+
+	private static String getLockingCaller() {
+		final StackTraceElement[] trace= new Throwable().getStackTrace();
+		// Skip this method, reportLockWait and the methods acquiring or yielding the lock.
+		for (int i = 2; i < trace.length; i++) {
+			final String method= trace[i].getMethodName();
+			if (!method.startsWith("acquire") && !method.equals("yield")) { //$NON-NLS-1$ //$NON-NLS-2$
+				return trace[i].getClassName() + '.' + method;
+			}
+		}
+		return "unknown"; //$NON-NLS-1$
+	}
+
 	@Override
 	public boolean hasWaitingReaders() {
 		synchronized (mutex) {
@@ -1118,73 +1205,108 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public IIndexFragmentName[] findNames(IBinding binding, int options) throws CoreException {
-		ArrayList<IIndexFragmentName> names= new ArrayList<IIndexFragmentName>();
+		final ArrayList<IIndexFragmentName> names= new ArrayList<IIndexFragmentName>();
+		findNames(binding, options, new IIndexNameVisitor() {
+			@Override
+			public boolean visit(IIndexName name) {
+				names.add((IIndexFragmentName) name);
+				return true;
+			}
+		});
+		return names.toArray(new IIndexFragmentName[names.size()]);
+	}
+
+	@Override
+	public boolean findNames(IBinding binding, int options, IIndexNameVisitor visitor) throws CoreException {
 		IIndexFragmentBinding myBinding= adaptBinding(binding);
 		if (myBinding instanceof PDOMBinding) {
 			PDOMBinding pdomBinding = (PDOMBinding) myBinding;
-			findNamesForMyBinding(pdomBinding, options, names);
+			if (!findNamesForMyBinding(pdomBinding, options, visitor))
+				return false;
 			if ((options & SEARCH_ACROSS_LANGUAGE_BOUNDARIES) != 0) {
 				PDOMBinding[] xlangBindings= getCrossLanguageBindings(binding);
 				for (PDOMBinding xlangBinding : xlangBindings) {
-					findNamesForMyBinding(xlangBinding, options, names);
+					if (!findNamesForMyBinding(xlangBinding, options, visitor))
+						return false;
 				}
 			}
 		} else if (myBinding instanceof PDOMMacroContainer) {
 			final PDOMMacroContainer macroContainer = (PDOMMacroContainer) myBinding;
-			findNamesForMyBinding(macroContainer, options, names);
+			if (!findNamesForMyBinding(macroContainer, options, visitor))
+				return false;
 			if ((options & SEARCH_ACROSS_LANGUAGE_BOUNDARIES) != 0) {
 				PDOMMacroContainer[] xlangBindings= getCrossLanguageBindings(macroContainer);
 				for (PDOMMacroContainer xlangBinding : xlangBindings) {
-					findNamesForMyBinding(xlangBinding, options, names);
+					if (!findNamesForMyBinding(xlangBinding, options, visitor))
+						return false;
 				}
 			}
 		}
-		return names.toArray(new IIndexFragmentName[names.size()]);
+		return true;
 	}
 
-	private void findNamesForMyBinding(PDOMBinding pdomBinding, int options, ArrayList<IIndexFragmentName> names)
+	private boolean findNamesForMyBinding(PDOMBinding pdomBinding, int options, IIndexNameVisitor visitor)
 			throws CoreException {
 		PDOMName name;
 		if ((options & FIND_DECLARATIONS) != 0) {
 			for (name= pdomBinding.getFirstDeclaration(); name != null; name= name.getNextInBinding()) {
-				if (isCommitted(name)) {
-					names.add(name);
+				if (isCommitted(name) && !visitor.visit(name)) {
+					return false;
 				}
 			}
 		}
 		if ((options & FIND_DEFINITIONS) != 0) {
 			for (name = pdomBinding.getFirstDefinition(); name != null; name= name.getNextInBinding()) {
-				if (isCommitted(name)) {
-					names.add(name);
+				if (isCommitted(name) && !visitor.visit(name)) {
+					return false;
 				}
 			}
 		}
 		if ((options & FIND_REFERENCES) != 0) {
 			for (name = pdomBinding.getFirstReference(); name != null; name= name.getNextInBinding()) {
-				if (isCommitted(name)) {
-					names.add(name);
+				if (isCommitted(name) && !visitor.visit(name)) {
+					return false;
+				}
+			}
+		}
+		if ((options & FIND_BASE_SPECIFIERS) != 0) {
+			for (PDOMName baseSpecifier : pdomBinding.getLinkage().getBaseSpecifiers(pdomBinding)) {
+				// Skip the names that have already been visited as declarations, definitions or references.
+				if ((options & getRoleOption(baseSpecifier)) == 0 && isCommitted(baseSpecifier) &&
+						!visitor.visit(baseSpecifier)) {
+					return false;
 				}
 			}
 		}
+		return true;
 	}
 
-	private void findNamesForMyBinding(PDOMMacroContainer container, int options, ArrayList<IIndexFragmentName> names)
+	private static int getRoleOption(PDOMName name) {
+		if (name.isReference())
+			return FIND_REFERENCES;
+		if (name.isDefinition())
+			return FIND_DEFINITIONS;
+		return FIND_DECLARATIONS;
+	}
+
+	private boolean findNamesForMyBinding(PDOMMacroContainer container, int options, IIndexNameVisitor visitor)
 			throws CoreException {
 		if ((options & FIND_DEFINITIONS) != 0) {
 			for (PDOMMacro macro= container.getFirstDefinition(); macro != null; macro= macro.getNextInContainer()) {
 				final IIndexFragmentName name = macro.getDefinition();
-				if (name != null && isCommitted(macro)) {
-					names.add(name);
+				if (name != null && isCommitted(macro) && !visitor.visit(name)) {
+					return false;
 				}
 			}
 		}
 		if ((options & FIND_REFERENCES) != 0) {
 			for (PDOMMacroReferenceName name = container.getFirstReference(); name != null; name= name.getNextInContainer()) {
-				if (isCommitted(name)) {
-					names.add(name);
+				if (isCommitted(name) && !visitor.visit(name)) {
+					return false;
 				}
 			}
 		}
+		return true;
 	}
 
 	protected boolean isCommitted(PDOMName name) throws CoreException {
@@ -1294,7 +1416,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 						if (!isCaseSensitive)
 							linkage.accept(visitor);
 
-						if (!filescope) {
+						if (!filescope && (!isCaseSensitive || linkage.mayContainName(name))) {
 							// Avoid adding unscoped enumerator items twice
 							visitor.setSkipGlobalEnumerators(true);
 							linkage.getNestedBindingsIndex().accept(visitor);
@@ -1376,10 +1498,14 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private void clearCaches() {
 		fileIndex= null;
 		tagIndex = null;
+		stringTable= null;
 		indexOfDefectiveFiles= null;
 		indexOfFiledWithUnresolvedIncludes= null;
 		fLinkageIDCache.clear();
 		clearResultCache();
+		synchronized (fLastingResultCache) {
+			fLastingResultCache.clear();
+		}
 	}
 
 	@Override
@@ -1437,6 +1563,32 @@ public class PDOM extends PlatformObject implements IPDOM {
 		}
 	}
 
+	/**
+	 * Returns a result from the cache for results that remain valid when the index is modified.
+	 * This is the case for results that depend on bindings, only, because bindings are never
+	 * removed from the index. The cache is cleared together with the index.
+	 */
+	public Object getLastingCachedResult(Object key) {
+		synchronized (fLastingResultCache) {
+			return fLastingResultCache.get(key);
+		}
+	}
+
+	/**
+	 * Stores a result in the cache for results that remain valid when the index is modified.
+	 * @see #getLastingCachedResult(Object)
+	 */
+	public Object putLastingCachedResult(Object key, Object result, boolean replace) {
+		synchronized (fLastingResultCache) {
+			Object old= fLastingResultCache.put(key, result);
+			if (old != null && !replace) {
+				fLastingResultCache.put(key, old);
+				return old;
+			}
+			return result;
+		}
+	}
+
 	public String createKeyForCache(long record, char[] name) {
 		return new StringBuilder(name.length + 2).append((char) (record >> 16)).append((char) record).append(name).toString();
 	}
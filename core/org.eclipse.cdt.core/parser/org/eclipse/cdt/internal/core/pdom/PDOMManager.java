@@ -64,6 +64,7 @@ import org.eclipse.cdt.core.model.LanguageManager;
 import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
 import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
 import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticsCache;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
@@ -73,6 +74,7 @@ import org.eclipse.cdt.internal.core.index.IndexerStateEvent;
 import org.eclipse.cdt.internal.core.index.provider.IndexProviderManager;
 import org.eclipse.cdt.internal.core.pdom.PDOM.IListener;
 import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMLinkageFactory;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMProjectIndexLocationConverter;
 import org.eclipse.cdt.internal.core.pdom.indexer.AbstractPDOMIndexer;
@@ -198,6 +200,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 
 	public PDOMManager() {
 		PDOM.sDEBUG_LOCKS= "true".equals(Platform.getDebugOption(CCorePlugin.PLUGIN_ID + "/debug/index/locks"));  //$NON-NLS-1$//$NON-NLS-2$
+		SemanticsCache.sTraceStatistics= "true".equals(Platform.getDebugOption(CCorePlugin.PLUGIN_ID + "/debug/parser/semanticsCache"));  //$NON-NLS-1$//$NON-NLS-2$
 		addIndexerSetupParticipant(new WaitForRefreshJobs());
 		fProjectDescriptionListener= new CProjectDescriptionListener(this);
 		fJobChangeListener= new JobChangeListener(this);
@@ -246,7 +249,8 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 
 		fTraceIndexerSetup= String.valueOf(true).equals(Platform.getDebugOption(TRACE_INDEXER_SETUP));
 		final CoreModel model = CoreModel.getDefault();
-		ResourcesPlugin.getWorkspace().addResourceChangeListener(fCModelListener, IResourceChangeEvent.POST_BUILD);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(fCModelListener,
+				IResourceChangeEvent.POST_BUILD | IResourceChangeEvent.POST_CHANGE);
 		model.addElementChangedListener(fCModelListener);
 		LanguageManager.getInstance().registerLanguageChangeListener(fLanguageChangeListener);
 		LanguageSettingsManager.registerLanguageSettingsChangeListener(fLanguageSettingsChangeListener);
@@ -365,7 +369,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 						IProject currentOwner= currentCOwner.getProject();
 						if (!currentOwner.exists()) {
 							fFileToProject.remove(dbFile);
-							dbFile.delete();
+							Database.delete(dbFile);
 						}
 						dbName= null;
 						dbFile= null;
@@ -866,7 +870,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
         				try {
         					finalpdom.close();
         					if (delete) {
-        						finalpdom.getDB().getLocation().delete();
+        						Database.delete(finalpdom.getDB().getLocation());
         					}
         				} catch (CoreException e) {
         					CCorePlugin.log(e);
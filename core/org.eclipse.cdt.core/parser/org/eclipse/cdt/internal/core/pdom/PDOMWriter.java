@@ -54,6 +54,7 @@ import org.eclipse.cdt.core.parser.ISignificantMacros;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.internal.core.dom.parser.ASTInternal;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPUnknownBinding;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.ParallelNameResolver;
 import org.eclipse.cdt.internal.core.index.FileContentKey;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
@@ -135,7 +136,7 @@ abstract public class PDOMWriter {
 		final ArrayList<IASTPreprocessorIncludeStatement> fIncludes= new ArrayList<IASTPreprocessorIncludeStatement>();
 	}
 
-	private static class Data {
+	static class Data {
 		final IASTTranslationUnit fAST;
 		final FileInAST[] fSelectedFiles;
 		final IWritableIndex fIndex;
@@ -212,6 +213,17 @@ abstract public class PDOMWriter {
 			IWritableIndex index, boolean flushIndex, FileContext ctx,
 			ITodoTaskUpdater taskUpdater, IProgressMonitor pm) throws InterruptedException,
 			CoreException {
+		Data data= prepareSymbols(ast, selectedFiles, index, pm);
+		storeSymbols(data, flushIndex, ctx, taskUpdater, pm);
+	}
+
+	/**
+	 * Extracts symbols from the given AST and resolves the names. The index is not modified, such
+	 * that the method can be called for different ASTs in parallel. The result needs to be passed
+	 * to {@link #storeSymbols(Data, boolean, FileContext, ITodoTaskUpdater, IProgressMonitor)}.
+	 */
+	final Data prepareSymbols(IASTTranslationUnit ast, FileInAST[] selectedFiles, IWritableIndex index,
+			IProgressMonitor pm) throws CoreException {
 		if (fShowProblems) {
 			fShowInclusionProblems= true;
 			fShowScannerProblems= true;
@@ -228,6 +240,17 @@ abstract public class PDOMWriter {
 
 		// Name resolution.
 		resolveNames(data, pm);
+		return data;
+	}
+
+	/**
+	 * Adds the symbols prepared by {@link #prepareSymbols(IASTTranslationUnit, FileInAST[], IWritableIndex, IProgressMonitor)}
+	 * to the index. Selected files that have been replaced by <code>null</code> in the meantime are skipped.
+	 */
+	final void storeSymbols(Data data, boolean flushIndex, FileContext ctx, ITodoTaskUpdater taskUpdater,
+			IProgressMonitor pm) throws InterruptedException, CoreException {
+		final IASTTranslationUnit ast= data.fAST;
+		final FileInAST[] selectedFiles= data.fSelectedFiles;
 
 		// Index update.
 		storeSymbolsInIndex(data, ctx, flushIndex, pm);
@@ -236,15 +259,18 @@ abstract public class PDOMWriter {
 		if (taskUpdater != null) {
 			Set<IIndexFileLocation> locations= new HashSet<IIndexFileLocation>();
 			for (FileInAST file : selectedFiles) {
-				locations.add(file.fileContentKey.getLocation());
+				if (file != null) {
+					locations.add(file.fileContentKey.getLocation());
+				}
 			}
 			taskUpdater.updateTasks(ast.getComments(), locations.toArray(new IIndexFileLocation[locations.size()]));
 		}
 		if (!data.fStati.isEmpty()) {
 			List<IStatus> stati = data.fStati;
 			String path= null;
-			if (selectedFiles.length > 0) {
-				path= selectedFiles[selectedFiles.length - 1].fileContentKey.getLocation().getURI().getPath();
+			final int last= getLastSelectedFile(selectedFiles);
+			if (last >= 0) {
+				path= selectedFiles[last].fileContentKey.getLocation().getURI().getPath();
 			} else {
 				path= ast.getFilePath().toString();
 			}
@@ -262,10 +288,19 @@ abstract public class PDOMWriter {
 		}
 	}
 
+	private static int getLastSelectedFile(FileInAST[] selectedFiles) {
+		for (int i= selectedFiles.length - 1; i >= 0; i--) {
+			if (selectedFiles[i] != null)
+				return i;
+		}
+		return -1;
+	}
+
 	private void storeSymbolsInIndex(final Data data, FileContext ctx, boolean flushIndex, IProgressMonitor pm)
 			throws InterruptedException, CoreException {
 		final IIndexFragmentFile newFile= ctx == null ? null : ctx.fNewFile;
 		final int linkageID= data.fAST.getLinkage().getLinkageID();
+		final int last= getLastSelectedFile(data.fSelectedFiles);
 		for (int i= 0; i < data.fSelectedFiles.length; i++) {
 			if (pm.isCanceled())
 				return;
@@ -309,7 +344,7 @@ abstract public class PDOMWriter {
 					// Because the caller holds a read-lock, the result cache of the index is never
 					// cleared. Before releasing the lock for the last time in this AST, we clear
 					// the result cache.
-					if (i == data.fSelectedFiles.length - 1) {
+					if (i == last) {
 						data.fIndex.clearResultCache();
 					}
 					lock.release();
@@ -318,16 +353,27 @@ abstract public class PDOMWriter {
 					data.fStati.add(createStatus(NLS.bind(Messages.PDOMWriter_errorWhileParsing,
 							fileInAST.fileContentKey.getLocation().getURI().getPath()), th));
 				}
-				fStatistics.fAddToIndexTime += lock.getCumulativeLockTime();
+				synchronized (fStatistics) {
+					fStatistics.fAddToIndexTime += lock.getCumulativeLockTime();
+				}
 			}
 		}
 	}
 
 	private void resolveNames(Data data, IProgressMonitor pm) {
 		long start= System.currentTimeMillis();
+		// Optionally resolve the names of independent function bodies concurrently, the loop
+		// below obtains the cached bindings, then. Names that failed are reported, rather than
+		// being resolved once more.
+		final Map<IASTName, Throwable> failures= ParallelNameResolver.resolveNames(data.fAST);
+
+		// Count locally, names of different ASTs may be resolved in parallel.
+		int problemBindingCount= 0;
+		int referenceCount= 0;
+		int declarationCount= 0;
 		for (FileInAST file : data.fSelectedFiles) {
 			if (pm.isCanceled()) {
-				return;
+				break;
 			}
 			Symbols symbols= data.fSymbolMap.get(file.includeStatement);
 
@@ -337,43 +383,45 @@ abstract public class PDOMWriter {
 				final IASTName[] na= j.next();
 				final IASTName name = na[0];
 				if (name != null) { // should not be null, just be defensive.
-					Throwable th= null;
-					try {
-						final IBinding binding = name.resolveBinding();
-						if (name.getPropertyInParent() == ICPPASTTemplateId.TEMPLATE_NAME &&
-								(((IASTName) name.getParent()).getBinding() == binding ||
-								binding instanceof ICPPFunctionTemplate)) {
-								na[0]= null;
-						} else if (binding instanceof IProblemBinding) {
-							IProblemBinding problemBinding = (IProblemBinding) binding;
-							if (REPORT_UNKNOWN_BUILTINS ||
-									problemBinding.getID() != IProblemBinding.BINDING_NOT_FOUND ||
-									!CharArrayUtils.startsWith(problemBinding.getNameCharArray(), "__builtin_")) { //$NON-NLS-1$
-								fStatistics.fProblemBindingCount++;
-								if (fShowProblems) {
-									reportProblem(problemBinding);
-								}
-							}
-						} else if (name.isReference()) {
-							if (binding instanceof ICPPTemplateParameter ||
-									binding instanceof ICPPUnknownBinding ||
-									((fSkipReferences & SKIP_TYPE_REFERENCES) != 0 &&
-											isTypeReferenceBinding(binding))) {
-								if (!isRequiredReference(name)) {
+					Throwable th= failures.get(name);
+					if (th == null) {
+						try {
+							final IBinding binding = name.resolveBinding();
+							if (name.getPropertyInParent() == ICPPASTTemplateId.TEMPLATE_NAME &&
+									(((IASTName) name.getParent()).getBinding() == binding ||
+									binding instanceof ICPPFunctionTemplate)) {
 									na[0]= null;
+							} else if (binding instanceof IProblemBinding) {
+								IProblemBinding problemBinding = (IProblemBinding) binding;
+								if (REPORT_UNKNOWN_BUILTINS ||
+										problemBinding.getID() != IProblemBinding.BINDING_NOT_FOUND ||
+										!CharArrayUtils.startsWith(problemBinding.getNameCharArray(), "__builtin_")) { //$NON-NLS-1$
+									problemBindingCount++;
+									if (fShowProblems) {
+										reportProblem(problemBinding);
+									}
+								}
+							} else if (name.isReference()) {
+								if (binding instanceof ICPPTemplateParameter ||
+										binding instanceof ICPPUnknownBinding ||
+										((fSkipReferences & SKIP_TYPE_REFERENCES) != 0 &&
+												isTypeReferenceBinding(binding))) {
+									if (!isRequiredReference(name)) {
+										na[0]= null;
+									} else {
+										referenceCount++;
+									}
 								} else {
-									fStatistics.fReferenceCount++;
+									referenceCount++;
 								}
 							} else {
-								fStatistics.fReferenceCount++;
+								declarationCount++;
 							}
-						} else {
-							fStatistics.fDeclarationCount++;
+						} catch (RuntimeException e) {
+							th= e;
+						} catch (StackOverflowError e) {
+							th= e;
 						}
-					} catch (RuntimeException e) {
-						th= e;
-					} catch (StackOverflowError e) {
-						th= e;
 					}
 					if (th != null) {
 						if (!reported) {
@@ -386,7 +434,12 @@ abstract public class PDOMWriter {
 				}
 			}
 		}
-		fStatistics.fResolutionTime += System.currentTimeMillis() - start;
+		synchronized (fStatistics) {
+			fStatistics.fProblemBindingCount += problemBindingCount;
+			fStatistics.fReferenceCount += referenceCount;
+			fStatistics.fDeclarationCount += declarationCount;
+			fStatistics.fResolutionTime += System.currentTimeMillis() - start;
+		}
 	}
 
 	private void extractSymbols(Data data) throws CoreException {
@@ -465,8 +518,10 @@ abstract public class PDOMWriter {
 			}
 		}
 
-		fStatistics.fUnresolvedIncludesCount += unresolvedIncludes;
-		fStatistics.fPreprocessorProblemCount += ast.getPreprocessorProblemsCount() - unresolvedIncludes;
+		synchronized (fStatistics) {
+			fStatistics.fUnresolvedIncludesCount += unresolvedIncludes;
+			fStatistics.fPreprocessorProblemCount += ast.getPreprocessorProblemsCount() - unresolvedIncludes;
+		}
 		if (fShowScannerProblems || fShowInclusionProblems) {
 			final boolean reportAll= fShowScannerProblems && fShowInclusionProblems;
 			IASTProblem[] scannerProblems= ast.getPreprocessorProblems();
@@ -478,7 +533,9 @@ abstract public class PDOMWriter {
 		}
 
 		final List<IASTProblem> problems= visitor.getProblems();
-		fStatistics.fSyntaxProblemsCount += problems.size();
+		synchronized (fStatistics) {
+			fStatistics.fSyntaxProblemsCount += problems.size();
+		}
 		if (fShowSyntaxProblems) {
 			for (IASTProblem problem : problems) {
 				reportProblem(problem);
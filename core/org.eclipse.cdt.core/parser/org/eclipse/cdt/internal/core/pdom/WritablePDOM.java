@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -273,7 +273,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 	 *
 	 * @param linkageID the id of the linkage in which the file has been parsed.
 	 * @param location the IIndexFileLocation representing the location of the file
-	 * @param tu the translation unit from which 'location' originates
+	 * @param tu the translation unit from which 'location' originates, may be <code>null</code>
 	 * @return the best file for the location, or <code>null</code> if the file is not
 	 *     present in the index
 	 * @throws CoreException
@@ -284,7 +284,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 		int bestScore = -1;
 		for (IIndexFile file : files) {
 			int score = file.getMacros().length * 2;
-			if (TranslationUnit.isSourceFile(TranslationUnit.getParsedInContext(file), tu.getCProject().getProject()))
+			if (tu != null && TranslationUnit.isSourceFile(TranslationUnit.getParsedInContext(file), tu.getCProject().getProject()))
 				score++;
 			if (score > bestScore) {
 				bestScore = score;
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.db;
+
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * A Bloom filter for character sequences stored in the database. It is used to find out
+ * that a key has never been added without searching the data structure holding the keys.
+ * Keys cannot be removed, a filter that has become too small or contains too many obsolete
+ * keys can be {@link #reset(int)} and filled again.
+ * <p>
+ * The bits are stored in blocks of {@link #BLOCK_SIZE} bytes, all bits for a key are set in
+ * a single block, such that a lookup touches one chunk of the database, only.
+ */
+public final class BloomFilter {
+	private static final int BLOCK_SIZE= 8 * 1024;
+	private static final int BLOCK_BITS_MASK= BLOCK_SIZE * 8 - 1;
+	private static final int HASH_COUNT= 7;
+	/** Number of bits per key that results in a false positive rate of about 1% */
+	private static final int BITS_PER_KEY= 10;
+	private static final int MAX_BLOCK_COUNT= 1024;
+
+	// Layout of the header.
+	private static final int BLOCK_COUNT= 0;
+	private static final int KEY_COUNT= 4;
+	private static final int BLOCKS= 8;
+
+	private final Database fDatabase;
+	private final long fRecord;
+
+	/**
+	 * Creates an instance for the filter, that is referenced by the pointer at the given
+	 * record. The filter is allocated with the first key added to it.
+	 */
+	public BloomFilter(Database db, long record) {
+		fDatabase= db;
+		fRecord= record;
+	}
+
+	/**
+	 * Returns <code>false</code> if the key has definitely not been added to the filter.
+	 */
+	public boolean mightContain(char[] key) throws CoreException {
+		final long header= fDatabase.getRecPtr(fRecord);
+		if (header == 0)
+			return false;
+
+		final long hash= hash(key);
+		final long block= getBlock(header, hash);
+		int h1= (int) hash;
+		final int h2= (int) (hash >>> 32) | 1;
+		for (int i = 0; i < HASH_COUNT; i++) {
+			final int bit= h1 & BLOCK_BITS_MASK;
+			if ((fDatabase.getByte(block + (bit >>> 3)) & (1 << (bit & 7))) == 0)
+				return false;
+			h1+= h2;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the key to the filter.
+	 */
+	public void add(char[] key) throws CoreException {
+		long header= fDatabase.getRecPtr(fRecord);
+		if (header == 0) {
+			header= allocate(1);
+		}
+
+		final long hash= hash(key);
+		final long block= getBlock(header, hash);
+		int h1= (int) hash;
+		final int h2= (int) (hash >>> 32) | 1;
+		for (int i = 0; i < HASH_COUNT; i++) {
+			final int bit= h1 & BLOCK_BITS_MASK;
+			final long offset= block + (bit >>> 3);
+			fDatabase.putByte(offset, (byte) (fDatabase.getByte(offset) | (1 << (bit & 7))));
+			h1+= h2;
+		}
+		fDatabase.putInt(header + KEY_COUNT, fDatabase.getInt(header + KEY_COUNT) + 1);
+	}
+
+	/**
+	 * Returns whether more keys have been added than the filter can hold with the expected false
+	 * positive rate, and the filter can still be enlarged.
+	 */
+	public boolean isOverloaded() throws CoreException {
+		final long header= fDatabase.getRecPtr(fRecord);
+		if (header == 0)
+			return false;
+		final int blockCount= fDatabase.getInt(header + BLOCK_COUNT);
+		return blockCount < MAX_BLOCK_COUNT &&
+				(long) fDatabase.getInt(header + KEY_COUNT) * BITS_PER_KEY > (long) blockCount * BLOCK_SIZE * 8;
+	}
+
+	/**
+	 * Returns the number of keys added to the filter.
+	 */
+	public int getKeyCount() throws CoreException {
+		final long header= fDatabase.getRecPtr(fRecord);
+		return header == 0 ? 0 : fDatabase.getInt(header + KEY_COUNT);
+	}
+
+	/**
+	 * Removes all keys from the filter and resizes it, such that it can hold twice the given
+	 * number of keys.
+	 */
+	public void reset(int expectedKeyCount) throws CoreException {
+		delete();
+		long bits= (long) expectedKeyCount * BITS_PER_KEY * 2;
+		int blockCount= 1;
+		while (blockCount < MAX_BLOCK_COUNT && (long) blockCount * BLOCK_SIZE * 8 < bits) {
+			blockCount*= 2;
+		}
+		allocate(blockCount);
+	}
+
+	/**
+	 * Frees the storage used by the filter.
+	 */
+	public void delete() throws CoreException {
+		final long header= fDatabase.getRecPtr(fRecord);
+		if (header != 0) {
+			final int blockCount= fDatabase.getInt(header + BLOCK_COUNT);
+			for (int i = 0; i < blockCount; i++) {
+				fDatabase.free(fDatabase.getRecPtr(header + BLOCKS + i * Database.PTR_SIZE));
+			}
+			fDatabase.free(header);
+			fDatabase.putRecPtr(fRecord, 0);
+		}
+	}
+
+	private long allocate(int blockCount) throws CoreException {
+		final long header= fDatabase.malloc(BLOCKS + blockCount * Database.PTR_SIZE);
+		fDatabase.putInt(header + BLOCK_COUNT, blockCount);
+		for (int i = 0; i < blockCount; i++) {
+			fDatabase.putRecPtr(header + BLOCKS + i * Database.PTR_SIZE, fDatabase.malloc(BLOCK_SIZE));
+		}
+		fDatabase.putRecPtr(fRecord, header);
+		return header;
+	}
+
+	private long getBlock(long header, long hash) throws CoreException {
+		// The block count is a power of two. The bit positions within the block depend on the
+		// lower 16 bits of the hash values, only.
+		final int blockCount= fDatabase.getInt(header + BLOCK_COUNT);
+		final int idx= ((int) hash >>> 16) & (blockCount - 1);
+		return fDatabase.getRecPtr(header + BLOCKS + idx * Database.PTR_SIZE);
+	}
+
+	/**
+	 * 64-bit FNV-1a hash with a final mix, such that all bits depend on the entire key.
+	 */
+	private static long hash(char[] key) {
+		long h= 0xcbf29ce484222325L;
+		for (char c : key) {
+			h^= c;
+			h*= 0x100000001b3L;
+		}
+		h^= h >>> 33;
+		h*= 0xff51afd7ed558ccdL;
+		h^= h >>> 33;
+		h*= 0xc4ceb9fe1a85ec53L;
+		h^= h >>> 33;
+		return h;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 QNX Software Systems and others.
+ * Copyright (c) 2005, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,7 +40,7 @@ final class Chunk {
 	void read() throws CoreException {
 		try {
 			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-			fDatabase.read(buf, (long) fSequenceNumber*Database.CHUNK_SIZE);
+			fDatabase.readChunk(fSequenceNumber, buf);
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
 		}
@@ -56,6 +56,11 @@ final class Chunk {
 		fDirty= false;
 	}
 
+	void flush(WriteAheadLog log) throws CoreException {
+		log.append(fSequenceNumber, fBuffer);
+		fDirty= false;
+	}
+
 	private static int recPtrToIndex(final long offset) {
 		return (int) (offset & Database.OFFSET_IN_CHUNK_MASK);
 	}
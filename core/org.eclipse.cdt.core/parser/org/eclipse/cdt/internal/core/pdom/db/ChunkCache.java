@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,16 +7,23 @@
  *
  * Contributors:
  *     Markus Schorn - initial API and implementation
- *******************************************************************************/ 
+ *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom.db;
 
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache for the chunks of one or more databases. The cache is divided into segments, each of
+ * them with its own page table and lock, such that threads accessing different chunks do not
+ * contend for a single monitor. A chunk is always assigned to the same segment, the segment's lock
+ * also protects the slot for the chunk in the chunk table of its database.
+ */
 public final class ChunkCache {
 	private static ChunkCache sSharedInstance= new ChunkCache();
-	
-	private Chunk[] fPageTable;
-	private boolean fTableIsFull;
-	private int fPointer;
-	
+
+	private final Segment[] fSegments;
+	private final int fSegmentMask;
+
 	public static ChunkCache getSharedInstance() {
 		return sSharedInstance;
 	}
@@ -24,116 +31,230 @@ public final class ChunkCache {
 	public ChunkCache() {
 		this(5 * 1024 * 1024);
 	}
-	
+
 	public ChunkCache(long maxSize) {
-		fPageTable= new Chunk[computeLength(maxSize)];
+		this(maxSize, Runtime.getRuntime().availableProcessors() * 2);
 	}
-	
-	public synchronized void add(Chunk chunk, boolean locked) {
-		if (locked) {
-			chunk.fLocked= true;
+
+	/**
+	 * Creates a cache with the given maximum size in bytes. The number of segments is rounded
+	 * up to a power of two, but will not exceed the number of chunks that fit into the cache.
+	 */
+	public ChunkCache(long maxSize, int segmentCount) {
+		final int length= computeLength(maxSize);
+		int count= 1;
+		while (count < segmentCount && count * 2 <= length) {
+			count*= 2;
 		}
-		if (chunk.fCacheIndex >= 0) {
-			chunk.fCacheHitFlag= true;
-			return;
+		fSegments= new Segment[count];
+		fSegmentMask= count - 1;
+		for (int i = 0; i < count; i++) {
+			fSegments[i]= new Segment(segmentLength(length, i));
 		}
-		if (fTableIsFull) {
-			evictChunk();
-			chunk.fCacheIndex= fPointer;
-			fPageTable[fPointer]= chunk;
-		} else {
-			chunk.fCacheIndex= fPointer;
-			fPageTable[fPointer]= chunk;
-
-			fPointer++;
-			if (fPointer == fPageTable.length) {
-				fPointer= 0;
-				fTableIsFull= true;
-			}
+	}
+
+	/**
+	 * Returns the segment responsible for the chunk with the given sequence number
+	 * of the given database.
+	 */
+	Segment getSegment(Database db, int sequenceNumber) {
+		return fSegments[(sequenceNumber + System.identityHashCode(db)) & fSegmentMask];
+	}
+
+	/**
+	 * Acquires the locks of all segments, needed for operations on the entire chunk table
+	 * of a database.
+	 */
+	void lockAll() {
+		for (Segment segment : fSegments) {
+			segment.lock();
 		}
 	}
-	
-	/**                                                                   
-	 * Evicts a chunk from the page table and the chunk table.            
-	 * After this method returns, {@link #fPointer}  will contain
-	 * the index of the evicted chunk within the page table.              
-	 */                                                                   
-	private void evictChunk() {
-		/*
-		 * Use the CLOCK algorithm to determine which chunk to evict.
-		 * i.e., if the chunk in the current slot of the page table has been
-		 * recently referenced (i.e. the reference flag is set), unset the
-		 * reference flag and move to the next slot.  Otherwise, evict the
-		 * chunk in the current slot.
-		 */
-		while (true) {
-			Chunk chunk = fPageTable[fPointer];
-			if (chunk.fCacheHitFlag) {
-				chunk.fCacheHitFlag= false;
-				fPointer= (fPointer + 1) % fPageTable.length;
-			} else {
-				chunk.fDatabase.releaseChunk(chunk);
-				chunk.fCacheIndex= -1;
-				fPageTable[fPointer] = null;
-				return;
-			}
+
+	void unlockAll() {
+		for (int i = fSegments.length - 1; i >= 0; i--) {
+			fSegments[i].unlock();
 		}
 	}
 
-	public synchronized void remove(Chunk chunk) {
-		final int idx= chunk.fCacheIndex;
-		if (idx >= 0) {
-			if (fTableIsFull) {
-				fPointer= fPageTable.length-1;
-				fTableIsFull= false;
-			} else {
-				fPointer--;
-			}
-			chunk.fCacheIndex= -1;
-			final Chunk move= fPageTable[fPointer];
-			fPageTable[idx]= move;
-			move.fCacheIndex= idx;
-			fPageTable[fPointer]= null;
-		}	
+	public void add(Chunk chunk, boolean locked) {
+		final Segment segment= getSegment(chunk.fDatabase, chunk.fSequenceNumber);
+		segment.lock();
+		try {
+			segment.add(chunk, locked);
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	public void remove(Chunk chunk) {
+		final Segment segment= getSegment(chunk.fDatabase, chunk.fSequenceNumber);
+		segment.lock();
+		try {
+			segment.remove(chunk);
+		} finally {
+			segment.unlock();
+		}
 	}
 
-	/**                                                                           
+	/**
 	 * Returns the maximum size of the chunk cache in bytes.
-	 */                                                                           
-	public synchronized long getMaxSize() {
-		return (long) fPageTable.length * Database.CHUNK_SIZE;
+	 */
+	public long getMaxSize() {
+		long length= 0;
+		for (Segment segment : fSegments) {
+			segment.lock();
+			try {
+				length+= segment.fPageTable.length;
+			} finally {
+				segment.unlock();
+			}
+		}
+		return length * Database.CHUNK_SIZE;
 	}
 
-	/**                                                                           
+	/**
 	 * Clears the page table and changes it to hold chunks with
-	 * maximum total memory of <code>maxSize</code>.       
-	 * @param maxSize the total size of the chunks in bytes.                
-	 */                                                                           
-	public synchronized void setMaxSize(long maxSize) {
-		final int newLength= computeLength(maxSize);
-		final int oldLength= fTableIsFull ? fPageTable.length : fPointer;
-		if (newLength > oldLength) {
-			Chunk[] newTable= new Chunk[newLength];
-			System.arraycopy(fPageTable, 0, newTable, 0, oldLength);
-			fTableIsFull= false;
-			fPointer= oldLength;
-			fPageTable= newTable;
-		} else {
-			for (int i= newLength; i < oldLength; i++) {
-				final Chunk chunk= fPageTable[i];
-				chunk.fDatabase.releaseChunk(chunk);
-				chunk.fCacheIndex= -1;
+	 * maximum total memory of <code>maxSize</code>.
+	 * @param maxSize the total size of the chunks in bytes.
+	 */
+	public void setMaxSize(long maxSize) {
+		final int length= computeLength(maxSize);
+		for (int i = 0; i < fSegments.length; i++) {
+			final Segment segment= fSegments[i];
+			segment.lock();
+			try {
+				segment.setLength(segmentLength(length, i));
+			} finally {
+				segment.unlock();
 			}
-			Chunk[] newTable= new Chunk[newLength];
-			System.arraycopy(fPageTable, 0, newTable, 0, newLength);
-			fTableIsFull= true;
-			fPointer= 0;
-			fPageTable= newTable;
-		}       
-	}                                                                             
+		}
+	}
+
+	private int segmentLength(int length, int segmentIndex) {
+		final int count= fSegments.length;
+		final int segmentLength= length / count + (segmentIndex < length % count ? 1 : 0);
+		return Math.max(1, segmentLength);
+	}
 
 	private int computeLength(long maxSize) {
 		long maxLength= Math.min(maxSize/Database.CHUNK_SIZE, Integer.MAX_VALUE);
 		return Math.max(1, (int)maxLength);
 	}
+
+	/**
+	 * A part of the cache with its own page table, chunks are replaced using the CLOCK algorithm.
+	 * All methods must be called while holding the lock of the segment.
+	 */
+	static final class Segment {
+		private final ReentrantLock fLock= new ReentrantLock();
+		private Chunk[] fPageTable;
+		private boolean fTableIsFull;
+		private int fPointer;
+
+		Segment(int length) {
+			fPageTable= new Chunk[length];
+		}
+
+		void lock() {
+			fLock.lock();
+		}
+
+		void unlock() {
+			fLock.unlock();
+		}
+
+		void add(Chunk chunk, boolean locked) {
+			assert fLock.isHeldByCurrentThread();
+			if (locked) {
+				chunk.fLocked= true;
+			}
+			if (chunk.fCacheIndex >= 0) {
+				chunk.fCacheHitFlag= true;
+				return;
+			}
+			if (fTableIsFull) {
+				evictChunk();
+				chunk.fCacheIndex= fPointer;
+				fPageTable[fPointer]= chunk;
+			} else {
+				chunk.fCacheIndex= fPointer;
+				fPageTable[fPointer]= chunk;
+
+				fPointer++;
+				if (fPointer == fPageTable.length) {
+					fPointer= 0;
+					fTableIsFull= true;
+				}
+			}
+		}
+
+		/**
+		 * Evicts a chunk from the page table and the chunk table.
+		 * After this method returns, {@link #fPointer}  will contain
+		 * the index of the evicted chunk within the page table.
+		 */
+		private void evictChunk() {
+			/*
+			 * Use the CLOCK algorithm to determine which chunk to evict.
+			 * i.e., if the chunk in the current slot of the page table has been
+			 * recently referenced (i.e. the reference flag is set), unset the
+			 * reference flag and move to the next slot.  Otherwise, evict the
+			 * chunk in the current slot.
+			 */
+			while (true) {
+				Chunk chunk = fPageTable[fPointer];
+				if (chunk.fCacheHitFlag) {
+					chunk.fCacheHitFlag= false;
+					fPointer= (fPointer + 1) % fPageTable.length;
+				} else {
+					chunk.fDatabase.releaseChunk(chunk);
+					chunk.fCacheIndex= -1;
+					fPageTable[fPointer] = null;
+					return;
+				}
+			}
+		}
+
+		void remove(Chunk chunk) {
+			assert fLock.isHeldByCurrentThread();
+			final int idx= chunk.fCacheIndex;
+			if (idx >= 0) {
+				if (fTableIsFull) {
+					fPointer= fPageTable.length-1;
+					fTableIsFull= false;
+				} else {
+					fPointer--;
+				}
+				final Chunk move= fPageTable[fPointer];
+				fPageTable[idx]= move;
+				move.fCacheIndex= idx;
+				fPageTable[fPointer]= null;
+				chunk.fCacheIndex= -1;
+			}
+		}
+
+		void setLength(int newLength) {
+			assert fLock.isHeldByCurrentThread();
+			final int oldLength= fTableIsFull ? fPageTable.length : fPointer;
+			if (newLength > oldLength) {
+				Chunk[] newTable= new Chunk[newLength];
+				System.arraycopy(fPageTable, 0, newTable, 0, oldLength);
+				fTableIsFull= false;
+				fPointer= oldLength;
+				fPageTable= newTable;
+			} else {
+				for (int i= newLength; i < oldLength; i++) {
+					final Chunk chunk= fPageTable[i];
+					chunk.fDatabase.releaseChunk(chunk);
+					chunk.fCacheIndex= -1;
+				}
+				Chunk[] newTable= new Chunk[newLength];
+				System.arraycopy(fPageTable, 0, newTable, 0, newLength);
+				fTableIsFull= true;
+				fPointer= 0;
+				fPageTable= newTable;
+			}
+		}
+	}
 }
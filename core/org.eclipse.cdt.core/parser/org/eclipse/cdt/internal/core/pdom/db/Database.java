@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 QNX Software Systems and others.
+ * Copyright (c) 2005, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,8 +18,10 @@ import com.ibm.icu.text.MessageFormat;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 
 import java.io.File;
@@ -31,6 +33,7 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Database encapsulates access to a flat binary format file with a memory-manager-like API for
@@ -67,7 +70,8 @@ import java.util.ArrayList;
 public class Database {
 	// Public for tests only, you shouldn't need these.
 	public static final int INT_SIZE = 4;
-	public static final int CHUNK_SIZE = 1024 * 4;
+	// The size of a block is stored in a signed short, such that 16KB is the largest possible chunk size.
+	public static final int CHUNK_SIZE = 1024 * 16;
 	public static final int OFFSET_IN_CHUNK_MASK= CHUNK_SIZE-1;
 	public static final int BLOCK_HEADER_SIZE= 2;
 	public static final int BLOCK_SIZE_DELTA_BITS = 3;
@@ -90,9 +94,23 @@ public class Database {
 	private static final int BLOCK_PREV_OFFSET = BLOCK_HEADER_SIZE;
 	private static final int BLOCK_NEXT_OFFSET = BLOCK_HEADER_SIZE + INT_SIZE;
 
+	/**
+	 * Default for accessing the file via memory mapped regions rather than via positional reads and writes.
+	 * The chunks are copied from and to the mapped regions, see {@link MappedFileStorage}.
+	 */
+	private static final boolean USE_MAPPED_IO = Boolean.getBoolean("org.eclipse.cdt.core.parser.pdom.mmap"); //$NON-NLS-1$
+	/**
+	 * Default for writing modified chunks to a write-ahead log rather than to the database file.
+	 */
+	private static final boolean USE_JOURNAL = Boolean.getBoolean("org.eclipse.cdt.core.parser.pdom.journal"); //$NON-NLS-1$
+
 	private final File fLocation;
 	private final boolean fReadOnly;
 	private RandomAccessFile fFile;
+	private MappedFileStorage fMappedStorage;  // null, unless memory mapped I/O is used.
+	private WriteAheadLog fLog;  // null, unless the database is journaled.
+	private Job fCheckpointJob;
+	private Job fForceJob;
 	private boolean fExclusiveLock;	 // Necessary for any write operation.
 	private boolean fLocked;		 // Necessary for any operation.
 	private boolean fIsMarkedIncomplete;
@@ -106,8 +124,8 @@ public class Database {
 
 	private long malloced;
 	private long freed;
-	private long cacheHits;
-	private long cacheMisses;
+	private final AtomicLong cacheHits= new AtomicLong();
+	private final AtomicLong cacheMisses= new AtomicLong();
 
 	/**
 	 * Construct a new Database object, creating a backing file if necessary.
@@ -118,11 +136,57 @@ public class Database {
 	 * @throws CoreException
 	 */
 	public Database(File location, ChunkCache cache, int version, boolean openReadOnly) throws CoreException {
+		this(location, cache, version, openReadOnly, USE_MAPPED_IO);
+	}
+
+	/**
+	 * Construct a new Database object, creating a backing file if necessary.
+	 * @param location the local file path for the database
+	 * @param cache the cache to be used optimization
+	 * @param version the version number to store in the database (only applicable for new databases)
+	 * @param openReadOnly whether this Database object will ever need writing to
+	 * @param useMappedIO whether the file is accessed via memory mapped regions, ignored where
+	 *     {@link #isMappedIOSupported()} returns <code>false</code>
+	 * @throws CoreException
+	 */
+	public Database(File location, ChunkCache cache, int version, boolean openReadOnly, boolean useMappedIO)
+			throws CoreException {
+		this(location, cache, version, openReadOnly, useMappedIO, USE_JOURNAL);
+	}
+
+	/**
+	 * Construct a new Database object, creating a backing file if necessary. A journal left over
+	 * from a previous session is replayed, unless the database is opened read-only.
+	 * @param location the local file path for the database
+	 * @param cache the cache to be used optimization
+	 * @param version the version number to store in the database (only applicable for new databases)
+	 * @param openReadOnly whether this Database object will ever need writing to
+	 * @param useMappedIO whether the file is accessed via memory mapped regions, ignored where
+	 *     {@link #isMappedIOSupported()} returns <code>false</code>
+	 * @param useJournal whether modified chunks are written to a write-ahead log
+	 * @throws CoreException
+	 */
+	public Database(File location, ChunkCache cache, int version, boolean openReadOnly, boolean useMappedIO,
+			boolean useJournal) throws CoreException {
 		try {
 			fLocation = location;
 			fReadOnly= openReadOnly;
 			fCache= cache;
 			openFile();
+			if (useMappedIO && MappedFileStorage.isSupported()) {
+				fMappedStorage= new MappedFileStorage(fFile.getChannel(), openReadOnly);
+			}
+			if (!openReadOnly) {
+				File logLocation= WriteAheadLog.getLocation(location);
+				if (useJournal || logLocation.exists()) {
+					fLog= new WriteAheadLog(logLocation);
+					fLog.recover(this);
+					if (!useJournal) {
+						fLog.close(true);
+						fLog= null;
+					}
+				}
+			}
 
 			int nChunksOnDisk = (int) (fFile.length() / CHUNK_SIZE);
 			fHeaderChunk= new Chunk(this, 0);
@@ -150,7 +214,11 @@ public class Database {
 		int retries= 0;
 		do {
 			try {
-				fFile.getChannel().read(buf, position);
+				if (fMappedStorage != null) {
+					fMappedStorage.read(fFile.getChannel(), buf, position);
+				} else {
+					fFile.getChannel().read(buf, position);
+				}
 				return;
 			} catch (ClosedChannelException e) {
 				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
@@ -159,11 +227,25 @@ public class Database {
 		} while (true);
 	}
 
+	/**
+	 * Reads the content of a chunk, either from the write-ahead log or from the file.
+	 */
+	void readChunk(int sequenceNumber, ByteBuffer buf) throws IOException {
+		final WriteAheadLog log= fLog;
+		if (log == null || !log.read(sequenceNumber, buf)) {
+			read(buf, (long) sequenceNumber * CHUNK_SIZE);
+		}
+	}
+
 	void write(ByteBuffer buf, long position) throws IOException {
 		int retries= 0;
 		while (true) {
 			try {
-				fFile.getChannel().write(buf, position);
+				if (fMappedStorage != null) {
+					fMappedStorage.write(fFile.getChannel(), buf, position);
+				} else {
+					fFile.getChannel().write(buf, position);
+				}
 				return;
 			} catch (ClosedChannelException e) {
 				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
@@ -182,6 +264,13 @@ public class Database {
 
 	public void transferTo(FileChannel target) throws IOException {
 		assert fLocked;
+		if (fLog != null) {
+			try {
+				fLog.checkpoint(this);
+			} catch (CoreException e) {
+				throw new IOException(e.getMessage());
+			}
+		}
         final FileChannel from= fFile.getChannel();
         long nRead = 0;
         long position = 0;
@@ -221,8 +310,15 @@ public class Database {
 		fChunks = new Chunk[] {null};
 		fChunksUsed = fChunksAllocated = fChunks.length;
 		try {
+			if (fLog != null) {
+				fLog.clear();
+			}
 			fHeaderChunk.flush();	// Zero out header chunk.
-			fFile.getChannel().truncate(CHUNK_SIZE);	// Truncate database.
+			if (fMappedStorage != null) {
+				fMappedStorage.truncate(fFile.getChannel(), CHUNK_SIZE);
+			} else {
+				fFile.getChannel().truncate(CHUNK_SIZE);	// Truncate database.
+			}
 		} catch (IOException e) {
 			CCorePlugin.log(e);
 		}
@@ -232,8 +328,8 @@ public class Database {
 		 * This will set aside the specified number of chunks.
 		 * Nothing uses these chunks so subsequent allocations come after these fillers.
 		 * The special function createNewChunks allocates all of these chunks at once.
-		 * 524288 for a file starting at 2G
-		 * 8388608 for a file starting at 32G
+		 * 131072 for a file starting at 2G
+		 * 2097152 for a file starting at 32G
 		 *
 		 */
 		long setasideChunks = Long.getLong("org.eclipse.cdt.core.parser.pdom.dense.recptr.setaside.chunks", 0); //$NON-NLS-1$
@@ -245,7 +341,8 @@ public class Database {
 	}
 
 	private void removeChunksFromCache() {
-		synchronized (fCache) {
+		fCache.lockAll();
+		try {
 			for (int i= 1; i < fChunks.length; i++) {
 				Chunk chunk= fChunks[i];
 				if (chunk != null) {
@@ -253,6 +350,8 @@ public class Database {
 					fChunks[i]= null;
 				}
 			}
+		} finally {
+			fCache.unlockAll();
 		}
 	}
 
@@ -267,22 +366,26 @@ public class Database {
 		long long_index = offset / CHUNK_SIZE;
 		assert long_index < Integer.MAX_VALUE;
 
-		synchronized (fCache) {
+		final int index = (int) long_index;
+		final ChunkCache.Segment segment= fCache.getSegment(this, index);
+		segment.lock();
+		try {
 			assert fLocked;
-			final int index = (int) long_index;
 			if (index < 0 || index >= fChunks.length) {
 				databaseCorruptionDetected();
 			}
 			Chunk chunk= fChunks[index];
 			if (chunk == null) {
-				cacheMisses++;
+				cacheMisses.incrementAndGet();
 				chunk = fChunks[index] = new Chunk(this, index);
 				chunk.read();
 			} else {
-				cacheHits++;
+				cacheHits.incrementAndGet();
 			}
-			fCache.add(chunk, fExclusiveLock);
+			segment.add(chunk, fExclusiveLock);
 			return chunk;
+		} finally {
+			segment.unlock();
 		}
 	}
 
@@ -345,7 +448,8 @@ public class Database {
 
 	private long createNewChunk() throws CoreException {
 		assert fExclusiveLock;
-		synchronized (fCache) {
+		fCache.lockAll();
+		try {
 			final int newChunkIndex = fChunksUsed; // fChunks.length;
 
 			final Chunk chunk = new Chunk(this, newChunkIndex);
@@ -378,6 +482,8 @@ public class Database {
 								CCorePlugin.getResourceString("pdom.DatabaseTooLarge"), bindings), null)); //$NON-NLS-1$
 			}
 			return address;
+		} finally {
+			fCache.unlockAll();
 		}
 	}
 
@@ -386,7 +492,8 @@ public class Database {
 	 */
 	private long createNewChunks(int numChunks) throws CoreException {
 		assert fExclusiveLock;
-		synchronized (fCache) {
+		fCache.lockAll();
+		try {
 			final int oldLen= fChunks.length;
 			Chunk[] newchunks = new Chunk[oldLen + numChunks];
 			System.arraycopy(fChunks, 0, newchunks, 0, oldLen);
@@ -401,6 +508,8 @@ public class Database {
 			fChunksAllocated=oldLen + numChunks;
 			fChunksUsed=oldLen + numChunks;
 			return (long) (oldLen + numChunks - 1) * CHUNK_SIZE;
+		} finally {
+			fCache.unlockAll();
 		}
 	}
 
@@ -614,6 +723,17 @@ public class Database {
 	public void close() throws CoreException {
 		assert fExclusiveLock;
 		flush();
+		if (fLog != null) {
+			if (fCheckpointJob != null) {
+				fCheckpointJob.cancel();
+			}
+			if (fForceJob != null) {
+				fForceJob.cancel();
+			}
+			fLog.checkpoint(this);
+			fLog.close(true);
+			fLog= null;
+		}
 		removeChunksFromCache();
 
 		// Chunks have been removed from the cache, so we are fine.
@@ -621,6 +741,11 @@ public class Database {
 		fHeaderChunk.fDirty= false;
 		fChunks= new Chunk[] { null };
 		fChunksUsed = fChunksAllocated = fChunks.length;
+		if (fMappedStorage != null) {
+			// Modified regions have been written back by flushing the database.
+			fMappedStorage.release();
+			fMappedStorage= null;
+		}
 		try {
 			fFile.close();
 		} catch (IOException e) {
@@ -628,6 +753,20 @@ public class Database {
 		}
 	}
 
+	/**
+	 * Deletes the database file at the given location together with its write-ahead log.
+	 * Must not be called while the database is open.
+	 * @return whether the database file was deleted.
+	 */
+	public static boolean delete(File location) {
+		final boolean result= location.delete();
+		if (result || !location.exists()) {
+			// A log that outlives its database must not be recovered into a new one.
+			WriteAheadLog.delete(location);
+		}
+		return result;
+	}
+
 	/**
      * This method is public for testing purposes only.
      */
@@ -636,7 +775,8 @@ public class Database {
 	}
 
 	/**
-	 * Called from any thread via the cache, protected by {@link #fCache}.
+	 * Called from any thread via the cache, protected by the lock of the cache segment
+	 * the chunk belongs to.
 	 */
 	void releaseChunk(final Chunk chunk) {
 		if (!chunk.fLocked) {
@@ -669,7 +809,8 @@ public class Database {
 		if (fExclusiveLock) {
 			try {
 				ArrayList<Chunk> dirtyChunks= new ArrayList<Chunk>();
-				synchronized (fCache) {
+				fCache.lockAll();
+				try {
 					for (int i= 1; i < fChunksUsed; i++) {
 						Chunk chunk= fChunks[i];
 						if (chunk != null) {
@@ -695,6 +836,8 @@ public class Database {
 							}
 						}
 					}
+				} finally {
+					fCache.unlockAll();
 				}
 				// Also handles header chunk.
 				flushAndUnlockChunks(dirtyChunks, flush);
@@ -717,13 +860,16 @@ public class Database {
 
 		// Be careful as other readers may access chunks concurrently.
 		ArrayList<Chunk> dirtyChunks= new ArrayList<Chunk>();
-		synchronized (fCache) {
+		fCache.lockAll();
+		try {
 			for (int i= 1; i < fChunksUsed ; i++) {
 				Chunk chunk= fChunks[i];
 				if (chunk != null && chunk.fDirty) {
 					dirtyChunks.add(chunk);
 				}
 			}
+		} finally {
+			fCache.unlockAll();
 		}
 
 		// Also handles header chunk.
@@ -731,32 +877,55 @@ public class Database {
 	}
 
 	private void flushAndUnlockChunks(final ArrayList<Chunk> dirtyChunks, boolean isComplete) throws CoreException {
-		assert !Thread.holdsLock(fCache);
 		synchronized (fHeaderChunk) {
 			final boolean haveDirtyChunks = !dirtyChunks.isEmpty();
-			if (haveDirtyChunks || fHeaderChunk.fDirty) {
+			if (fLog == null && (haveDirtyChunks || fHeaderChunk.fDirty)) {
 				markFileIncomplete();
 			}
 			if (haveDirtyChunks) {
 				for (Chunk chunk : dirtyChunks) {
 					if (chunk.fDirty) {
-						chunk.flush();
+						if (fLog != null) {
+							chunk.flush(fLog);
+						} else {
+							chunk.flush();
+						}
 					}
 				}
 
 				// Only after the chunks are flushed we may unlock and release them.
-				synchronized (fCache) {
-					for (Chunk chunk : dirtyChunks) {
+				for (Chunk chunk : dirtyChunks) {
+					final ChunkCache.Segment segment= fCache.getSegment(this, chunk.fSequenceNumber);
+					segment.lock();
+					try {
 						chunk.fLocked= false;
 						if (chunk.fCacheIndex < 0) {
 							fChunks[chunk.fSequenceNumber]= null;
 						}
+					} finally {
+						segment.unlock();
 					}
 				}
 			}
 
-			if (isComplete) {
+			if (isComplete && fLog != null) {
+				// Chunks in the log are not visible after a crash, unless they are committed.
+				if (fHeaderChunk.fDirty || fLog.hasUncommittedRecords()) {
+					fHeaderChunk.putInt(VERSION_OFFSET, fVersion);
+					fHeaderChunk.flush(fLog);
+					fLog.commit();
+					if (fLog.needsCheckpoint()) {
+						scheduleCheckpoint();
+					} else {
+						scheduleForce(fLog.getForceDelay());
+					}
+				}
+			} else if (isComplete) {
 				if (fHeaderChunk.fDirty || fIsMarkedIncomplete) {
+					if (fMappedStorage != null) {
+						// Modified regions need to be written back before the file is marked complete.
+						forceMappedStorage();
+					}
 					fHeaderChunk.putInt(VERSION_OFFSET, fVersion);
 					fHeaderChunk.flush();
 					fIsMarkedIncomplete= false;
@@ -765,6 +934,89 @@ public class Database {
 		}
 	}
 
+	private void scheduleCheckpoint() {
+		if (fCheckpointJob == null) {
+			final WriteAheadLog log= fLog;
+			fCheckpointJob= new Job(Messages.getString("Database.CheckpointJob")) { //$NON-NLS-1$
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					try {
+						log.checkpoint(Database.this);
+					} catch (CoreException e) {
+						CCorePlugin.log(e);
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			fCheckpointJob.setSystem(true);
+		}
+		fCheckpointJob.schedule();
+	}
+
+	/**
+	 * Makes sure the last commits of a burst reach the disk, even if no further commit follows.
+	 */
+	private void scheduleForce(long delay) {
+		if (delay < 0)
+			return;
+		if (fForceJob == null) {
+			final WriteAheadLog log= fLog;
+			fForceJob= new Job(Messages.getString("Database.CheckpointJob")) { //$NON-NLS-1$
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					try {
+						log.forceCommits();
+					} catch (CoreException e) {
+						CCorePlugin.log(e);
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			fForceJob.setSystem(true);
+		}
+		final int state= fForceJob.getState();
+		if (state != Job.SLEEPING && state != Job.WAITING) {
+			fForceJob.schedule(delay);
+		}
+	}
+
+	/**
+	 * Copies the chunks written to the write-ahead log to the database file. Has no effect,
+	 * unless the database is journaled.
+	 */
+	public void checkpoint() throws CoreException {
+		assert fLocked;
+		if (fLog != null) {
+			fLog.checkpoint(this);
+		}
+	}
+
+	/**
+	 * Returns whether modified chunks are written to a write-ahead log.
+	 */
+	public boolean isJournaled() {
+		return fLog != null;
+	}
+
+	/**
+	 * Forces the content of the file to the disk.
+	 */
+	void force() throws IOException {
+		if (fMappedStorage != null) {
+			fMappedStorage.force(fFile.getChannel());
+		} else {
+			fFile.getChannel().force(false);
+		}
+	}
+
+	private void forceMappedStorage() throws CoreException {
+		try {
+			fMappedStorage.force(fFile.getChannel());
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+	}
+
 	private void markFileIncomplete() throws CoreException {
 		if (!fIsMarkedIncomplete) {
 			fIsMarkedIncomplete= true;
@@ -778,15 +1030,30 @@ public class Database {
 	}
 
 	public void resetCacheCounters() {
-		cacheHits= cacheMisses= 0;
+		cacheHits.set(0);
+		cacheMisses.set(0);
 	}
 
 	public long getCacheHits() {
-		return cacheHits;
+		return cacheHits.get();
 	}
 
 	public long getCacheMisses() {
-		return cacheMisses;
+		return cacheMisses.get();
+	}
+
+	/**
+	 * Returns whether files can be accessed via memory mapped regions on this platform.
+	 */
+	public static boolean isMappedIOSupported() {
+		return MappedFileStorage.isSupported();
+	}
+
+	/**
+	 * Returns whether the file is accessed via memory mapped regions.
+	 */
+	public boolean isUsingMappedIO() {
+		return fMappedStorage != null;
 	}
 
 	public long getSizeBytes() {
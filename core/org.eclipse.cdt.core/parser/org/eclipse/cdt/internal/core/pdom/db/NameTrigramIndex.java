@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Index of the trigrams of the strings in a {@link PDOMStringTable}. For every trigram the index
+ * stores the records of the strings containing it, such that the strings matching a pattern
+ * can be narrowed down to the ones that contain all trigrams of the literal parts of the pattern.
+ * <p>
+ * Trigrams are case-insensitive, characters other than ASCII letters, digits and the underscore
+ * share a common code. Thus the index may report strings that do not contain the trigrams
+ * of a pattern, the caller has to match the strings against the pattern.
+ */
+public class NameTrigramIndex {
+	// Layout of an entry of the directory of trigrams.
+	private static final int TRIGRAM= 0;
+	private static final int STRINGS= 4;  // root of the btree of the strings containing the trigram
+	private static final int COUNT= 8;
+	private static final int ENTRY_SIZE= 12;
+
+	private static final int CODE_BITS= 6;
+	private static final int OTHER_CHAR= 38;
+
+	public static final long[] EMPTY_LONG_ARRAY= {};
+
+	/**
+	 * The btrees of strings contain the records of the strings, ordered by their value.
+	 */
+	private static final IBTreeComparator RECORD_ORDER= new IBTreeComparator() {
+		@Override
+		public int compare(long record1, long record2) throws CoreException {
+			return record1 < record2 ? -1 : record1 > record2 ? 1 : 0;
+		}
+	};
+
+	private final Database fDatabase;
+	private final BTree fDirectory;
+	/** Maps trigrams to the records of their entries */
+	private final Map<Integer, Long> fEntries= new HashMap<Integer, Long>();
+
+	/**
+	 * Creates an instance for the index whose root is stored at the given record.
+	 */
+	public NameTrigramIndex(Database db, long rootRecord) {
+		fDatabase= db;
+		fDirectory= new BTree(db, rootRecord, new IBTreeComparator() {
+			@Override
+			public int compare(long record1, long record2) throws CoreException {
+				return compareInts(fDatabase.getInt(record1 + TRIGRAM), fDatabase.getInt(record2 + TRIGRAM));
+			}
+		});
+	}
+
+	private static int compareInts(int i1, int i2) {
+		return i1 < i2 ? -1 : i1 > i2 ? 1 : 0;
+	}
+
+	private static int code(char c) {
+		if (c >= 'a' && c <= 'z')
+			return c - 'a' + 1;
+		if (c >= 'A' && c <= 'Z')
+			return c - 'A' + 1;
+		if (c >= '0' && c <= '9')
+			return c - '0' + 27;
+		if (c == '_')
+			return 37;
+		return OTHER_CHAR;
+	}
+
+	private static int trigram(CharSequence chars, int i) {
+		return (((code(chars.charAt(i)) << CODE_BITS) | code(chars.charAt(i + 1))) << CODE_BITS)
+				| code(chars.charAt(i + 2));
+	}
+
+	/**
+	 * Returns the distinct trigrams of the given characters in ascending order.
+	 */
+	public static int[] getTrigrams(CharSequence chars) {
+		return getTrigrams(Collections.singletonList(chars));
+	}
+
+	private static int[] getTrigrams(List<? extends CharSequence> runs) {
+		int count= 0;
+		for (CharSequence run : runs) {
+			count += Math.max(0, run.length() - 2);
+		}
+		if (count == 0)
+			return new int[0];
+
+		int[] result= new int[count];
+		int i= 0;
+		for (CharSequence run : runs) {
+			for (int j = 0; j < run.length() - 2; j++) {
+				result[i++]= trigram(run, j);
+			}
+		}
+		Arrays.sort(result);
+		int distinct= 1;
+		for (i = 1; i < count; i++) {
+			if (result[i] != result[distinct - 1]) {
+				result[distinct++]= result[i];
+			}
+		}
+		return distinct == count ? result : Arrays.copyOf(result, distinct);
+	}
+
+	/**
+	 * Returns the trigrams that every string matching the given pattern contains, or
+	 * <code>null</code> if there are no such trigrams or the pattern uses constructs that are
+	 * not understood. Only literal characters, escaped characters, the wildcard '.' and
+	 * quantifiers are supported, the pattern may be case-insensitive.
+	 */
+	public static int[] getRequiredTrigrams(Pattern pattern) {
+		final int flags= pattern.flags();
+		if (flags != 0 && flags != Pattern.CASE_INSENSITIVE)
+			return null;
+
+		final String p= pattern.pattern();
+		final List<String> runs= new ArrayList<String>();
+		final StringBuilder run= new StringBuilder();
+		for (int i = 0; i < p.length(); i++) {
+			final char c= p.charAt(i);
+			switch (c) {
+			case '\\':
+				if (i + 1 >= p.length() || Character.isLetterOrDigit(p.charAt(i + 1)))
+					return null;  // character classes, quotes or back references
+				run.append(p.charAt(++i));
+				break;
+			case '.':
+				addRun(runs, run);
+				break;
+			case '*': case '?': case '+':
+				// The quantified character is optional or may be repeated.
+				if (run.length() > 0) {
+					run.setLength(run.length() - 1);
+				}
+				addRun(runs, run);
+				break;
+			case '^': case '$':
+				if ((c == '^' && i != 0) || (c == '$' && i != p.length() - 1))
+					return null;
+				break;
+			case '|': case '(': case ')': case '[': case ']': case '{': case '}':
+				return null;
+			default:
+				run.append(c);
+				break;
+			}
+		}
+		addRun(runs, run);
+		final int[] result= getTrigrams(runs);
+		return result.length == 0 ? null : result;
+	}
+
+	private static void addRun(List<String> runs, StringBuilder run) {
+		if (run.length() >= 3) {
+			runs.add(run.toString());
+		}
+		run.setLength(0);
+	}
+
+	/**
+	 * Adds the string with the given characters and the given record to the index.
+	 */
+	public void add(char[] chars, long string) throws CoreException {
+		for (int trigram : getTrigrams(new String(chars))) {
+			final long entry= getEntry(trigram, true);
+			new BTree(fDatabase, entry + STRINGS, RECORD_ORDER).insert(string);
+			fDatabase.putInt(entry + COUNT, fDatabase.getInt(entry + COUNT) + 1);
+		}
+	}
+
+	/**
+	 * Removes the string with the given characters and the given record from the index.
+	 */
+	public void remove(char[] chars, long string) throws CoreException {
+		for (int trigram : getTrigrams(new String(chars))) {
+			final long entry= getEntry(trigram, false);
+			if (entry != 0) {
+				new BTree(fDatabase, entry + STRINGS, RECORD_ORDER).delete(string);
+				fDatabase.putInt(entry + COUNT, Math.max(0, fDatabase.getInt(entry + COUNT) - 1));
+			}
+		}
+	}
+
+	/**
+	 * Returns the records of the strings that contain all of the given trigrams, in ascending
+	 * order.
+	 */
+	public long[] findStrings(int[] trigrams) throws CoreException {
+		if (trigrams.length == 0)
+			return EMPTY_LONG_ARRAY;
+
+		// Start with the trigram with the least strings.
+		final long[] entries= new long[trigrams.length];
+		for (int i = 0; i < trigrams.length; i++) {
+			entries[i]= getEntry(trigrams[i], false);
+			if (entries[i] == 0)
+				return EMPTY_LONG_ARRAY;
+		}
+		final int[] counts= new int[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			counts[i]= fDatabase.getInt(entries[i] + COUNT);
+		}
+		sortByCount(entries, counts);
+
+		long[] result= getStrings(entries[0], counts[0]);
+		for (int i = 1; i < entries.length && result.length > 0; i++) {
+			result= retainStrings(result, entries[i], counts[i]);
+		}
+		return result;
+	}
+
+	private static void sortByCount(long[] entries, int[] counts) {
+		for (int i = 1; i < entries.length; i++) {
+			for (int j = i; j > 0 && counts[j - 1] > counts[j]; j--) {
+				final long entry= entries[j];
+				entries[j]= entries[j - 1];
+				entries[j - 1]= entry;
+				final int count= counts[j];
+				counts[j]= counts[j - 1];
+				counts[j - 1]= count;
+			}
+		}
+	}
+
+	private long[] getStrings(long entry, int count) throws CoreException {
+		final long[][] result= {new long[Math.max(count, 4)]};
+		final int[] size= {0};
+		new BTree(fDatabase, entry + STRINGS, RECORD_ORDER).accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				if (size[0] == result[0].length) {
+					result[0]= Arrays.copyOf(result[0], size[0] * 2);
+				}
+				result[0][size[0]++]= record;
+				return true;
+			}
+		});
+		return Arrays.copyOf(result[0], size[0]);
+	}
+
+	/**
+	 * Returns the strings of the given array that contain the trigram of the given entry.
+	 */
+	private long[] retainStrings(long[] strings, long entry, int count) throws CoreException {
+		final BTree btree= new BTree(fDatabase, entry + STRINGS, RECORD_ORDER);
+		int size= 0;
+		final long[] result= new long[strings.length];
+		if (strings.length * 16L < count) {
+			// Search the few candidates in the btree.
+			for (final long string : strings) {
+				final boolean[] found= {false};
+				btree.accept(new IBTreeVisitor() {
+					@Override
+					public int compare(long record) throws CoreException {
+						return RECORD_ORDER.compare(record, string);
+					}
+
+					@Override
+					public boolean visit(long record) throws CoreException {
+						found[0]= true;
+						return false;
+					}
+				});
+				if (found[0]) {
+					result[size++]= string;
+				}
+			}
+		} else {
+			// Merge the sorted arrays.
+			final long[] other= getStrings(entry, count);
+			for (int i = 0, j = 0; i < strings.length && j < other.length;) {
+				if (strings[i] < other[j]) {
+					i++;
+				} else if (strings[i] > other[j]) {
+					j++;
+				} else {
+					result[size++]= strings[i++];
+					j++;
+				}
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private long getEntry(final int trigram, boolean create) throws CoreException {
+		synchronized (fEntries) {
+			final Long cached= fEntries.get(trigram);
+			if (cached != null)
+				return cached.longValue();
+		}
+
+		final long[] result= {0};
+		fDirectory.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long entry) throws CoreException {
+				return compareInts(fDatabase.getInt(entry + TRIGRAM), trigram);
+			}
+
+			@Override
+			public boolean visit(long entry) throws CoreException {
+				result[0]= entry;
+				return false;
+			}
+		});
+		if (result[0] == 0) {
+			if (!create)
+				return 0;
+			result[0]= fDatabase.malloc(ENTRY_SIZE);
+			fDatabase.putInt(result[0] + TRIGRAM, trigram);
+			fDirectory.insert(result[0]);
+		}
+		synchronized (fEntries) {
+			fEntries.put(trigram, result[0]);
+		}
+		return result[0];
+	}
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.db;
+
+import java.util.Map;
+
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * A database-wide table of interned strings. Each string is stored once, users reference
+ * it by the record of the string, such that two references are equal if and only if
+ * the strings are equal. The table counts the references, a string is deleted when the
+ * last reference is released.
+ * <p>
+ * Other than {@link PDOMStringSet} the table is meant for a large number of strings, the entries
+ * are stored in a {@link BTree}. Recently used entries are cached in memory. Optionally the table
+ * maintains a {@link NameTrigramIndex} of its strings.
+ */
+public class PDOMStringTable {
+	// Layout of an entry.
+	private static final int STRING= 0;
+	private static final int REFCOUNT= 4;
+	private static final int ENTRY_SIZE= 8;
+
+	private static final int CACHE_SIZE= 10000;
+
+	private final Database fDatabase;
+	private final BTree fIndex;
+	private final NameTrigramIndex fTrigrams;
+	/** Maps strings to the records of their entries */
+	private final Map<String, Long> fCache= new LRUCache<String, Long>(CACHE_SIZE);
+
+	/**
+	 * Creates an instance for the table whose root is stored at the given record.
+	 */
+	public PDOMStringTable(Database db, long rootRecord) {
+		this(db, rootRecord, 0);
+	}
+
+	/**
+	 * Creates an instance for the table whose root is stored at the given record, the root of
+	 * the trigram index of the strings is stored at <code>trigramRecord</code>. Passing 0 for
+	 * <code>trigramRecord</code> creates a table without trigram index.
+	 */
+	public PDOMStringTable(Database db, long rootRecord, long trigramRecord) {
+		fDatabase= db;
+		fTrigrams= trigramRecord == 0 ? null : new NameTrigramIndex(db, trigramRecord);
+		fIndex= new BTree(db, rootRecord, new IBTreeComparator() {
+			@Override
+			public int compare(long record1, long record2) throws CoreException {
+				return getString(record1).compare(getString(record2), true);
+			}
+		});
+	}
+
+	private IString getString(long entry) throws CoreException {
+		return fDatabase.getString(fDatabase.getRecPtr(entry + STRING));
+	}
+
+	/**
+	 * Adds a reference to the given string, the string is added to the table if necessary.
+	 * Returns the record of the interned string.
+	 */
+	public long intern(char[] chars) throws CoreException {
+		long entry= findEntry(chars);
+		if (entry != 0) {
+			fDatabase.putInt(entry + REFCOUNT, fDatabase.getInt(entry + REFCOUNT) + 1);
+			return fDatabase.getRecPtr(entry + STRING);
+		}
+
+		final long string= fDatabase.newString(chars).getRecord();
+		entry= fDatabase.malloc(ENTRY_SIZE);
+		fDatabase.putRecPtr(entry + STRING, string);
+		fDatabase.putInt(entry + REFCOUNT, 1);
+		fIndex.insert(entry);
+		if (fTrigrams != null) {
+			fTrigrams.add(chars, string);
+		}
+		synchronized (fCache) {
+			fCache.put(new String(chars), entry);
+		}
+		return string;
+	}
+
+	/**
+	 * Removes a reference to the interned string with the given record. The string is deleted
+	 * when the last reference is removed.
+	 */
+	public void release(long string) throws CoreException {
+		final char[] chars= fDatabase.getString(string).getChars();
+		final long entry= findEntry(chars);
+		if (entry == 0) {
+			// Not interned.
+			fDatabase.getString(string).delete();
+			return;
+		}
+		final int refCount= fDatabase.getInt(entry + REFCOUNT) - 1;
+		if (refCount > 0) {
+			fDatabase.putInt(entry + REFCOUNT, refCount);
+			return;
+		}
+		synchronized (fCache) {
+			fCache.remove(new String(chars));
+		}
+		fIndex.delete(entry);
+		if (fTrigrams != null) {
+			fTrigrams.remove(chars, string);
+		}
+		fDatabase.getString(string).delete();
+		fDatabase.free(entry);
+	}
+
+	/**
+	 * Returns the record of the interned string, or 0 if the string is not in the table.
+	 */
+	public long find(char[] chars) throws CoreException {
+		final long entry= findEntry(chars);
+		return entry == 0 ? 0 : fDatabase.getRecPtr(entry + STRING);
+	}
+
+	/**
+	 * Returns the record of the interned string if its entry is cached in memory, or 0 if it is
+	 * not cached or not in the table. The method does not search the table.
+	 */
+	public long findCached(char[] chars) throws CoreException {
+		final Long entry;
+		synchronized (fCache) {
+			entry= fCache.get(new String(chars));
+		}
+		return entry == null ? 0 : fDatabase.getRecPtr(entry + STRING);
+	}
+
+	/**
+	 * Returns the number of references to the interned string, or 0 if it is not in the table.
+	 */
+	public int getReferenceCount(char[] chars) throws CoreException {
+		final long entry= findEntry(chars);
+		return entry == 0 ? 0 : fDatabase.getInt(entry + REFCOUNT);
+	}
+
+	/**
+	 * Returns the trigram index of the strings of the table, or <code>null</code> if the table
+	 * does not maintain one.
+	 */
+	public NameTrigramIndex getTrigramIndex() {
+		return fTrigrams;
+	}
+
+	/**
+	 * Visits all entries of the table, the visitor is called with the records of the strings.
+	 */
+	public void accept(final IBTreeVisitor visitor) throws CoreException {
+		fIndex.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long entry) throws CoreException {
+				return visitor.compare(fDatabase.getRecPtr(entry + STRING));
+			}
+			@Override
+			public boolean visit(long entry) throws CoreException {
+				return visitor.visit(fDatabase.getRecPtr(entry + STRING));
+			}
+		});
+	}
+
+	private long findEntry(final char[] chars) throws CoreException {
+		final String key= new String(chars);
+		synchronized (fCache) {
+			Long cached= fCache.get(key);
+			if (cached != null)
+				return cached.longValue();
+		}
+
+		final long[] result= {0};
+		fIndex.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long entry) throws CoreException {
+				return getString(entry).compare(chars, true);
+			}
+			@Override
+			public boolean visit(long entry) throws CoreException {
+				result[0]= entry;
+				return false;
+			}
+		});
+		if (result[0] != 0) {
+			synchronized (fCache) {
+				fCache.put(key, result[0]);
+			}
+		}
+		return result[0];
+	}
+}
@@ -0,0 +1,415 @@
+/*******************************************************************************
+ * Copyright (c) 2013 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.db;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Journal for the chunks of a database. Rather than writing dirty chunks to their place in the
+ * database file, they are appended to the log. A commit record marks a consistent state of the
+ * database. The chunks of committed transactions are copied to the database file by a
+ * {@link #checkpoint(Database)}, after which the log is truncated.
+ * <p>
+ * After a crash the database is recovered by copying the chunks of all committed transactions
+ * from the log to the database file, chunks written after the last commit are discarded.
+ * <p>
+ * To reduce the number of synchronous writes, commits are forced to the disk at most once per
+ * {@link #GROUP_COMMIT_INTERVAL}, or before the log is checkpointed. Commits that have not been
+ * forced are reported by {@link #getForceDelay()}, the database forces them via
+ * {@link #forceCommits()} once the interval has passed. A crash may lose the most recent commits,
+ * the database is still recovered to a consistent state.
+ */
+final class WriteAheadLog {
+	private static final int MAGIC= 0x43575431;  // 'CWT1'
+
+	// Layout of the header.
+	private static final int HEADER_MAGIC= 0;
+	private static final int HEADER_SALT= 4;
+	private static final int HEADER_SIZE= 8;
+
+	// Layout of a record, chunk records are followed by the content of the chunk.
+	private static final int RECORD_CHUNK= 0;
+	private static final int RECORD_CHECKSUM= 4;
+	private static final int RECORD_HEADER_SIZE= 8;
+	private static final int CHUNK_RECORD_SIZE= RECORD_HEADER_SIZE + Database.CHUNK_SIZE;
+	private static final int COMMIT= -1;
+
+	/** Size of the records committed since the last checkpoint that triggers another one */
+	private static final long CHECKPOINT_THRESHOLD= 2048L * CHUNK_RECORD_SIZE;
+	/** Minimum time in milliseconds between two forced writes of commits */
+	private static final long GROUP_COMMIT_INTERVAL= 1000;
+
+	private final File fLocation;
+	private RandomAccessFile fFile;
+	private int fSalt;
+	private long fSize;
+	private long fCommittedSize;
+	private long fCheckpointedSize;
+	private long fForcedSize;
+	private long fLastForce;
+	private boolean fClosed;
+	private final byte[] fRecord= new byte[CHUNK_RECORD_SIZE];
+	/** Maps the sequence numbers of chunks to the position of their most recent record */
+	private final Map<Integer, Long> fChunks= new HashMap<Integer, Long>();
+	private final Object fCheckpointLock= new Object();
+
+	/**
+	 * Returns the location of the log for the given database file.
+	 */
+	static File getLocation(File database) {
+		return new File(database.getPath() + ".wal"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Deletes the log of the given database file. If the log cannot be deleted, it is truncated,
+	 * such that its records are not recovered into a database created at the same location.
+	 */
+	static void delete(File database) {
+		final File location= getLocation(database);
+		if (!location.delete() && location.exists()) {
+			try {
+				final RandomAccessFile file= new RandomAccessFile(location, "rw"); //$NON-NLS-1$
+				try {
+					file.setLength(0);
+				} finally {
+					file.close();
+				}
+			} catch (IOException e) {
+				CCorePlugin.log(e);
+			}
+		}
+	}
+
+	/**
+	 * Opens the log at the given location. Before the log is used, {@link #recover(Database)}
+	 * has to be called.
+	 */
+	WriteAheadLog(File location) throws CoreException {
+		fLocation= location;
+		fSalt= (int) System.nanoTime();
+		try {
+			openFile();
+		} catch (FileNotFoundException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+	}
+
+	private void openFile() throws FileNotFoundException {
+		fFile= new RandomAccessFile(fLocation, "rw"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Copies the chunks of all committed transactions to the database and truncates the log.
+	 */
+	void recover(Database db) throws CoreException {
+		synchronized (fCheckpointLock) {
+			try {
+				final long size= fFile.getChannel().size();
+				final byte[] header= new byte[HEADER_SIZE];
+				if (size >= HEADER_SIZE) {
+					read(ByteBuffer.wrap(header), 0);
+				}
+				if (size >= HEADER_SIZE && Chunk.getInt(header, HEADER_MAGIC) == MAGIC) {
+					final int salt= Chunk.getInt(header, HEADER_SALT);
+					final Map<Integer, Long> committed= new HashMap<Integer, Long>();
+					final Map<Integer, Long> pending= new HashMap<Integer, Long>();
+					long pos= HEADER_SIZE;
+					while (pos + RECORD_HEADER_SIZE <= size) {
+						read(ByteBuffer.wrap(fRecord, 0, RECORD_HEADER_SIZE), pos);
+						final int chunk= Chunk.getInt(fRecord, RECORD_CHUNK);
+						final int checksum= Chunk.getInt(fRecord, RECORD_CHECKSUM);
+						if (chunk == COMMIT) {
+							if (checksum != checksum(salt, COMMIT, null))
+								break;
+							committed.putAll(pending);
+							pending.clear();
+							pos+= RECORD_HEADER_SIZE;
+						} else {
+							if (chunk < 0 || pos + CHUNK_RECORD_SIZE > size)
+								break;
+							read(ByteBuffer.wrap(fRecord, RECORD_HEADER_SIZE, Database.CHUNK_SIZE), pos + RECORD_HEADER_SIZE);
+							if (checksum != checksum(salt, chunk, fRecord))
+								break;
+							pending.put(chunk, pos);
+							pos+= CHUNK_RECORD_SIZE;
+						}
+					}
+					if (!committed.isEmpty()) {
+						copyToDatabase(db, committed);
+					}
+				}
+				reset();
+			} catch (IOException e) {
+				throw new CoreException(new DBStatus(e));
+			}
+		}
+	}
+
+	/**
+	 * Appends the content of a chunk to the log.
+	 */
+	synchronized void append(int sequenceNumber, byte[] buffer) throws CoreException {
+		System.arraycopy(buffer, 0, fRecord, RECORD_HEADER_SIZE, Database.CHUNK_SIZE);
+		Chunk.putInt(sequenceNumber, fRecord, RECORD_CHUNK);
+		Chunk.putInt(checksum(fSalt, sequenceNumber, fRecord), fRecord, RECORD_CHECKSUM);
+		try {
+			write(ByteBuffer.wrap(fRecord), fSize);
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+		fChunks.put(sequenceNumber, fSize);
+		fSize+= CHUNK_RECORD_SIZE;
+	}
+
+	/**
+	 * Marks all chunks appended so far as a consistent state of the database.
+	 */
+	synchronized void commit() throws CoreException {
+		final byte[] record= new byte[RECORD_HEADER_SIZE];
+		Chunk.putInt(COMMIT, record, RECORD_CHUNK);
+		Chunk.putInt(checksum(fSalt, COMMIT, null), record, RECORD_CHECKSUM);
+		try {
+			write(ByteBuffer.wrap(record), fSize);
+			fSize+= RECORD_HEADER_SIZE;
+			fCommittedSize= fSize;
+			if (System.currentTimeMillis() - fLastForce >= GROUP_COMMIT_INTERVAL) {
+				force();
+			}
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+	}
+
+	/**
+	 * Returns whether chunks have been appended since the last commit.
+	 */
+	synchronized boolean hasUncommittedRecords() {
+		return fSize > fCommittedSize;
+	}
+
+	/**
+	 * Returns whether enough records have been committed since the last checkpoint to justify
+	 * another one.
+	 */
+	synchronized boolean needsCheckpoint() {
+		return fCommittedSize - fCheckpointedSize >= CHECKPOINT_THRESHOLD;
+	}
+
+	/**
+	 * Returns the time in milliseconds after which the commits not yet forced to the disk are
+	 * due to be forced, or <code>-1</code> if all commits are on the disk.
+	 */
+	synchronized long getForceDelay() {
+		if (fClosed || fForcedSize >= fCommittedSize)
+			return -1;
+		return Math.max(0, fLastForce + GROUP_COMMIT_INTERVAL - System.currentTimeMillis());
+	}
+
+	/**
+	 * Forces all commits to the disk.
+	 */
+	synchronized void forceCommits() throws CoreException {
+		if (fClosed || fForcedSize >= fCommittedSize)
+			return;
+		try {
+			force();
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+	}
+
+	/**
+	 * Reads the most recent content of a chunk from the log. Returns <code>false</code> if the
+	 * log does not contain the chunk.
+	 */
+	synchronized boolean read(int sequenceNumber, ByteBuffer buf) throws IOException {
+		final Long pos= fChunks.get(sequenceNumber);
+		if (pos == null)
+			return false;
+		read(buf, pos + RECORD_HEADER_SIZE);
+		return true;
+	}
+
+	/**
+	 * Copies the chunks of committed transactions to the database. The log is truncated when
+	 * it no longer contains chunks that need to be copied.
+	 * May be called from any thread, readers may access the log concurrently.
+	 */
+	void checkpoint(Database db) throws CoreException {
+		synchronized (fCheckpointLock) {
+			if (fClosed)
+				return;
+			try {
+				final Map<Integer, Long> committed= new HashMap<Integer, Long>();
+				final long committedSize;
+				synchronized (this) {
+					committedSize= fCommittedSize;
+					for (Map.Entry<Integer, Long> entry : fChunks.entrySet()) {
+						if (entry.getValue() < fCommittedSize) {
+							committed.put(entry.getKey(), entry.getValue());
+						}
+					}
+					// The log must be on disk before the database file is modified.
+					if (!committed.isEmpty()) {
+						force();
+					}
+				}
+				if (!committed.isEmpty()) {
+					copyToDatabase(db, committed);
+				}
+				synchronized (this) {
+					for (Map.Entry<Integer, Long> entry : committed.entrySet()) {
+						if (entry.getValue().equals(fChunks.get(entry.getKey()))) {
+							fChunks.remove(entry.getKey());
+						}
+					}
+					fCheckpointedSize= Math.max(fCheckpointedSize, committedSize);
+					if (fChunks.isEmpty() && fSize == fCommittedSize && fSize > HEADER_SIZE) {
+						reset();
+					}
+				}
+			} catch (IOException e) {
+				throw new CoreException(new DBStatus(e));
+			}
+		}
+	}
+
+	/**
+	 * Discards the entire content of the log.
+	 */
+	void clear() throws CoreException {
+		synchronized (fCheckpointLock) {
+			synchronized (this) {
+				try {
+					reset();
+				} catch (IOException e) {
+					throw new CoreException(new DBStatus(e));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes the log. The file is deleted if requested and all chunks have been copied to the
+	 * database.
+	 */
+	void close(boolean delete) throws CoreException {
+		synchronized (fCheckpointLock) {
+			if (fClosed)
+				return;
+			fClosed= true;
+			final boolean isEmpty;
+			synchronized (this) {
+				isEmpty= fChunks.isEmpty() && fSize == fCommittedSize;
+			}
+			try {
+				fFile.close();
+			} catch (IOException e) {
+				throw new CoreException(new DBStatus(e));
+			}
+			if (delete && isEmpty) {
+				fLocation.delete();
+			}
+		}
+	}
+
+	private void copyToDatabase(Database db, Map<Integer, Long> chunks) throws IOException {
+		final byte[] buffer= new byte[Database.CHUNK_SIZE];
+		for (Map.Entry<Integer, Long> entry : chunks.entrySet()) {
+			read(ByteBuffer.wrap(buffer), entry.getValue() + RECORD_HEADER_SIZE);
+			db.write(ByteBuffer.wrap(buffer), (long) entry.getKey() * Database.CHUNK_SIZE);
+		}
+		db.force();
+	}
+
+	private void reset() throws IOException {
+		fChunks.clear();
+		fSalt++;
+		final byte[] header= new byte[HEADER_SIZE];
+		Chunk.putInt(MAGIC, header, HEADER_MAGIC);
+		Chunk.putInt(fSalt, header, HEADER_SALT);
+		fFile.getChannel().truncate(HEADER_SIZE);
+		write(ByteBuffer.wrap(header), 0);
+		fSize= fCommittedSize= fCheckpointedSize= HEADER_SIZE;
+		force();
+	}
+
+	private void force() throws IOException {
+		if (fForcedSize != fSize) {
+			fFile.getChannel().force(true);
+			fForcedSize= fSize;
+		}
+		fLastForce= System.currentTimeMillis();
+	}
+
+	private static int checksum(int salt, int sequenceNumber, byte[] record) {
+		final CRC32 crc= new CRC32();
+		final byte[] buf= new byte[8];
+		Chunk.putInt(salt, buf, 0);
+		Chunk.putInt(sequenceNumber, buf, 4);
+		crc.update(buf);
+		if (record != null) {
+			crc.update(record, RECORD_HEADER_SIZE, Database.CHUNK_SIZE);
+		}
+		return (int) crc.getValue();
+	}
+
+	private void read(ByteBuffer buf, long position) throws IOException {
+		final int start= buf.position();
+		int retries= 0;
+		while (true) {
+			try {
+				while (buf.hasRemaining()) {
+					if (fFile.getChannel().read(buf, position + buf.position() - start) < 0)
+						throw new IOException("Unexpected end of " + fLocation); //$NON-NLS-1$
+				}
+				return;
+			} catch (ClosedChannelException e) {
+				reopen(e, ++retries);
+			}
+		}
+	}
+
+	private void write(ByteBuffer buf, long position) throws IOException {
+		final int start= buf.position();
+		int retries= 0;
+		while (true) {
+			try {
+				while (buf.hasRemaining()) {
+					fFile.getChannel().write(buf, position + buf.position() - start);
+				}
+				return;
+			} catch (ClosedChannelException e) {
+				reopen(e, ++retries);
+			}
+		}
+	}
+
+	private void reopen(ClosedChannelException e, int attempt) throws ClosedChannelException, FileNotFoundException {
+		// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
+		if (fClosed || e instanceof ClosedByInterruptException || attempt >= 20) {
+			throw e;
+		}
+		openFile();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Symbian Software Systems and others.
+ * Copyright (c) 2006, 2013 Symbian Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,9 +37,11 @@ public class FindBinding {
 
 		@Override
 		public int compare(long record1, long record2) throws CoreException {
-			IString nm1 = PDOMNamedNode.getDBName(database, record1);
-			IString nm2 = PDOMNamedNode.getDBName(database, record2);
-			int cmp= nm1.compareCompatibleWithIgnoreCase(nm2);
+			// Names are interned, equal names have the same record.
+			final long nm1 = PDOMNamedNode.getNameRecord(database, record1);
+			final long nm2 = PDOMNamedNode.getNameRecord(database, record2);
+			int cmp= nm1 == nm2 ? 0 :
+				database.getString(nm1).compareCompatibleWithIgnoreCase(database.getString(nm2));
 			if (cmp == 0) {
 				long t1= PDOMBinding.getLocalToFileRec(database, record1);
 				long t2= PDOMBinding.getLocalToFileRec(database, record2);
@@ -63,6 +65,8 @@ public class FindBinding {
 		private final char[] fName;
 		private final int[] fConstants;
 		private final long fLocalToFile;
+		/** Record of the interned name, 0 if unknown, -1 if not yet determined */
+		private long fNameRecord= -1;
 		protected PDOMBinding fResult;
 	
 		protected DefaultFindBindingVisitor(PDOMLinkage linkage, char[] name, int[] constants, long localToFile) {
@@ -76,8 +80,12 @@ public class FindBinding {
 		@Override
 		public int compare(long record) throws CoreException {
 			final Database db = fLinkage.getDB();
-			IString nm1 = PDOMNamedNode.getDBName(db, record);
-			int cmp= nm1.compareCompatibleWithIgnoreCase(fName); 
+			if (fNameRecord == -1) {
+				fNameRecord= fLinkage.getPDOM().getStringTable().findCached(fName);
+			}
+			final long nm1 = PDOMNamedNode.getNameRecord(db, record);
+			int cmp= fNameRecord != 0 && nm1 == fNameRecord ? 0 :
+				db.getString(nm1).compareCompatibleWithIgnoreCase(fName);
 			if (cmp == 0) {
 				long t1= PDOMBinding.getLocalToFileRec(db, record);
 				long t2= fLocalToFile;
@@ -160,7 +168,11 @@ public class FindBinding {
 		}
 		@Override
 		public int compare(long record1, long record2) throws CoreException {
-			return compare(PDOMNamedNode.getDBName(db, record1), PDOMNamedNode.getDBName(db, record2));	// compare names
+			final long nm1 = PDOMNamedNode.getNameRecord(db, record1);
+			final long nm2 = PDOMNamedNode.getNameRecord(db, record2);
+			if (nm1 == nm2)
+				return 0;
+			return compare(db.getString(nm1), db.getString(nm2));	// compare names
 		}
 		private int compare(IString nameInDB, IString nameInDB2) throws CoreException {
 			return nameInDB.compareCompatibleWithIgnoreCase(nameInDB2);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 QNX Software Systems and others.
+ * Copyright (c) 2005, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,8 @@ package org.eclipse.cdt.internal.core.pdom.dom;
 
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.cdt.core.dom.IPDOMVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTDeclSpecifier;
@@ -47,6 +49,7 @@ import org.eclipse.cdt.internal.core.index.IIndexScope;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
 import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.BloomFilter;
 import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
@@ -66,9 +69,11 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	private static final int INDEX_OFFSET = PDOMNamedNode.RECORD_SIZE + 8;
 	private static final int NESTED_BINDINGS_INDEX = PDOMNamedNode.RECORD_SIZE + 12;
 	private static final int MACRO_BTREE = PDOMNamedNode.RECORD_SIZE + 16;
+	private static final int NAME_FILTER = PDOMNamedNode.RECORD_SIZE + 20;
+	private static final int BASE_SPECIFIERS = PDOMNamedNode.RECORD_SIZE + 24;
 
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 20;
+	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 28;
 	protected static final long[] FILE_LOCAL_REC_DUMMY = new long[]{0};
 
 	// Node types
@@ -85,7 +90,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	}
 
 	protected PDOMLinkage(PDOM pdom, String languageId, char[] name) throws CoreException {
-		super(pdom.getDB(), name);
+		super(pdom, name);
 		final Database db= pdom.getDB();
 
 		fPDOM= pdom;
@@ -169,9 +174,72 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		}
 	}
 
+	/**
+	 * Returns the filter for the names of the bindings stored in the index and in the
+	 * index of nested bindings.
+	 */
+	private BloomFilter getNameFilter() {
+		return new BloomFilter(fDatabase, record + NAME_FILTER);
+	}
+
+	/**
+	 * Returns <code>false</code> if neither the index nor the index of nested bindings
+	 * contain a binding with the given name.
+	 */
+	public final boolean mayContainName(char[] name) throws CoreException {
+		return getNameFilter().mightContain(name);
+	}
+
+	private void addToNameFilter(PDOMNode node) throws CoreException {
+		if (node instanceof PDOMNamedNode) {
+			final BloomFilter filter= getNameFilter();
+			filter.add(((PDOMNamedNode) node).getNameCharArray());
+			if (filter.isOverloaded()) {
+				rebuildNameFilter(filter);
+			}
+		}
+	}
+
+	/**
+	 * Resizes the filter and adds the names of all bindings in the index and in the index
+	 * of nested bindings. This also drops the names of bindings that have been removed.
+	 */
+	private void rebuildNameFilter(final BloomFilter filter) throws CoreException {
+		final int[] count= {0};
+		final IBTreeVisitor counter= new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+			@Override
+			public boolean visit(long record) throws CoreException {
+				count[0]++;
+				return true;
+			}
+		};
+		getIndex().accept(counter);
+		getNestedBindingsIndex().accept(counter);
+
+		filter.reset(count[0]);
+		final IBTreeVisitor collector= new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+			@Override
+			public boolean visit(long record) throws CoreException {
+				filter.add(PDOMNamedNode.getDBName(fDatabase, record).getChars());
+				return true;
+			}
+		};
+		getIndex().accept(collector);
+		getNestedBindingsIndex().accept(collector);
+	}
+
 	@Override
 	public void addChild(PDOMNode child) throws CoreException {
 		getIndex().insert(child.getRecord());
+		addToNameFilter(child);
 	}
 	
 	public final PDOMBinding getBinding(long record) throws CoreException {
@@ -292,7 +360,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 			IASTDeclSpecifier ds= (IASTDeclSpecifier) parentNode;
 			if (ds.getStorageClass() == IASTDeclSpecifier.sc_typedef) {
 				if (pdomName.getEnclosingDefinitionRecord() != 0) {
-					pdomName.setIsBaseSpecifier();
+					setIsBaseSpecifier(pdomName);
 				}
 			}
 		}
@@ -306,6 +374,60 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	 * @since 4.0
 	 */
 	public void onDeleteName(PDOMName name) throws CoreException {
+		if (name.isBaseSpecifier()) {
+			getBaseSpecifierIndex().delete(name.getRecord());
+		}
+	}
+
+	/**
+	 * Returns the BTree of the names that specify a base class. The names are ordered by their
+	 * bindings, such that the subclasses of a binding can be found without visiting all of its
+	 * references.
+	 */
+	private BTree getBaseSpecifierIndex() {
+		return new BTree(fDatabase, record + BASE_SPECIFIERS, new IBTreeComparator() {
+			@Override
+			public int compare(long name1, long name2) throws CoreException {
+				int cmp= compareRecords(PDOMName.getBindingRecord(fDatabase, name1),
+						PDOMName.getBindingRecord(fDatabase, name2));
+				return cmp != 0 ? cmp : compareRecords(name1, name2);
+			}
+		});
+	}
+
+	private static int compareRecords(long rec1, long rec2) {
+		return rec1 < rec2 ? -1 : rec1 > rec2 ? 1 : 0;
+	}
+
+	/**
+	 * Marks the name as the specifier of a base class and adds it to the index of base specifiers.
+	 * @since 5.5
+	 */
+	protected final void setIsBaseSpecifier(PDOMName pdomName) throws CoreException {
+		pdomName.setIsBaseSpecifier();
+		getBaseSpecifierIndex().insert(pdomName.getRecord());
+	}
+
+	/**
+	 * Returns the names that specify the given binding as a base class.
+	 * @since 5.5
+	 */
+	public PDOMName[] getBaseSpecifiers(PDOMBinding binding) throws CoreException {
+		final long bindingRec= binding.getRecord();
+		final List<PDOMName> result= new ArrayList<PDOMName>();
+		getBaseSpecifierIndex().accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long name) throws CoreException {
+				return compareRecords(PDOMName.getBindingRecord(fDatabase, name), bindingRec);
+			}
+
+			@Override
+			public boolean visit(long name) throws CoreException {
+				result.add(new PDOMName(PDOMLinkage.this, name));
+				return true;
+			}
+		});
+		return result.toArray(new PDOMName[result.size()]);
 	}
 
 	/**
@@ -317,6 +439,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	protected final void insertIntoNestedBindingsIndex(PDOMBinding pdomBinding) throws CoreException {
 		if (pdomBinding.getParentNodeRec() != record) {
 			getNestedBindingsIndex().insert(pdomBinding.getRecord());
+			addToNameFilter(pdomBinding);
 		}
 	}
 
@@ -393,6 +516,9 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	 * @throws CoreException 
 	 */
 	public PDOMBinding[] getBindingsViaCache(char[] name, IProgressMonitor monitor) throws CoreException {
+		if (!mayContainName(name))
+			return PDOMBinding.EMPTY_PDOMBINDING_ARRAY;
+
 		CharArrayMap<PDOMBinding[]> map = getBindingMap();
 		synchronized(map) {
 			PDOMBinding[] result= map.get(name);
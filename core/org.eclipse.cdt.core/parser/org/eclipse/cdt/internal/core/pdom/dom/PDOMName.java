@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 QNX Software Systems and others.
+ * Copyright (c) 2005, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -127,6 +127,22 @@ public final class PDOMName implements IIndexFragmentName, IASTFileLocation {
 	public PDOM getPDOM() {
 		return linkage.getPDOM();
 	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this)
+			return true;
+		if (obj instanceof PDOMName) {
+			PDOMName other = (PDOMName) obj;
+			return linkage.getPDOM().equals(other.linkage.getPDOM()) && record == other.record;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(linkage.getPDOM()) + (int) (41 * record);
+	}
 	
 	@Override
 	public PDOMBinding getBinding() throws CoreException {
@@ -188,6 +204,10 @@ public final class PDOMName implements IIndexFragmentName, IASTFileLocation {
 	long getEnclosingDefinitionRecord() throws CoreException {
 		return linkage.getDB().getRecPtr(record + CALLER_REC_OFFSET);
 	}
+
+	static long getBindingRecord(Database db, long nameRecord) throws CoreException {
+		return db.getRecPtr(nameRecord + BINDING_REC_OFFSET);
+	}
 	
 	public PDOMName getNextInFile() throws CoreException {
 		return getNameField(FILE_NEXT_OFFSET);
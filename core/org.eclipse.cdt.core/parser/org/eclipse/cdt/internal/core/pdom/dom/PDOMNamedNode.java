@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 QNX Software Systems and others.
+ * Copyright (c) 2006, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,8 +18,10 @@ import java.util.Arrays;
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentBinding;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.IString;
+import org.eclipse.cdt.internal.core.pdom.db.PDOMStringTable;
 import org.eclipse.core.runtime.CoreException;
 
 /**
@@ -27,7 +29,8 @@ import org.eclipse.core.runtime.CoreException;
  */
 public abstract class PDOMNamedNode extends PDOMNode {
 	/**
-	 * Offset of pointer to node name (relative to the beginning of the record).
+	 * Offset of pointer to node name (relative to the beginning of the record). The name is
+	 * interned in the string table of the PDOM.
 	 */
 	private static final int NAME = PDOMNode.RECORD_SIZE + 0;
 
@@ -48,16 +51,16 @@ public abstract class PDOMNamedNode extends PDOMNode {
 		
 		fName= name;
 		final Database db = linkage.getDB();
-		db.putRecPtr(record + NAME, name != null ? db.newString(name).getRecord() : 0);
+		db.putRecPtr(record + NAME, name != null ? linkage.getPDOM().getStringTable().intern(name) : 0);
 	}
 
 	/**
 	 * For linkages, only.
 	 */
-	protected PDOMNamedNode(Database db, char[] name) throws CoreException {
-		super(db);
+	protected PDOMNamedNode(PDOM pdom, char[] name) throws CoreException {
+		super(pdom.getDB());
 		fName= name;
-		db.putRecPtr(record + NAME, name != null ? db.newString(name).getRecord() : 0);
+		pdom.getDB().putRecPtr(record + NAME, name != null ? pdom.getStringTable().intern(name) : 0);
 	}
 	
 	@Override
@@ -71,6 +74,14 @@ public abstract class PDOMNamedNode extends PDOMNode {
 		long namerec = db.getRecPtr(record + NAME);
 		return db.getString(namerec);
 	}
+
+	/**
+	 * Returns the record of the interned name of the node with the given record. Two nodes
+	 * have the same name if and only if the records of their names are the same.
+	 */
+	public static long getNameRecord(Database db, long record) throws CoreException {
+		return db.getRecPtr(record + NAME);
+	}
 	
 	public char[] getNameCharArray() throws CoreException {
 		if (fName != null)
@@ -96,20 +107,29 @@ public abstract class PDOMNamedNode extends PDOMNode {
 		
 		IString name= getDBName();
 		if (!name.equals(nameCharArray)) {
-			name.delete();
-			final Database db= getDB();
-			db.putRecPtr(record + NAME, db.newString(nameCharArray).getRecord());
+			final PDOMStringTable table= getPDOM().getStringTable();
+			table.release(name.getRecord());
+			getDB().putRecPtr(record + NAME, table.intern(nameCharArray));
 		}
 		fName= nameCharArray;
 	}
 
-	@Override
-	public void delete(PDOMLinkage linkage) throws CoreException {
+	/**
+	 * Releases the name of this node, for nodes that are deleted without calling
+	 * {@link #delete(PDOMLinkage)}.
+	 */
+	protected final void releaseName() throws CoreException {
 		final Database db = getDB();
 		final long namerec= db.getRecPtr(record + NAME);
 		if (namerec != 0) {
-			db.free(namerec);
+			getPDOM().getStringTable().release(namerec);
+			db.putRecPtr(record + NAME, 0);
 		}
+	}
+
+	@Override
+	public void delete(PDOMLinkage linkage) throws CoreException {
+		releaseName();
 		super.delete(linkage);
 	}
 	
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 QNX Software Systems and others.
+ * Copyright (c) 2006, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -279,7 +279,8 @@ class PDOMCLinkage extends PDOMLinkage implements IIndexCBindingConstants {
 		if (parent == this) {
 			final int[] bindingTypes = new int[] {getBindingType(binding)};
 			final char[] nameChars = binding.getNameCharArray();
-			PDOMBinding nonLocal= FindBinding.findBinding(getIndex(), this, nameChars, bindingTypes, 0);
+			final boolean mayExist= mayContainName(nameChars);
+			PDOMBinding nonLocal= mayExist ? FindBinding.findBinding(getIndex(), this, nameChars, bindingTypes, 0) : null;
 			if (localToFileHolder == null)
 				return nonLocal;
 			
@@ -287,6 +288,8 @@ class PDOMCLinkage extends PDOMLinkage implements IIndexCBindingConstants {
 			if (localToFileRec == 0)
 				return nonLocal;
 			localToFileHolder[0]= localToFileRec;
+			if (!mayExist)
+				return null;
 			return FindBinding.findBinding(getIndex(), this, nameChars, bindingTypes, localToFileRec);
 		} 
 		if (parent instanceof IPDOMMemberOwner) {
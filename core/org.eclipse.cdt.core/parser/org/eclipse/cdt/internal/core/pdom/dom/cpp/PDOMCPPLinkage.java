@@ -502,6 +502,7 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 			if (parent != this && parent2 != this) {
 				insertIntoNestedBindingsIndex(pdomBinding);
 			}
+			PDOMInstanceCache.instanceAdded(pdomBinding);
 		}
 
 		return pdomBinding;
@@ -804,13 +805,17 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 			parent= adaptOrAddParent(false, binding);
 		}
 		if (parent == this) {
-			PDOMBinding glob= CPPFindBinding.findBinding(getIndex(), this, binding, 0);
+			// Avoid searching the index for bindings that have not been added, yet.
+			final boolean mayExist= mayContainName(binding.getNameCharArray());
+			PDOMBinding glob= mayExist ? CPPFindBinding.findBinding(getIndex(), this, binding, 0) : null;
 			if (fileLocalRecHolder == null)
 				return glob;
 			final long loc= getLocalToFileRec(parent, binding, glob);
 			if (loc == 0)
 				return glob;
 			fileLocalRecHolder[0]= loc;
+			if (!mayExist)
+				return null;
 			return CPPFindBinding.findBinding(getIndex(), this, binding, loc);
 		}
 		if (parent instanceof PDOMCPPNamespace) {
@@ -997,7 +1002,7 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 		if (name.getPropertyInParent() == ICPPASTBaseSpecifier.NAME ||
 				(name.getPropertyInParent() == ICPPASTTemplateId.TEMPLATE_NAME &&
 				parentNode.getPropertyInParent() == ICPPASTBaseSpecifier.NAME)) {
-			pdomName.setIsBaseSpecifier();
+			setIsBaseSpecifier(pdomName);
 		} else if (parentNode instanceof ICPPASTUsingDirective) {
 			IASTNode parent= name.getParent();
 			if (parent instanceof ICPPASTQualifiedName) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 QNX Software Systems and others.
+ * Copyright (c) 2007, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -98,7 +98,7 @@ class PDOMCPPTemplateNonTypeParameter extends PDOMCPPBinding
 
 	@Override
 	public void forceDelete(PDOMLinkage linkage) throws CoreException {
-		getDBName().delete();
+		releaseName();
 		linkage.storeType(record + TYPE_OFFSET, null);
 		linkage.storeValue(record + DEFAULTVAL, null);
 	}
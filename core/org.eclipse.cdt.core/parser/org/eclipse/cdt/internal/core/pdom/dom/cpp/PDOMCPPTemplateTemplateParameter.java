@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -233,7 +233,7 @@ public class PDOMCPPTemplateTemplateParameter extends PDOMCPPBinding
 
 	@Override
 	public void forceDelete(PDOMLinkage linkage) throws CoreException {
-		getDBName().delete();
+		releaseName();
 		linkage.storeType(record + DEFAULT_TYPE, null);
 
 		final Database db= getDB();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,7 +7,7 @@
  *
  * Contributors:
  *    Markus Schorn - initial API and implementation
- *******************************************************************************/ 
+ *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom.dom.cpp;
 
 import java.util.HashMap;
@@ -15,7 +15,9 @@ import java.util.HashMap;
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateDefinition;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.core.index.IIndexBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
 import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
@@ -26,7 +28,27 @@ import org.eclipse.cdt.internal.core.pdom.dom.PDOMNode;
 import org.eclipse.core.runtime.CoreException;
 
 public class PDOMInstanceCache {
-	
+	/**
+	 * The instances of a template that are stored in the index. Bindings are never removed from
+	 * the index, therefore the map remains valid while the index is modified. Instances added to
+	 * the index later on are registered via {@link PDOMInstanceCache#instanceAdded(PDOMBinding)}.
+	 */
+	private static final class IndexedInstances {
+		private final HashMap<String, ICPPTemplateInstance> fMap= new HashMap<String, ICPPTemplateInstance>();
+
+		synchronized ICPPTemplateInstance get(String key) {
+			return fMap.get(key);
+		}
+
+		synchronized void put(String key, ICPPTemplateInstance instance) {
+			fMap.put(key, instance);
+		}
+
+		synchronized void copyTo(HashMap<String, ICPPTemplateInstance> map) {
+			map.putAll(fMap);
+		}
+	}
+
 	public static PDOMInstanceCache getCache(PDOMBinding binding) {
 		final PDOM pdom= binding.getPDOM();
 		final long record= binding.getRecord();
@@ -35,47 +57,93 @@ public class PDOMInstanceCache {
 		if (cache instanceof PDOMInstanceCache) {
 			return (PDOMInstanceCache) cache;
 		}
-		
-		PDOMInstanceCache newCache= new PDOMInstanceCache();
-		try {
-			newCache.populate(binding);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		}
-		
+
+		PDOMInstanceCache newCache= new PDOMInstanceCache(getIndexedInstances(binding));
 		newCache= (PDOMInstanceCache) pdom.putCachedResult(key, newCache, false);
 		return newCache;
 	}
-	
-	private final HashMap<String, ICPPTemplateInstance> fMap;
-	private ICPPDeferredClassInstance fDeferredInstance;
 
-	public PDOMInstanceCache() {
-		fMap= new HashMap<String, ICPPTemplateInstance>();
-	}
-	
-	synchronized public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
+	private static IndexedInstances getIndexedInstances(PDOMBinding binding) {
+		final PDOM pdom= binding.getPDOM();
+		final Long key= binding.getRecord() + PDOMCPPLinkage.CACHE_INSTANCES;
+		Object cache= pdom.getLastingCachedResult(key);
+		if (cache instanceof IndexedInstances) {
+			return (IndexedInstances) cache;
+		}
+
+		IndexedInstances instances= new IndexedInstances();
 		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			fMap.put(key, instance);
+			populate(binding, instances);
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
-		} catch (DOMException e) {
+		}
+		return (IndexedInstances) pdom.putLastingCachedResult(key, instances, false);
+	}
+
+	/**
+	 * Registers an instance that has been added to the index with the instances of its
+	 * template, such that the instances of the template need not be collected again.
+	 */
+	public static void instanceAdded(PDOMBinding binding) {
+		if (!(binding instanceof ICPPTemplateInstance))
+			return;
+
+		final ICPPTemplateInstance instance= (ICPPTemplateInstance) binding;
+		final ICPPTemplateDefinition template= instance.getTemplateDefinition();
+		if (template instanceof PDOMBinding) {
+			final Long key= ((PDOMBinding) template).getRecord() + PDOMCPPLinkage.CACHE_INSTANCES;
+			Object cache= binding.getPDOM().getLastingCachedResult(key);
+			if (cache instanceof IndexedInstances) {
+				String argKey= getKey(instance.getTemplateArguments());
+				if (argKey != null) {
+					((IndexedInstances) cache).put(argKey, instance);
+				}
+			}
 		}
 	}
 
-	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {		
+	private static String getKey(ICPPTemplateArgument[] arguments) {
 		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			return fMap.get(key);
+			return IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
 		} catch (DOMException e) {
 		}
 		return null;
 	}
-	
-	private void populate(PDOMBinding binding) throws CoreException {
+
+	private final IndexedInstances fIndexedInstances;
+	private final HashMap<String, ICPPTemplateInstance> fMap;
+	private ICPPDeferredClassInstance fDeferredInstance;
+
+	private PDOMInstanceCache(IndexedInstances indexedInstances) {
+		fIndexedInstances= indexedInstances;
+		fMap= new HashMap<String, ICPPTemplateInstance>();
+	}
+
+	synchronized public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
+		String key= getKey(arguments);
+		if (key != null) {
+			// An instance added concurrently takes precedence, an indexed instance is replaced.
+			final ICPPTemplateInstance existing= fMap.get(key);
+			if (existing == null || existing instanceof IIndexBinding) {
+				fMap.put(key, instance);
+			}
+		}
+	}
+
+	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
+		String key= getKey(arguments);
+		if (key == null)
+			return null;
+		ICPPTemplateInstance result= fMap.get(key);
+		if (result == null) {
+			result= fIndexedInstances.get(key);
+		}
+		return result;
+	}
+
+	private static void populate(PDOMBinding binding, IndexedInstances instances) throws CoreException {
 		PDOMNode parent= binding.getParentNode();
 		if (parent == null) {
 			parent= binding.getLinkage();
@@ -87,15 +155,20 @@ public class PDOMInstanceCache {
 			if (node instanceof ICPPTemplateInstance) {
 				ICPPTemplateInstance inst= (ICPPTemplateInstance) node;
 				if (binding.equals(inst.getTemplateDefinition())) {
-					ICPPTemplateArgument[] args= inst.getTemplateArguments();
-					addInstance(args, inst);
+					String key= getKey(inst.getTemplateArguments());
+					if (key != null) {
+						instances.put(key, inst);
+					}
 				}
 			}
 		}
 	}
 
 	synchronized public ICPPTemplateInstance[] getAllInstances() {
-		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
+		HashMap<String, ICPPTemplateInstance> all= new HashMap<String, ICPPTemplateInstance>();
+		fIndexedInstances.copyTo(all);
+		all.putAll(fMap);
+		return all.values().toArray(new ICPPTemplateInstance[all.size()]);
 	}
 
 	public ICPPDeferredClassInstance getDeferredInstance() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Symbian Software Systems and others.
+ * Copyright (c) 2007, 2013 Symbian Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import org.eclipse.cdt.core.dom.IPDOMIndexerTask;
 import org.eclipse.cdt.core.dom.IPDOMManager;
 import org.eclipse.cdt.core.index.export.ExternalExportProjectProvider;
 import org.eclipse.cdt.core.index.export.IExportProjectProvider;
+import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
@@ -49,6 +50,10 @@ public class GeneratePDOMApplication implements IApplication {
 	public static final String OPT_TARGET= "-target"; //$NON-NLS-1$
 	public static final String OPT_QUIET= "-quiet"; //$NON-NLS-1$
 	public static final String OPT_INDEXER_ID= "-indexer"; //$NON-NLS-1$
+	/**
+	 * Number of threads used to parse the sources, the results are written to a single PDOM.
+	 */
+	public static final String OPT_PARSER_THREADS= "-parserThreads"; //$NON-NLS-1$
 
 	/**
 	 * Applications needing to fail in an expected way (without stack dump), should throw
@@ -105,6 +110,23 @@ public class GeneratePDOMApplication implements IApplication {
 			}
 		}
 		
+		int parserThreads= 0;
+		List<String> parserThreadArgs= arguments.get(OPT_PARSER_THREADS);
+		if(parserThreadArgs!=null) {
+			try {
+				parserThreads= parserThreadArgs.size()==1 ? Integer.parseInt(parserThreadArgs.get(0)) : 0;
+			} catch(NumberFormatException e) {
+				parserThreads= 0;
+			}
+			if(parserThreads<1) {
+				fail(MessageFormat.format(Messages.GeneratePDOMApplication_InvalidParserThreads, new Object[] {OPT_PARSER_THREADS}));
+			}
+		}
+		
+		final int oldParserThreads= IndexerPreferences.getParserThreads();
+		if(parserThreads>0) {
+			IndexerPreferences.setParserThreads(parserThreads);
+		}
 		String[] oldvals= null;
 		if(!quiet) {
 			oldvals= new String[] {
@@ -131,6 +153,9 @@ public class GeneratePDOMApplication implements IApplication {
 			}
 			output(Messages.GeneratePDOMApplication_GenerationEnds);
 		} finally {
+			if (parserThreads>0) {
+				IndexerPreferences.setParserThreads(oldParserThreads);
+			}
 			if (oldvals != null) {
 				restoreSystemProperty(IPDOMIndexerTask.TRACE_ACTIVITY, oldvals[0]);
 				restoreSystemProperty(IPDOMIndexerTask.TRACE_PROBLEMS, oldvals[1]);
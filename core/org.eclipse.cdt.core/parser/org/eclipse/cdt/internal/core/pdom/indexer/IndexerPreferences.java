@@ -58,6 +58,7 @@ public class IndexerPreferences {
 	public static final String KEY_SKIP_MACRO_REFERENCES= "skipMacroReferences"; //$NON-NLS-1$
 	public static final String KEY_UPDATE_POLICY= "updatePolicy"; //$NON-NLS-1$
 	public static final String KEY_SKIP_FILES_LARGER_THAN_MB = "skipFilesLargerThanMB"; //$NON-NLS-1$
+	public static final String KEY_PARSER_THREADS= "parserThreads"; //$NON-NLS-1$
 
 	private static final String KEY_INDEXER_PREFS_SCOPE = "preferenceScope"; //$NON-NLS-1$
 	private static final String KEY_INDEX_IMPORT_LOCATION = "indexImportLocation"; //$NON-NLS-1$
@@ -68,6 +69,7 @@ public class IndexerPreferences {
 	private static final String DEFAULT_INDEX_IMPORT_LOCATION = ".settings/cdt-index.zip"; //$NON-NLS-1$
 	private static final int DEFAULT_UPDATE_POLICY= 0;
 	public static final int DEFAULT_FILE_SIZE_LIMIT = 8;
+	public static final int DEFAULT_PARSER_THREADS = 1;
 
 	private static final String QUALIFIER = CCorePlugin.PLUGIN_ID;
 	private static final String INDEXER_NODE = "indexer"; //$NON-NLS-1$
@@ -417,6 +419,34 @@ public class IndexerPreferences {
 		return DEFAULT_UPDATE_POLICY;
 	}
 
+	/**
+	 * Returns the number of threads used to parse source files in parallel while indexing. With a
+	 * value of one, files are parsed by the thread of the indexer job.
+	 */
+	public static int getParserThreads() {
+		// no support for project specific settings
+		String val= Platform.getPreferencesService().get(KEY_PARSER_THREADS, null, getInstancePreferencesArray());
+		if (val != null) {
+			try {
+				int result= Integer.parseInt(val);
+				if (result > 0)
+					return result;
+			} catch (NumberFormatException e) {
+				CCorePlugin.log(e);
+			}
+		}
+		return DEFAULT_PARSER_THREADS;
+	}
+
+	/**
+	 * Sets the number of threads used to parse source files in parallel while indexing.
+	 */
+	public static void setParserThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException();
+		getInstancePreferences().put(KEY_PARSER_THREADS, String.valueOf(threads));
+	}
+
 	public static boolean preferDefaultLanguage(IProject project) {
 		IPreferencesService prefService = Platform.getPreferencesService();
 		Preferences[] prefs= IndexerPreferences.getPreferences(project);
@@ -24,9 +24,12 @@ import org.eclipse.cdt.core.index.IIndexManager;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.core.parser.IncludeExportPatterns;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticsCache;
+import org.eclipse.cdt.internal.core.index.HeaderContentCache;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
 import org.eclipse.cdt.internal.core.model.CProject;
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
 import org.eclipse.cdt.internal.core.pdom.AbstractIndexerTask;
 import org.eclipse.cdt.internal.core.pdom.ITodoTaskUpdater;
 import org.eclipse.cdt.internal.core.pdom.IndexerProgress;
@@ -61,6 +64,7 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 		setShowProblems(checkDebugOption(TRACE_PROBLEMS, TRUE));
 		final long limit = getIntProperty(IndexerPreferences.KEY_SKIP_FILES_LARGER_THAN_MB, 0);
 		setFileSizeLimit(limit * 1024 * 1024);
+		setParserThreads(IndexerPreferences.getParserThreads());
 		if (checkProperty(IndexerPreferences.KEY_SKIP_ALL_REFERENCES)) {
 			setSkipReferences(SKIP_ALL_REFERENCES);
 		} else {
@@ -263,6 +267,12 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 					+ fStatistics.fParsingTime + " parser, "    //$NON-NLS-1$
 					+ fStatistics.fResolutionTime + " resolution, "    //$NON-NLS-1$
 					+ fStatistics.fAddToIndexTime + " index update.");    //$NON-NLS-1$
+			NumberFormat nfRate= NumberFormat.getNumberInstance();
+			nfRate.setMaximumFractionDigits(1);
+			System.out.println(ident + " Throughput: "     //$NON-NLS-1$
+					+ nfRate.format(fStatistics.getFilesPerSecond(totalTime)) + " files/s, "    //$NON-NLS-1$
+					+ getParserThreads() + " parser threads, "    //$NON-NLS-1$
+					+ fStatistics.fPeakHeapUsage / 1024 / 1024 + "MB peak heap.");    //$NON-NLS-1$
 			System.out.println(ident + " Errors: "    //$NON-NLS-1$
 					+ fStatistics.fErrorCount + " internal, "    //$NON-NLS-1$
 					+ fStatistics.fUnresolvedIncludesCount + " include, "     //$NON-NLS-1$
@@ -286,6 +296,26 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 					+ hits + " hits, "      //$NON-NLS-1$
 					+ misses + "(" + nfPercent.format(missPct) + ") misses.");      //$NON-NLS-1$ //$NON-NLS-2$
 
+			final HeaderContentCache headerCache= getHeaderContentCache();
+			final long headerHits= headerCache.getHits();
+			final long headerTries= headerHits + headerCache.getMisses();
+			final double headerHitPct= headerTries == 0 ? 0.0 : (double) headerHits / (double) headerTries;
+			System.out.println(ident + " Header cache: "    //$NON-NLS-1$
+					+ headerHits + "(" + nfPercent.format(headerHitPct) + ") hits, "      //$NON-NLS-1$ //$NON-NLS-2$
+					+ headerCache.getRequestedLocations().length + " headers.");      //$NON-NLS-1$
+
+			final IncludeResolutionCache.Statistics includeCache= getIncludeResolutionStatistics();
+			System.out.println(ident + " Include resolution cache: "    //$NON-NLS-1$
+					+ includeCache.getHits() + " hits, "      //$NON-NLS-1$
+					+ includeCache.getMisses() + " misses, "      //$NON-NLS-1$
+					+ includeCache.getProbes() + " probes, "      //$NON-NLS-1$
+					+ includeCache.getProbesSaved() + " probes saved.");      //$NON-NLS-1$
+
+			if (SemanticsCache.sTraceStatistics) {
+				System.out.println(ident + " Semantics cache: "    //$NON-NLS-1$
+						+ SemanticsCache.getStatistics() + ".");      //$NON-NLS-1$
+			}
+
 			if ("true".equals(System.getProperty("SHOW_COMPRESSED_INDEXER_INFO"))) {    //$NON-NLS-1$ //$NON-NLS-2$
 				Calendar cal = Calendar.getInstance();
 				NumberFormat twoDigits= NumberFormat.getNumberInstance();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,7 +12,9 @@
 package org.eclipse.cdt.internal.core.pdom.indexer;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
@@ -52,7 +54,7 @@ public class ProjectIndexerInputAdapter extends IndexerInputAdapter {
 	private static final AbstractLanguage[] NO_LANGUAGE = new AbstractLanguage[0];
 
 	private final ICProject fCProject;
-	private final HashMap<String, IIndexFileLocation> fIflCache;
+	private final Map<String, IIndexFileLocation> fIflCache;
 	private final FileExistsCache fExistsCache;
 	private AbstractLanguage fLangC;
 	private AbstractLanguage fLangCpp;
@@ -66,7 +68,8 @@ public class ProjectIndexerInputAdapter extends IndexerInputAdapter {
 		fCProject= cproject;
 		fProjectPrefix= cproject.getProject().getFullPath().toString() + IPath.SEPARATOR;
 		if (useCache) {
-			fIflCache= new HashMap<String, IIndexFileLocation>();
+			// Accessed by multiple threads when sources are parsed in parallel.
+			fIflCache= Collections.synchronizedMap(new HashMap<String, IIndexFileLocation>());
 			fExistsCache= new FileExistsCache(isCaseInsensitiveFileSystem());
 		} else {
 			fIflCache= null;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -99,7 +99,7 @@ public class CHContentProvider extends AsyncTreeContentProvider {
 			if (parentElement instanceof CHNode) {
 				CHNode node = (CHNode) parentElement;
 				if (fComputeReferencedBy) {
-					return asyncronouslyComputeReferencedBy(node);
+					return asyncronouslyComputeReferencedBy(node, monitor);
 				}
 				return asyncronouslyComputeRefersTo(node);
 			}
@@ -152,12 +152,12 @@ public class CHContentProvider extends AsyncTreeContentProvider {
 		}
 	}
 
-	private Object[] asyncronouslyComputeReferencedBy(CHNode parent) throws CoreException, InterruptedException {
+	private Object[] asyncronouslyComputeReferencedBy(CHNode parent, IProgressMonitor monitor) throws CoreException, InterruptedException {
 		ICProject[] scope= CoreModel.getDefault().getCModel().getCProjects();
 		IIndex index= CCorePlugin.getIndexManager().getIndex(scope, IIndexManager.ADD_EXTENSION_FRAGMENTS_CALL_HIERARCHY);
 		index.acquireReadLock();
 		try {
-			return CHQueries.findCalledBy(this, parent, index, NPM);
+			return CHQueries.findCalledBy(this, parent, index, monitor);
 		} finally {
 			index.releaseReadLock();
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,10 +12,13 @@ package org.eclipse.cdt.internal.ui.callhierarchy;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ILinkage;
@@ -24,7 +27,9 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPMethod;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPSpecialization;
 import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.core.index.IIndexFile;
 import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.index.IIndexNameVisitor;
 import org.eclipse.cdt.core.model.ICElement;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.ISourceReference;
@@ -54,6 +59,7 @@ public class CHQueries {
 		if (!(callee instanceof ISourceReference)) {
 			return EMPTY_NODES;
 		}
+		Callers callers= new Callers(index, callee.getCProject());
 		boolean done= false;
 		int linkageID= node.getLinkageID();
 		if (linkageID == -1) {
@@ -64,54 +70,100 @@ public class CHQueries {
 			final String ct = tu.getContentTypeId();
 			if (ct.equals(CCorePlugin.CONTENT_TYPE_CXXHEADER)) {
 				// bug 260262: in a header file we need to consider c and c++
-				findCalledBy(callee, ILinkage.C_LINKAGE_ID, index, result);
-				findCalledBy(callee, ILinkage.CPP_LINKAGE_ID, index, result);
+				findCalledBy(callee, ILinkage.C_LINKAGE_ID, index, callers, result, pm);
+				findCalledBy(callee, ILinkage.CPP_LINKAGE_ID, index, callers, result, pm);
 				done= true;
 			}
 		}
 		if (!done) {
-			findCalledBy(callee, linkageID, index, result);
+			findCalledBy(callee, linkageID, index, callers, result, pm);
 		}
 		return cp.createNodes(node, result);
 	}
 
-	private static void findCalledBy(ICElement callee, int linkageID, IIndex index, CalledByResult result) 
-			throws CoreException {
-		final ICProject project = callee.getCProject();
+	private static void findCalledBy(ICElement callee, int linkageID, IIndex index, Callers callers,
+			CalledByResult result, IProgressMonitor pm) throws CoreException {
 		IIndexBinding calleeBinding= IndexUI.elementToBinding(index, callee, linkageID);
 		if (calleeBinding != null) {
-			findCalledBy1(index, calleeBinding, true, project, result);
+			findCalledBy1(index, calleeBinding, true, callers, result, pm);
 			if (calleeBinding instanceof ICPPMethod) {
 				IBinding[] overriddenBindings= ClassTypeHelper.findOverridden((ICPPMethod) calleeBinding, null);
 				for (IBinding overriddenBinding : overriddenBindings) {
-					findCalledBy1(index, overriddenBinding, false, project, result);
+					findCalledBy1(index, overriddenBinding, false, callers, result, pm);
 				}
 			}
 		}
 	}
 
 	private static void findCalledBy1(IIndex index, IBinding callee, boolean includeOrdinaryCalls,
-			ICProject project, CalledByResult result) throws CoreException {
-		findCalledBy2(index, callee, includeOrdinaryCalls, project, result);
+			Callers callers, CalledByResult result, IProgressMonitor pm) throws CoreException {
+		findCalledBy2(index, callee, includeOrdinaryCalls, callers, result, pm);
 		List<? extends IBinding> specializations = IndexUI.findSpecializations(index, callee);
 		for (IBinding spec : specializations) {
-			findCalledBy2(index, spec, includeOrdinaryCalls, project, result);
+			findCalledBy2(index, spec, includeOrdinaryCalls, callers, result, pm);
 		}
 	}
 
-	private static void findCalledBy2(IIndex index, IBinding callee, boolean includeOrdinaryCalls,
-			ICProject project, CalledByResult result) throws CoreException {
-		IIndexName[] names= index.findNames(callee, IIndex.FIND_REFERENCES | IIndex.SEARCH_ACROSS_LANGUAGE_BOUNDARIES);
-		for (IIndexName rname : names) {
-			if (includeOrdinaryCalls || rname.couldBePolymorphicMethodCall()) {
-				IIndexName caller= rname.getEnclosingDefinition();
-				if (caller != null) {
-					ICElement elem= IndexUI.getCElementForName(project, index, caller);
-					if (elem != null) {
-						result.add(elem, rname);
-					} 
+	private static void findCalledBy2(IIndex index, IBinding callee, final boolean includeOrdinaryCalls,
+			final Callers callers, final CalledByResult result, final IProgressMonitor pm) throws CoreException {
+		// The references are processed while they are read from the index, such that a search
+		// for a frequently called function can be cancelled.
+		boolean completed= index.findNames(callee, IIndex.FIND_REFERENCES | IIndex.SEARCH_ACROSS_LANGUAGE_BOUNDARIES,
+				new IIndexNameVisitor() {
+			@Override
+			public boolean visit(IIndexName rname) throws CoreException {
+				if (pm.isCanceled())
+					return false;
+				if (includeOrdinaryCalls || rname.couldBePolymorphicMethodCall()) {
+					IIndexName caller= rname.getEnclosingDefinition();
+					if (caller != null) {
+						ICElement elem= callers.getElement(caller);
+						if (elem != null) {
+							result.add(elem, rname);
+						} 
+					}
 				}
+				return true;
+			}
+		});
+		if (!completed)
+			throw new OperationCanceledException();
+	}
+
+	/**
+	 * Creates the elements for the enclosing definitions of references. The index stores the
+	 * enclosing definition with every reference, typically a caller contains many of the references,
+	 * so the element is created only once per caller and the translation unit once per file.
+	 */
+	private static class Callers {
+		private final IIndex fIndex;
+		private final ICProject fProject;
+		private final Map<IIndexName, ICElement> fElements= new HashMap<IIndexName, ICElement>();
+		private final Map<IIndexFile, ITranslationUnit> fTranslationUnits= new HashMap<IIndexFile, ITranslationUnit>();
+
+		Callers(IIndex index, ICProject project) {
+			fIndex= index;
+			fProject= project;
+		}
+
+		ICElement getElement(IIndexName caller) throws CoreException {
+			if (fElements.containsKey(caller))
+				return fElements.get(caller);
+
+			ICElement elem= null;
+			IIndexFile file= caller.getFile();
+			ITranslationUnit tu;
+			if (fTranslationUnits.containsKey(file)) {
+				tu= fTranslationUnits.get(file);
+			} else {
+				tu= IndexUI.getTranslationUnit(fProject, caller);
+				fTranslationUnits.put(file, tu);
+			}
+			if (tu != null) {
+				elem= IndexUI.getCElementForName(tu, fIndex, caller);
 			}
+			fElements.put(caller, elem);
+			return elem;
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,7 +21,10 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.IViewportListener;
 import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.swt.widgets.Display;
@@ -31,6 +34,7 @@ import org.eclipse.ui.IWorkbenchPartSite;
 import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTDeclarator;
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
 import org.eclipse.cdt.core.dom.ast.IASTImageLocation;
 import org.eclipse.cdt.core.dom.ast.IASTMacroExpansionLocation;
 import org.eclipse.cdt.core.dom.ast.IASTName;
@@ -65,8 +69,30 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 		/** The semantic token */
 		private SemanticToken fToken= new SemanticToken();
 		private int fMinLocation;
-		
-		public PositionCollector(boolean visitImplicitNames) {
+		private final IProgressMonitor fMonitor;
+		/** The range of offsets [fRangeStart, fRangeEnd) */
+		private final int fRangeStart;
+		private final int fRangeEnd;
+		/** Whether the positions inside or outside of the range are collected */
+		private final boolean fInsideRange;
+
+		/**
+		 * Creates a collector for the positions of the entire file.
+		 */
+		public PositionCollector(boolean visitImplicitNames, IProgressMonitor monitor) {
+			this(visitImplicitNames, monitor, 0, Integer.MAX_VALUE, true);
+		}
+
+		/**
+		 * Creates a collector for the positions inside or outside of the range of offsets
+		 * [rangeStart, rangeEnd).
+		 */
+		public PositionCollector(boolean visitImplicitNames, IProgressMonitor monitor,
+				int rangeStart, int rangeEnd, boolean insideRange) {
+			fMonitor= monitor;
+			fRangeStart= rangeStart;
+			fRangeEnd= rangeEnd;
+			fInsideRange= insideRange;
 			fMinLocation= -1;
 			shouldVisitTranslationUnit= true;
 			shouldVisitNames= true;
@@ -113,9 +139,39 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 			if (!declaration.isPartOfTranslationUnitFile()) {
 				return PROCESS_SKIP;
 			}
+			if (fMonitor != null && fMonitor.isCanceled()) {
+				fJobPresenter.setCanceled(true);
+			}
+			if (fJobPresenter.isCanceled()) {
+				return PROCESS_ABORT;
+			}
+			if (canSkip(declaration.getFileLocation())) {
+				return PROCESS_SKIP;
+			}
 			return PROCESS_CONTINUE;
 		}
 
+		/**
+		 * Returns whether the given offset belongs to the positions collected by this collector.
+		 */
+		public boolean isCollected(int offset) {
+			return (offset >= fRangeStart && offset < fRangeEnd) == fInsideRange;
+		}
+
+		/**
+		 * Returns whether the given location does not contain any of the positions collected by
+		 * this collector.
+		 */
+		private boolean canSkip(IASTFileLocation location) {
+			if (location == null)
+				return false;
+			final int offset= location.getNodeOffset();
+			final int end= offset + location.getNodeLength();
+			if (fInsideRange)
+				return end <= fRangeStart || offset >= fRangeEnd;
+			return offset >= fRangeStart && end <= fRangeEnd;
+		}
+
 		@Override
 		public int leave(IASTDeclaration declaration) {
 //			if (!shouldVisitCatchHandlers && declaration instanceof IASTFunctionDefinition) {
@@ -237,24 +293,34 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 		 * @param highlighting The highlighting
 		 */
 		private void addPosition(int offset, int length, HighlightingStyle highlighting) {
-			boolean isExisting= false;
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
-				HighlightedPosition position= fRemovedPositions.get(i);
-				if (position == null)
-					continue;
-				if (position.isEqual(offset, length, highlighting)) {
-					isExisting= true;
-					fRemovedPositions.set(i, null);
-					fNOfRemovedPositions--;
+			if (!isCollected(offset))
+				return;
+
+			// The old positions are ordered by offset, unless the document has been changed in
+			// the meantime. In that case some of the positions may not be reused.
+			final List<HighlightedPosition> oldPositions= fOldPositions;
+			int i= -1;
+			int j= oldPositions.size();
+			while (j - i > 1) {
+				int k= (i + j) >> 1;
+				if (oldPositions.get(k).getOffset() >= offset) {
+					j= k;
+				} else {
+					i= k;
+				}
+			}
+			for (; j < oldPositions.size(); j++) {
+				HighlightedPosition position= oldPositions.get(j);
+				if (position.getOffset() != offset)
 					break;
+				if (!fIsReused[j] && position.isEqual(offset, length, highlighting)) {
+					fIsReused[j]= true;
+					return;
 				}
 			}
 
-			if (!isExisting) {
-				HighlightedPosition position= fJobPresenter.createHighlightedPosition(offset, length, highlighting);
-				fAddedPositions.add(position);
-			}
+			HighlightedPosition position= fJobPresenter.createHighlightedPosition(offset, length, highlighting);
+			fAddedPositions.add(position);
 		}
 
 	}
@@ -272,8 +338,22 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 	protected List<HighlightedPosition> fAddedPositions= new ArrayList<HighlightedPosition>();
 	/** Background job's removed highlighted positions */
 	protected List<HighlightedPosition> fRemovedPositions= new ArrayList<HighlightedPosition>();
-	/** Number of removed positions */
-	protected int fNOfRemovedPositions;
+	/** Background job's highlighted positions at the start of the reconcile, ordered by offset */
+	private List<HighlightedPosition> fOldPositions= new ArrayList<HighlightedPosition>();
+	/** Flags for the old positions that have been found again */
+	private boolean[] fIsReused= new boolean[0];
+
+	/** The source viewer */
+	private ISourceViewer fSourceViewer;
+	/** The visible region of the source viewer, updated in the UI thread */
+	private volatile IRegion fVisibleRegion;
+	/** Tracks the visible region of the source viewer */
+	private final IViewportListener fViewportListener= new IViewportListener() {
+		@Override
+		public void viewportChanged(int verticalOffset) {
+			updateVisibleRegion();
+		}
+	};
 
 	/** Background job */
 	private Job fJob;
@@ -329,20 +409,25 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 			if (ast == null || fJobPresenter.isCanceled())
 				return;
 			
-			PositionCollector collector= new PositionCollector(requiresImplicitNames());
+			final boolean visitImplicitNames= requiresImplicitNames();
 
 			startReconcilingPositions();
-			
-			if (!fJobPresenter.isCanceled())
-				reconcilePositions(ast, collector);
-			
-			TextPresentation textPresentation= null;
-			if (!fJobPresenter.isCanceled())
-				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
-			
-			if (!fJobPresenter.isCanceled())
-				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
-			
+
+			final IRegion visibleRegion= fVisibleRegion;
+			if (visibleRegion != null) {
+				// Update the visible part of the file, plus a margin of the size of the visible part,
+				// first. The rest of the file is updated after the first update has been posted.
+				final int margin= visibleRegion.getLength();
+				final int rangeStart= Math.max(0, visibleRegion.getOffset() - margin);
+				final int rangeEnd= visibleRegion.getOffset() + visibleRegion.getLength() + margin;
+				reconcileAndUpdate(ast, new PositionCollector(visitImplicitNames, progressMonitor,
+						rangeStart, rangeEnd, true));
+				reconcileAndUpdate(ast, new PositionCollector(visitImplicitNames, progressMonitor,
+						rangeStart, rangeEnd, false));
+			} else {
+				reconcileAndUpdate(ast, new PositionCollector(visitImplicitNames, progressMonitor));
+			}
+
 			stopReconcilingPositions();
 		} finally {
 			fJobPresenter= null;
@@ -368,26 +453,43 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 	 * Starts reconciling positions.
 	 */
 	protected void startReconcilingPositions() {
-		fJobPresenter.addAllPositions(fRemovedPositions);
-		fNOfRemovedPositions= fRemovedPositions.size();
+		fJobPresenter.addAllPositions(fOldPositions);
+		fIsReused= new boolean[fOldPositions.size()];
+	}
+
+	/**
+	 * Reconciles the positions collected by the given collector and posts the update of
+	 * the presentation.
+	 */
+	private void reconcileAndUpdate(IASTTranslationUnit ast, PositionCollector collector) {
+		if (!fJobPresenter.isCanceled())
+			reconcilePositions(ast, collector);
+
+		TextPresentation textPresentation= null;
+		if (!fJobPresenter.isCanceled())
+			textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
+
+		if (!fJobPresenter.isCanceled())
+			updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+
+		fAddedPositions.clear();
+		fRemovedPositions.clear();
 	}
 
 	/**
 	 * Reconciles positions based on the AST.
 	 *
 	 * @param ast the AST
-	 * @param visitor the AST visitor
+	 * @param collector the AST visitor
 	 */
-	private void reconcilePositions(IASTTranslationUnit ast, PositionCollector visitor) {
-		ast.accept(visitor);
-		List<HighlightedPosition> oldPositions= fRemovedPositions;
-		List<HighlightedPosition> newPositions= new ArrayList<HighlightedPosition>(fNOfRemovedPositions);
-		for (int i= 0, n= oldPositions.size(); i < n; i ++) {
-			HighlightedPosition current= oldPositions.get(i);
-			if (current != null)
-				newPositions.add(current);
+	private void reconcilePositions(IASTTranslationUnit ast, PositionCollector collector) {
+		ast.accept(collector);
+		// The old positions that have not been found again are removed.
+		for (int i= 0, n= fOldPositions.size(); i < n; i++) {
+			HighlightedPosition current= fOldPositions.get(i);
+			if (!fIsReused[i] && collector.isCollected(current.getOffset()))
+				fRemovedPositions.add(current);
 		}
-		fRemovedPositions= newPositions;
 		// Positions need to be sorted by ascending offset
 		Collections.sort(fAddedPositions, new Comparator<Position>() {
 			@Override
@@ -433,8 +535,9 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 	 */
 	protected void stopReconcilingPositions() {
 		fRemovedPositions.clear();
-		fNOfRemovedPositions= 0;
 		fAddedPositions.clear();
+		fOldPositions.clear();
+		fIsReused= new boolean[0];
 	}
 
 	/**
@@ -451,10 +554,30 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 		fHighlightings= highlightings;
 
 		fEditor= editor;
+		fSourceViewer= sourceViewer;
 
 		if (fEditor != null) {
 			fEditor.addReconcileListener(this);
 		}
+		if (fSourceViewer != null) {
+			fSourceViewer.addViewportListener(fViewportListener);
+			updateVisibleRegion();
+		}
+	}
+
+	/**
+	 * Stores the visible region of the source viewer for use in the background thread.
+	 * <p>
+	 * NOTE: Called from UI thread.
+	 * </p>
+	 */
+	private void updateVisibleRegion() {
+		ISourceViewer sourceViewer= fSourceViewer;
+		if (sourceViewer == null)
+			return;
+		int start= sourceViewer.getTopIndexStartOffset();
+		int end= sourceViewer.getBottomIndexEndOffset();
+		fVisibleRegion= start >= 0 && end > start ? new Region(start, end - start) : null;
 	}
 
 	/**
@@ -468,6 +591,11 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 			fEditor.removeReconcileListener(this);
 			fEditor= null;
 		}
+		if (fSourceViewer != null) {
+			fSourceViewer.removeViewportListener(fViewportListener);
+			fSourceViewer= null;
+		}
+		fVisibleRegion= null;
 
 		fSemanticHighlightings= null;
 		fHighlightings= null;
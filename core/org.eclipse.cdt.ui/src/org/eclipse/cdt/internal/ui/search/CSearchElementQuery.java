@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2009 QNX Software Systems and others.
+ * Copyright (c) 2006, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,7 +46,7 @@ public class CSearchElementQuery extends CSearchQuery {
 				IBinding binding= IndexUI.elementToBinding(index, (ICElement) element);
 				if (binding != null) {
 					label= labelForBinding(index, binding, label);
-					createMatches(index, binding);
+					createMatches(index, binding, monitor);
 				}
 			}
 			return Status.OK_STATUS;
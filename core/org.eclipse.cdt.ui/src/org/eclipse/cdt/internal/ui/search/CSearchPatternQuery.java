@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 QNX Software Systems and others.
+ * Copyright (c) 2006, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -184,7 +184,7 @@ public class CSearchPatternQuery extends CSearchQuery {
 					matchedBindings.add(indexBinding);
 				}
 			}
-			createMatches(index, matchedBindings.toArray(new IIndexBinding[matchedBindings.size()]));
+			createMatches(index, matchedBindings.toArray(new IIndexBinding[matchedBindings.size()]), monitor);
 		} catch (CoreException e) {
 			return e.getStatus();
 		}
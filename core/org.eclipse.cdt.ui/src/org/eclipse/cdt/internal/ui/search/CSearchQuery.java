@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 QNX Software Systems and others.
+ * Copyright (c) 2006, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,9 +16,9 @@ package org.eclipse.cdt.internal.ui.search;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -30,6 +30,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.text.IDocument;
@@ -58,6 +59,7 @@ import org.eclipse.cdt.core.index.IIndexFile;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
 import org.eclipse.cdt.core.index.IIndexManager;
 import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.index.IIndexNameVisitor;
 import org.eclipse.cdt.core.index.IndexLocationFactory;
 import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.model.ICElement;
@@ -81,6 +83,11 @@ public abstract class CSearchQuery implements ISearchQuery {
 	public static final int FIND_DECLARATIONS_DEFINITIONS = FIND_DECLARATIONS | FIND_DEFINITIONS;
 	public static final int FIND_ALL_OCCURRENCES = FIND_DECLARATIONS | FIND_DEFINITIONS | FIND_REFERENCES;
 
+	/**
+	 * Minimum number of matches that are added to the search result at once.
+	 */
+	private static final int MATCHES_PER_PAGE= 200;
+
 	protected static final long LABEL_FLAGS=
 			CElementLabels.M_PARAMETER_TYPES |
 			CElementLabels.ALL_FULLY_QUALIFIED |
@@ -223,37 +230,6 @@ public abstract class CSearchQuery implements ISearchQuery {
 		return false; // i.e. keep it
 	}
 
-	private void createMatchesFromNames(IIndex index, Map<IIndexFile, Set<Match>> fileMatches,
-			Collection<IIndexName> names, boolean isPolymorphicOnly) throws CoreException {
-		if (names == null)
-			return;
-
-		ICProject preferred = getPreferredProject();
-		for (IIndexName name : names) {
-			if (!filterName(name)) {
-				if (!isPolymorphicOnly || name.couldBePolymorphicMethodCall()) {
-					IASTFileLocation loc = name.getFileLocation();
-					IIndexFile file = name.getFile();
-					Set<Match> matches = fileMatches.get(file);
-					if (matches == null) {
-						matches = new HashSet<Match>();
-						fileMatches.put(file, matches);
-					}
-					int nodeOffset = loc.getNodeOffset();
-					int nodeLength = loc.getNodeLength();
-					ICElement enclosingElement = null;
-					IIndexName enclosingDefinition = name.getEnclosingDefinition();
-					if (enclosingDefinition != null) {
-						enclosingElement = IndexUI.getCElementForName(preferred, index, enclosingDefinition);
-					}
-					boolean isWriteAccess = name.isWriteAccess();
-					matches.add(new Match(nodeOffset, nodeLength, isPolymorphicOnly, enclosingElement,
-							isWriteAccess));
-				}
-			}
-		}
-	}
-
 	private Set<Match> convertMatchesPositions(IIndexFile file, Set<Match> matches) throws CoreException {
 		IPath path = IndexLocationFactory.getPath(file.getLocation());
 		long timestamp = file.getTimestamp();
@@ -275,36 +251,121 @@ public abstract class CSearchQuery implements ISearchQuery {
 		return matches;
 	}
 
-	private void collectNames(IIndex index, Collection<IIndexName> names,
-			Collection<IIndexName> polymorphicNames) throws CoreException {
-		// group all matched names by files
-		Map<IIndexFile, Set<Match>> fileMatches = new HashMap<IIndexFile, Set<Match>>();
-		createMatchesFromNames(index, fileMatches, names, false);
-		createMatchesFromNames(index, fileMatches, polymorphicNames, true);
-		// compute mapping from paths to dirty text editors
-		IEditorPart[] dirtyEditors = CUIPlugin.getDirtyEditors();
-		Map<IPath, ITextEditor> pathsDirtyEditors = new HashMap<IPath, ITextEditor>();
-		for (IEditorPart editorPart : dirtyEditors) {
-			if (editorPart instanceof ITextEditor) {
-				ITextEditor textEditor = (ITextEditor)editorPart;
-				IEditorInput editorInput = editorPart.getEditorInput();
-				if (editorInput instanceof IPathEditorInput) {
-					IPathEditorInput pathEditorInput = (IPathEditorInput)editorInput;
-					pathsDirtyEditors.put(pathEditorInput.getPath(), textEditor);
+	/**
+	 * Collects the matches for the names passed by the index and adds them to the search result
+	 * page by page. The matches of a file are grouped by lines, therefore the matches of the files
+	 * are added to the result when the names of another file are passed, or at the end. When names
+	 * of a file are passed after its matches have been added to the result, the matches of the file
+	 * are replaced.
+	 */
+	private class MatchCollector implements IIndexNameVisitor {
+		private final IIndex fIndex;
+		private final IProgressMonitor fMonitor;
+		private final ICProject fPreferred;
+		private final Map<IPath, ITextEditor> fDirtyEditors= new HashMap<IPath, ITextEditor>();
+		private final Map<IIndexFile, Set<Match>> fPendingMatches= new LinkedHashMap<IIndexFile, Set<Match>>();
+		private final Map<IIndexFile, ReportedMatches> fReportedMatches= new HashMap<IIndexFile, ReportedMatches>();
+		private int fPendingCount;
+		private IIndexFile fLastFile;
+		private boolean fIsPolymorphicOnly;
+
+		MatchCollector(IIndex index, IProgressMonitor monitor) {
+			fIndex= index;
+			fMonitor= monitor;
+			fPreferred= getPreferredProject();
+			// compute mapping from paths to dirty text editors
+			for (IEditorPart editorPart : CUIPlugin.getDirtyEditors()) {
+				if (editorPart instanceof ITextEditor) {
+					IEditorInput editorInput = editorPart.getEditorInput();
+					if (editorInput instanceof IPathEditorInput) {
+						fDirtyEditors.put(((IPathEditorInput) editorInput).getPath(), (ITextEditor) editorPart);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Collects the matches for the names of the given binding.
+		 * @throws OperationCanceledException if the search is cancelled
+		 */
+		void collect(IBinding binding, boolean isPolymorphicOnly) throws CoreException {
+			fIsPolymorphicOnly= isPolymorphicOnly;
+			if (!fIndex.findNames(binding, flags, this)) {
+				throw new OperationCanceledException();
+			}
+		}
+
+		@Override
+		public boolean visit(IIndexName name) throws CoreException {
+			if (fMonitor.isCanceled())
+				return false;
+			if (filterName(name) || (fIsPolymorphicOnly && !name.couldBePolymorphicMethodCall()))
+				return true;
+
+			IIndexFile file = name.getFile();
+			if (fullPathFilter != null) {
+				String fullPath= file.getLocation().getFullPath();
+				if (fullPath == null || !accept(fullPath))
+					return true;
+			}
+			if (!file.equals(fLastFile)) {
+				if (fPendingCount >= MATCHES_PER_PAGE) {
+					flush();
+				}
+				fLastFile= file;
+			}
+			Set<Match> matches = fPendingMatches.get(file);
+			if (matches == null) {
+				matches = new HashSet<Match>();
+				fPendingMatches.put(file, matches);
+			}
+			IASTFileLocation loc = name.getFileLocation();
+			ICElement enclosingElement = null;
+			IIndexName enclosingDefinition = name.getEnclosingDefinition();
+			if (enclosingDefinition != null) {
+				enclosingElement = IndexUI.getCElementForName(fPreferred, fIndex, enclosingDefinition);
+			}
+			if (matches.add(new Match(loc.getNodeOffset(), loc.getNodeLength(), fIsPolymorphicOnly,
+					enclosingElement, name.isWriteAccess()))) {
+				fPendingCount++;
+			}
+			return true;
+		}
+
+		/**
+		 * Adds the pending matches to the search result.
+		 */
+		void flush() throws CoreException {
+			for (Entry<IIndexFile, Set<Match>> entry : fPendingMatches.entrySet()) {
+				IIndexFile file = entry.getKey();
+				Set<Match> matches = entry.getValue();
+				ReportedMatches reported = fReportedMatches.get(file);
+				if (reported != null) {
+					matches.removeAll(reported.fMatches);
+					if (matches.isEmpty())
+						continue;
+					// Replace the matches of the file, such that there is one element per line.
+					result.removeMatches(reported.fSearchMatches);
+					Set<Match> merged = new HashSet<Match>(reported.fMatches);
+					merged.addAll(matches);
+					matches = merged;
 				}
+				CSearchMatch[] searchMatches = createSearchMatches(file, matches);
+				result.addMatches(searchMatches);
+				fReportedMatches.put(file, new ReportedMatches(matches, searchMatches));
 			}
+			fPendingMatches.clear();
+			fPendingCount= 0;
 		}
-		// for each file with matches create line elements with matches
-		for (Entry<IIndexFile, Set<Match>> entry : fileMatches.entrySet()) {
-			IIndexFile file = entry.getKey();
-			Set<Match> matches = entry.getValue();
-			LineSearchElement[] lineElements = {};
+
+		private CSearchMatch[] createSearchMatches(IIndexFile file, Set<Match> matches) throws CoreException {
+			LineSearchElement[] lineElements;
 			// check if there is dirty text editor corresponding to file and convert matches
 			IPath absolutePath = IndexLocationFactory.getAbsolutePath(file.getLocation());
-			if (pathsDirtyEditors.containsKey(absolutePath)) {
+			ITextEditor textEditor = fDirtyEditors.get(absolutePath);
+			if (textEditor != null) {
 				matches = convertMatchesPositions(file, matches);
 				// scan dirty editor and group matches by line elements
-				ITextEditor textEditor = pathsDirtyEditors.get(absolutePath);
 				IEditorInput input = textEditor.getEditorInput();
 				IDocument document = textEditor.getDocumentProvider().getDocument(input);
 				Match[] matchesArray = matches.toArray(new Match[matches.size()]);
@@ -315,6 +376,7 @@ public abstract class CSearchQuery implements ISearchQuery {
 				lineElements = LineSearchElement.createElements(file.getLocation(), matchesArray);
 			}
 			// create real PDOMSearchMatch with corresponding line elements
+			List<CSearchMatch> searchMatches = new ArrayList<CSearchMatch>();
 			for (LineSearchElement searchElement : lineElements) {
 				for (Match lineMatch : searchElement.getMatches()) {
 					int offset = lineMatch.getOffset();
@@ -322,26 +384,56 @@ public abstract class CSearchQuery implements ISearchQuery {
 					CSearchMatch match = new CSearchMatch(searchElement, offset, length);
 					if (lineMatch.isPolymorphicCall())
 						match.setIsPolymorphicCall();
-					result.addMatch(match);
+					searchMatches.add(match);
 				}
 			}
+			return searchMatches.toArray(new CSearchMatch[searchMatches.size()]);
+		}
+	}
+
+	/**
+	 * The matches of a file that have been added to the search result.
+	 */
+	private static class ReportedMatches {
+		final Set<Match> fMatches;
+		final CSearchMatch[] fSearchMatches;
+
+		ReportedMatches(Set<Match> matches, CSearchMatch[] searchMatches) {
+			fMatches= matches;
+			fSearchMatches= searchMatches;
 		}
 	}
 
 	protected void createMatches(IIndex index, IBinding binding) throws CoreException {
-		createMatches(index, new IBinding[] { binding });
+		createMatches(index, new IBinding[] { binding }, null);
+	}
+
+	protected void createMatches(IIndex index, IBinding binding, IProgressMonitor monitor) throws CoreException {
+		createMatches(index, new IBinding[] { binding }, monitor);
 	}
 
 	protected void createMatches(IIndex index, IBinding[] bindings) throws CoreException {
+		createMatches(index, bindings, null);
+	}
+
+	/**
+	 * Adds the matches for the names of the given bindings to the search result. The names are
+	 * not collected upfront, the matches are added while the names are read from the index.
+	 * @param monitor a progress monitor for cancelling the search, or <code>null</code>
+	 * @throws OperationCanceledException if the search is cancelled
+	 */
+	protected void createMatches(IIndex index, IBinding[] bindings, IProgressMonitor monitor) throws CoreException {
 		if (bindings == null)
 			return;
-		List<IIndexName> names= new ArrayList<IIndexName>();
-		List<IIndexName> polymorphicNames= null;
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+		MatchCollector collector= new MatchCollector(index, monitor);
+		List<IBinding> overridden= null;
 		HashSet<IBinding> handled= new HashSet<IBinding>();
 
 		for (IBinding binding : bindings) {
 			if (binding != null && handled.add(binding)) {
-				createMatches1(index, binding, names);
+				collector.collect(binding, false);
 			}
 		}
 
@@ -351,7 +443,7 @@ public abstract class CSearchQuery implements ISearchQuery {
 					List<? extends IBinding> specializations = IndexUI.findSpecializations(index, binding);
 					for (IBinding spec : specializations) {
 						if (spec != null && handled.add(spec)) {
-							createMatches1(index, spec, names);
+							collector.collect(spec, false);
 						}
 					}
 
@@ -360,35 +452,25 @@ public abstract class CSearchQuery implements ISearchQuery {
 						IASTNode point = null; // Instantiation of dependent expressions may not work.
 						ICPPMethod[] msInBases = ClassTypeHelper.findOverridden(m, point);
 						if (msInBases.length > 0) {
-							if (polymorphicNames == null) {
-								polymorphicNames= new ArrayList<IIndexName>();
-							}
-							for (ICPPMethod mInBase : msInBases) {
-								if (mInBase != null && handled.add(mInBase)) {
-									createMatches1(index, mInBase, polymorphicNames);
-								}
+							if (overridden == null) {
+								overridden= new ArrayList<IBinding>();
 							}
+							overridden.addAll(Arrays.asList(msInBases));
 						}
 					}
 				}
 			}
 		}
-		if (!names.isEmpty()) {
-			collectNames(index, names, polymorphicNames);
-		}
-	}
-
-	private void createMatches1(IIndex index, IBinding binding, List<IIndexName> names) throws CoreException {
-		IIndexName[] bindingNames= index.findNames(binding, flags);
-		if (fullPathFilter == null) {
-			names.addAll(Arrays.asList(bindingNames));
-		} else {
-			for (IIndexName name : bindingNames) {
-				String fullPath= name.getFile().getLocation().getFullPath();
-				if (fullPath != null && accept(fullPath))
-					names.add(name);
+		// Polymorphic calls are collected last, such that the matches of the ordinary
+		// references take precedence.
+		if (overridden != null) {
+			for (IBinding mInBase : overridden) {
+				if (mInBase != null && handled.add(mInBase)) {
+					collector.collect(mInBase, true);
+				}
 			}
 		}
+		collector.flush();
 	}
 
 	private boolean accept(String fullPath) {
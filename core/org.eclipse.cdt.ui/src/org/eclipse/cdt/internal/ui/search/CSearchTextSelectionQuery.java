@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2009 QNX Software Systems and others.
+ * Copyright (c) 2006, 2013 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,7 +51,7 @@ public class CSearchTextSelectionQuery extends CSearchQuery {
 	}
 
 	@Override
-	protected IStatus runWithIndex(final IIndex index, IProgressMonitor monitor) {
+	protected IStatus runWithIndex(final IIndex index, final IProgressMonitor monitor) {
 		return ASTProvider.getASTProvider().runOnAST(tu, ASTProvider.WAIT_ACTIVE_ONLY, monitor, new ASTRunnable() {
 			@Override
 			public IStatus runOnAST(ILanguage language, IASTTranslationUnit ast) throws CoreException {
@@ -76,7 +76,7 @@ public class CSearchTextSelectionQuery extends CSearchQuery {
 							binding= CPPTemplates.findDeclarationForSpecialization(binding);
 							if (binding != null) {
 								label= labelForBinding(index, binding, label);
-								createMatches(index, binding);
+								createMatches(index, binding, monitor);
 								return Status.OK_STATUS;
 							}
 						}
@@ -218,24 +218,22 @@ class THGraph {
 			try {
 				IBinding binding = IndexUI.elementToBinding(index, elem);
 				if (binding != null) {
-					IIndexName[] names= index.findNames(binding, IIndex.FIND_REFERENCES | IIndex.FIND_DEFINITIONS);
+					IIndexName[] names= index.findBaseSpecifiers(binding);
 					for (IIndexName indexName : names) {
 						if (monitor.isCanceled()) {
 							return;
 						}
-						if (indexName.isBaseSpecifier()) {
-							IIndexName subClassDef= indexName.getEnclosingDefinition();
-							if (subClassDef != null) {
-								IBinding subClass= index.findBinding(subClassDef);
-								ICElementHandle[] subClassElems= IndexUI.findRepresentative(index, subClass);
-								if (subClassElems.length > 0) {
-									ICElementHandle subClassElem= subClassElems[0];
-									THGraphNode subGraphNode= addNode(subClassElem);
-									addMembers(index, subGraphNode, subClass);							
-									addEdge(subGraphNode, graphNode);
-									if (handled.add(subClassElem)) {
-										stack.add(subClassElem);
-									}
+						IIndexName subClassDef= indexName.getEnclosingDefinition();
+						if (subClassDef != null) {
+							IBinding subClass= index.findBinding(subClassDef);
+							ICElementHandle[] subClassElems= IndexUI.findRepresentative(index, subClass);
+							if (subClassElems.length > 0) {
+								ICElementHandle subClassElem= subClassElems[0];
+								THGraphNode subGraphNode= addNode(subClassElem);
+								addMembers(index, subGraphNode, subClass);							
+								addEdge(subGraphNode, graphNode);
+								if (handled.add(subClassElem)) {
+									stack.add(subClassElem);
 								}
 							}
 						}